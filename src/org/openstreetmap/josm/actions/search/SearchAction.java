@@ -9,13 +9,16 @@ import java.awt.Component;
 import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.swing.JOptionPane;
 
@@ -23,14 +26,17 @@ import org.openstreetmap.josm.actions.ActionParameter;
 import org.openstreetmap.josm.actions.ExpertToggleAction;
 import org.openstreetmap.josm.actions.JosmAction;
 import org.openstreetmap.josm.actions.ParameterizedAction;
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.OsmData;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.search.PushbackTokenizer;
 import org.openstreetmap.josm.data.osm.search.SearchCompiler;
 import org.openstreetmap.josm.data.osm.search.SearchCompiler.Match;
 import org.openstreetmap.josm.data.osm.search.SearchCompiler.SimpleMatchFactory;
 import org.openstreetmap.josm.data.osm.search.SearchMode;
 import org.openstreetmap.josm.data.osm.search.SearchParseError;
+import org.openstreetmap.josm.data.osm.search.SearchPlanner;
 import org.openstreetmap.josm.data.osm.search.SearchSetting;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
@@ -327,6 +333,11 @@ public class SearchAction extends JosmAction implements ParameterizedAction {
     }
 
     static final class SearchTask extends PleaseWaitRunnable {
+        /** The number of primitives evaluated between progress updates */
+        private static final int CHUNK_SIZE = 10_000;
+        /** The minimum number of primitives that are evaluated in parallel */
+        private static final int PARALLEL_THRESHOLD = 1_000;
+
         private final OsmData<?, ?, ?, ?> ds;
         private final SearchSetting setting;
         private final Collection<IPrimitive> selection;
@@ -382,8 +393,19 @@ public class SearchAction extends JosmAction implements ParameterizedAction {
                     foundMatches = selection.size();
                 }
 
-                Collection<? extends IPrimitive> all;
-                if (setting.allElements) {
+                Collection<? extends IPrimitive> all = null;
+                if (setting.mode != SearchMode.in_selection && ds instanceof DataSet) {
+                    // only the primitives found in the indexes of the data set can match
+                    Collection<OsmPrimitive> candidates = SearchPlanner.getCandidates(matcher, (DataSet) ds);
+                    if (candidates != null) {
+                        all = candidates.stream()
+                                .filter(p -> p.getDataSet() == ds && (setting.allElements || p.isSelectable()))
+                                .collect(Collectors.toList());
+                    }
+                }
+                if (all != null) {
+                    Logging.debug("Searching {0} candidates for {1}", all.size(), matcher);
+                } else if (setting.allElements) {
                     all = ds.allPrimitives();
                 } else {
                     all = ds.getPrimitives(p -> p.isSelectable()); // Do not use method reference before Java 11!
@@ -391,26 +413,42 @@ public class SearchAction extends JosmAction implements ParameterizedAction {
                 final ProgressMonitor subMonitor = getProgressMonitor().createSubTaskMonitor(all.size(), false);
                 subMonitor.beginTask(trn("Searching in {0} object", "Searching in {0} objects", all.size(), all.size()));
 
-                for (IPrimitive osm : all) {
+                final Predicate<IPrimitive> test;
+                if (setting.mode == SearchMode.add) {
+                    test = osm -> !predicate.test(osm) && matcher.match(osm);
+                } else if (setting.mode == SearchMode.remove) {
+                    test = osm -> predicate.test(osm) && matcher.match(osm);
+                } else if (setting.mode == SearchMode.in_selection) {
+                    test = osm -> predicate.test(osm) && !matcher.match(osm);
+                } else {
+                    test = osm -> matcher.match(osm);
+                }
+                // MapCSS selectors and matches contributed by plugins may not be safe to evaluate concurrently
+                final boolean parallel = SearchCompiler.getReferenceDepth(matcher) >= 0;
+                // evaluate the primitives in chunks, to report progress and allow to cancel
+                List<IPrimitive> chunk = new ArrayList<>(Math.min(all.size(), CHUNK_SIZE));
+                for (Iterator<? extends IPrimitive> it = all.iterator(); it.hasNext();) {
+                    chunk.add(it.next());
+                    if (chunk.size() < CHUNK_SIZE && it.hasNext()) {
+                        continue;
+                    }
                     if (canceled) {
                         return;
                     }
-                    if (setting.mode == SearchMode.replace) {
-                        if (matcher.match(osm)) {
-                            selection.add(osm);
-                            ++foundMatches;
-                        }
-                    } else if (setting.mode == SearchMode.add && !predicate.test(osm) && matcher.match(osm)) {
-                        selection.add(osm);
-                        ++foundMatches;
-                    } else if (setting.mode == SearchMode.remove && predicate.test(osm) && matcher.match(osm)) {
-                        selection.remove(osm);
-                        ++foundMatches;
-                    } else if (setting.mode == SearchMode.in_selection && predicate.test(osm) && !matcher.match(osm)) {
-                        selection.remove(osm);
-                        --foundMatches;
+                    List<IPrimitive> found = (parallel && chunk.size() >= PARALLEL_THRESHOLD ? chunk.parallelStream() : chunk.stream())
+                            .filter(test).collect(Collectors.toList());
+                    if (setting.mode == SearchMode.replace || setting.mode == SearchMode.add) {
+                        selection.addAll(found);
+                        foundMatches += found.size();
+                    } else if (setting.mode == SearchMode.remove) {
+                        found.forEach(selection::remove);
+                        foundMatches += found.size();
+                    } else if (setting.mode == SearchMode.in_selection) {
+                        found.forEach(selection::remove);
+                        foundMatches -= found.size();
                     }
-                    subMonitor.worked(1);
+                    subMonitor.worked(chunk.size());
+                    chunk.clear();
                 }
                 subMonitor.finishTask();
             } catch (SearchParseError e) {
@@ -15,6 +15,7 @@ import javax.swing.JScrollPane;
 import org.openstreetmap.josm.data.APIDataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.data.validation.IncrementalValidator;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.Test;
@@ -58,24 +59,35 @@ public class ValidateUploadHook implements UploadHook {
         v.visit(apiDataSet.getPrimitivesToAdd());
         Collection<OsmPrimitive> selection = v.visit(apiDataSet.getPrimitivesToUpdate());
 
+        MapFrame map = MainApplication.getMap();
+        IncrementalValidator incrementalValidator = map != null ? map.validatorDialog.getIncrementalValidator() : null;
+        if (incrementalValidator != null) {
+            incrementalValidator.suspend();
+        }
         List<TestError> errors = new ArrayList<>(30);
-        for (Test test : tests) {
-            test.setBeforeUpload(true);
-            test.setPartialSelection(true);
-            test.startTest(null);
-            test.visit(selection);
-            test.endTest();
-            if (ValidatorPrefHelper.PREF_OTHER.get() && ValidatorPrefHelper.PREF_OTHER_UPLOAD.get()) {
-                errors.addAll(test.getErrors());
-            } else {
-                for (TestError e : test.getErrors()) {
-                    if (e.getSeverity() != Severity.OTHER) {
-                        errors.add(e);
+        try {
+            for (Test test : tests) {
+                test.setBeforeUpload(true);
+                test.setPartialSelection(true);
+                test.startTest(null);
+                test.visit(selection);
+                test.endTest();
+                if (ValidatorPrefHelper.PREF_OTHER.get() && ValidatorPrefHelper.PREF_OTHER_UPLOAD.get()) {
+                    errors.addAll(test.getErrors());
+                } else {
+                    for (TestError e : test.getErrors()) {
+                        if (e.getSeverity() != Severity.OTHER) {
+                            errors.add(e);
+                        }
                     }
                 }
+                test.clear();
+                test.setBeforeUpload(false);
+            }
+        } finally {
+            if (incrementalValidator != null) {
+                incrementalValidator.resume();
             }
-            test.clear();
-            test.setBeforeUpload(false);
         }
 
         if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get())) {
@@ -87,7 +99,6 @@ public class ValidateUploadHook implements UploadHook {
             editLayer.validationErrors.clear();
             editLayer.validationErrors.addAll(errors);
         }
-        MapFrame map = MainApplication.getMap();
         if (map != null) {
             map.validatorDialog.tree.setErrors(errors);
         }
@@ -156,6 +156,15 @@ public class AddPrimitivesCommand extends Command {
         // Does nothing because we don't want to create OsmPrimitives.
     }
 
+    @Override
+    public long getRetainedSize() {
+        long size = super.getRetainedSize();
+        for (PrimitiveData d : data) {
+            size += PrimitiveBackup.getRetainedSize(d);
+        }
+        return size;
+    }
+
     @Override
     public Collection<? extends OsmPrimitive> getParticipatingPrimitives() {
         if (createdPrimitives != null)
@@ -8,6 +8,7 @@ import static org.openstreetmap.josm.tools.I18n.trn;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -124,6 +125,19 @@ public class ChangePropertyCommand extends Command {
         this(Collections.singleton(object), key, value);
     }
 
+    /**
+     * Creates the command resulting from the merge of two commands, see {@link #mergeWith(Command)}.
+     *
+     * @param first the command executed first
+     * @param next the command executed after the first one, changing the same tags of the same objects
+     */
+    private ChangePropertyCommand(ChangePropertyCommand first, ChangePropertyCommand next) {
+        super(first.getAffectedDataSet());
+        this.tags = next.tags;
+        this.objects.addAll(first.objects);
+        copyOrig(first);
+    }
+
     /**
      * Initialize the instance by finding what objects will be modified
      *
@@ -276,6 +290,23 @@ public class ChangePropertyCommand extends Command {
         return Collections.unmodifiableMap(tags);
     }
 
+    /**
+     * Merges a command changing the same tags of the same objects. The merged command sets the tags of the given command,
+     * and undoing it restores the tags from before this command.
+     */
+    @Override
+    public Command mergeWith(Command next) {
+        if (!(next instanceof ChangePropertyCommand) || next.getAffectedDataSet() != getAffectedDataSet()) {
+            return null;
+        }
+        ChangePropertyCommand that = (ChangePropertyCommand) next;
+        if (objects.isEmpty() || !tags.keySet().equals(that.tags.keySet())
+                || !new HashSet<>(objects).equals(new HashSet<>(that.objects))) {
+            return null;
+        }
+        return new ChangePropertyCommand(this, that);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode(), objects, tags);
@@ -1,14 +1,15 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.command;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 
+import org.openstreetmap.josm.data.UndoJournal;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -122,7 +123,7 @@ public abstract class Command implements PseudoCommand {
     }
 
     /** the map of OsmPrimitives in the original state to OsmPrimitives in cloned state */
-    private Map<OsmPrimitive, PrimitiveData> cloneMap = Collections.emptyMap();
+    private PrimitiveBackup cloneMap = PrimitiveBackup.EMPTY;
 
     /** the dataset which this command is applied to */
     private final DataSet data;
@@ -153,7 +154,7 @@ public abstract class Command implements PseudoCommand {
         for (OsmPrimitive osm : all) {
             osm.accept(visitor);
         }
-        cloneMap = visitor.orig;
+        cloneMap = new PrimitiveBackup(visitor.orig);
         return true;
     }
 
@@ -165,7 +166,7 @@ public abstract class Command implements PseudoCommand {
      * This implementation undoes all objects stored by a former call to executeCommand.
      */
     public void undoCommand() {
-        for (Entry<OsmPrimitive, PrimitiveData> e : cloneMap.entrySet()) {
+        for (Entry<OsmPrimitive, PrimitiveData> e : cloneMap.get().entrySet()) {
             OsmPrimitive primitive = e.getKey();
             if (primitive.getDataSet() != null) {
                 e.getKey().load(e.getValue());
@@ -180,7 +181,7 @@ public abstract class Command implements PseudoCommand {
      * @return The original version of the requested object, if any
      */
     public PrimitiveData getOrig(OsmPrimitive osm) {
-        return cloneMap.get(osm);
+        return cloneMap.get().get(osm);
     }
 
     /**
@@ -210,7 +211,55 @@ public abstract class Command implements PseudoCommand {
      */
     @Override
     public Collection<? extends OsmPrimitive> getParticipatingPrimitives() {
-        return cloneMap.keySet();
+        return cloneMap.keys();
+    }
+
+    /**
+     * Returns the estimated memory retained by this command to be able to undo it.
+     * This implementation counts the original state of the objects remembered by {@link #executeCommand()}.
+     * @return the estimated size in bytes
+     * @see org.openstreetmap.josm.data.UndoRedoHandler
+     * @since xxx
+     */
+    public long getRetainedSize() {
+        return cloneMap.getRetainedSize();
+    }
+
+    /**
+     * Moves the data this command needs for undoing to the given journal, in order to release memory.
+     * The data is read back from the journal when the command is undone.
+     * This implementation moves the original state of the objects remembered by {@link #executeCommand()}.
+     * @param journal the journal
+     * @throws IOException if the data cannot be written to the journal
+     * @since xxx
+     */
+    public void spill(UndoJournal journal) throws IOException {
+        cloneMap.spill(journal);
+    }
+
+    /**
+     * Returns a command doing the work of this command and of the given command, which has just been executed after this one.
+     * <p>
+     * Undoing the merged command must restore the state from before this command, and redoing it must restore the state
+     * after the given command. Neither this command nor the given command are changed.
+     * Commands opt in by overriding this method, this implementation does not merge commands.
+     * @param next the command executed after this one
+     * @return the merged command, or {@code null} if the commands cannot be merged
+     * @see org.openstreetmap.josm.data.UndoRedoHandler
+     * @since xxx
+     */
+    public Command mergeWith(Command next) {
+        return null;
+    }
+
+    /**
+     * Uses the original state of the objects remembered by the given command to undo this command.
+     * This is meant to be used by {@link #mergeWith(Command)} for the merged command, which has not been executed itself.
+     * @param command the command which has been executed first
+     * @since xxx
+     */
+    protected final void copyOrig(Command command) {
+        cloneMap = command.cloneMap;
     }
 
     /**
@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
 import static org.openstreetmap.josm.tools.I18n.trn;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -21,6 +22,7 @@ import java.util.stream.Collectors;
 
 import javax.swing.Icon;
 
+import org.openstreetmap.josm.data.UndoJournal;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.DefaultNameFormatter;
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -119,7 +121,7 @@ public class DeleteCommand extends Command {
      * The primitives that get deleted.
      */
     private final Collection<? extends OsmPrimitive> toDelete;
-    private final Map<OsmPrimitive, PrimitiveData> clonedPrimitives = new HashMap<>();
+    private PrimitiveBackup clonedPrimitives = PrimitiveBackup.EMPTY;
 
     /**
      * Constructor. Deletes a collection of primitives in the current edit layer.
@@ -189,12 +191,14 @@ public class DeleteCommand extends Command {
 
         getAffectedDataSet().update(() -> {
             // Make copy and remove all references (to prevent inconsistent dataset (delete referenced) while command is executed)
+            Map<OsmPrimitive, PrimitiveData> cloned = new HashMap<>();
             for (OsmPrimitive osm : toDelete) {
                 if (osm.isDeleted())
                     throw new IllegalArgumentException(osm + " is already deleted");
-                clonedPrimitives.put(osm, osm.save());
+                cloned.put(osm, osm.save());
                 IPrimitive.resetPrimitiveChildren(osm);
             }
+            clonedPrimitives = new PrimitiveBackup(cloned);
 
             for (OsmPrimitive osm : toDelete) {
                 osm.setDeleted(true);
@@ -212,7 +216,7 @@ public class DeleteCommand extends Command {
                 osm.setDeleted(false);
             }
 
-            for (Entry<OsmPrimitive, PrimitiveData> entry : clonedPrimitives.entrySet()) {
+            for (Entry<OsmPrimitive, PrimitiveData> entry : clonedPrimitives.get().entrySet()) {
                 entry.getKey().load(entry.getValue());
             }
         });
@@ -269,6 +273,17 @@ public class DeleteCommand extends Command {
             return ImageProvider.get(typesToDelete.iterator().next());
     }
 
+    @Override
+    public long getRetainedSize() {
+        return super.getRetainedSize() + clonedPrimitives.getRetainedSize();
+    }
+
+    @Override
+    public void spill(UndoJournal journal) throws IOException {
+        super.spill(journal);
+        clonedPrimitives.spill(journal);
+    }
+
     @Override public Collection<PseudoCommand> getChildren() {
         if (toDelete.size() == 1)
             return null;
@@ -297,6 +297,12 @@ public class MoveCommand extends Command {
         return nodes;
     }
 
+    @Override
+    public long getRetainedSize() {
+        // list entry, old state with its coordinates
+        return super.getRetainedSize() + 136L * oldState.size();
+    }
+
     /**
      * Gets the current move offset.
      * @return The current move offset.
@@ -0,0 +1,133 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.UndoJournal;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
+import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
+
+/**
+ * The saved state of the primitives modified by a command, used to undo it.
+ * <p>
+ * The saved state can be moved to an {@link UndoJournal} to release memory. It is then read back from the journal
+ * when it is needed again, the primitives themselves are still kept in memory.
+ * <p>
+ * Backups are compared by identity, so that comparing commands does not read the saved state from the journal.
+ * @since xxx
+ */
+final class PrimitiveBackup {
+
+    /** The empty backup */
+    static final PrimitiveBackup EMPTY = new PrimitiveBackup(Collections.emptyMap());
+
+    private Map<OsmPrimitive, PrimitiveData> map;
+    private OsmPrimitive[] keys;
+    private UndoJournal journal;
+    private UndoJournal.Entry entry;
+
+    /**
+     * Constructs a new {@code PrimitiveBackup}.
+     * @param map the map of primitives to their saved state
+     */
+    PrimitiveBackup(Map<OsmPrimitive, PrimitiveData> map) {
+        this.map = map;
+    }
+
+    /**
+     * Returns the saved state, reading it from the journal if needed.
+     * @return the map of primitives to their saved state
+     */
+    synchronized Map<OsmPrimitive, PrimitiveData> get() {
+        if (map == null) {
+            try {
+                @SuppressWarnings("unchecked")
+                List<PrimitiveData> values = (List<PrimitiveData>) journal.read(entry);
+                Map<OsmPrimitive, PrimitiveData> loaded = new LinkedHashMap<>(keys.length * 4 / 3 + 1);
+                for (int i = 0; i < keys.length; i++) {
+                    loaded.put(keys[i], values.get(i));
+                }
+                map = loaded;
+                keys = null;
+                journal.release(entry);
+                journal = null;
+                entry = null;
+            } catch (IOException | ClassCastException | IndexOutOfBoundsException e) {
+                throw new JosmRuntimeException(e);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns the primitives, without reading the saved state from the journal.
+     * @return the primitives
+     */
+    synchronized Collection<OsmPrimitive> keys() {
+        return map != null ? map.keySet() : Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Determines if the saved state is in the journal.
+     * @return {@code true} if the saved state is in the journal
+     */
+    synchronized boolean isSpilled() {
+        return map == null;
+    }
+
+    /**
+     * Writes the saved state to the journal and releases it from memory.
+     * @param undoJournal the journal
+     * @throws IOException if the saved state cannot be written
+     */
+    synchronized void spill(UndoJournal undoJournal) throws IOException {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        entry = undoJournal.write(new ArrayList<>(map.values()));
+        journal = undoJournal;
+        keys = map.keySet().toArray(new OsmPrimitive[0]);
+        map = null;
+    }
+
+    /**
+     * Returns the estimated memory retained by the saved state.
+     * @return the estimated size in bytes
+     */
+    synchronized long getRetainedSize() {
+        if (map == null) {
+            return 16L + 8L * keys.length;
+        }
+        long size = 0;
+        for (PrimitiveData data : map.values()) {
+            size += getRetainedSize(data);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated memory retained by the saved state of one primitive, including its map entry.
+     * @param primitive the primitive
+     * @return the estimated size in bytes
+     */
+    static long getRetainedSize(IPrimitive primitive) {
+        long size = 104L + 16L * primitive.getNumKeys();
+        if (primitive instanceof IWay) {
+            size += 24L * ((IWay<?>) primitive).getNodesCount();
+        } else if (primitive instanceof IRelation) {
+            size += 48L * ((IRelation<?>) primitive).getMembersCount();
+        }
+        return size;
+    }
+}
@@ -266,6 +266,19 @@ public class PurgeCommand extends Command {
         return toPurge;
     }
 
+    @Override
+    public long getRetainedSize() {
+        // the purged primitives are only referenced by this command
+        long size = super.getRetainedSize();
+        for (OsmPrimitive osm : toPurge) {
+            size += PrimitiveBackup.getRetainedSize(osm);
+        }
+        for (PrimitiveData data : makeIncompleteData) {
+            size += PrimitiveBackup.getRetainedSize(data);
+        }
+        return size;
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         // Do nothing
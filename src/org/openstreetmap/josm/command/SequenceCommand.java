@@ -3,6 +3,7 @@ package org.openstreetmap.josm.command;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -12,6 +13,7 @@ import java.util.stream.Stream;
 
 import javax.swing.Icon;
 
+import org.openstreetmap.josm.data.UndoJournal;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.tools.ImageProvider;
@@ -207,6 +209,23 @@ public class SequenceCommand extends Command {
         return prims;
     }
 
+    @Override
+    public long getRetainedSize() {
+        long size = super.getRetainedSize();
+        for (Command c : sequence) {
+            size += c.getRetainedSize();
+        }
+        return size;
+    }
+
+    @Override
+    public void spill(UndoJournal journal) throws IOException {
+        super.spill(journal);
+        for (Command c : sequence) {
+            c.spill(journal);
+        }
+    }
+
     protected final void setSequence(Command... sequence) {
         this.sequence = Utils.copyArray(sequence);
     }
@@ -0,0 +1,223 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * A file in the JOSM temp directory, to which the undo/redo handler writes the saved state of old commands.
+ * <p>
+ * Each entry is a compressed serialized object, preceded by its length. Entries are appended to the file and read back
+ * by their {@link Entry} handle. An entry is dropped when it is released or its handle is no longer referenced.
+ * When most of the file is taken by dropped entries, the live entries are copied to a new file, which replaces the old one.
+ * The file is deleted when the journal is closed, or when JOSM exits.
+ * @since xxx
+ */
+public final class UndoJournal implements Closeable {
+
+    /** The minimal size of the file (in bytes) before it is compacted */
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+
+    /**
+     * The handle of an entry of the journal.
+     */
+    public static final class Entry {
+        private long position;
+        private final int length;
+
+        private Entry(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private Path file;
+    private FileChannel channel;
+    /** The live entries, which are dropped when their handle is no longer referenced */
+    private final Map<Entry, Boolean> entries = new WeakHashMap<>();
+
+    private static FileChannel createChannel(Path path) throws IOException {
+        path.toFile().deleteOnExit();
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static Path createFile() throws IOException {
+        File dir = Utils.getJosmTempDir();
+        return dir != null ? Files.createTempFile(dir.toPath(), "josm_undo_", ".journal")
+                : Files.createTempFile("josm_undo_", ".journal");
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            file = createFile();
+            channel = createChannel(file);
+        }
+        return channel;
+    }
+
+    /**
+     * Appends an object to the journal.
+     * @param object the object to write
+     * @return the handle of the entry, to be given to {@link #read(Entry)}
+     * @throws IOException if the object cannot be serialized or written
+     */
+    public synchronized Entry write(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeObject(object);
+        }
+        compactIfNeeded();
+        FileChannel fc = getChannel();
+        Entry entry = new Entry(fc.size(), Integer.BYTES + bytes.size());
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        buffer.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        writeFully(fc, buffer, entry.position);
+        entries.put(entry, Boolean.TRUE);
+        return entry;
+    }
+
+    /**
+     * Reads an object from the journal.
+     * @param entry the handle returned by {@link #write(Serializable)}
+     * @return the object
+     * @throws IOException if the entry cannot be read or deserialized
+     */
+    public synchronized Object read(Entry entry) throws IOException {
+        if (!entries.containsKey(entry)) {
+            throw new IOException("Undo journal entry has been released");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        readFully(getChannel(), buffer, entry.position);
+        buffer.flip().getInt();
+        try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(buffer.array(), Integer.BYTES, entry.length - Integer.BYTES)))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Drops an entry which is no longer needed. The space is reclaimed when the file is compacted.
+     * @param entry the handle returned by {@link #write(Serializable)}
+     */
+    public synchronized void release(Entry entry) {
+        entries.remove(entry);
+    }
+
+    private static void readFully(FileChannel fc, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (fc.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of undo journal at " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel fc, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            fc.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Returns the number of bytes taken by the live entries.
+     * @return the number of bytes taken by the live entries
+     */
+    public synchronized long getLiveSize() {
+        return entries.keySet().stream().mapToLong(e -> e.length).sum();
+    }
+
+    /**
+     * Copies the live entries to a new file if most of the file is taken by dropped entries.
+     * @throws IOException if the entries cannot be copied
+     */
+    private void compactIfNeeded() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        long size = channel.size();
+        if (size < MIN_COMPACT_SIZE || getLiveSize() > size / 2) {
+            return;
+        }
+        List<Entry> live = new ArrayList<>(entries.keySet());
+        live.sort(Comparator.comparingLong(e -> e.position));
+        Path newFile = createFile();
+        FileChannel newChannel = createChannel(newFile);
+        try {
+            long position = 0;
+            for (Entry entry : live) {
+                ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                readFully(channel, buffer, entry.position);
+                buffer.flip();
+                writeFully(newChannel, buffer, position);
+                entry.position = position;
+                position += entry.length;
+            }
+        } catch (IOException e) {
+            newChannel.close();
+            Files.deleteIfExists(newFile);
+            throw e;
+        }
+        Logging.debug("Compacted undo journal from {0} to {1} bytes", size, newChannel.size());
+        close();
+        file = newFile;
+        channel = newChannel;
+    }
+
+    /**
+     * Returns the size of the journal file.
+     * @return the size of the journal file in bytes
+     */
+    public synchronized long getSize() {
+        try {
+            return channel != null ? channel.size() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Removes all entries from the journal. Handles returned before are no longer valid.
+     * @throws IOException if the file cannot be truncated
+     */
+    public synchronized void clear() throws IOException {
+        entries.clear();
+        if (channel != null) {
+            channel.truncate(0);
+        }
+    }
+
+    /**
+     * Closes and deletes the journal file.
+     * @throws IOException if the file cannot be closed or deleted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            Files.deleteIfExists(file);
+        }
+    }
+}
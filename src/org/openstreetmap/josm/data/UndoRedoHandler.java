@@ -1,11 +1,20 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EventObject;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.openstreetmap.josm.command.Command;
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -13,11 +22,20 @@ import org.openstreetmap.josm.data.osm.OsmDataManager;
 import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * This is the global undo/redo handler for all {@link DataSet}s.
  * <p>
  * If you want to change a data set, you can use {@link #add(Command)} to execute a command on it and make that command undoable.
+ * <p>
+ * The memory retained by the commands is limited by the {@code undo.max_memory_mb} preference. When the limit is exceeded,
+ * the data needed to undo the oldest commands is moved to an {@link UndoJournal} in the background, and read back when
+ * they are undone.
+ * If the {@code undo.coalesce} preference is enabled, consecutive commands are replaced by the command returned by
+ * {@link Command#mergeWith(Command)}. Only commands overriding this method, such as
+ * {@link org.openstreetmap.josm.command.ChangePropertyCommand}, are merged.
  */
 public final class UndoRedoHandler {
 
@@ -36,6 +54,24 @@ public final class UndoRedoHandler {
      */
     private final LinkedList<Command> redoCommands = new LinkedList<>();
 
+    /**
+     * The estimated memory retained by each command of both stacks
+     * @see Command#getRetainedSize()
+     */
+    private final Map<Command, Long> retainedSizes = new IdentityHashMap<>();
+    private long retainedSize;
+
+    /** The commands merged into the last command, for which no {@link CommandAddedEvent} has been fired yet */
+    private final Set<Command> mergedCommands = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The journal of the commands that have been moved out of memory, created when first needed */
+    private UndoJournal journal;
+    /** The thread writing to the journal */
+    private static final ExecutorService JOURNAL_WRITER =
+            Executors.newSingleThreadExecutor(Utils.newThreadFactory("undo-journal-%d", Thread.NORM_PRIORITY));
+    /** The commands being moved to the journal, or {@code null} */
+    private volatile Future<?> spilling;
+
     private final LinkedList<CommandQueueListener> listenerCommands = new LinkedList<>();
     private final LinkedList<CommandQueuePreciseListener> preciseListenerCommands = new LinkedList<>();
 
@@ -131,10 +167,12 @@ public final class UndoRedoHandler {
 
         private static final long serialVersionUID = 1L;
         private final Command cmd;
+        private final boolean merged;
 
-        private CommandAddedEvent(UndoRedoHandler source, Command cmd) {
+        private CommandAddedEvent(UndoRedoHandler source, Command cmd, boolean merged) {
             super(source);
             this.cmd = Objects.requireNonNull(cmd);
+            this.merged = merged;
         }
 
         /**
@@ -145,6 +183,17 @@ public final class UndoRedoHandler {
             return cmd;
         }
 
+        /**
+         * Determines if the command has been merged with the previous command instead of being added to the queue.
+         * The previous command has then been replaced by the merged command, which is the last command of the queue.
+         * @return {@code true} if the command has been merged with the previous command
+         * @see Command#mergeWith(Command)
+         * @since xxx
+         */
+        public boolean isMerged() {
+            return merged;
+        }
+
         @Override
         void fire(CommandQueuePreciseListener listener) {
             listener.commandAdded(this);
@@ -280,6 +329,16 @@ public final class UndoRedoHandler {
         return !redoCommands.isEmpty();
     }
 
+    /**
+     * Returns the estimated memory retained by the commands that can be undone or redone.
+     * @return the estimated size in bytes
+     * @see Command#getRetainedSize()
+     * @since xxx
+     */
+    public synchronized long getRetainedSize() {
+        return retainedSize;
+    }
+
     /**
      * Executes the command and add it to the intern command queue.
      * @param c The command to execute. Must not be {@code null}.
@@ -299,14 +358,123 @@ public final class UndoRedoHandler {
         if (execute) {
             c.executeCommand();
         }
-        commands.add(c);
-        // Limit the number of commands in the undo list.
-        // Currently you have to undo the commands one by one. If
-        // this changes, a higher default value may be reasonable.
-        if (commands.size() > Config.getPref().getInt("undo.max", 1000)) {
-            commands.removeFirst();
+        Command last = commands.peekLast();
+        Command merged = last != null && Config.getPref().getBoolean("undo.coalesce", false) ? last.mergeWith(c) : null;
+        if (merged != null) {
+            untrack(commands.removeLast());
+            commands.add(merged);
+            mergedCommands.add(c);
+            track(merged);
+        } else {
+            commands.add(c);
+            track(c);
+            // Limit the number of commands in the undo list.
+            // Currently you have to undo the commands one by one. If
+            // this changes, a higher default value may be reasonable.
+            if (commands.size() > Config.getPref().getInt("undo.max", 1000)) {
+                untrack(commands.removeFirst());
+            }
         }
+        redoCommands.forEach(this::untrack);
         redoCommands.clear();
+        limitMemory();
+    }
+
+    private void track(Command c) {
+        long size = c.getRetainedSize();
+        Long old = retainedSizes.put(c, size);
+        retainedSize += size - (old != null ? old : 0);
+    }
+
+    private void untrack(Command c) {
+        Long old = retainedSizes.remove(c);
+        if (old != null) {
+            retainedSize -= old;
+        }
+    }
+
+    private static long getMemoryLimit() {
+        return Config.getPref().getInt("undo.max_memory_mb",
+                (int) Math.max(32, Runtime.getRuntime().maxMemory() / 8 / 1024 / 1024)) * 1024L * 1024L;
+    }
+
+    /**
+     * Keeps the memory retained by the commands below the {@code undo.max_memory_mb} preference.
+     * The oldest commands are moved to the journal first, then the redo commands farthest from the current state.
+     * The last command is kept in memory. The commands are written by a background thread, afterwards the oldest
+     * commands are removed if this was not enough.
+     */
+    private void limitMemory() {
+        long excess = retainedSize - getMemoryLimit();
+        if (excess <= 0 || spilling != null) {
+            return;
+        }
+        List<Command> candidates = new ArrayList<>(commands.subList(0, Math.max(0, commands.size() - 1)));
+        redoCommands.descendingIterator().forEachRemaining(candidates::add);
+        long[] sizes = candidates.stream().mapToLong(retainedSizes::get).toArray();
+        if (journal == null) {
+            journal = new UndoJournal();
+        }
+        UndoJournal target = journal;
+        spilling = JOURNAL_WRITER.submit(() -> {
+            List<Command> spilled = new ArrayList<>();
+            long remaining = excess;
+            try {
+                for (int i = 0; i < candidates.size() && remaining > 0; i++) {
+                    Command c = candidates.get(i);
+                    c.spill(target);
+                    spilled.add(c);
+                    remaining -= sizes[i];
+                }
+            } catch (IOException | RuntimeException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to write undo journal", e);
+            }
+            GuiHelper.runInEDT(() -> spillingDone(spilled));
+        });
+    }
+
+    /**
+     * Updates the retained memory after commands have been moved to the journal. If the memory limit is still exceeded,
+     * more commands are moved to the journal, or the oldest commands are removed if no memory has been released.
+     * @param spilled the commands moved to the journal
+     */
+    private void spillingDone(List<Command> spilled) {
+        spilling = null;
+        boolean released = false;
+        for (Command c : spilled) {
+            Long old = retainedSizes.get(c);
+            if (old != null) {
+                track(c);
+                released |= retainedSizes.get(c) < old;
+            }
+        }
+        long limit = getMemoryLimit();
+        if (retainedSize <= limit) {
+            return;
+        } else if (released) {
+            // commands added in the meantime
+            limitMemory();
+            return;
+        }
+        while (retainedSize > limit && commands.size() > 1) {
+            untrack(commands.removeFirst());
+        }
+        fireCommandsChanged();
+    }
+
+    /**
+     * Waits until the commands are moved to the journal and the retained memory is updated.
+     * @throws ExecutionException if writing the journal failed
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    void waitForJournal() throws ExecutionException, InterruptedException {
+        Future<?> future;
+        while ((future = spilling) != null) {
+            future.get();
+            GuiHelper.runInEDTAndWait(() -> {
+                // wait for spillingDone
+            });
+        }
     }
 
     /**
@@ -316,7 +484,7 @@ public final class UndoRedoHandler {
      */
     public void afterAdd(Command cmd) {
         if (cmd != null) {
-            fireEvent(new CommandAddedEvent(this, cmd));
+            fireEvent(new CommandAddedEvent(this, cmd, mergedCommands.remove(cmd)));
         }
         fireCommandsChanged();
     }
@@ -329,7 +497,7 @@ public final class UndoRedoHandler {
     public void afterAdd(List<? extends Command> cmds) {
         if (cmds != null) {
             for (Command cmd : cmds) {
-                fireEvent(new CommandAddedEvent(this, cmd));
+                fireEvent(new CommandAddedEvent(this, cmd, mergedCommands.remove(cmd)));
             }
         }
         fireCommandsChanged();
@@ -385,6 +553,7 @@ public final class UndoRedoHandler {
                         throw e;
                     }
                     redoCommands.addFirst(c);
+                    track(c);
                     fireEvent(new CommandUndoneEvent(this, c));
                     if (commands.isEmpty()) {
                         break;
@@ -395,6 +564,7 @@ public final class UndoRedoHandler {
                     ds.endUpdate();
                 }
             }
+            limitMemory();
             fireCommandsChanged();
         });
     }
@@ -417,11 +587,13 @@ public final class UndoRedoHandler {
             final Command c = redoCommands.removeFirst();
             c.executeCommand();
             commands.add(c);
+            track(c);
             fireEvent(new CommandRedoneEvent(this, c));
             if (redoCommands.isEmpty()) {
                 break;
             }
         }
+        limitMemory();
         fireCommandsChanged();
     }
 
@@ -444,6 +616,10 @@ public final class UndoRedoHandler {
     public void clean() {
         redoCommands.clear();
         commands.clear();
+        retainedSizes.clear();
+        retainedSize = 0;
+        mergedCommands.clear();
+        clearJournal();
         fireEvent(new CommandQueueCleanedEvent(this, null));
         fireCommandsChanged();
     }
@@ -459,12 +635,27 @@ public final class UndoRedoHandler {
         boolean changed = false;
         changed |= commands.removeIf(c -> c.getAffectedDataSet() == dataSet);
         changed |= redoCommands.removeIf(c -> c.getAffectedDataSet() == dataSet);
+        retainedSizes.keySet().removeIf(c -> c.getAffectedDataSet() == dataSet);
+        retainedSize = retainedSizes.values().stream().mapToLong(Long::longValue).sum();
+        if (commands.isEmpty() && redoCommands.isEmpty()) {
+            clearJournal();
+        }
         if (changed) {
             fireEvent(new CommandQueueCleanedEvent(this, dataSet));
             fireCommandsChanged();
         }
     }
 
+    private void clearJournal() {
+        if (journal != null) {
+            try {
+                journal.clear();
+            } catch (IOException e) {
+                Logging.warn(e);
+            }
+        }
+    }
+
     /**
      * Removes a command queue listener.
      * @param l The command queue listener to remove
@@ -31,6 +31,16 @@ public class BufferedImageCacheEntry extends CacheEntry {
         super(content);
     }
 
+    /**
+     * Constructs a cache entry, optionally taking ownership of the array.
+     * @param content byte array containing image
+     * @param copy {@code false} if the array is not modified by the caller afterwards and needs not be copied
+     * @since xxx
+     */
+    BufferedImageCacheEntry(byte[] content, boolean copy) {
+        super(content, copy);
+    }
+
     /**
      * Encodes the given image as PNG and returns a cache entry
      * @param img the image
@@ -59,8 +69,9 @@ public class BufferedImageCacheEntry extends CacheEntry {
         synchronized (this) {
             if (imageLoaded)
                 return img;
-            byte[] content = getContent();
-            if (content.length > 0) {
+            // decode the content directly, it is never modified
+            byte[] content = this.content;
+            if (content != null && content.length > 0) {
                 img = ImageIO.read(new ByteArrayInputStream(content));
                 imageLoaded = true;
             }
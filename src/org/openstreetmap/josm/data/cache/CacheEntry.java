@@ -17,7 +17,17 @@ public class CacheEntry implements Serializable {
      * @param content of the cache entry
      */
     public CacheEntry(byte[] content) {
-        this.content = Arrays.copyOf(content, content.length);
+        this(content, true);
+    }
+
+    /**
+     * Constructs a cache entry, optionally taking ownership of the array, e.g. when it was just read from disk.
+     * @param content of the cache entry
+     * @param copy {@code false} if the array is not modified by the caller afterwards and needs not be copied
+     * @since xxx
+     */
+    CacheEntry(byte[] content, boolean copy) {
+        this.content = copy ? Arrays.copyOf(content, content.length) : content;
     }
 
     /**
@@ -8,6 +8,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openstreetmap.josm.tools.Logging;
 
@@ -22,6 +23,9 @@ import org.openstreetmap.josm.tools.Logging;
  * [2] If we have a queue, and for all hosts in queue we will fail to acquire semaphore, the thread
  *     take the first available job and wait for semaphore. It might be the case, that semaphore was released
  *     for some task further in queue, but this implementation doesn't try to detect such situation
+ * <p>
+ * Jobs marked with {@link JCSCachedTileLoaderJob#setPrefetch(boolean)} are only taken from the queue, when there are
+ * no foreground jobs that can be run, so prefetching never delays tiles that the user is waiting for.
  *
  * @author Wiktor Niesiobędzki
  */
@@ -30,6 +34,8 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
 
     private final Map<String, Semaphore> hostSemaphores = new ConcurrentHashMap<>();
     private final int hostLimit;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
 
     /**
      * Creates an unbounded queue
@@ -50,9 +56,18 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         this.hostLimit = hostLimit;
     }
 
+    private static boolean isPrefetch(Runnable r) {
+        return r instanceof JCSCachedTileLoaderJob && ((JCSCachedTileLoaderJob<?, ?>) r).isPrefetch();
+    }
+
     private JCSCachedTileLoaderJob<?, ?> findJob() {
+        JCSCachedTileLoaderJob<?, ?> job = findJob(false);
+        return job != null ? job : findJob(true);
+    }
+
+    private JCSCachedTileLoaderJob<?, ?> findJob(boolean prefetch) {
         for (Runnable r : this) {
-            if (r instanceof JCSCachedTileLoaderJob) {
+            if (r instanceof JCSCachedTileLoaderJob && isPrefetch(r) == prefetch) {
                 JCSCachedTileLoaderJob<?, ?> job = (JCSCachedTileLoaderJob<?, ?>) r;
                 if (tryAcquireSemaphore(job)) {
                     if (remove(job)) {
@@ -76,13 +91,30 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         return null;
     }
 
+    /**
+     * Removes the first job, that is not a prefetch job, from the queue. It is used instead of the head of the queue,
+     * when all hosts are busy, so the thread waits for a job, that the user is waiting for.
+     * @return the first foreground job or {@code null} if there is none
+     */
+    private Runnable removeForegroundJob() {
+        for (Runnable r : this) {
+            if (!isPrefetch(r) && remove(r)) {
+                return r;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
         Runnable job = findJob();
         if (job != null) {
             return job;
         }
-        job = pollFirst(timeout, unit);
+        job = removeForegroundJob();
+        if (job == null) {
+            job = pollFirst(timeout, unit);
+        }
         if (job != null) {
             try {
                 boolean gotLock = tryAcquireSemaphore(job, timeout, unit);
@@ -104,7 +136,10 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         if (job != null) {
             return job;
         }
-        job = takeFirst();
+        job = removeForegroundJob();
+        if (job == null) {
+            job = takeFirst();
+        }
         try {
             acquireSemaphore(job);
         } catch (InterruptedException e) {
@@ -117,6 +152,60 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         return job;
     }
 
+    /**
+     * Records, whether a job of this queue was served from the cache or had to load the object from remote resource.
+     * @param hit {@code true} if the object was served from the cache
+     */
+    void recordCacheUsage(boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    /**
+     * Returns the number of queued jobs, that are not prefetch jobs.
+     * @return the number of queued foreground jobs
+     * @since xxx
+     */
+    public int getForegroundCount() {
+        return (int) stream().filter(r -> !isPrefetch(r)).count();
+    }
+
+    /**
+     * Returns the number of queued prefetch jobs.
+     * @return the number of queued prefetch jobs
+     * @since xxx
+     */
+    public int getPrefetchCount() {
+        return (int) stream().filter(HostLimitQueue::isPrefetch).count();
+    }
+
+    /**
+     * Returns the number of finished jobs, that were served from the cache.
+     * @return the number of cache hits
+     * @since xxx
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of finished jobs, that had to load the object from remote resource.
+     * @return the number of cache misses
+     * @since xxx
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Returns queue statistics as string.
+     * @return queue depth and cache hit/miss statistics
+     * @since xxx
+     */
+    public String getStats() {
+        return "Queue: foreground " + getForegroundCount() + ", prefetch " + getPrefetchCount()
+            + "; cache hits " + getCacheHits() + ", misses " + getCacheMisses();
+    }
+
     private Semaphore getSemaphore(JCSCachedTileLoaderJob<?, ?> job) {
         String host;
         try {
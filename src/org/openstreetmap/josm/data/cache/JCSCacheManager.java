@@ -7,6 +7,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -29,6 +30,7 @@ import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.data.preferences.ListProperty;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
@@ -49,6 +51,16 @@ public final class JCSCacheManager {
      */
     public static final BooleanProperty USE_BLOCK_CACHE = new BooleanProperty(PREFERENCE_PREFIX + ".use_block_cache", true);
 
+    /**
+     * Cache regions (e.g. {@code TMS}, {@code WMS}), that store their elements in a {@link TilePackDiskCache}
+     * instead of the disk cache selected by {@link #USE_BLOCK_CACHE}
+     * @since xxx
+     */
+    public static final ListProperty TILE_PACK_REGIONS = new ListProperty(PREFERENCE_PREFIX + ".tile_pack_regions",
+            Collections.emptyList());
+
+    private static final String TILE_PACK_SUFFIX = "_PACK_v1";
+
     private static final AuxiliaryCacheFactory DISK_CACHE_FACTORY = getDiskCacheFactory();
     private static FileLock cacheDirLock;
 
@@ -186,17 +198,44 @@ public final class JCSCacheManager {
      * @param cachePath         path to disk cache. if null, no disk cache will be created
      * @return cache access object
      */
-    @SuppressWarnings("unchecked")
     public static <K, V> CacheAccess<K, V> getCache(String cacheName, int maxMemoryObjects, int maxDiskObjects, String cachePath) {
+        return getCache(cacheName, maxMemoryObjects, maxDiskObjects, cachePath, TILE_PACK_REGIONS.get().contains(cacheName));
+    }
+
+    /**
+     * Returns configured cache object with defined limits of memory cache and disk cache, that always stores its
+     * elements on disk in a {@link TilePackDiskCache}, like the regions listed in {@link #TILE_PACK_REGIONS}.
+     * @param <K> key type
+     * @param <V> value type
+     * @param cacheName         region name
+     * @param maxMemoryObjects  number of objects to keep in memory
+     * @param maxDiskObjects    maximum size of the objects stored on disk in kB
+     * @param cachePath         path to disk cache. if null, no disk cache will be created
+     * @return cache access object
+     * @since xxx
+     */
+    public static <K, V> CacheAccess<K, V> getPackCache(String cacheName, int maxMemoryObjects, int maxDiskObjects, String cachePath) {
+        return getCache(cacheName, maxMemoryObjects, maxDiskObjects, cachePath, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> CacheAccess<K, V> getCache(String cacheName, int maxMemoryObjects, int maxDiskObjects, String cachePath,
+            boolean tilePack) {
         CacheAccess<K, V> cacheAccess = getCacheAccess(cacheName, getCacheAttributes(maxMemoryObjects));
 
         if (cachePath != null && cacheDirLock != null && cacheAccess != null && DISK_CACHE_FACTORY != null) {
             CompositeCache<K, V> cc = cacheAccess.getCacheControl();
             try {
-                IDiskCacheAttributes diskAttributes = getDiskCacheAttributes(maxDiskObjects, cachePath, cacheName);
-                if (cc.getAuxCaches().length == 0) {
-                    cc.setAuxCaches(new AuxiliaryCache[]{DISK_CACHE_FACTORY.createCache(
-                            diskAttributes, null, null, new StandardSerializer())});
+                if (tilePack) {
+                    if (cc.getAuxCaches().length == 0) {
+                        cc.setAuxCaches(new AuxiliaryCache[]{getTilePackCache(maxDiskObjects, cachePath, cacheName)});
+                    }
+                } else {
+                    IDiskCacheAttributes diskAttributes = getDiskCacheAttributes(maxDiskObjects, cachePath, cacheName);
+                    if (cc.getAuxCaches().length == 0) {
+                        cc.setAuxCaches(new AuxiliaryCache[]{DISK_CACHE_FACTORY.createCache(
+                                diskAttributes, null, null, new StandardSerializer())});
+                    }
                 }
             } catch (Exception e) { // NOPMD
                 // in case any error in setting auxiliary cache, do not use disk cache at all - only memory
@@ -223,9 +262,22 @@ public final class JCSCacheManager {
         JCS.shutdown();
     }
 
+    private static <K, V> TilePackDiskCache<K, V> getTilePackCache(int maxDiskObjects, String cachePath, String cacheName) {
+        removeStaleFiles(cachePath + File.separator + cacheName, "_INDEX_v2");
+        removeStaleFiles(cachePath + File.separator + cacheName, "_BLOCK_v2");
+        TilePackDiskCacheAttributes attributes = new TilePackDiskCacheAttributes();
+        attributes.setCacheName(cacheName + TILE_PACK_SUFFIX);
+        attributes.setDiskPath(cachePath);
+        attributes.setMaxSize(maxDiskObjects);
+        TilePackDiskCache<K, V> cache = new TilePackDiskCache<>(attributes);
+        cache.setElementSerializer(new StandardSerializer());
+        return cache;
+    }
+
     private static IDiskCacheAttributes getDiskCacheAttributes(int maxDiskObjects, String cachePath, String cacheName) {
         IDiskCacheAttributes ret;
         removeStaleFiles(cachePath + File.separator + cacheName, useBlockCache() ? "_INDEX_v2" : "_BLOCK_v2");
+        TilePackDiskCache.deleteFiles(new File(cachePath), cacheName + TILE_PACK_SUFFIX);
         String newCacheName = cacheName + (useBlockCache() ? "_BLOCK_v2" : "_INDEX_v2");
 
         if (useBlockCache()) {
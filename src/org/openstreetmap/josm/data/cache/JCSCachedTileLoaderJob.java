@@ -97,6 +97,7 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
     private final ThreadPoolExecutor downloadJobExecutor;
     private Runnable finishTask;
     private boolean force;
+    private volatile boolean prefetch;
     private final long minimumExpiryTime;
 
     /**
@@ -225,11 +226,13 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
             if (!force && cacheElement != null && isCacheElementValid() && isObjectLoadable()) {
                 // we got something in cache, and it's valid, so lets return it
                 Logging.debug("JCS - Returning object from cache: {0}", getCacheKey());
+                recordCacheUsage(true);
                 finishLoading(LoadResult.SUCCESS);
                 return;
             }
 
             // try to load object from remote resource
+            recordCacheUsage(false);
             if (loadObject()) {
                 finishLoading(LoadResult.SUCCESS);
             } else {
@@ -583,6 +586,31 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
 
     }
 
+    /**
+     * Marks this job as a prefetch job. A {@link HostLimitQueue} runs prefetch jobs only, when there are no other jobs
+     * waiting. A queued prefetch job may be promoted to a foreground job by calling this method with {@code false}.
+     * @param prefetch {@code true} if this job loads an object, that is not needed right now
+     * @since xxx
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Determines if this job is a prefetch job.
+     * @return {@code true} if this job loads an object, that is not needed right now
+     * @since xxx
+     */
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    private void recordCacheUsage(boolean hit) {
+        if (downloadJobExecutor.getQueue() instanceof HostLimitQueue) {
+            ((HostLimitQueue) downloadJobExecutor.getQueue()).recordCacheUsage(hit);
+        }
+    }
+
     /**
      * Marks this job as canceled
      */
@@ -0,0 +1,754 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICache;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Disk cache that stores the elements in append-only, memory-mapped segment files (a "tile pack").
+ * <p>
+ * Every update appends a record to the newest segment, every removal appends a tombstone. The position of the current
+ * record of each key is kept in an open addressing hash table outside of the Java heap. There is no key file that has
+ * to be loaded and verified: the table is rebuilt on startup by scanning the record headers of the segments.
+ * <p>
+ * The content of {@link CacheEntry} values is stored as is, so reading a tile is a single copy from the mapped file
+ * into the array that is decoded by {@link BufferedImageCacheEntry#getImage()}. Only the element attributes, and the keys
+ * if they are not strings, go through the element serializer.
+ * <p>
+ * Records are never changed in place. When the oldest segment is mostly garbage, its live records are moved to the
+ * newest segment in background and the segment is deleted. When the cache files grow beyond the maximum size,
+ * the oldest segment is dropped with all of its elements.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @since xxx
+ */
+public class TilePackDiskCache<K, V> extends AbstractDiskCache<K, V> {
+    private static final String FILE_SUFFIX = ".pack";
+
+    private static final byte TYPE_ENTRY = 1;
+    private static final byte TYPE_IMAGE_ENTRY = 2;
+    private static final byte TYPE_SERIALIZED = 3;
+    private static final byte TYPE_REMOVED = 4;
+    private static final byte FLAG_STRING_KEY = 1;
+
+    /** record length, type, flags and key length */
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4;
+
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+
+    private static final ExecutorService COMPACTION_EXECUTOR = Executors.newSingleThreadExecutor(
+            Utils.newThreadFactory("tile-pack-compaction-%d", Thread.MIN_PRIORITY));
+
+    private final TilePackDiskCacheAttributes attributes;
+    private final File directory;
+    private final String fileName;
+    private final int segmentSize;
+    private final long maxSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** segments by id, from the oldest to the newest */
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private boolean compacting;
+
+    /** record positions of the keys, or {@link #EMPTY} / {@link #DELETED} */
+    private LongBuffer positions;
+    /** hashes of the keys, to skip most key comparisons when probing */
+    private IntBuffer hashes;
+    /** number of slots that are not {@link #EMPTY} */
+    private int used;
+    /** number of elements */
+    private int count;
+
+    private static final class Segment {
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        /** offset after the last record */
+        private int end;
+        /** bytes of the records that are replaced, removed or tombstones */
+        private int garbage;
+
+        Segment(int id, File file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            if (size > 0) {
+                // a new segment, do not pick up records of a file that could not be deleted
+                this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } else {
+                this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            this.buffer = channel.map(MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        void delete() {
+            // invalidate the first record, the file may not be deleted as long as it is mapped on some platforms
+            buffer.putInt(0, 0);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logging.debug(e);
+            }
+            if (!file.delete()) {
+                Logging.debug("Unable to delete tile pack segment {0}, will delete it on exit", file);
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new {@code TilePackDiskCache} and loads the existing segments of the cache.
+     * @param attributes cache configuration
+     */
+    public TilePackDiskCache(TilePackDiskCacheAttributes attributes) {
+        super(attributes);
+        this.attributes = attributes;
+        this.directory = attributes.getDiskPath();
+        this.fileName = attributes.getCacheName();
+        this.segmentSize = attributes.getSegmentSize();
+        this.maxSize = attributes.getMaxSize() * 1024L;
+        clearPositions(1024);
+        try {
+            load();
+            setAlive(true);
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to open tile pack " + fileName + " in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes the segment files of a cache.
+     * @param directory the directory of the cache
+     * @param cacheName the name of the cache
+     */
+    public static void deleteFiles(File directory, String cacheName) {
+        for (File file : listFiles(directory, cacheName)) {
+            Utils.deleteFile(file);
+        }
+    }
+
+    private static File[] listFiles(File directory, String cacheName) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(cacheName + '.') && name.endsWith(FILE_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private File getFile(int id) {
+        return new File(directory, fileName + '.' + id + FILE_SUFFIX);
+    }
+
+    private void load() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        Map<Integer, File> files = new TreeMap<>();
+        for (File file : listFiles(directory, fileName)) {
+            String name = file.getName();
+            try {
+                files.put(Integer.parseInt(name.substring(fileName.length() + 1, name.length() - FILE_SUFFIX.length())), file);
+            } catch (NumberFormatException e) {
+                Logging.trace(e);
+            }
+        }
+        for (Map.Entry<Integer, File> e : files.entrySet()) {
+            if (e.getValue().length() == 0) {
+                Utils.deleteFile(e.getValue());
+                continue;
+            }
+            Segment segment = new Segment(e.getKey(), e.getValue(), 0);
+            segments.put(segment.id, segment);
+            scan(segment);
+            if (segment.end == 0) {
+                segments.remove(segment.id);
+                segment.delete();
+            }
+        }
+        if (!segments.isEmpty()) {
+            active = segments.lastEntry().getValue();
+        }
+        trimToSize();
+        Logging.debug("Tile pack {0}: loaded {1} elements from {2} segments", fileName, count, segments.size());
+    }
+
+    private void scan(Segment segment) {
+        int offset = 0;
+        int capacity = segment.buffer.capacity();
+        while (offset + HEADER_SIZE <= capacity) {
+            int length = segment.buffer.getInt(offset);
+            if (length < HEADER_SIZE || length > capacity - offset
+                    || segment.buffer.getInt(offset + 6) < 0 || segment.buffer.getInt(offset + 6) > length - HEADER_SIZE) {
+                // end of the segment, or a record that was not completely written
+                break;
+            }
+            byte[] key = readKey(segment, offset);
+            int hash = hash(key);
+            if (segment.buffer.get(offset + 4) == TYPE_REMOVED) {
+                release(removePosition(key, hash));
+                segment.garbage += length;
+            } else {
+                release(putPosition(key, hash, position(segment.id, offset)));
+            }
+            offset += length;
+        }
+        segment.end = offset;
+    }
+
+    private static long position(int segmentId, int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private Segment getSegment(long position) {
+        return segments.get((int) (position >>> 32));
+    }
+
+    private static int getOffset(long position) {
+        return (int) position;
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] readKey(Segment segment, int offset) {
+        byte[] key = new byte[segment.buffer.getInt(offset + 6)];
+        ByteBuffer b = segment.buffer.duplicate();
+        b.position(offset + HEADER_SIZE);
+        b.get(key);
+        return key;
+    }
+
+    private boolean keyEquals(long position, byte[] key) {
+        Segment segment = getSegment(position);
+        int offset = getOffset(position);
+        if (segment.buffer.getInt(offset + 6) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (segment.buffer.get(offset + HEADER_SIZE + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] encodeKey(K key) throws IOException {
+        return key instanceof String ? ((String) key).getBytes(UTF_8) : getElementSerializer().serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private K decodeKey(Segment segment, int offset) throws IOException, ClassNotFoundException {
+        byte[] key = readKey(segment, offset);
+        if ((segment.buffer.get(offset + 5) & FLAG_STRING_KEY) != 0) {
+            return (K) new String(key, UTF_8);
+        }
+        return getElementSerializer().deSerialize(key, null);
+    }
+
+    /*
+     * Hash table of the record positions. It is only modified while holding the write lock.
+     */
+
+    private int findSlot(byte[] key, int hash) {
+        int mask = positions.capacity() - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            long position = positions.get(i);
+            if (position == EMPTY) {
+                return -1;
+            }
+            if (position != DELETED && hashes.get(i) == hash && keyEquals(position, key)) {
+                return i;
+            }
+        }
+    }
+
+    private long getPosition(byte[] key, int hash) {
+        int slot = findSlot(key, hash);
+        return slot >= 0 ? positions.get(slot) : EMPTY;
+    }
+
+    private long putPosition(byte[] key, int hash, long position) {
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            long old = positions.get(slot);
+            positions.put(slot, position);
+            return old;
+        }
+        if ((used + 1) * 2 > positions.capacity()) {
+            rehash(count * 4 > positions.capacity() ? positions.capacity() * 2 : positions.capacity());
+        }
+        insert(hash, position);
+        count++;
+        return EMPTY;
+    }
+
+    private void insert(int hash, long position) {
+        int mask = positions.capacity() - 1;
+        int i = hash & mask;
+        while (positions.get(i) != EMPTY && positions.get(i) != DELETED) {
+            i = (i + 1) & mask;
+        }
+        if (positions.get(i) == EMPTY) {
+            used++;
+        }
+        positions.put(i, position);
+        hashes.put(i, hash);
+    }
+
+    private long removePosition(byte[] key, int hash) {
+        int slot = findSlot(key, hash);
+        if (slot < 0) {
+            return EMPTY;
+        }
+        long old = positions.get(slot);
+        positions.put(slot, DELETED);
+        count--;
+        return old;
+    }
+
+    private void rehash(int capacity) {
+        LongBuffer oldPositions = positions;
+        IntBuffer oldHashes = hashes;
+        clearPositions(capacity);
+        for (int i = 0; i < oldPositions.capacity(); i++) {
+            long position = oldPositions.get(i);
+            if (position != EMPTY && position != DELETED) {
+                insert(oldHashes.get(i), position);
+            }
+        }
+    }
+
+    private void clearPositions(int capacity) {
+        positions = ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer();
+        hashes = ByteBuffer.allocateDirect(capacity * Integer.BYTES).asIntBuffer();
+        used = 0;
+    }
+
+    /**
+     * Marks the record at the given position as garbage.
+     * @param position record position, or {@link #EMPTY}
+     */
+    private void release(long position) {
+        if (position != EMPTY) {
+            Segment segment = getSegment(position);
+            segment.garbage += segment.buffer.getInt(getOffset(position));
+        }
+    }
+
+    /*
+     * Segment management. Only done while holding the write lock.
+     */
+
+    private long append(byte[] record) throws IOException {
+        if (record.length > segmentSize) {
+            Logging.warn("Tile pack {0}: element of {1} bytes is larger than a segment, not storing it", fileName, record.length);
+            return EMPTY;
+        }
+        if (active == null || record.length > active.buffer.capacity() - active.end) {
+            int id = active == null ? 1 : active.id + 1;
+            active = new Segment(id, getFile(id), segmentSize);
+            segments.put(id, active);
+            trimToSize();
+        }
+        int offset = active.end;
+        ByteBuffer b = active.buffer.duplicate();
+        b.position(offset + 4);
+        b.put(record, 4, record.length - 4);
+        // the length is written last, so a record that was not completely written ends the segment
+        active.buffer.putInt(offset, record.length);
+        active.end += record.length;
+        return position(active.id, offset);
+    }
+
+    private void trimToSize() {
+        while (segments.size() > 1 && (long) segments.size() * segmentSize > maxSize) {
+            Segment oldest = segments.firstEntry().getValue();
+            Logging.debug("Tile pack {0}: dropping segment {1} to stay below {2} bytes", fileName, oldest.id, maxSize);
+            drop(oldest);
+        }
+    }
+
+    private void drop(Segment segment) {
+        segments.remove(segment.id);
+        for (int i = 0; i < positions.capacity(); i++) {
+            long position = positions.get(i);
+            if (position != EMPTY && position != DELETED && (int) (position >>> 32) == segment.id) {
+                positions.put(i, DELETED);
+                count--;
+            }
+        }
+        segment.delete();
+    }
+
+    private void scheduleCompaction() {
+        if (compacting || segments.size() < 2) {
+            return;
+        }
+        Segment oldest = segments.firstEntry().getValue();
+        if (oldest != active && oldest.garbage * 2L > oldest.end) {
+            compacting = true;
+            COMPACTION_EXECUTOR.execute(() -> compact(oldest));
+        }
+    }
+
+    /**
+     * Moves the live records of a segment to the newest segment and deletes the segment. The lock is taken for each record,
+     * so the cache stays usable during the compaction.
+     * <p>
+     * Only the oldest segment is compacted, so its tombstones can be dropped: there are no older records they could hide.
+     * @param segment the oldest segment
+     */
+    private void compact(Segment segment) {
+        int offset = 0;
+        try {
+            while (true) {
+                lock.writeLock().lock();
+                try {
+                    if (!isAlive() || segments.get(segment.id) != segment) {
+                        return;
+                    }
+                    if (offset >= segment.end) {
+                        Logging.debug("Tile pack {0}: compacted segment {1}", fileName, segment.id);
+                        drop(segment);
+                        return;
+                    }
+                    int length = segment.buffer.getInt(offset);
+                    if (segment.buffer.get(offset + 4) != TYPE_REMOVED) {
+                        byte[] key = readKey(segment, offset);
+                        int hash = hash(key);
+                        if (getPosition(key, hash) == position(segment.id, offset)) {
+                            byte[] record = new byte[length];
+                            ByteBuffer b = segment.buffer.duplicate();
+                            b.position(offset);
+                            b.get(record);
+                            long position = append(record);
+                            if (position != EMPTY) {
+                                putPosition(key, hash, position);
+                            }
+                        }
+                    }
+                    offset += length;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to compact tile pack " + fileName, e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                compacting = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /*
+     * Records
+     */
+
+    private byte[] encode(ICacheElement<K, V> element, byte[] key) throws IOException {
+        V value = element.getVal();
+        byte type;
+        byte[] content;
+        if (value != null && (value.getClass() == CacheEntry.class || value.getClass() == BufferedImageCacheEntry.class)) {
+            type = value instanceof BufferedImageCacheEntry ? TYPE_IMAGE_ENTRY : TYPE_ENTRY;
+            content = ((CacheEntry) value).content;
+            if (content == null) {
+                content = new byte[0];
+            }
+        } else {
+            type = TYPE_SERIALIZED;
+            content = getElementSerializer().serialize(value);
+        }
+        byte[] attributes = getElementSerializer().serialize(element.getElementAttributes());
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + key.length + 4 + attributes.length + 4 + content.length);
+        b.putInt(b.capacity());
+        b.put(type);
+        b.put(element.getKey() instanceof String ? FLAG_STRING_KEY : 0);
+        b.putInt(key.length);
+        b.put(key);
+        b.putInt(attributes.length);
+        b.put(attributes);
+        b.putInt(content.length);
+        b.put(content);
+        return b.array();
+    }
+
+    private static byte[] tombstone(byte[] key, boolean stringKey) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + key.length);
+        b.putInt(b.capacity());
+        b.put(TYPE_REMOVED);
+        b.put(stringKey ? FLAG_STRING_KEY : 0);
+        b.putInt(key.length);
+        b.put(key);
+        return b.array();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ICacheElement<K, V> read(long position, K key) throws IOException, ClassNotFoundException {
+        Segment segment = getSegment(position);
+        ByteBuffer b = segment.buffer.duplicate();
+        b.position(getOffset(position) + 4);
+        byte type = b.get();
+        b.get();
+        int keyLength = b.getInt();
+        b.position(b.position() + keyLength);
+        byte[] attributes = new byte[b.getInt()];
+        b.get(attributes);
+        byte[] content = new byte[b.getInt()];
+        b.get(content);
+        V value;
+        switch (type) {
+        case TYPE_ENTRY:
+            value = (V) new CacheEntry(content, false);
+            break;
+        case TYPE_IMAGE_ENTRY:
+            value = (V) new BufferedImageCacheEntry(content, false);
+            break;
+        default:
+            value = getElementSerializer().deSerialize(content, null);
+        }
+        IElementAttributes elementAttributes = getElementSerializer().deSerialize(attributes, null);
+        return new CacheElement<>(getCacheName(), key, value, elementAttributes);
+    }
+
+    /*
+     * AbstractDiskCache
+     */
+
+    @Override
+    protected void processUpdate(ICacheElement<K, V> element) throws IOException {
+        byte[] key = encodeKey(element.getKey());
+        byte[] record = encode(element, key);
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            if (!isAlive()) {
+                return;
+            }
+            long position = append(record);
+            if (position != EMPTY) {
+                release(putPosition(key, hash, position));
+            } else {
+                // do not keep returning the old value
+                release(removePosition(key, hash));
+            }
+            scheduleCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected ICacheElement<K, V> processGet(K key) throws IOException {
+        byte[] keyBytes = encodeKey(key);
+        int hash = hash(keyBytes);
+        lock.readLock().lock();
+        try {
+            if (!isAlive()) {
+                return null;
+            }
+            long position = getPosition(keyBytes, hash);
+            return position == EMPTY ? null : read(position, key);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMatching(String pattern) throws IOException {
+        Map<K, ICacheElement<K, V>> ret = new HashMap<>();
+        for (K key : getKeyMatcher().getMatchingKeysFromArray(pattern, getKeySet())) {
+            ICacheElement<K, V> element = processGet(key);
+            if (element != null) {
+                ret.put(key, element);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    protected boolean processRemove(K key) throws IOException {
+        if (key instanceof String && key.toString().endsWith(ICache.NAME_COMPONENT_DELIMITER)) {
+            // remove all keys of this region
+            boolean removed = false;
+            for (K k : getKeySet()) {
+                if (k instanceof String && k.toString().startsWith(key.toString())) {
+                    removed |= removeKey(k);
+                }
+            }
+            return removed;
+        }
+        return removeKey(key);
+    }
+
+    private boolean removeKey(K key) throws IOException {
+        byte[] keyBytes = encodeKey(key);
+        int hash = hash(keyBytes);
+        lock.writeLock().lock();
+        try {
+            if (!isAlive()) {
+                return false;
+            }
+            long old = removePosition(keyBytes, hash);
+            if (old == EMPTY) {
+                return false;
+            }
+            release(old);
+            long position = append(tombstone(keyBytes, key instanceof String));
+            if (position != EMPTY) {
+                release(position);
+            }
+            scheduleCompaction();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void processRemoveAll() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                drop(segment);
+            }
+            active = null;
+            count = 0;
+            clearPositions(1024);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void processDispose() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            active = null;
+            count = 0;
+            clearPositions(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<K> getKeySet() throws IOException {
+        lock.readLock().lock();
+        try {
+            Set<K> keys = new HashSet<>(count * 2);
+            for (int i = 0; i < positions.capacity(); i++) {
+                long position = positions.get(i);
+                if (position != EMPTY && position != DELETED) {
+                    keys.add(decodeKey(getSegment(position), getOffset(position)));
+                }
+            }
+            return keys;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the size of the segment files.
+     * @return the size of the segment files in bytes
+     */
+    public long getDiskSize() {
+        lock.readLock().lock();
+        try {
+            return segments.values().stream().mapToLong(s -> s.buffer.capacity()).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected String getDiskLocation() {
+        return directory.getAbsolutePath();
+    }
+
+    @Override
+    public AuxiliaryCacheAttributes getAuxiliaryCacheAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public IStats getStatistics() {
+        IStats stats = super.getStatistics();
+        List<IStatElement<?>> elements = new ArrayList<>(stats.getStatElements());
+        lock.readLock().lock();
+        try {
+            elements.add(new StatElement<>("Element Count", count));
+            elements.add(new StatElement<>("Segments", segments.size()));
+            elements.add(new StatElement<>("Data Size", segments.values().stream().mapToLong(s -> s.end).sum()));
+            elements.add(new StatElement<>("Garbage Size", segments.values().stream().mapToLong(s -> s.garbage).sum()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.setTypeName("Tile Pack Disk Cache");
+        stats.setStatElements(elements);
+        return stats;
+    }
+}
@@ -0,0 +1,60 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCacheAttributes;
+
+/**
+ * Configuration of {@link TilePackDiskCache}.
+ *
+ * @since xxx
+ */
+public class TilePackDiskCacheAttributes extends AbstractDiskCacheAttributes {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+    private static final int MAX_SEGMENT_SIZE = 32 << 20;
+
+    private int maxSize;
+    private int segmentSize;
+
+    /**
+     * Returns the maximum size of the cache files.
+     * @return maximum size of the cache files in kB
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum size of the cache files. When the cache grows beyond this size, its oldest segment is dropped.
+     * @param maxSize maximum size of the cache files in kB
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the size of a segment file. Unless set explicitly, it is derived from the maximum size,
+     * so that the cache consists of about 16 segments.
+     * @return size of a segment file in bytes
+     */
+    public int getSegmentSize() {
+        if (segmentSize > 0) {
+            return segmentSize;
+        }
+        return (int) Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxSize * 1024L / 16));
+    }
+
+    /**
+     * Sets the size of a segment file. Elements that are larger than a segment are not stored.
+     * @param segmentSize size of a segment file in bytes, or 0 to derive it from the maximum size
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TilePackDiskCacheAttributes [maxSize=" + maxSize + ", segmentSize=" + getSegmentSize() + ", " + super.toString() + ']';
+    }
+}
@@ -28,6 +28,7 @@ import org.openstreetmap.josm.data.Data;
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.gpx.IGpxTrack.GpxTrackChangeListener;
+import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.GpxLayer;
@@ -147,6 +148,8 @@ public class GpxData extends WithAttributes implements Data, IGpxLayerPrefs {
 
     private List<GpxTrackSegmentSpan> segSpans;
 
+    private volatile GpxTrackIndex trackIndex;
+
     /**
      * Merges data from another object.
      * @param other existing GPX data
@@ -806,114 +809,38 @@ public class GpxData extends WithAttributes implements Data, IGpxLayerPrefs {
      * end of a segment, or may be null if nothing close enough
      */
     public synchronized WayPoint nearestPointOnTrack(EastNorth p, double tolerance) {
-        /*
-         * assume the coordinates of P are xp,yp, and those of a section of track between two
-         * trackpoints are R=xr,yr and S=xs,ys. Let N be the projected point.
-         *
-         * The equation of RS is Ax + By + C = 0 where A = ys - yr B = xr - xs C = - Axr - Byr
-         *
-         * Also, note that the distance RS^2 is A^2 + B^2
-         *
-         * If RS^2 == 0.0 ignore the degenerate section of track
-         *
-         * PN^2 = (Axp + Byp + C)^2 / RS^2 that is the distance from P to the line
-         *
-         * so if PN^2 is less than PNmin^2 (initialized to tolerance) we can reject the line
-         * otherwise... determine if the projected poijnt lies within the bounds of the line: PR^2 -
-         * PN^2 <= RS^2 and PS^2 - PN^2 <= RS^2
-         *
-         * where PR^2 = (xp - xr)^2 + (yp-yr)^2 and PS^2 = (xp - xs)^2 + (yp-ys)^2
-         *
-         * If so, calculate N as xn = xr + (RN/RS) B yn = y1 + (RN/RS) A
-         *
-         * where RN = sqrt(PR^2 - PN^2)
-         */
+        return getTrackIndex().nearestPointOnTrack(p, tolerance);
+    }
 
-        double pnminsq = tolerance * tolerance;
-        EastNorth bestEN = null;
-        double bestTime = Double.NaN;
-        double px = p.east();
-        double py = p.north();
-        double rx = 0.0, ry = 0.0, sx, sy, x, y;
-        for (IGpxTrack track : privateTracks) {
-            for (IGpxTrackSegment seg : track.getSegments()) {
-                WayPoint r = null;
-                for (WayPoint wpSeg : seg.getWayPoints()) {
-                    EastNorth en = wpSeg.getEastNorth(ProjectionRegistry.getProjection());
-                    if (r == null) {
-                        r = wpSeg;
-                        rx = en.east();
-                        ry = en.north();
-                        x = px - rx;
-                        y = py - ry;
-                        double pRsq = x * x + y * y;
-                        if (pRsq < pnminsq) {
-                            pnminsq = pRsq;
-                            bestEN = en;
-                            if (r.hasDate()) {
-                                bestTime = r.getTime();
-                            }
-                        }
-                    } else {
-                        sx = en.east();
-                        sy = en.north();
-                        double a = sy - ry;
-                        double b = rx - sx;
-                        double c = -a * rx - b * ry;
-                        double rssq = a * a + b * b;
-                        if (rssq == 0) {
-                            continue;
-                        }
-                        double pnsq = a * px + b * py + c;
-                        pnsq = pnsq * pnsq / rssq;
-                        if (pnsq < pnminsq) {
-                            x = px - rx;
-                            y = py - ry;
-                            double prsq = x * x + y * y;
-                            x = px - sx;
-                            y = py - sy;
-                            double pssq = x * x + y * y;
-                            if (prsq - pnsq <= rssq && pssq - pnsq <= rssq) {
-                                double rnoverRS = Math.sqrt((prsq - pnsq) / rssq);
-                                double nx = rx - rnoverRS * b;
-                                double ny = ry + rnoverRS * a;
-                                bestEN = new EastNorth(nx, ny);
-                                if (r.hasDate() && wpSeg.hasDate()) {
-                                    bestTime = r.getTime() + rnoverRS * (wpSeg.getTime() - r.getTime());
-                                }
-                                pnminsq = pnsq;
-                            }
-                        }
-                        r = wpSeg;
-                        rx = sx;
-                        ry = sy;
-                    }
-                }
-                if (r != null) {
-                    EastNorth c = r.getEastNorth(ProjectionRegistry.getProjection());
-                    /* if there is only one point in the seg, it will do this twice, but no matter */
-                    rx = c.east();
-                    ry = c.north();
-                    x = px - rx;
-                    y = py - ry;
-                    double prsq = x * x + y * y;
-                    if (prsq < pnminsq) {
-                        pnminsq = prsq;
-                        bestEN = c;
-                        if (r.hasDate()) {
-                            bestTime = r.getTime();
-                        }
-                    }
-                }
-            }
-        }
-        if (bestEN == null)
-            return null;
-        WayPoint best = new WayPoint(ProjectionRegistry.getProjection().eastNorth2latlon(bestEN));
-        if (!Double.isNaN(bestTime)) {
-            best.setTimeInMillis((long) (bestTime * 1000));
+    /**
+     * Makes a WayPoint at the projection of each of the given points onto the track,
+     * see {@link #nearestPointOnTrack(EastNorth, double)}.
+     *
+     * @param points the points to determine the projection for
+     * @param tolerance must be no further than this from the track
+     * @return for each point, the closest point on the track or {@code null} if nothing is close enough
+     * @since xxx
+     */
+    public synchronized List<WayPoint> nearestPointsOnTrack(List<EastNorth> points, double tolerance) {
+        return getTrackIndex().nearestPointsOnTrack(points, tolerance);
+    }
+
+    /**
+     * Returns the spatial index of the track points in the current projection.
+     * <p>
+     * The index is built on first use and discarded when the data is {@linkplain #invalidate() invalidated}
+     * or the {@linkplain #resetEastNorthCache() east/north cache is reset}.
+     * @return the spatial index of the track points
+     * @since xxx
+     */
+    public synchronized GpxTrackIndex getTrackIndex() {
+        Projection projection = ProjectionRegistry.getProjection();
+        GpxTrackIndex index = trackIndex;
+        if (index == null || index.getProjection() != projection) {
+            index = new GpxTrackIndex(privateTracks, projection);
+            trackIndex = index;
         }
-        return best;
+        return index;
     }
 
     /**
@@ -932,6 +859,7 @@ public class GpxData extends WithAttributes implements Data, IGpxLayerPrefs {
      * Resets the internal caches of east/north coordinates.
      */
     public synchronized void resetEastNorthCache() {
+        trackIndex = null;
         privateWaypoints.forEach(WayPoint::invalidateEastNorthCache);
         getTrackPoints().forEach(WayPoint::invalidateEastNorthCache);
         for (GpxRoute route: getRoutes()) {
@@ -1132,6 +1060,7 @@ public class GpxData extends WithAttributes implements Data, IGpxLayerPrefs {
     }
 
     private void fireInvalidate(boolean setModified) {
+        trackIndex = null;
         if (updating || initializing) {
             suppressedInvalidate = true;
         } else {
@@ -807,6 +807,15 @@ public class GpxImageEntry implements Comparable<GpxImageEntry>, IQuadBucketType
         return this.cameraProjection;
     }
 
+    /**
+     * Set the projection type for this entry
+     * @param projection The projection type
+     * @since xxx
+     */
+    public void setProjectionType(Projections projection) {
+        this.cameraProjection = projection;
+    }
+
     /**
      * Returns a {@link WayPoint} representation of this GPX image entry.
      * @return a {@code WayPoint} representation of this GPX image entry (containing position, instant and elevation)
@@ -0,0 +1,505 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.gpx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * A spatial index of the track points of a {@link GpxData}, in the east/north coordinates of a projection.
+ * <p>
+ * The way points of all track segments are projected once and stored in packed arrays. The sections between
+ * consecutive way points, and the first and the last way point of each track segment, are sorted into a regular grid
+ * of cells by their bounding box. Queries only visit the cells around the query point.
+ * <p>
+ * The index is immutable. {@link GpxData} builds it on first use and discards it when the data changes or when the
+ * east/north cache is reset, see {@link GpxData#getTrackIndex()}.
+ * @since xxx
+ */
+public final class GpxTrackIndex {
+
+    /** The element is the section from its first way point to its last way point */
+    private static final byte SECTION = 0;
+    /** The element is the first or the last way point of a track segment with several way points */
+    private static final byte END_POINT = 1;
+    /** The element is the only way point of a track segment */
+    private static final byte SINGLE_POINT = 2;
+
+    private final Projection projection;
+
+    private final WayPoint[] points;
+    private final double[] east;
+    private final double[] north;
+    private final IGpxTrackSegment[] segments;
+    /** For each track segment, the index of its first way point */
+    private final int[] segmentStarts;
+
+    /** For each element, in the order of the tracks and segments, the index of its first way point */
+    private final int[] elementPoints;
+    /** For each element, the index of its last way point */
+    private final int[] elementEnds;
+    private final byte[] elementKinds;
+
+    private final double minEast;
+    private final double minNorth;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    /** For each cell, the index of its first element in {@link #cellElements}, followed by the total count */
+    private final int[] cellStarts;
+    private final int[] cellElements;
+
+    /**
+     * A section of a track segment between two consecutive way points, or the only way point of a track segment.
+     * A way point repeating the position of the previous way point does not start a new section.
+     */
+    public static final class Section {
+        private final IGpxTrackSegment segment;
+        private final WayPoint start;
+        private final WayPoint end;
+
+        Section(IGpxTrackSegment segment, WayPoint start, WayPoint end) {
+            this.segment = segment;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the track segment this section belongs to.
+         * @return the track segment
+         */
+        public IGpxTrackSegment getSegment() {
+            return segment;
+        }
+
+        /**
+         * Returns the first way point of this section.
+         * @return the first way point
+         */
+        public WayPoint getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the last way point of this section. It is the same as the first way point if the track segment only
+         * consists of one way point.
+         * @return the last way point
+         */
+        public WayPoint getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return "Section [start=" + start + ", end=" + end + ']';
+        }
+    }
+
+    /**
+     * Constructs a new {@code GpxTrackIndex}.
+     * @param tracks the tracks to index
+     * @param projection the projection of the east/north coordinates
+     */
+    public GpxTrackIndex(Collection<? extends IGpxTrack> tracks, Projection projection) {
+        this.projection = projection;
+        List<IGpxTrackSegment> segmentList = new ArrayList<>();
+        int pointCount = 0;
+        for (IGpxTrack track : tracks) {
+            for (IGpxTrackSegment seg : track.getSegments()) {
+                int size = seg.getWayPoints().size();
+                if (size > 0) {
+                    segmentList.add(seg);
+                    pointCount += size;
+                }
+            }
+        }
+        segments = segmentList.toArray(new IGpxTrackSegment[0]);
+        segmentStarts = new int[segments.length];
+        points = new WayPoint[pointCount];
+        east = new double[pointCount];
+        north = new double[pointCount];
+        // each segment has at most one element more than way points
+        int[] tmpElementPoints = new int[pointCount + segments.length];
+        int[] tmpElementEnds = new int[tmpElementPoints.length];
+        byte[] tmpElementKinds = new byte[tmpElementPoints.length];
+        int elementCount = 0;
+        int p = 0;
+        for (int s = 0; s < segments.length; s++) {
+            segmentStarts[s] = p;
+            Collection<WayPoint> wayPoints = segments[s].getWayPoints();
+            int first = p;
+            for (WayPoint wp : wayPoints) {
+                EastNorth en = wp.getEastNorth(projection);
+                points[p] = wp;
+                east[p] = en != null ? en.east() : Double.NaN;
+                north[p] = en != null ? en.north() : Double.NaN;
+                p++;
+            }
+            // same order of candidates as the linear search before, which skips repeated way points
+            int firstElement = elementCount;
+            int r = first;
+            elementCount = addElement(tmpElementPoints, tmpElementEnds, tmpElementKinds, elementCount, first, first, END_POINT);
+            for (int i = first + 1; i < p; i++) {
+                if (east[i] == east[r] && north[i] == north[r]) {
+                    continue;
+                }
+                elementCount = addElement(tmpElementPoints, tmpElementEnds, tmpElementKinds, elementCount, r, i, SECTION);
+                r = i;
+            }
+            if (elementCount == firstElement + 1) {
+                // only one way point, or the same position repeated
+                tmpElementKinds[firstElement] = SINGLE_POINT;
+            } else {
+                elementCount = addElement(tmpElementPoints, tmpElementEnds, tmpElementKinds, elementCount, r, r, END_POINT);
+            }
+        }
+        elementPoints = tmpElementPoints.length == elementCount ? tmpElementPoints : Arrays.copyOf(tmpElementPoints, elementCount);
+        elementEnds = tmpElementEnds.length == elementCount ? tmpElementEnds : Arrays.copyOf(tmpElementEnds, elementCount);
+        elementKinds = tmpElementKinds.length == elementCount ? tmpElementKinds : Arrays.copyOf(tmpElementKinds, elementCount);
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double length = 0;
+        int sections = 0;
+        for (int e = 0; e < elementCount; e++) {
+            int i = elementPoints[e];
+            int j = elementEnds[e];
+            if (Double.isNaN(east[i]) || Double.isNaN(north[i])) {
+                continue;
+            }
+            minX = Math.min(minX, east[i]);
+            minY = Math.min(minY, north[i]);
+            maxX = Math.max(maxX, east[i]);
+            maxY = Math.max(maxY, north[i]);
+            if (elementKinds[e] == SECTION && !Double.isNaN(east[j]) && !Double.isNaN(north[j])) {
+                length += Math.abs(east[j] - east[i]) + Math.abs(north[j] - north[i]);
+                sections++;
+            }
+        }
+        if (minX > maxX) {
+            // no way point with known coordinates
+            minEast = 0;
+            minNorth = 0;
+            cellSize = 1;
+            columns = 0;
+            rows = 0;
+            cellStarts = new int[1];
+            cellElements = new int[0];
+            return;
+        }
+        // about one element per cell, but not much smaller than the sections to keep the number of cells per section low
+        double width = maxX - minX;
+        double height = maxY - minY;
+        double size = Math.max(Math.sqrt(width * height / elementCount), sections > 0 ? length / sections : 0);
+        size = Math.max(size, Math.max(width, height) / Math.max(1, elementCount));
+        if (!(size > 0)) {
+            size = 1;
+        }
+        minEast = minX;
+        minNorth = minY;
+        cellSize = size;
+        // at most about three times as many cells as elements
+        columns = (int) (width / size) + 1;
+        rows = (int) (height / size) + 1;
+
+        // counting sort of the elements into the cells
+        cellStarts = new int[columns * rows + 1];
+        forEachCell(elementCount, (cell, e) -> cellStarts[cell + 1]++);
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        cellElements = new int[cellStarts[columns * rows]];
+        int[] next = Arrays.copyOf(cellStarts, columns * rows);
+        forEachCell(elementCount, (cell, e) -> cellElements[next[cell]++] = e);
+    }
+
+    private static int addElement(int[] starts, int[] ends, byte[] kinds, int count, int start, int end, byte kind) {
+        starts[count] = start;
+        ends[count] = end;
+        kinds[count] = kind;
+        return count + 1;
+    }
+
+    @FunctionalInterface
+    private interface CellConsumer {
+        void accept(int cell, int element);
+    }
+
+    /**
+     * Calls the consumer for each element and each cell covered by the bounding box of the element.
+     */
+    private void forEachCell(int elementCount, CellConsumer consumer) {
+        for (int e = 0; e < elementCount; e++) {
+            int i = elementPoints[e];
+            int j = elementEnds[e];
+            double x0 = Math.min(east[i], east[j]);
+            double y0 = Math.min(north[i], north[j]);
+            double x1 = Math.max(east[i], east[j]);
+            double y1 = Math.max(north[i], north[j]);
+            if (Double.isNaN(x0) || Double.isNaN(y0) || Double.isNaN(x1) || Double.isNaN(y1)) {
+                continue;
+            }
+            for (int row = row(y0); row <= row(y1); row++) {
+                for (int column = column(x0); column <= column(x1); column++) {
+                    consumer.accept(row * columns + column, e);
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return (int) Utils.clamp(Math.floor((x - minEast) / cellSize), 0, columns - 1);
+    }
+
+    private int row(double y) {
+        return (int) Utils.clamp(Math.floor((y - minNorth) / cellSize), 0, rows - 1);
+    }
+
+    /**
+     * Returns the projection of the east/north coordinates of this index.
+     * @return the projection
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns the number of indexed way points.
+     * @return the number of indexed way points
+     */
+    public int getWayPointCount() {
+        return points.length;
+    }
+
+    /**
+     * Makes a WayPoint at the projection of point p onto the track providing p is less than
+     * tolerance away from the track.
+     * <p>
+     * The result is the same as the one of a linear search over the first and last way point of each track segment
+     * and the perpendicular projections onto all sections of the tracks, in track order.
+     *
+     * @param p the point to determine the projection for
+     * @param tolerance must be no further than this from the track
+     * @return the closest point on the track to p, which may be the first or last point if off the
+     * end of a segment, or may be null if nothing close enough
+     * @see GpxData#nearestPointOnTrack(EastNorth, double)
+     */
+    public WayPoint nearestPointOnTrack(EastNorth p, double tolerance) {
+        /*
+         * assume the coordinates of P are xp,yp, and those of a section of track between two
+         * trackpoints are R=xr,yr and S=xs,ys. Let N be the projected point.
+         *
+         * The equation of RS is Ax + By + C = 0 where A = ys - yr B = xr - xs C = - Axr - Byr
+         *
+         * Also, note that the distance RS^2 is A^2 + B^2
+         *
+         * If RS^2 == 0.0 ignore the degenerate section of track
+         *
+         * PN^2 = (Axp + Byp + C)^2 / RS^2 that is the distance from P to the line
+         *
+         * so if PN^2 is less than PNmin^2 (initialized to tolerance) we can reject the line
+         * otherwise... determine if the projected point lies within the bounds of the line: PR^2 -
+         * PN^2 <= RS^2 and PS^2 - PN^2 <= RS^2
+         *
+         * where PR^2 = (xp - xr)^2 + (yp-yr)^2 and PS^2 = (xp - xs)^2 + (yp-ys)^2
+         *
+         * If so, calculate N as xn = xr + (RN/RS) B yn = y1 + (RN/RS) A
+         *
+         * where RN = sqrt(PR^2 - PN^2)
+         */
+        double px = p.east();
+        double py = p.north();
+        if (columns == 0 || !(tolerance >= 0) || Double.isNaN(px) || Double.isNaN(py)) {
+            return null;
+        }
+        double pnminsq = tolerance * tolerance;
+        int best = -1;
+        double bestX = 0;
+        double bestY = 0;
+        double bestFraction = 0;
+        double x0 = px - tolerance;
+        double y0 = py - tolerance;
+        double x1 = px + tolerance;
+        double y1 = py + tolerance;
+        if (x1 < minEast || y1 < minNorth || x0 > minEast + columns * cellSize || y0 > minNorth + rows * cellSize) {
+            return null;
+        }
+        for (int row = row(y0); row <= row(y1); row++) {
+            for (int column = column(x0); column <= column(x1); column++) {
+                int cell = row * columns + column;
+                for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+                    int e = cellElements[k];
+                    int r = elementPoints[e];
+                    double rx = east[r];
+                    double ry = north[r];
+                    double x = px - rx;
+                    double y = py - ry;
+                    if (elementKinds[e] != SECTION) {
+                        double prsq = x * x + y * y;
+                        if (isBetter(prsq, e, pnminsq, best)) {
+                            pnminsq = prsq;
+                            best = e;
+                            bestX = rx;
+                            bestY = ry;
+                            bestFraction = 0;
+                        }
+                        continue;
+                    }
+                    double sx = east[elementEnds[e]];
+                    double sy = north[elementEnds[e]];
+                    double a = sy - ry;
+                    double b = rx - sx;
+                    double c = -a * rx - b * ry;
+                    double rssq = a * a + b * b;
+                    if (rssq == 0) {
+                        continue;
+                    }
+                    double pnsq = a * px + b * py + c;
+                    pnsq = pnsq * pnsq / rssq;
+                    if (isBetter(pnsq, e, pnminsq, best)) {
+                        double prsq = x * x + y * y;
+                        x = px - sx;
+                        y = py - sy;
+                        double pssq = x * x + y * y;
+                        if (prsq - pnsq <= rssq && pssq - pnsq <= rssq) {
+                            double rnoverRS = Math.sqrt((prsq - pnsq) / rssq);
+                            pnminsq = pnsq;
+                            best = e;
+                            bestX = rx - rnoverRS * b;
+                            bestY = ry + rnoverRS * a;
+                            bestFraction = rnoverRS;
+                        }
+                    }
+                }
+            }
+        }
+        if (best < 0)
+            return null;
+        WayPoint result = new WayPoint(projection.eastNorth2latlon(new EastNorth(bestX, bestY)));
+        WayPoint r = points[elementPoints[best]];
+        if (elementKinds[best] != SECTION) {
+            if (r.hasDate()) {
+                result.setTimeInMillis((long) (r.getTime() * 1000));
+            }
+        } else {
+            WayPoint s = points[elementEnds[best]];
+            if (r.hasDate() && s.hasDate()) {
+                double time = r.getTime() + bestFraction * (s.getTime() - r.getTime());
+                result.setTimeInMillis((long) (time * 1000));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a candidate is better than the best candidate so far. Candidates which are not closer than the
+     * tolerance are rejected, as in the linear search. For candidates with the same distance, the first one in track
+     * order is chosen, as the cells are not visited in track order.
+     */
+    private static boolean isBetter(double distanceSq, int element, double bestDistanceSq, int bestElement) {
+        return distanceSq < bestDistanceSq || (distanceSq == bestDistanceSq && bestElement >= 0 && element < bestElement);
+    }
+
+    /**
+     * Makes a WayPoint at the projection of each of the given points onto the track,
+     * see {@link #nearestPointOnTrack(EastNorth, double)}.
+     * @param positions the points to determine the projection for
+     * @param tolerance must be no further than this from the track
+     * @return for each point, the closest point on the track or {@code null} if nothing is close enough
+     */
+    public List<WayPoint> nearestPointsOnTrack(List<EastNorth> positions, double tolerance) {
+        List<WayPoint> result = new ArrayList<>(positions.size());
+        for (EastNorth p : positions) {
+            result.add(nearestPointOnTrack(p, tolerance));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sections of the tracks which are not further than the given distance from the given point.
+     * @param p the point
+     * @param distance the maximum distance
+     * @return the sections, in track order
+     */
+    public List<Section> getSections(EastNorth p, double distance) {
+        double px = p.east();
+        double py = p.north();
+        double maxSq = distance * distance;
+        return getSections(px - distance, py - distance, px + distance, py + distance, (i, j) -> {
+            double dx = east[j] - east[i];
+            double dy = north[j] - north[i];
+            double lengthSq = dx * dx + dy * dy;
+            double t = lengthSq == 0 ? 0 : Utils.clamp(((px - east[i]) * dx + (py - north[i]) * dy) / lengthSq, 0, 1);
+            double x = east[i] + t * dx - px;
+            double y = north[i] + t * dy - py;
+            return x * x + y * y <= maxSq;
+        });
+    }
+
+    /**
+     * Returns the sections of the tracks whose bounding box intersects the given bounds.
+     * @param bounds the bounds
+     * @return the sections, in track order
+     */
+    public List<Section> getSections(ProjectionBounds bounds) {
+        return getSections(bounds.minEast, bounds.minNorth, bounds.maxEast, bounds.maxNorth, (i, j) -> true);
+    }
+
+    @FunctionalInterface
+    private interface SectionFilter {
+        boolean test(int start, int end);
+    }
+
+    private List<Section> getSections(double x0, double y0, double x1, double y1, SectionFilter filter) {
+        if (columns == 0 || !(x0 <= x1 && y0 <= y1)
+                || x1 < minEast || y1 < minNorth || x0 > minEast + columns * cellSize || y0 > minNorth + rows * cellSize) {
+            return Collections.emptyList();
+        }
+        List<Integer> found = new ArrayList<>();
+        for (int row = row(y0); row <= row(y1); row++) {
+            for (int column = column(x0); column <= column(x1); column++) {
+                int cell = row * columns + column;
+                for (int k = cellStarts[cell]; k < cellStarts[cell + 1]; k++) {
+                    int e = cellElements[k];
+                    if (elementKinds[e] == END_POINT) {
+                        // covered by the adjacent section
+                        continue;
+                    }
+                    int i = elementPoints[e];
+                    int j = elementEnds[e];
+                    double ex0 = Math.min(east[i], east[j]);
+                    double ey0 = Math.min(north[i], north[j]);
+                    if (ex0 > x1 || ey0 > y1 || Math.max(east[i], east[j]) < x0 || Math.max(north[i], north[j]) < y0) {
+                        continue;
+                    }
+                    // report each element only in the cell containing the minimum of the intersection with the query
+                    if (row(Math.max(ey0, y0)) != row || column(Math.max(ex0, x0)) != column || !filter.test(i, j)) {
+                        continue;
+                    }
+                    found.add(e);
+                }
+            }
+        }
+        Collections.sort(found);
+        List<Section> result = new ArrayList<>(found.size());
+        for (int e : found) {
+            int i = elementPoints[e];
+            result.add(new Section(getSegment(i), points[i], points[elementEnds[e]]));
+        }
+        return result;
+    }
+
+    private IGpxTrackSegment getSegment(int point) {
+        int s = Arrays.binarySearch(segmentStarts, point);
+        return segments[s >= 0 ? s : -s - 2];
+    }
+}
@@ -116,9 +116,12 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
 
     /**
      * Returns cache statistics as string.
-     * @return cache statistics as string
+     * @return cache statistics as string, including the depth of the download queue and the cache hit/miss counts
      */
     public String getStats() {
+        if (downloadExecutor.getQueue() instanceof HostLimitQueue) {
+            return cache.getStats() + '\n' + ((HostLimitQueue) downloadExecutor.getQueue()).getStats();
+        }
         return cache.getStats();
     }
 
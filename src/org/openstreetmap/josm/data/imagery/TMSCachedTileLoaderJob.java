@@ -17,6 +17,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -63,6 +64,59 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
     // that way, we reduce calls to tileLoadingFinished, and general CPU load due to surplus Map repaints
     private static final ConcurrentMap<String, Set<TileLoaderListener>> inProgress = new ConcurrentHashMap<>();
 
+    /**
+     * Maximum number of tiles waiting to be decoded. When the queue is full, the tiles which waited longest are
+     * canceled, as they are likely not visible anymore. They are loaded again if they are still needed.
+     */
+    private static final int DECODE_QUEUE_SIZE = 128;
+
+    /**
+     * Decodes the tile images and notifies the listeners, one thread per core
+     */
+    private static final ThreadPoolExecutor DECODE_EXECUTOR = newDecodeExecutor();
+
+    private static ThreadPoolExecutor newDecodeExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(DECODE_QUEUE_SIZE), Utils.newThreadFactory("TMS-decoder-%d", Thread.NORM_PRIORITY),
+                (r, e) -> {
+                    // discard the oldest tile, like ThreadPoolExecutor.DiscardOldestPolicy, but mark it as canceled
+                    if (!e.isShutdown()) {
+                        Runnable oldest = e.getQueue().poll();
+                        if (oldest instanceof DecodeTask) {
+                            ((DecodeTask) oldest).cancel();
+                        }
+                        e.execute(r);
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Task decoding a loaded tile on the {@link #DECODE_EXECUTOR}
+     */
+    private final class DecodeTask implements Runnable {
+        private final CacheEntry object;
+        private final CacheEntryAttributes attributes;
+        private final LoadResult result;
+
+        DecodeTask(CacheEntry object, CacheEntryAttributes attributes, LoadResult result) {
+            this.object = object;
+            this.attributes = attributes;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            finishTile(object, attributes, result);
+        }
+
+        void cancel() {
+            finishTile(object, attributes, LoadResult.CANCELED);
+        }
+    }
+
     /**
      * Constructor for creating a job, to get a specific tile from cache
      * @param listener Tile loader listener
@@ -184,6 +238,15 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
 
     @Override
     public void loadingFinished(CacheEntry object, CacheEntryAttributes attributes, LoadResult result) {
+        if (result == LoadResult.CANCELED) {
+            finishTile(object, attributes, result);
+        } else {
+            // decode the image on a separate pool, so the download threads are not blocked by decoding
+            DECODE_EXECUTOR.execute(new DecodeTask(object, attributes, result));
+        }
+    }
+
+    private void finishTile(CacheEntry object, CacheEntryAttributes attributes, LoadResult result) {
         this.attributes = attributes; // as we might get notification from other object than our selfs, pass attributes along
         Set<TileLoaderListener> listeners = inProgress.remove(getCacheKey());
         boolean status = result == LoadResult.SUCCESS;
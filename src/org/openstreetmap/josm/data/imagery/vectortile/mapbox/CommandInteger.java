@@ -2,7 +2,6 @@
 package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
 
 import java.util.Arrays;
-import java.util.stream.Stream;
 
 /**
  * An indicator for a command to be executed
@@ -10,6 +9,7 @@ import java.util.stream.Stream;
  * @since 17862
  */
 public class CommandInteger {
+    private static final Command[] COMMANDS = Command.values();
     private final Command type;
     private final short[] parameters;
     private int added;
@@ -21,20 +21,37 @@ public class CommandInteger {
     public CommandInteger(final int command) {
         // Technically, the int is unsigned, but it is easier to work with the long
         final long unsigned = Integer.toUnsignedLong(command);
-        this.type = Stream.of(Command.values()).filter(e -> e.getId() == (unsigned & 0x7)).findAny()
-                .orElseThrow(InvalidMapboxVectorTileException::new);
+        this.type = getCommand((int) (unsigned & 0x7));
         // This is safe, since we are shifting right 3 when we converted an int to a long (for unsigned).
         // So we <i>cannot</i> lose anything.
         final int operationsInt = (int) (unsigned >> 3);
         this.parameters = new short[operationsInt * this.type.getParameterNumber()];
     }
 
+    private static Command getCommand(int id) {
+        for (Command command : COMMANDS) {
+            if (command.getId() == id) {
+                return command;
+            }
+        }
+        throw new InvalidMapboxVectorTileException();
+    }
+
     /**
      * Add a parameter
      * @param parameterInteger The parameter to add (converted to {@code short}).
      */
     public void addParameter(Number parameterInteger) {
-        this.parameters[added++] = parameterInteger.shortValue();
+        addParameter(parameterInteger.intValue());
+    }
+
+    /**
+     * Add a parameter
+     * @param parameterInteger The parameter to add (converted to {@code short}).
+     * @since xxx
+     */
+    public void addParameter(int parameterInteger) {
+        this.parameters[added++] = (short) parameterInteger;
     }
 
     /**
@@ -8,9 +8,9 @@ import java.util.List;
 import java.util.Locale;
 
 import org.openstreetmap.josm.data.osm.TagMap;
-import org.openstreetmap.josm.data.protobuf.ProtobufPacked;
-import org.openstreetmap.josm.data.protobuf.ProtobufParser;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
 import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
+import org.openstreetmap.josm.data.protobuf.WireType;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -24,6 +24,7 @@ public class Feature {
     private static final byte TAG_FIELD = 2;
     private static final byte GEOMETRY_TYPE_FIELD = 3;
     private static final byte GEOMETRY_FIELD = 4;
+    private static final GeometryTypes[] GEOMETRY_TYPES = GeometryTypes.values();
     /**
      * The geometry of the feature. Required.
      */
@@ -50,50 +51,81 @@ public class Feature {
      * @param layer  The layer the feature is part of (required for tags)
      * @param record The record to create the feature from
      * @throws IOException - if an IO error occurs
+     * @deprecated Use {@link #Feature(Layer, ProtobufReader)}
      */
+    @Deprecated
     public Feature(Layer layer, ProtobufRecord record) throws IOException {
+        this(layer, new ProtobufReader(record.getBytes()));
+        record.close();
+    }
+
+    /**
+     * Create a new Feature
+     *
+     * @param layer  The layer the feature is part of (required for tags)
+     * @param reader The reader for the feature message
+     * @throws IOException - if an IO error occurs
+     * @since xxx
+     */
+    public Feature(Layer layer, ProtobufReader reader) throws IOException {
         long tId = 0;
         GeometryTypes geometryTypeTemp = GeometryTypes.UNKNOWN;
         String key = null;
-        try (ProtobufParser parser = new ProtobufParser(record.getBytes())) {
-            while (parser.hasNext()) {
-                try (ProtobufRecord next = new ProtobufRecord(parser)) {
-                    if (next.getField() == TAG_FIELD) {
-                        if (tags == null) {
-                            tags = new TagMap();
-                        }
-                        // This is packed in v1 and v2
-                        ProtobufPacked packed = new ProtobufPacked(next.getBytes());
-                        for (Number number : packed.getArray()) {
-                            key = parseTagValue(key, layer, number);
-                        }
-                    } else if (next.getField() == GEOMETRY_FIELD) {
-                        // This is packed in v1 and v2
-                        ProtobufPacked packed = new ProtobufPacked(next.getBytes());
-                        CommandInteger currentCommand = null;
-                        for (Number number : packed.getArray()) {
-                            if (currentCommand != null && currentCommand.hasAllExpectedParameters()) {
-                                currentCommand = null;
-                            }
-                            if (currentCommand == null) {
-                                currentCommand = new CommandInteger(number.intValue());
-                                this.geometry.add(currentCommand);
-                            } else {
-                                currentCommand.addParameter(ProtobufParser.decodeZigZag(number));
-                            }
-                        }
-                        // TODO fallback to non-packed
-                    } else if (next.getField() == GEOMETRY_TYPE_FIELD) {
-                        geometryTypeTemp = GeometryTypes.values()[next.asUnsignedVarInt().intValue()];
-                    } else if (next.getField() == ID_FIELD) {
-                        tId = next.asUnsignedVarInt().longValue();
+        CommandInteger currentCommand = null;
+        while (reader.next()) {
+            final WireType type = reader.getType();
+            if (reader.getField() == TAG_FIELD && (type == WireType.LENGTH_DELIMITED || type == WireType.VARINT)) {
+                if (tags == null) {
+                    tags = new TagMap();
+                }
+                // This is packed in v1 and v2
+                if (type == WireType.LENGTH_DELIMITED) {
+                    int oldLimit = reader.pushLimit();
+                    while (reader.hasNext()) {
+                        key = parseTagValue(key, layer, (int) reader.readVarInt());
                     }
+                    reader.popLimit(oldLimit);
+                } else {
+                    key = parseTagValue(key, layer, (int) reader.readVarInt());
                 }
+            } else if (reader.getField() == GEOMETRY_FIELD && (type == WireType.LENGTH_DELIMITED || type == WireType.VARINT)) {
+                // This is packed in v1 and v2
+                if (type == WireType.LENGTH_DELIMITED) {
+                    int oldLimit = reader.pushLimit();
+                    while (reader.hasNext()) {
+                        currentCommand = parseGeometry(currentCommand, reader.readVarInt());
+                    }
+                    reader.popLimit(oldLimit);
+                } else {
+                    currentCommand = parseGeometry(currentCommand, reader.readVarInt());
+                }
+            } else if (reader.getField() == GEOMETRY_TYPE_FIELD && type == WireType.VARINT) {
+                geometryTypeTemp = GEOMETRY_TYPES[(int) reader.readVarInt()];
+            } else if (reader.getField() == ID_FIELD && type == WireType.VARINT) {
+                tId = reader.readVarInt();
+            } else {
+                reader.skip();
             }
         }
         this.id = tId;
         this.geometryType = geometryTypeTemp;
-        record.close();
+    }
+
+    /**
+     * Parse a geometry value
+     *
+     * @param currentCommand The current command (or {@code null})
+     * @param value          The command or parameter
+     * @return The new current command
+     */
+    private CommandInteger parseGeometry(CommandInteger currentCommand, long value) {
+        if (currentCommand == null || currentCommand.hasAllExpectedParameters()) {
+            CommandInteger command = new CommandInteger((int) value);
+            this.geometry.add(command);
+            return command;
+        }
+        currentCommand.addParameter((int) ProtobufReader.decodeZigZag(value));
+        return currentCommand;
     }
 
     /**
@@ -101,14 +133,14 @@ public class Feature {
      *
      * @param key    The current key (or {@code null}, if {@code null}, the returned value will be the new key)
      * @param layer  The layer with key/value information
-     * @param number The number to get the value from
+     * @param index  The index of the key or value
      * @return The new key (if {@code null}, then a value was parsed and added to tags)
      */
-    private String parseTagValue(String key, Layer layer, Number number) {
+    private String parseTagValue(String key, Layer layer, int index) {
         if (key == null) {
-            key = layer.getKey(number.intValue());
+            key = layer.getKey(index);
         } else {
-            Object value = layer.getValue(number.intValue());
+            Object value = layer.getValue(index);
             if (value instanceof Double || value instanceof Float) {
                 // reset grouping if the instance is a singleton
                 final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.ROOT);
@@ -2,22 +2,21 @@
 package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.protobuf.ProtobufParser;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
 import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
+import org.openstreetmap.josm.data.protobuf.WireType;
 import org.openstreetmap.josm.tools.Destroyable;
-import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * A Mapbox Vector Tile Layer
@@ -25,47 +24,6 @@ import org.openstreetmap.josm.tools.Logging;
  * @since 17862
  */
 public final class Layer implements Destroyable {
-    private static final class ValueFields<T> {
-        static final ValueFields<String> STRING = new ValueFields<>(1, ProtobufRecord::asString);
-        static final ValueFields<Float> FLOAT = new ValueFields<>(2, ProtobufRecord::asFloat);
-        static final ValueFields<Double> DOUBLE = new ValueFields<>(3, ProtobufRecord::asDouble);
-        static final ValueFields<Number> INT64 = new ValueFields<>(4, ProtobufRecord::asUnsignedVarInt);
-        // This may have issues if there are actual uint_values (i.e., more than {@link Long#MAX_VALUE})
-        static final ValueFields<Number> UINT64 = new ValueFields<>(5, ProtobufRecord::asUnsignedVarInt);
-        static final ValueFields<Number> SINT64 = new ValueFields<>(6, ProtobufRecord::asSignedVarInt);
-        static final ValueFields<Boolean> BOOL = new ValueFields<>(7, r -> r.asUnsignedVarInt().longValue() != 0);
-
-        /**
-         * A collection of methods to map a record to a type
-         */
-        public static final Collection<ValueFields<?>> MAPPERS =
-          Collections.unmodifiableList(Arrays.asList(STRING, FLOAT, DOUBLE, INT64, UINT64, SINT64, BOOL));
-
-        private final byte field;
-        private final Function<ProtobufRecord, T> conversion;
-        private ValueFields(int field, Function<ProtobufRecord, T> conversion) {
-            this.field = (byte) field;
-            this.conversion = conversion;
-        }
-
-        /**
-         * Get the field identifier for the value
-         * @return The identifier
-         */
-        public byte getField() {
-            return this.field;
-        }
-
-        /**
-         * Convert a protobuf record to a value
-         * @param protobufRecord The record to convert
-         * @return the converted value
-         */
-        public T convertValue(ProtobufRecord protobufRecord) {
-            return this.conversion.apply(protobufRecord);
-        }
-    }
-
     /** The field value for a layer (in {@link ProtobufRecord#getField}) */
     public static final byte LAYER_FIELD = 3;
     private static final byte VERSION_FIELD = 15;
@@ -74,6 +32,13 @@ public final class Layer implements Destroyable {
     private static final byte KEY_FIELD = 3;
     private static final byte VALUE_FIELD = 4;
     private static final byte EXTENT_FIELD = 5;
+    private static final byte STRING_VALUE_FIELD = 1;
+    private static final byte FLOAT_VALUE_FIELD = 2;
+    private static final byte DOUBLE_VALUE_FIELD = 3;
+    private static final byte INT64_VALUE_FIELD = 4;
+    private static final byte UINT64_VALUE_FIELD = 5;
+    private static final byte SINT64_VALUE_FIELD = 6;
+    private static final byte BOOL_VALUE_FIELD = 7;
     /** The default extent for a vector tile */
     static final int DEFAULT_EXTENT = 4096;
     private static final byte DEFAULT_VERSION = 1;
@@ -96,75 +61,138 @@ public final class Layer implements Destroyable {
      * Create a layer from a collection of records
      * @param records The records to convert to a layer
      * @throws IOException - if an IO error occurs
+     * @deprecated Use {@link #Layer(ProtobufReader)}
      */
+    @Deprecated
     public Layer(Collection<ProtobufRecord> records) throws IOException {
-        // Do the unique required fields first
-        Map<Integer, List<ProtobufRecord>> sorted = records.stream().collect(Collectors.groupingBy(ProtobufRecord::getField));
-        this.version = sorted.getOrDefault((int) VERSION_FIELD, Collections.emptyList()).parallelStream()
-          .map(ProtobufRecord::asUnsignedVarInt).map(Number::byteValue).findFirst().orElse(DEFAULT_VERSION);
+        this(new ProtobufReader(encode(records)));
+        // Cleanup bytes (for memory)
+        for (ProtobufRecord record : records) {
+            record.close();
+        }
+    }
+
+    /**
+     * Create a new layer
+     * @param bytes The bytes that the layer comes from
+     * @throws IOException - if an IO error occurs
+     */
+    public Layer(byte[] bytes) throws IOException {
+        this(new ProtobufReader(bytes));
+    }
+
+    /**
+     * Create a new layer
+     * @param reader The reader for the layer message
+     * @throws IOException - if an IO error occurs
+     * @since xxx
+     */
+    public Layer(ProtobufReader reader) throws IOException {
+        // Features and values are read after the version check, and features need the keys and values
+        List<ProtobufReader> valueReaders = new ArrayList<>();
+        List<ProtobufReader> featureReaders = new ArrayList<>();
+        byte tVersion = DEFAULT_VERSION;
+        String tName = null;
+        int tExtent = DEFAULT_EXTENT;
+        boolean hasVersion = false;
+        boolean hasExtent = false;
+        while (reader.next()) {
+            final WireType type = reader.getType();
+            if (reader.getField() == VERSION_FIELD && type == WireType.VARINT && !hasVersion) {
+                tVersion = (byte) reader.readVarInt();
+                hasVersion = true;
+            } else if (reader.getField() == NAME_FIELD && type == WireType.LENGTH_DELIMITED && tName == null) {
+                tName = reader.readString();
+            } else if (reader.getField() == EXTENT_FIELD && type == WireType.VARINT && !hasExtent) {
+                tExtent = (int) reader.readVarInt();
+                hasExtent = true;
+            } else if (reader.getField() == KEY_FIELD && type == WireType.LENGTH_DELIMITED) {
+                this.keyList.add(Utils.intern(reader.readString()));
+            } else if (reader.getField() == VALUE_FIELD && type == WireType.LENGTH_DELIMITED) {
+                valueReaders.add(reader.readMessage());
+            } else if (reader.getField() == FEATURE_FIELD && type == WireType.LENGTH_DELIMITED) {
+                featureReaders.add(reader.readMessage());
+            } else {
+                reader.skip();
+            }
+        }
+        this.version = tVersion;
         // Per spec, we cannot continue past this until we have checked the version number
         if (this.version != 1 && this.version != 2) {
             throw new IllegalArgumentException(tr("We do not understand version {0} of the vector tile specification", this.version));
         }
-        this.name = sorted.getOrDefault((int) NAME_FIELD, Collections.emptyList()).parallelStream().map(ProtobufRecord::asString).findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(tr("Vector tile layers must have a layer name")));
-        this.extent = sorted.getOrDefault((int) EXTENT_FIELD, Collections.emptyList()).parallelStream().map(ProtobufRecord::asUnsignedVarInt)
-                .map(Number::intValue).findAny().orElse(DEFAULT_EXTENT);
-
-        sorted.getOrDefault((int) KEY_FIELD, Collections.emptyList()).parallelStream().map(ProtobufRecord::asString)
-                .forEachOrdered(this.keyList::add);
-        sorted.getOrDefault((int) VALUE_FIELD, Collections.emptyList()).parallelStream().map(ProtobufRecord::getBytes)
-                .map(ProtobufParser::new).map(parser1 -> {
-                    try {
-                        return new ProtobufRecord(parser1);
-                    } catch (IOException e) {
-                        Logging.error(e);
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .map(value -> ValueFields.MAPPERS.parallelStream()
-                        .filter(v -> v.getField() == value.getField())
-                        .map(v -> v.convertValue(value)).findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException(tr("Unknown field in vector tile layer value ({0})", value.getField()))))
-                .forEachOrdered(this.valueList::add);
-        Collection<IOException> exceptions = new HashSet<>(0);
-        this.featureCollection = sorted.getOrDefault((int) FEATURE_FIELD, Collections.emptyList()).parallelStream().map(feature -> {
-            try {
-                return new Feature(this, feature);
-            } catch (IOException e) {
-                exceptions.add(e);
-            }
-            return null;
-        }).collect(Collectors.toList());
-        if (!exceptions.isEmpty()) {
-            throw exceptions.iterator().next();
+        if (tName == null) {
+            throw new IllegalArgumentException(tr("Vector tile layers must have a layer name"));
         }
-        // Cleanup bytes (for memory)
-        for (ProtobufRecord record : records) {
-            record.close();
+        this.name = Utils.intern(tName);
+        this.extent = tExtent;
+        for (ProtobufReader valueReader : valueReaders) {
+            this.valueList.add(parseValue(valueReader));
+        }
+        this.featureCollection = new ArrayList<>(featureReaders.size());
+        for (ProtobufReader featureReader : featureReaders) {
+            this.featureCollection.add(new Feature(this, featureReader));
         }
     }
 
     /**
-     * Get all the records from a array of bytes
-     * @param bytes The byte information
-     * @return All the protobuf records
-     * @throws IOException If there was an error reading the bytes (unlikely)
+     * Parse a value of the layer
+     * @param reader The reader for the value message
+     * @return The value
+     * @throws IOException - if an IO error occurs
      */
-    private static Collection<ProtobufRecord> getAllRecords(byte[] bytes) throws IOException {
-        try (ProtobufParser parser = new ProtobufParser(bytes)) {
-            return parser.allRecords();
+    private static Object parseValue(ProtobufReader reader) throws IOException {
+        if (!reader.next()) {
+            throw new IOException(tr("Empty value in vector tile layer"));
+        }
+        switch (reader.getField()) {
+        case STRING_VALUE_FIELD:
+            return Utils.intern(reader.readString());
+        case FLOAT_VALUE_FIELD:
+            return reader.readFloat();
+        case DOUBLE_VALUE_FIELD:
+            return reader.readDouble();
+        case INT64_VALUE_FIELD:
+        // This may have issues if there are actual uint_values (i.e., more than {@link Long#MAX_VALUE})
+        case UINT64_VALUE_FIELD:
+            return ProtobufParser.convertLong(reader.readVarInt());
+        case SINT64_VALUE_FIELD:
+            return ProtobufParser.convertLong(reader.readSignedVarInt());
+        case BOOL_VALUE_FIELD:
+            return reader.readVarInt() != 0;
+        default:
+            throw new IllegalArgumentException(tr("Unknown field in vector tile layer value ({0})", reader.getField()));
         }
     }
 
     /**
-     * Create a new layer
-     * @param bytes The bytes that the layer comes from
-     * @throws IOException - if an IO error occurs
+     * Encode records again, for {@link #Layer(Collection)}
+     * @param records The records to encode
+     * @return The encoded records
      */
-    public Layer(byte[] bytes) throws IOException {
-        this(getAllRecords(bytes));
+    private static byte[] encode(Collection<ProtobufRecord> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ProtobufRecord record : records) {
+            writeVarInt(out, ((long) record.getField() << 3) | record.getType().getTypeRepresentation());
+            if (record.getType() == WireType.VARINT) {
+                writeVarInt(out, record.asUnsignedVarInt().longValue());
+            } else {
+                if (record.getType() == WireType.LENGTH_DELIMITED) {
+                    writeVarInt(out, record.getBytes().length);
+                }
+                out.write(record.getBytes(), 0, record.getBytes().length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
     }
 
     /**
@@ -8,7 +8,6 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.interfaces.ICoordinate;
@@ -16,11 +15,12 @@ import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
 import org.openstreetmap.josm.data.IQuadBucketType;
 import org.openstreetmap.josm.data.imagery.vectortile.VectorTile;
 import org.openstreetmap.josm.data.osm.BBox;
-import org.openstreetmap.josm.data.protobuf.ProtobufParser;
-import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
+import org.openstreetmap.josm.data.protobuf.WireType;
 import org.openstreetmap.josm.data.vector.VectorDataStore;
 import org.openstreetmap.josm.tools.ListenerList;
 import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * A class for Mapbox Vector Tiles
@@ -51,23 +51,20 @@ public class MVTTile extends Tile implements VectorTile, IQuadBucketType {
     public void loadImage(final InputStream inputStream) throws IOException {
         if (this.image == null || this.image == Tile.LOADING_IMAGE || this.image == Tile.ERROR_IMAGE) {
             this.initLoading();
-            ProtobufParser parser = new ProtobufParser(inputStream);
-            Collection<ProtobufRecord> protobufRecords = parser.allRecords();
+            ProtobufReader reader = new ProtobufReader(Utils.readBytesFromStream(inputStream));
             this.layers = new HashSet<>();
-            this.layers = protobufRecords.stream().map(protoBufRecord -> {
-                Layer mvtLayer = null;
-                if (protoBufRecord.getField() == Layer.LAYER_FIELD) {
-                    try (ProtobufParser tParser = new ProtobufParser(protoBufRecord.getBytes())) {
-                        mvtLayer = new Layer(tParser.allRecords());
+            while (reader.next()) {
+                if (reader.getField() == Layer.LAYER_FIELD && reader.getType() == WireType.LENGTH_DELIMITED) {
+                    ProtobufReader layerReader = reader.readMessage();
+                    try {
+                        this.layers.add(new Layer(layerReader));
                     } catch (IOException e) {
                         Logging.error(e);
-                    } finally {
-                        // Cleanup bytes
-                        protoBufRecord.close();
                     }
+                } else {
+                    reader.skip();
                 }
-                return mvtLayer;
-            }).collect(Collectors.toCollection(HashSet::new));
+            }
             this.extent = layers.stream().filter(Objects::nonNull).mapToInt(Layer::getExtent).max().orElse(Layer.DEFAULT_EXTENT);
             if (this.getData() != null) {
                 this.finishLoading();
@@ -506,19 +506,34 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
      */
     @Override
     public void addPrimitive(OsmPrimitive primitive) {
-        Objects.requireNonNull(primitive, "primitive");
+        addPrimitives(Collections.singletonList(Objects.requireNonNull(primitive, "primitive")));
+    }
+
+    /**
+     * Adds primitives to the dataset, with a single event for all of them.
+     *
+     * @param primitives the primitives
+     * @throws IllegalStateException if the dataset is read-only
+     * @since xxx
+     */
+    public void addPrimitives(Collection<? extends OsmPrimitive> primitives) {
+        if (primitives.isEmpty())
+            return;
         checkModifiable();
         update(() -> {
-            if (getPrimitiveById(primitive) != null)
-                throw new DataIntegrityProblemException(
-                        tr("Unable to add primitive {0} to the dataset because it is already included", primitive.toString()),
-                        null, primitive);
-
-            allPrimitives.add(primitive);
-            primitive.setDataset(this);
-            primitive.updatePosition(); // Set cached bbox for way and relation (required for reindexWay and reindexRelation to work properly)
-            store.addPrimitive(primitive);
-            firePrimitivesAdded(Collections.singletonList(primitive), false);
+            for (OsmPrimitive primitive : primitives) {
+                Objects.requireNonNull(primitive, "primitive");
+                if (getPrimitiveById(primitive) != null)
+                    throw new DataIntegrityProblemException(
+                            tr("Unable to add primitive {0} to the dataset because it is already included", primitive.toString()),
+                            null, primitive);
+
+                allPrimitives.add(primitive);
+                primitive.setDataset(this);
+                primitive.updatePosition(); // Set cached bbox for way and relation (required for reindexWay and reindexRelation to work properly)
+                store.addPrimitive(primitive);
+            }
+            firePrimitivesAdded(new ArrayList<>(primitives), false);
         });
     }
 
@@ -6,6 +6,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -13,6 +14,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.conflict.Conflict;
@@ -20,14 +25,22 @@ import org.openstreetmap.josm.data.conflict.ConflictCollection;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.JosmRuntimeException;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Stopwatch;
 
 /**
  * A dataset merger which takes a target and a source dataset and merges the source data set
  * onto the target dataset.
- *
+ * <p>
+ * The primitives are merged by type, nodes first. For large data sets, the target primitives of the source primitives
+ * and the target nodes of the ways are looked up in parallel, while the target data set is only modified by the merging thread.
+ * The new primitives of each type are added to the target data set at once.
  */
 public class DataSetMerger {
 
+    /** The minimum number of primitives of one type for which the targets are looked up in parallel */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
     /** the collection of conflicts created during merging */
     private final ConflictCollection conflicts;
 
@@ -46,6 +59,10 @@ public class DataSetMerger {
      */
     private final Set<PrimitiveId> objectsWithChildrenToMerge;
     private final Set<OsmPrimitive> objectsToDelete;
+    /** the ids of the primitives created during merging, which are not added to the target dataset yet */
+    private final Set<PrimitiveId> pendingTargets;
+    /** the time the target dataset was locked for writing by the last merge operation, in milliseconds */
+    private long lockHoldTime;
 
     /**
      * constructor
@@ -64,6 +81,7 @@ public class DataSetMerger {
         mergedMap = new HashMap<>();
         objectsWithChildrenToMerge = new HashSet<>();
         objectsToDelete = new HashSet<>();
+        pendingTargets = new HashSet<>();
     }
 
     /**
@@ -79,16 +97,38 @@ public class DataSetMerger {
      *
      * @param source the primitive to merge
      * @param candidates a set of possible candidates for a new primitive
+     * @deprecated Not called by {@link #merge()} anymore, which merges the primitives of each type in bulk
+     * and adds them to the target dataset with a single event
      */
+    @Deprecated
     protected void mergePrimitive(OsmPrimitive source, Collection<? extends OsmPrimitive> candidates) {
+        OsmPrimitive target = mergePrimitive(source, source.isNew() ? null : targetDataSet.getPrimitiveById(source.getId(), source.getType()),
+                candidates);
+        if (target != null) {
+            targetDataSet.addPrimitive(target);
+        }
+    }
+
+    /**
+     * Merges a primitive onto primitives dataset, see {@link #mergePrimitive(OsmPrimitive, Collection)}.
+     *
+     * @param source the primitive to merge
+     * @param existing the primitive of the target dataset with the same id, if any
+     * @param candidates a set of possible candidates for a new primitive
+     * @return the primitive to be added to the target dataset, or {@code null} if the source primitive was merged
+     * onto an existing primitive or ignored
+     */
+    private OsmPrimitive mergePrimitive(OsmPrimitive source, OsmPrimitive existing, Iterable<? extends OsmPrimitive> candidates) {
         if (!source.isNew()) {
             // try to merge onto a matching primitive with the same defined id
             //
-            if (mergeById(source))
-                return;
+            if (existing != null) {
+                mergeById(source, existing);
+                return null;
+            }
         } else {
             // ignore deleted primitives from source
-            if (source.isDeleted()) return;
+            if (source.isDeleted()) return null;
 
             // try to merge onto a primitive  which has no id assigned
             // yet but which is equal in its semantic attributes
@@ -105,7 +145,7 @@ public class DataSetMerger {
                     target.setRawTimestamp(source.getRawTimestamp());
                     target.setModified(source.isModified());
                     objectsWithChildrenToMerge.add(source.getPrimitiveId());
-                    return;
+                    return null;
                 }
             }
         }
@@ -121,9 +161,69 @@ public class DataSetMerger {
         default: throw new AssertionError();
         }
         target.mergeFrom(source);
-        targetDataSet.addPrimitive(target);
         mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
         objectsWithChildrenToMerge.add(source.getPrimitiveId());
+        return target;
+    }
+
+    /**
+     * Merges the primitives of one type onto the target dataset.
+     * @param sources the source primitives
+     * @param targets supplies the target primitives of the same type
+     * @param progressMonitor The progress monitor, can be {@code null}
+     */
+    private void mergePrimitives(Collection<? extends OsmPrimitive> sources, Supplier<Collection<? extends OsmPrimitive>> targets,
+            ProgressMonitor progressMonitor) {
+        List<OsmPrimitive> sourceList = new ArrayList<>(sources);
+        // ids are unique per type, so the existing targets do not depend on the primitives merged before
+        OsmPrimitive[] existing = new OsmPrimitive[sourceList.size()];
+        IntStream indexes = IntStream.range(0, existing.length);
+        (existing.length < PARALLEL_THRESHOLD ? indexes : indexes.parallel()).forEach(i -> {
+            OsmPrimitive source = sourceList.get(i);
+            if (!source.isNew()) {
+                existing[i] = targetDataSet.getPrimitiveById(source.getId(), source.getType());
+            }
+        });
+
+        Map<Map<String, String>, List<OsmPrimitive>> candidates = null;
+        List<OsmPrimitive> added = new ArrayList<>();
+        for (int i = 0; i < existing.length; i++) {
+            OsmPrimitive source = sourceList.get(i);
+            Iterable<OsmPrimitive> matching = Collections.emptyList();
+            if (source.isNew() && !source.isDeleted()) {
+                // lazy initialisation to improve performance, see #19898
+                if (candidates == null) {
+                    candidates = getCandidates(targets.get());
+                }
+                matching = candidates.getOrDefault(source.getKeys(), Collections.emptyList());
+            }
+            OsmPrimitive target = mergePrimitive(source, existing[i], matching);
+            if (target != null) {
+                added.add(target);
+                pendingTargets.add(target.getPrimitiveId());
+            }
+            if (progressMonitor != null) {
+                progressMonitor.worked(1);
+            }
+        }
+        targetDataSet.addPrimitives(added);
+        pendingTargets.clear();
+    }
+
+    /**
+     * Returns the primitives of the target dataset onto which a new source primitive can be merged, by their tags.
+     * @param targets the target primitives
+     * @return the new and not deleted target primitives, by their tags
+     */
+    private static Map<Map<String, String>, List<OsmPrimitive>> getCandidates(Collection<? extends OsmPrimitive> targets) {
+        // primitives with equal semantic attributes have equal tags
+        Map<Map<String, String>, List<OsmPrimitive>> candidates = new HashMap<>();
+        for (OsmPrimitive target : targets) {
+            if (target.isNew() && !target.isDeleted()) {
+                candidates.computeIfAbsent(target.getKeys(), k -> new ArrayList<>()).add(target);
+            }
+        }
+        return candidates;
     }
 
     protected OsmPrimitive getMergeTarget(OsmPrimitive mergeSource) {
@@ -153,11 +253,14 @@ public class DataSetMerger {
      * data.
      */
     public void fixReferences() {
-        for (Way w : sourceDataSet.getWays()) {
-            if (!conflicts.hasConflictForTheir(w) && objectsWithChildrenToMerge.contains(w.getPrimitiveId())) {
-                mergeNodeList(w);
-                fixIncomplete(w);
-            }
+        List<Way> ways = sourceDataSet.getWays().stream()
+                .filter(w -> !conflicts.hasConflictForTheir(w) && objectsWithChildrenToMerge.contains(w.getPrimitiveId()))
+                .collect(Collectors.toList());
+        Stream<Way> stream = ways.size() < PARALLEL_THRESHOLD ? ways.stream() : ways.parallelStream();
+        List<List<Node>> nodes = stream.map(this::getTargetNodes).collect(Collectors.toList());
+        for (int i = 0; i < ways.size(); i++) {
+            mergeNodeList(ways.get(i), nodes.get(i));
+            fixIncomplete(ways.get(i));
         }
         for (Relation r : sourceDataSet.getRelations()) {
             if (!conflicts.hasConflictForTheir(r) && objectsWithChildrenToMerge.contains(r.getPrimitiveId())) {
@@ -220,30 +323,43 @@ public class DataSetMerger {
         }
     }
 
+    /**
+     * Looks up the target nodes of the nodes of a source way. This does not modify the target dataset.
+     *
+     * @param source the source way
+     * @return the target nodes
+     * @throws IllegalStateException if there isn't a target node for one of the nodes in the source way
+     */
+    private List<Node> getTargetNodes(Way source) {
+        List<Node> newNodes = new ArrayList<>(source.getNodesCount());
+        for (Node sourceNode : source.getNodes()) {
+            Node targetNode = (Node) getMergeTarget(sourceNode);
+            if (targetNode == null)
+                throw new IllegalStateException(tr("Missing merge target for node with id {0}", sourceNode.getUniqueId()));
+            newNodes.add(targetNode);
+        }
+        return newNodes;
+    }
+
     /**
      * Merges the node list of a source way onto its target way.
      *
      * @param source the source way
+     * @param newNodes the target nodes of the nodes of the source way
      * @throws IllegalStateException if no target way can be found for the source way
-     * @throws IllegalStateException if there isn't a target node for one of the nodes in the source way
      *
      */
-    private void mergeNodeList(Way source) {
+    private void mergeNodeList(Way source, List<Node> newNodes) {
         Way target = (Way) getMergeTarget(source);
         if (target == null)
             throw new IllegalStateException(tr("Missing merge target for way with id {0}", source.getUniqueId()));
 
-        List<Node> newNodes = new ArrayList<>(source.getNodesCount());
-        for (Node sourceNode : source.getNodes()) {
-            Node targetNode = (Node) getMergeTarget(sourceNode);
-            if (targetNode != null) {
-                newNodes.add(targetNode);
-                if (targetNode.isDeleted() && !conflicts.hasConflictForMy(targetNode)) {
-                    addConflict(new Conflict<OsmPrimitive>(targetNode, sourceNode, true));
-                    targetNode.setDeleted(false);
-                }
-            } else
-                throw new IllegalStateException(tr("Missing merge target for node with id {0}", sourceNode.getUniqueId()));
+        for (int i = 0; i < newNodes.size(); i++) {
+            Node targetNode = newNodes.get(i);
+            if (targetNode.isDeleted() && !conflicts.hasConflictForMy(targetNode)) {
+                addConflict(new Conflict<OsmPrimitive>(targetNode, source.getNode(i), true));
+                targetNode.setDeleted(false);
+            }
         }
         target.setNodes(newNodes);
     }
@@ -275,23 +391,18 @@ public class DataSetMerger {
     }
 
     /**
-     * Tries to merge a primitive <code>source</code> into an existing primitive with the same id.
+     * Merges a primitive <code>source</code> into an existing primitive with the same id.
      *
      * @param source  the source primitive which is to be merged into a target primitive
-     * @return true, if this method was able to merge <code>source</code> into a target object; false, otherwise
+     * @param target  the primitive of the target dataset with the same id
      */
-    private boolean mergeById(OsmPrimitive source) {
-        OsmPrimitive target = targetDataSet.getPrimitiveById(source.getId(), source.getType());
-        // merge other into an existing primitive with the same id, if possible
-        //
-        if (target == null)
-            return false;
+    private void mergeById(OsmPrimitive source, OsmPrimitive target) {
         // found a corresponding target, remember it
         mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
 
         if (target.getVersion() > source.getVersion())
             // target.version > source.version => keep target version
-            return true;
+            return;
 
         boolean mergeFromSource = false;
         boolean haveSameVersion = target.getVersion() == source.getVersion();
@@ -332,7 +443,8 @@ public class DataSetMerger {
             // or, if source has a referrer that is not in the target dataset there is a conflict
             // If target dataset refers to the deleted primitive, conflict will be added in fixReferences method
             for (OsmPrimitive referrer: source.getReferrers()) {
-                if (targetDataSet.getPrimitiveById(referrer.getPrimitiveId()) == null) {
+                if (targetDataSet.getPrimitiveById(referrer.getPrimitiveId()) == null
+                        && !pendingTargets.contains(referrer.getPrimitiveId())) {
                     addConflict(new Conflict<>(target, source, true));
                     target.setDeleted(false);
                     break;
@@ -373,7 +485,6 @@ public class DataSetMerger {
             target.mergeFrom(source);
             objectsWithChildrenToMerge.add(source.getPrimitiveId());
         }
-        return true;
     }
 
     /**
@@ -414,40 +525,10 @@ public class DataSetMerger {
             progressMonitor.beginTask(tr("Merging data..."), sourceDataSet.allPrimitives().size());
         }
         targetDataSet.update(() -> {
-            List<? extends OsmPrimitive> candidates = null;
-            for (Node node: sourceDataSet.getNodes()) {
-                // lazy initialisation to improve performance, see #19898
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getNodes());
-                }
-                mergePrimitive(node, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
-            for (Way way: sourceDataSet.getWays()) {
-                // lazy initialisation to improve performance
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getWays());
-                }
-                mergePrimitive(way, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
-            for (Relation relation: sourceDataSet.getRelations()) {
-                // lazy initialisation to improve performance
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getRelations());
-                }
-                mergePrimitive(relation, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            mergePrimitives(sourceDataSet.getNodes(), targetDataSet::getNodes, progressMonitor);
+            mergePrimitives(sourceDataSet.getWays(), targetDataSet::getWays, progressMonitor);
+            mergePrimitives(sourceDataSet.getRelations(), targetDataSet::getRelations, progressMonitor);
             fixReferences();
 
             Area a = targetDataSet.getDataSourceArea();
@@ -479,12 +560,25 @@ public class DataSetMerger {
             if (sourceDataSet.isLocked() && !targetDataSet.isLocked()) {
                 targetDataSet.lock();
             }
+            lockHoldTime = stopwatch.elapsed();
         });
+        if (Logging.isDebugEnabled()) {
+            Logging.debug("Merged {0} primitives, target dataset locked for {1} ms", sourceDataSet.allPrimitives().size(), lockHoldTime);
+        }
         if (progressMonitor != null) {
             progressMonitor.finishTask();
         }
     }
 
+    /**
+     * Returns the time the target dataset was locked for writing by the last merge operation.
+     * @return the lock hold time in milliseconds
+     * @since xxx
+     */
+    public long getLockHoldTime() {
+        return lockHoldTime;
+    }
+
     /**
      * replies my dataset
      *
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.data.osm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -121,6 +122,26 @@ public class FilterMatcher {
         return !hiddenFilters.isEmpty() || !disabledFilters.isEmpty();
     }
 
+    /**
+     * Returns how many levels of referrers or members of a primitive are looked at by the filters.
+     * @return the number of levels, or -1 if it is not known
+     * @see SearchCompiler#getReferenceDepth(Match)
+     * @since xxx
+     */
+    public int getReferenceDepth() {
+        int depth = 0;
+        for (List<FilterInfo> list : Arrays.asList(hiddenFilters, disabledFilters)) {
+            for (FilterInfo fi : list) {
+                int d = SearchCompiler.getReferenceDepth(fi.match);
+                if (d < 0) {
+                    return -1;
+                }
+                depth = Math.max(depth, d);
+            }
+        }
+        return depth;
+    }
+
     /**
      * Adds a filter to the currently used filters
      * @param filter the filter to add
@@ -5,9 +5,12 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import static org.openstreetmap.josm.tools.I18n.trn;
 
 import java.awt.Graphics2D;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,11 +23,14 @@ import javax.swing.JOptionPane;
 import org.openstreetmap.josm.data.SortableModel;
 import org.openstreetmap.josm.data.StructUtils;
 import org.openstreetmap.josm.data.osm.Filter.FilterPreferenceEntry;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
 import org.openstreetmap.josm.data.osm.search.SearchParseError;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.widgets.OSDLabel;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Stopwatch;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -45,6 +51,10 @@ public class FilterModel implements SortableModel<Filter> {
      * true, if the filter state (normal / disabled / hidden) of any primitive has changed in the process
      */
     private boolean changed;
+    /**
+     * duration of the last run of the filters, in milliseconds
+     */
+    private long lastExecutionTime;
 
     private final List<Filter> filters = new LinkedList<>();
     private final FilterMatcher filterMatcher = new FilterMatcher();
@@ -99,6 +109,7 @@ public class FilterModel implements SortableModel<Filter> {
      */
     public void executeFilters() {
         DataSet ds = OsmDataManager.getInstance().getActiveDataSet();
+        Stopwatch stopwatch = Stopwatch.createStarted();
         changed = false;
         if (ds == null) {
             disabledAndHiddenCount = 0;
@@ -139,6 +150,7 @@ public class FilterModel implements SortableModel<Filter> {
                 ds.clearSelection(deselect);
             }
         }
+        lastExecutionTime = stopwatch.elapsed();
         if (changed) {
             updateMap();
         }
@@ -146,6 +158,7 @@ public class FilterModel implements SortableModel<Filter> {
 
     /**
      * Runs the filter on a list of primitives that are part of the edit data set.
+     * Primitives that are deleted, incomplete or no longer part of the edit data set lose their filter state.
      * @param primitives The primitives
      */
     public void executeFilters(Collection<? extends OsmPrimitive> primitives) {
@@ -153,34 +166,25 @@ public class FilterModel implements SortableModel<Filter> {
         if (ds == null)
             return;
 
+        Stopwatch stopwatch = Stopwatch.createStarted();
         changed = false;
         List<OsmPrimitive> deselect = new ArrayList<>();
 
         ds.update(() -> {
-            for (int i = 0; i < 2; i++) {
+            // first relations, then ways and nodes last, as the state of members depends on the state of their parents
+            for (Class<? extends OsmPrimitive> type : Arrays.asList(Relation.class, Way.class, Node.class)) {
                 for (OsmPrimitive primitive: primitives) {
-
-                    if (i == 0 && primitive instanceof Node) {
+                    if (!type.isInstance(primitive)) {
                         continue;
                     }
 
-                    if (i == 1 && !(primitive instanceof Node)) {
+                    updateCounts(primitive, -1);
+                    if (primitive.getDataSet() != ds || primitive.isDeleted() || primitive.isIncomplete()) {
+                        changed |= primitive.unsetDisabledState();
                         continue;
                     }
-
-                    if (primitive.isDisabled()) {
-                        disabledCount--;
-                    }
-                    if (primitive.isDisabledAndHidden()) {
-                        disabledAndHiddenCount--;
-                    }
                     changed |= FilterWorker.executeFilters(primitive, filterMatcher);
-                    if (primitive.isDisabled()) {
-                        disabledCount++;
-                    }
-                    if (primitive.isDisabledAndHidden()) {
-                        disabledAndHiddenCount++;
-                    }
+                    updateCounts(primitive, 1);
 
                     if (primitive.isSelected() && primitive.isDisabled()) {
                         deselect.add(primitive);
@@ -192,11 +196,83 @@ public class FilterModel implements SortableModel<Filter> {
         if (!deselect.isEmpty()) {
             ds.clearSelection(deselect);
         }
+        lastExecutionTime = stopwatch.elapsed();
         if (changed) {
             updateMap();
         }
     }
 
+    /**
+     * Runs the filters on the primitives of the edit data set whose filter state can be affected by a change
+     * of the data set. Falls back to running the filters on the whole data set if the change is not known.
+     * @param event the change of the data set
+     * @since xxx
+     */
+    public void executeFilters(AbstractDatasetChangedEvent event) {
+        DataSet ds = OsmDataManager.getInstance().getActiveDataSet();
+        Set<OsmPrimitive> changedPrimitives = new HashSet<>();
+        if (ds == null || event.getDataset() != ds || !collectChangedPrimitives(event, changedPrimitives)) {
+            executeFilters();
+        } else if (!changedPrimitives.isEmpty()) {
+            executeFilters(getAffectedPrimitives(changedPrimitives, filterMatcher.getReferenceDepth()));
+        } else {
+            changed = false;
+        }
+    }
+
+    /**
+     * Collects the primitives changed by an event.
+     * @param event the event
+     * @param result the collection to add the primitives to
+     * @return {@code false} if the changed primitives are not known
+     */
+    private static boolean collectChangedPrimitives(AbstractDatasetChangedEvent event, Collection<OsmPrimitive> result) {
+        switch (event.getType()) {
+        case DATA_CHANGED:
+            List<AbstractDatasetChangedEvent> events = ((DataChangedEvent) event).getEvents();
+            if (events == null) {
+                return false;
+            }
+            for (AbstractDatasetChangedEvent e : events) {
+                if (!collectChangedPrimitives(e, result)) {
+                    return false;
+                }
+            }
+            return true;
+        case FILTERS_CHANGED:
+            return true;
+        case PRIMITIVES_ADDED:
+        case PRIMITIVES_REMOVED:
+        case TAGS_CHANGED:
+        case CHANGESET_ID_CHANGED:
+        case PRIMITIVE_FLAGS_CHANGED:
+            result.addAll(event.getPrimitives());
+            return true;
+        case NODE_MOVED:
+        case WAY_NODES_CHANGED:
+        case RELATION_MEMBERS_CHANGED:
+            // the geometry of all ancestors has changed as well
+            Deque<OsmPrimitive> stack = new ArrayDeque<>(event.getPrimitives());
+            while (!stack.isEmpty()) {
+                OsmPrimitive p = stack.pop();
+                if (result.add(p) && p.getDataSet() != null) {
+                    stack.addAll(p.getReferrers());
+                }
+            }
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private void updateCounts(OsmPrimitive primitive, int delta) {
+        if (primitive.isDisabledAndHidden()) {
+            disabledAndHiddenCount += delta;
+        } else if (primitive.isDisabled()) {
+            disabledCount += delta;
+        }
+    }
+
     private static void updateMap() {
         MainApplication.getLayerManager().invalidateEditLayer();
     }
@@ -376,6 +452,15 @@ public class FilterModel implements SortableModel<Filter> {
         return filterMatcher.hasFilters();
     }
 
+    /**
+     * Returns the duration of the last run of the filters.
+     * @return the duration of the last run of the filters, in milliseconds
+     * @since xxx
+     */
+    public long getLastExecutionTime() {
+        return lastExecutionTime;
+    }
+
     /**
      * Returns the list of primitives whose filtering can be affected by change in primitive
      * @param primitives list of primitives to check
@@ -414,6 +499,62 @@ public class FilterModel implements SortableModel<Filter> {
         return result;
     }
 
+    /**
+     * Returns the primitives whose filtering can be affected by a change of the given primitives,
+     * for filters that look at the given number of levels of referrers and members.
+     * @param primitives the changed primitives
+     * @param depth the number of levels of referrers and members looked at by the filters,
+     * see {@link FilterMatcher#getReferenceDepth()}. If negative, the complete tree is returned
+     * @return the primitives whose filtering can be affected by a change of the given primitives
+     * @since xxx
+     */
+    public static Collection<OsmPrimitive> getAffectedPrimitives(Collection<? extends OsmPrimitive> primitives, int depth) {
+        if (depth < 0) {
+            return getAffectedPrimitives(primitives);
+        }
+        Set<OsmPrimitive> result = new HashSet<>(primitives);
+        Collection<OsmPrimitive> level = new ArrayList<>(primitives);
+        for (int i = 0; i < depth && !level.isEmpty(); i++) {
+            List<OsmPrimitive> next = new ArrayList<>();
+            for (OsmPrimitive p : level) {
+                for (OsmPrimitive member : getMembers(p)) {
+                    if (result.add(member)) {
+                        next.add(member);
+                    }
+                }
+                // primitives that were removed from the data set have no referrers
+                if (p.getDataSet() == null) {
+                    continue;
+                }
+                for (OsmPrimitive ref : p.getReferrers()) {
+                    if (result.add(ref)) {
+                        next.add(ref);
+                    }
+                }
+            }
+            level = next;
+        }
+        // the state of multipolygon members and way nodes depends on the state of their parents
+        for (OsmPrimitive p : new ArrayList<>(result)) {
+            if (p instanceof Relation && p.isMultipolygon()) {
+                ((Relation) p).getMemberPrimitives(Way.class).forEach(w -> result.addAll(w.getNodes()));
+                result.addAll(((Relation) p).getMemberPrimitives(Way.class));
+            } else if (p instanceof Way) {
+                result.addAll(((Way) p).getNodes());
+            }
+        }
+        return result;
+    }
+
+    private static List<? extends OsmPrimitive> getMembers(OsmPrimitive p) {
+        if (p instanceof Way) {
+            return ((Way) p).getNodes();
+        } else if (p instanceof Relation) {
+            return ((Relation) p).getMemberPrimitivesList();
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public void sort() {
         Collections.sort(filters);
@@ -1,8 +1,11 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.osm;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.data.osm.FilterMatcher.FilterType;
 import org.openstreetmap.josm.data.osm.search.SearchParseError;
@@ -17,6 +20,9 @@ import org.openstreetmap.josm.tools.SubclassFilteredCollection;
  */
 public final class FilterWorker {
 
+    /** The minimum number of primitives of one type that are tested in parallel */
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
     private FilterWorker() {
         // Hide default constructor for utils classes
     }
@@ -46,11 +52,39 @@ public final class FilterWorker {
      * @since 17862 (generics)
      */
     public static <T extends IPrimitive & IFilterablePrimitive> boolean executeFilters(Collection<T> all, FilterMatcher filterMatcher) {
+        // matches that are not known may lock the data set, which is locked for writing by the caller
+        boolean parallel = filterMatcher.getReferenceDepth() >= 0;
         boolean changed;
         // first relations, then ways and nodes last; this is required to resolve dependencies
-        changed = doExecuteFilters(SubclassFilteredCollection.filter(all, IRelation.class::isInstance), filterMatcher);
-        changed |= doExecuteFilters(SubclassFilteredCollection.filter(all, IWay.class::isInstance), filterMatcher);
-        changed |= doExecuteFilters(SubclassFilteredCollection.filter(all, INode.class::isInstance), filterMatcher);
+        changed = doExecuteFilters(SubclassFilteredCollection.filter(all, IRelation.class::isInstance), filterMatcher, parallel);
+        changed |= doExecuteFilters(SubclassFilteredCollection.filter(all, IWay.class::isInstance), filterMatcher, parallel);
+        changed |= doExecuteFilters(SubclassFilteredCollection.filter(all, INode.class::isInstance), filterMatcher, parallel);
+        return changed;
+    }
+
+    private static <T extends IPrimitive & IFilterablePrimitive> boolean doExecuteFilters(Collection<T> all, FilterMatcher filterMatcher,
+            boolean parallel) {
+        if (!parallel) {
+            return doExecuteFilters(all, filterMatcher);
+        }
+        // the primitives of one type do not depend on each other, so they are tested in parallel,
+        // while the flags are set by this thread, as setting them locks the data set
+        List<T> list = new ArrayList<>(all);
+        if (list.size() < PARALLEL_THRESHOLD) {
+            return doExecuteFilters(list, filterMatcher);
+        }
+        FilterType[] hiddenTypes = new FilterType[list.size()];
+        FilterType[] disabledTypes = new FilterType[list.size()];
+        IntStream.range(0, list.size()).parallel().forEach(i -> {
+            hiddenTypes[i] = filterMatcher.isHidden(list.get(i));
+            if (hiddenTypes[i] == FilterType.NOT_FILTERED) {
+                disabledTypes[i] = filterMatcher.isDisabled(list.get(i));
+            }
+        });
+        boolean changed = false;
+        for (int i = 0; i < hiddenTypes.length; i++) {
+            changed |= setFilterState(list.get(i), hiddenTypes[i], disabledTypes[i]);
+        }
         return changed;
     }
 
@@ -60,22 +94,27 @@ public final class FilterWorker {
 
         for (T primitive : all) {
             FilterType hiddenType = filterMatcher.isHidden(primitive);
-            if (hiddenType != FilterType.NOT_FILTERED) {
-                changed |= primitive.setDisabledState(true);
-                primitive.setHiddenType(hiddenType == FilterType.EXPLICIT);
-            } else {
-                FilterType disabledType = filterMatcher.isDisabled(primitive);
-                if (disabledType != FilterType.NOT_FILTERED) {
-                    changed |= primitive.setDisabledState(false);
-                    primitive.setDisabledType(disabledType == FilterType.EXPLICIT);
-                } else {
-                    changed |= primitive.unsetDisabledState();
-                }
-            }
+            changed |= setFilterState(primitive, hiddenType,
+                    hiddenType == FilterType.NOT_FILTERED ? filterMatcher.isDisabled(primitive) : null);
         }
         return changed;
     }
 
+    private static <T extends IPrimitive & IFilterablePrimitive> boolean setFilterState(T primitive, FilterType hiddenType,
+            FilterType disabledType) {
+        if (hiddenType != FilterType.NOT_FILTERED) {
+            boolean changed = primitive.setDisabledState(true);
+            primitive.setHiddenType(hiddenType == FilterType.EXPLICIT);
+            return changed;
+        } else if (disabledType != FilterType.NOT_FILTERED) {
+            boolean changed = primitive.setDisabledState(false);
+            primitive.setDisabledType(disabledType == FilterType.EXPLICIT);
+            return changed;
+        } else {
+            return primitive.unsetDisabledState();
+        }
+    }
+
     /**
      * Apply the filters to a single primitive.
      *
@@ -0,0 +1,174 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+
+/**
+ * An inverted index from tag keys to the primitives of a {@link DataSet} having that key.
+ * <p>
+ * The index of a data set is built on first use and then kept up to date by listening to the data set, until it is
+ * dropped by {@link #remove(DataSet)}. Deleted primitives stay in the index as long as they are part of the data set.
+ * @since xxx
+ */
+final class KeyIndex implements DataSetListener {
+
+    private static final Map<DataSet, KeyIndex> INDEXES = new WeakHashMap<>();
+
+    /** the primitives by key, {@code null} if the index has to be (re)built */
+    private Map<String, Set<OsmPrimitive>> primitives;
+
+    private KeyIndex() {
+        // use forDataSet
+    }
+
+    /**
+     * Returns the index of the given data set, creating it if needed.
+     * @param ds the data set
+     * @return the index of the data set
+     */
+    static KeyIndex forDataSet(DataSet ds) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(ds, k -> {
+                KeyIndex index = new KeyIndex();
+                k.addDataSetListener(index);
+                return index;
+            });
+        }
+    }
+
+    /**
+     * Drops the index of the given data set and stops listening to it.
+     * @param ds the data set
+     */
+    static void remove(DataSet ds) {
+        KeyIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.remove(ds);
+        }
+        if (index != null) {
+            ds.removeDataSetListener(index);
+        }
+    }
+
+    /**
+     * Returns the primitives having the given key.
+     * @param ds the data set of this index
+     * @param key the key
+     * @return a new list of the primitives of the data set having the given key
+     */
+    List<OsmPrimitive> getPrimitives(DataSet ds, String key) {
+        // acquire the locks in the same order as the data set, which fires its events with the read lock held
+        ds.getReadLock().lock();
+        try {
+            synchronized (this) {
+                if (primitives == null) {
+                    primitives = new HashMap<>();
+                    ds.allPrimitives().forEach(this::add);
+                }
+                Set<OsmPrimitive> set = primitives.get(key);
+                return set != null ? new ArrayList<>(set) : new ArrayList<>();
+            }
+        } finally {
+            ds.getReadLock().unlock();
+        }
+    }
+
+    private void add(OsmPrimitive p) {
+        if (p.hasKeys()) {
+            p.keys().forEach(key -> primitives.computeIfAbsent(key, k -> new HashSet<>()).add(p));
+        }
+    }
+
+    private void remove(OsmPrimitive p, Collection<String> keys) {
+        for (String key : keys) {
+            Set<OsmPrimitive> set = primitives.get(key);
+            if (set != null && set.remove(p) && set.isEmpty()) {
+                primitives.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void primitivesAdded(PrimitivesAddedEvent event) {
+        if (primitives != null) {
+            event.getPrimitives().forEach(this::add);
+        }
+    }
+
+    @Override
+    public synchronized void primitivesRemoved(PrimitivesRemovedEvent event) {
+        if (primitives != null) {
+            for (OsmPrimitive p : event.getPrimitives()) {
+                // primitives that are only marked as deleted are still part of the data set
+                if (p.getDataSet() != event.getDataset()) {
+                    remove(p, p.getKeys().keySet());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void tagsChanged(TagsChangedEvent event) {
+        if (primitives != null) {
+            OsmPrimitive p = event.getPrimitive();
+            Set<String> removedKeys = new HashSet<>(event.getOriginalKeys().keySet());
+            removedKeys.removeAll(p.getKeys().keySet());
+            remove(p, removedKeys);
+            if (p.getDataSet() == event.getDataset()) {
+                add(p);
+            }
+        }
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public synchronized void dataChanged(DataChangedEvent event) {
+        List<AbstractDatasetChangedEvent> events = event.getEvents();
+        if (events == null) {
+            // too many changes to replay, rebuild on next use
+            primitives = null;
+        } else if (primitives != null) {
+            for (AbstractDatasetChangedEvent e : events) {
+                e.fire(this);
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
@@ -1803,6 +1804,16 @@ public class SearchCompiler {
 
         protected abstract Collection<Bounds> getBounds(OsmPrimitive primitive);
 
+        /**
+         * Returns the bounds of this match for all primitives of a data set, so they can be looked up in its spatial index.
+         * @param ds the data set that is searched
+         * @return the bounds, or {@code null} if they are not known in advance
+         * @since xxx
+         */
+        protected Collection<Bounds> getSearchBounds(DataSet ds) {
+            return null;
+        }
+
         @Override
         public boolean match(OsmPrimitive osm) {
             if (!osm.isUsable())
@@ -1855,6 +1866,11 @@ public class SearchCompiler {
             return primitive.getDataSet() != null ? primitive.getDataSet().getDataSourceBounds() : null;
         }
 
+        @Override
+        protected Collection<Bounds> getSearchBounds(DataSet ds) {
+            return ds.getDataSourceBounds();
+        }
+
         @Override
         public String toString() {
             return all ? "allindownloadedarea" : "indownloadedarea";
@@ -1881,6 +1897,13 @@ public class SearchCompiler {
                     Collections.singleton(ProjectionRegistry.getProjection().getWorldBoundsLatLon()) : bounds;
         }
 
+        @Override
+        protected Collection<Bounds> getSearchBounds(DataSet ds) {
+            final Collection<Bounds> bounds = super.getSearchBounds(ds);
+            // no restriction without a source area
+            return Utils.isEmpty(bounds) ? null : bounds;
+        }
+
         @Override
         public String toString() {
             return "NotOutsideDataSourceArea";
@@ -2032,6 +2055,36 @@ public class SearchCompiler {
         }
     }
 
+    /**
+     * Returns how many levels of referrers or members of a primitive are looked at by a match,
+     * through nested {@code parent} and {@code child} expressions.
+     * <p>
+     * Matches that look at the referrers of a primitive, such as {@code nth:}, {@code role:} or {@code ways:}, count as one level.
+     * Matches that depend on the geometry of members, such as {@code inview} or {@code areasize:}, count as zero levels.
+     * @param match the match
+     * @return the number of levels, or -1 if the match contains expressions that are not known to this class,
+     * such as MapCSS selectors or matches contributed by plugins
+     * @since xxx
+     */
+    public static int getReferenceDepth(Match match) {
+        if (match instanceof Parent || match instanceof Child) {
+            int depth = getReferenceDepth(((UnaryMatch) match).getOperand());
+            return depth < 0 ? -1 : depth + 1;
+        } else if (match instanceof UnaryMatch) {
+            return getReferenceDepth(((UnaryMatch) match).getOperand());
+        } else if (match instanceof AbstractBinaryMatch) {
+            int lhs = getReferenceDepth(((AbstractBinaryMatch) match).getLhs());
+            int rhs = getReferenceDepth(((AbstractBinaryMatch) match).getRhs());
+            return lhs < 0 || rhs < 0 ? -1 : Math.max(lhs, rhs);
+        } else if (match instanceof Nth || match instanceof RoleMatch || match instanceof WayCountRange) {
+            return 1;
+        } else if (match instanceof InArea || (match.getClass().getEnclosingClass() == SearchCompiler.class
+                && !(match instanceof MapCSSMatch))) {
+            return 0;
+        }
+        return -1;
+    }
+
     /**
      * Parse search string.
      *
@@ -0,0 +1,150 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.search;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.And;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Child;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.ExactKeyValue;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.InArea;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Match;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Never;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Or;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Parent;
+
+/**
+ * Finds the primitives of a data set that can match a compiled search expression by using indexes,
+ * instead of testing every primitive of the data set.
+ * <p>
+ * The planner walks the {@link Match} tree and answers the terms it can from an index:
+ * <ul>
+ * <li>{@code key=value} and {@code key=*} look up the primitives having the key in an inverted index,
+ * which is kept up to date by listening to the data set</li>
+ * <li>{@code inview} and {@code indownloadedarea} look up the primitives in the spatial index of the data set</li>
+ * <li>{@code child} and {@code parent} map the candidates of their operand to their members or referrers</li>
+ * </ul>
+ * The candidates of a conjunction are those of its most selective operand, and the candidates of a disjunction
+ * are the union of the candidates of its operands. All other terms can match any primitive.
+ * <p>
+ * The candidates are a superset of the matching primitives, the search expression still has to be evaluated on them.
+ * @since xxx
+ */
+public final class SearchPlanner {
+
+    private SearchPlanner() {
+        // Hide default constructor for utils classes
+    }
+
+    /**
+     * Drops the indexes built for a data set, e.g. when its layer is removed. They are built again on next use.
+     * @param ds the data set
+     */
+    public static void clearIndexes(DataSet ds) {
+        KeyIndex.remove(ds);
+    }
+
+    /**
+     * Returns the primitives of a data set that can match the given search expression.
+     * @param match the compiled search expression
+     * @param ds the data set to search
+     * @return the primitives that can match, or {@code null} if any primitive of the data set can match
+     */
+    public static Collection<OsmPrimitive> getCandidates(Match match, DataSet ds) {
+        if (match instanceof Never) {
+            return Collections.emptyList();
+        } else if (match instanceof And) {
+            Collection<OsmPrimitive> lhs = getCandidates(((And) match).getLhs(), ds);
+            Collection<OsmPrimitive> rhs = getCandidates(((And) match).getRhs(), ds);
+            if (lhs == null || rhs == null) {
+                return lhs == null ? rhs : lhs;
+            }
+            return lhs.size() <= rhs.size() ? lhs : rhs;
+        } else if (match instanceof Or) {
+            Collection<OsmPrimitive> lhs = getCandidates(((Or) match).getLhs(), ds);
+            if (lhs == null) {
+                return null;
+            }
+            Collection<OsmPrimitive> rhs = getCandidates(((Or) match).getRhs(), ds);
+            if (rhs == null) {
+                return null;
+            }
+            Set<OsmPrimitive> union = new HashSet<>(lhs);
+            union.addAll(rhs);
+            return union;
+        } else if (match instanceof ExactKeyValue) {
+            return getKeyCandidates((ExactKeyValue) match, ds);
+        } else if (match instanceof InArea) {
+            return getAreaCandidates((InArea) match, ds);
+        } else if (match instanceof Child) {
+            return getChildCandidates(getCandidates(((Child) match).getOperand(), ds));
+        } else if (match instanceof Parent) {
+            return getParentCandidates(getCandidates(((Parent) match).getOperand(), ds));
+        }
+        return null;
+    }
+
+    private static Collection<OsmPrimitive> getKeyCandidates(ExactKeyValue match, DataSet ds) {
+        switch (match.getMode()) {
+        case EXACT:
+        case ANY_VALUE:
+            // both require the primitive to have exactly this key
+            return KeyIndex.forDataSet(ds).getPrimitives(ds, match.getKey());
+        default:
+            return null;
+        }
+    }
+
+    private static Collection<OsmPrimitive> getAreaCandidates(InArea match, DataSet ds) {
+        if (match.all) {
+            // ways and relations without members match as well
+            return null;
+        }
+        Collection<Bounds> bounds = match.getSearchBounds(ds);
+        if (bounds == null || bounds.stream().anyMatch(Bounds::crosses180thMeridian)) {
+            return null;
+        }
+        // primitives with at least one node in the bounds intersect them
+        if (bounds.size() == 1) {
+            return ds.searchPrimitives(bounds.iterator().next().toBBox());
+        }
+        Set<OsmPrimitive> candidates = new HashSet<>();
+        for (Bounds b : bounds) {
+            candidates.addAll(ds.searchPrimitives(b.toBBox()));
+        }
+        return candidates;
+    }
+
+    private static Collection<OsmPrimitive> getChildCandidates(Collection<OsmPrimitive> parents) {
+        if (parents == null) {
+            return null;
+        }
+        Set<OsmPrimitive> candidates = new HashSet<>();
+        for (OsmPrimitive p : parents) {
+            if (p instanceof Way) {
+                candidates.addAll(((Way) p).getNodes());
+            } else if (p instanceof Relation) {
+                candidates.addAll(((Relation) p).getMemberPrimitivesList());
+            }
+        }
+        return candidates;
+    }
+
+    private static Collection<OsmPrimitive> getParentCandidates(Collection<OsmPrimitive> children) {
+        if (children == null) {
+            return null;
+        }
+        Set<OsmPrimitive> candidates = new HashSet<>();
+        for (OsmPrimitive p : children) {
+            candidates.addAll(p.getReferrers());
+        }
+        return candidates;
+    }
+}
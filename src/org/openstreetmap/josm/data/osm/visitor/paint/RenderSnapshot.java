@@ -0,0 +1,118 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.OsmData;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.gui.MapViewState.MapViewPoint;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+
+/**
+ * Snapshot-read mode for map rendering.
+ * <p>
+ * The last frame rendered while the data set could be read is kept as an immutable image. When a writer holds the
+ * data set lock (e.g. during {@link org.openstreetmap.josm.data.osm.DataSet#beginUpdate() bulk edits}), this frame is
+ * painted again, translated to the current view, instead of waiting for the read lock. Writers are not affected.
+ * If the scale or projection changed in the meantime, the snapshot cannot be used and the caller has to render
+ * as usual.
+ * <p>
+ * This class is not thread safe, it is meant to be used by the painting thread.
+ * @since xxx
+ */
+public class RenderSnapshot {
+
+    /**
+     * Preference to enable the snapshot-read mode: the map is never blocked by the data set lock.
+     */
+    public static final BooleanProperty PROP_ENABLED = new BooleanProperty("mappaint.snapshot-while-locked", false);
+
+    private BufferedImage image;
+    private MapViewState imageState;
+
+    /**
+     * Renders the data set without waiting for its read lock.
+     * <p>
+     * If the read lock is available, the data is rendered through an image which is kept as snapshot.
+     * Otherwise the last snapshot is painted if it matches the current view.
+     * @param g the graphics to paint to
+     * @param nc the map viewport
+     * @param data the data set to render
+     * @param renderer creates the renderer for a given graphics context
+     * @param renderVirtualNodes {@code true} if virtual nodes should be rendered
+     * @param bounds the bounds to render
+     * @return {@code true} if something was painted, {@code false} if the data set is locked and no usable snapshot
+     * exists. In the latter case, the caller has to render the data set as usual, waiting for the lock.
+     */
+    public boolean render(Graphics2D g, NavigatableComponent nc, OsmData<?, ?, ?, ?> data,
+            Function<Graphics2D, ? extends Rendering> renderer, boolean renderVirtualNodes, Bounds bounds) {
+        Lock readLock = data.getReadLock();
+        if (!readLock.tryLock()) {
+            return paintSnapshot(g, nc.getState());
+        }
+        try {
+            AffineTransform transform = g.getTransform();
+            double scaleX = transform.getScaleX();
+            double scaleY = transform.getScaleY();
+            int width = (int) Math.ceil(nc.getWidth() * scaleX);
+            int height = (int) Math.ceil(nc.getHeight() * scaleY);
+            if (width <= 0 || height <= 0) {
+                return true;
+            }
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            } else {
+                clear(image);
+            }
+            Graphics2D imageGraphics = image.createGraphics();
+            try {
+                imageGraphics.setRenderingHints(g.getRenderingHints());
+                imageGraphics.scale(scaleX, scaleY);
+                imageGraphics.setClip(0, 0, nc.getWidth(), nc.getHeight());
+                // the read lock is reentrant, the renderer will get it without waiting
+                renderer.apply(imageGraphics).render(data, renderVirtualNodes, bounds);
+            } finally {
+                imageGraphics.dispose();
+            }
+            imageState = nc.getState();
+            return drawImage(g, 0, 0);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private boolean paintSnapshot(Graphics2D g, MapViewState state) {
+        if (image == null || imageState == null || imageState.getScale() != state.getScale()
+                || !imageState.getProjection().equals(state.getProjection())) {
+            return false;
+        }
+        // where the old view origin is located in the current view
+        MapViewPoint origin = state.getPointFor(imageState.getForView(0, 0).getEastNorth());
+        return drawImage(g, origin.getInViewX(), origin.getInViewY());
+    }
+
+    private boolean drawImage(Graphics2D g, double x, double y) {
+        AffineTransform transform = g.getTransform();
+        AffineTransform imageTransform = AffineTransform.getTranslateInstance(x, y);
+        imageTransform.scale(1 / transform.getScaleX(), 1 / transform.getScaleY());
+        g.drawImage(image, imageTransform, null);
+        return true;
+    }
+
+    private static void clear(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        } finally {
+            g.dispose();
+        }
+    }
+}
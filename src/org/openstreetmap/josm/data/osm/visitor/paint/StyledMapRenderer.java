@@ -28,13 +28,15 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.function.BiConsumer;
@@ -46,6 +48,7 @@ import javax.swing.FocusManager;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -240,7 +243,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
-    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new HashMap<>();
+    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new ConcurrentHashMap<>();
 
     /**
      * Check, if this System has the GlyphVector double translation bug.
@@ -342,6 +345,22 @@ public class StyledMapRenderer extends AbstractMapRenderer {
     public static final AbstractProperty<String> PREFERENCE_TEXT_ANTIALIASING
             = new StringProperty("mappaint.text-antialiasing", "default").cached();
 
+    /**
+     * Indicates that the renderer should split the view into tiles, which are painted in parallel.
+     * <p>
+     * This is an experimental option and disabled by default.
+     * @since xxx
+     */
+    public static final AbstractProperty<Boolean> PREFERENCE_TILED_RENDERING
+            = new BooleanProperty("mappaint.render.tiled", false).cached();
+
+    /**
+     * The size of the tiles (in pixels) if {@link #PREFERENCE_TILED_RENDERING} is enabled
+     * @since xxx
+     */
+    public static final AbstractProperty<Integer> PREFERENCE_RENDER_TILE_SIZE
+            = new IntegerProperty("mappaint.render.tile-size", 512).cached();
+
     /**
      * The line with to use for highlighting
      */
@@ -382,6 +401,43 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         this.styles = MapPaintStyles.getStyles();
     }
 
+    /**
+     * Constructs a new {@code StyledMapRenderer} that paints a tile of the view with the settings of another renderer.
+     * @param g the graphics context of the tile
+     * @param parent the renderer painting the whole view
+     */
+    private StyledMapRenderer(Graphics2D g, StyledMapRenderer parent) {
+        super(g, parent.nc, parent.isInactiveMode);
+        useWiderHighlight = parent.useWiderHighlight;
+        styles = parent.styles;
+        highlightWaySegments = parent.highlightWaySegments;
+        doSlowOperations = parent.doSlowOperations;
+
+        backgroundColor = parent.backgroundColor;
+        inactiveColor = parent.inactiveColor;
+        selectedColor = parent.selectedColor;
+        relationSelectedColor = parent.relationSelectedColor;
+        nodeColor = parent.nodeColor;
+        highlightColor = parent.highlightColor;
+        highlightColorTransparent = parent.highlightColorTransparent;
+        virtualNodeSize = parent.virtualNodeSize;
+        virtualNodeSpace = parent.virtualNodeSpace;
+        segmentNumberSpace = parent.segmentNumberSpace;
+
+        paintSettings = parent.paintSettings;
+        circum = parent.circum;
+        scale = parent.scale;
+        leftHandTraffic = parent.leftHandTraffic;
+        useStrokes = parent.useStrokes;
+        showNames = parent.showNames;
+        showIcons = parent.showIcons;
+        isOutlineOnly = parent.isOutlineOnly;
+        antialiasing = parent.antialiasing;
+
+        g.setRenderingHints(parent.g.getRenderingHints());
+        g.setFont(parent.g.getFont());
+    }
+
     /**
      * Set the {@link ElemStyles} instance to use for this renderer.
      * @param styles the {@code ElemStyles} instance to use
@@ -1692,8 +1748,10 @@ public class StyledMapRenderer extends AbstractMapRenderer {
                 return;
             }
 
-            for (StyleRecord record : sorted) {
-                paintRecord(record);
+            if (!paintTiled(sorted)) {
+                for (StyleRecord record : sorted) {
+                    paintRecord(record);
+                }
             }
 
             drawVirtualNodes(data, bbox);
@@ -1716,4 +1774,209 @@ public class StyledMapRenderer extends AbstractMapRenderer {
             throw BugReport.intercept(e).put("record", record);
         }
     }
+
+    /**
+     * Paints the style records in tiles, see {@link #PREFERENCE_TILED_RENDERING}.
+     * <p>
+     * Each tile is painted into its own image on the thread pool, with all records whose primitive may cover the tile,
+     * in the same order as they are painted without tiles. The images are then drawn at the position of their tile.
+     * As labels and icons are placed relative to their primitive and do not depend on the tile, the parts of a label
+     * that spans several tiles fit together.
+     * @param sorted the style records, sorted by z-order
+     * @return {@code true} if the records have been painted, {@code false} if tiled rendering is disabled
+     * or not supported for the current graphics context
+     */
+    private boolean paintTiled(StyleRecord[] sorted) {
+        if (THREAD_POOL == null || !PREFERENCE_TILED_RENDERING.get()) {
+            return false;
+        }
+        AffineTransform transform = g.getTransform();
+        if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0
+                || transform.getScaleX() <= 0 || transform.getScaleY() <= 0) {
+            // rotated or flipped, e.g. when printing
+            return false;
+        }
+        Rectangle area = new Rectangle((int) Math.ceil(mapState.getViewWidth()), (int) Math.ceil(mapState.getViewHeight()));
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            area = area.intersection(clip);
+        }
+        int tileSize = Math.max(64, PREFERENCE_RENDER_TILE_SIZE.get());
+        int columns = (area.width + tileSize - 1) / tileSize;
+        int rows = (area.height + tileSize - 1) / tileSize;
+        if (area.isEmpty() || columns * rows < 2) {
+            return false;
+        }
+
+        TileWorker[] tiles = new TileWorker[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int x = area.x + column * tileSize;
+                int y = area.y + row * tileSize;
+                tiles[row * columns + column] = new TileWorker(sorted, new Rectangle(x, y,
+                        Math.min(tileSize, area.x + area.width - x), Math.min(tileSize, area.y + area.height - y)),
+                        transform.getScaleX(), transform.getScaleY());
+            }
+        }
+        Map<IPrimitive, Rectangle2D> viewBounds = new IdentityHashMap<>();
+        int decorationMargin = getDecorationMargin();
+        for (int i = 0; i < sorted.length; i++) {
+            double margin = sorted[i].style.getPaintMargin(sorted[i].osm, paintSettings, this) + decorationMargin;
+            Rectangle2D bounds = getViewBounds(sorted[i].osm, viewBounds);
+            int minColumn = 0;
+            int maxColumn = columns - 1;
+            int minRow = 0;
+            int maxRow = rows - 1;
+            if (bounds != null) {
+                minColumn = tileIndex(bounds.getMinX() - margin - area.x, tileSize, columns);
+                maxColumn = tileIndex(bounds.getMaxX() + margin - area.x, tileSize, columns);
+                minRow = tileIndex(bounds.getMinY() - margin - area.y, tileSize, rows);
+                maxRow = tileIndex(bounds.getMaxY() + margin - area.y, tileSize, rows);
+            }
+            for (int row = Math.max(0, minRow); row <= Math.min(rows - 1, maxRow); row++) {
+                for (int column = Math.max(0, minColumn); column <= Math.min(columns - 1, maxColumn); column++) {
+                    tiles[row * columns + column].add(i);
+                }
+            }
+        }
+
+        for (TileWorker tile : tiles) {
+            if (tile.size > 0) {
+                THREAD_POOL.execute(tile);
+            }
+        }
+        RuntimeException error = null;
+        for (TileWorker tile : tiles) {
+            if (tile.size == 0) {
+                continue;
+            }
+            try {
+                tile.join();
+                g.drawImage(tile.image, tile.bounds.x, tile.bounds.y, tile.bounds.width, tile.bounds.height, null);
+            } catch (RuntimeException e) {
+                // wait for the other tiles, they access the data set
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            } finally {
+                tile.image = null;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the distance (in pixels) highlights and way order numbers may extend beyond the painting of the styles.
+     * @return the distance in pixels
+     */
+    private int getDecorationMargin() {
+        int highlight = Math.max(HIGHLIGHT_LINE_WIDTH.get(), HIGHLIGHT_POINT_RADIUS.get()) + WIDER_HIGHLIGHT.get();
+        // order numbers are drawn with a 14 pixels high box above the virtual node of the segment
+        return Math.max(highlight, virtualNodeSize + 3 + 14) + 1;
+    }
+
+    /**
+     * Determines the index of the tile containing the given coordinate.
+     * @param offset the coordinate, relative to the first tile
+     * @param tileSize the size of the tiles
+     * @param count the number of tiles
+     * @return the index of the tile, -1 if the coordinate is before the first tile, {@code count} if it is after the last tile
+     */
+    private static int tileIndex(double offset, int tileSize, int count) {
+        return (int) Utils.clamp(Math.floor(offset / tileSize), -1, count);
+    }
+
+    /**
+     * Determines the bounds of the primitive in view coordinates.
+     * @param osm the primitive
+     * @param cache the bounds of ways and relations which have been determined so far
+     * @return the bounds of the primitive, or {@code null} if they are unknown
+     */
+    private Rectangle2D getViewBounds(IPrimitive osm, Map<IPrimitive, Rectangle2D> cache) {
+        if (osm instanceof INode) {
+            INode node = (INode) osm;
+            if (!node.isLatLonKnown()) {
+                return null;
+            }
+            MapViewPoint p = mapState.getPointFor(node);
+            return new Rectangle2D.Double(p.getInViewX(), p.getInViewY(), 0, 0);
+        }
+        return cache.computeIfAbsent(osm, this::computeViewBounds);
+    }
+
+    private Rectangle2D computeViewBounds(IPrimitive osm) {
+        BBox bbox = osm.getBBox();
+        if (!bbox.isValid()) {
+            return null;
+        }
+        Rectangle2D bounds = null;
+        for (LatLon corner : new LatLon[] {
+                bbox.getTopLeft(), bbox.getBottomRight(),
+                new LatLon(bbox.getMinLat(), bbox.getMinLon()), new LatLon(bbox.getMaxLat(), bbox.getMaxLon())}) {
+            MapViewPoint p = mapState.getPointFor(corner);
+            if (bounds == null) {
+                bounds = new Rectangle2D.Double(p.getInViewX(), p.getInViewY(), 0, 0);
+            } else {
+                bounds.add(p.getInViewX(), p.getInViewY());
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Paints a tile of the view into its own image, see {@link StyledMapRenderer#paintTiled}.
+     */
+    private final class TileWorker extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient StyleRecord[] sorted;
+        private final Rectangle bounds;
+        private final double scaleX;
+        private final double scaleY;
+        /**
+         * The indexes of the records to paint, in ascending order
+         */
+        private int[] records = new int[64];
+        private int size;
+        private transient BufferedImage image;
+
+        TileWorker(StyleRecord[] sorted, Rectangle bounds, double scaleX, double scaleY) {
+            this.sorted = sorted;
+            this.bounds = bounds;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+
+        void add(int record) {
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size * 2);
+            }
+            records[size++] = record;
+        }
+
+        @Override
+        protected void compute() {
+            // paint with the resolution of the target, e.g. on HiDPI screens
+            image = new BufferedImage((int) Math.ceil(bounds.width * scaleX), (int) Math.ceil(bounds.height * scaleY),
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D tileGraphics = image.createGraphics();
+            try {
+                tileGraphics.scale(scaleX, scaleY);
+                tileGraphics.translate(-bounds.x, -bounds.y);
+                tileGraphics.clip(bounds);
+                StyledMapRenderer renderer = new StyledMapRenderer(tileGraphics, StyledMapRenderer.this);
+                for (int i = 0; i < size; i++) {
+                    renderer.paintRecord(sorted[records[i]]);
+                }
+            } finally {
+                tileGraphics.dispose();
+            }
+        }
+    }
 }
@@ -81,15 +81,19 @@ public final class MultipolygonCache implements DataSetListener, LayerChangeList
     public Multipolygon get(Relation r, boolean forceRefresh) {
         Multipolygon multipolygon = null;
         if (r != null && r.getDataSet() != null) {
-            Map<Relation, Multipolygon> map2 = cache.get(r.getDataSet());
-            if (map2 == null) {
-                map2 = new ConcurrentHashMap<>();
-                cache.put(r.getDataSet(), map2);
-            }
+            // the cache is accessed concurrently by the tiled rendering, see StyledMapRenderer#PREFERENCE_TILED_RENDERING
+            Map<Relation, Multipolygon> map2 = cache.computeIfAbsent(r.getDataSet(), ds -> new ConcurrentHashMap<>());
             multipolygon = map2.get(r);
             if (multipolygon == null || forceRefresh) {
                 multipolygon = new Multipolygon(r);
-                map2.put(r, multipolygon);
+                if (forceRefresh) {
+                    map2.put(r, multipolygon);
+                } else {
+                    Multipolygon concurrent = map2.putIfAbsent(r, multipolygon);
+                    if (concurrent != null) {
+                        return concurrent;
+                    }
+                }
                 synchronized (this) {
                     for (PolyData pd : multipolygon.getCombinedPolygons()) {
                         if (pd.isSelected()) {
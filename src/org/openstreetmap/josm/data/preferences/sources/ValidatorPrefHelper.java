@@ -50,6 +50,25 @@ public class ValidatorPrefHelper extends SourcePrefHelper {
     /** The preferences key for the ignorelist format */
     public static final String PREF_IGNORELIST_FORMAT = PREF_IGNORELIST + ".version";
 
+    /**
+     * The preferences key for running parallelizable tests concurrently.
+     * Disabled by default, as tests may still share caches, e.g. of the MapCSS conditions.
+     * @since xxx
+     */
+    public static final BooleanProperty PREF_PARALLEL = new BooleanProperty(PREFIX + ".parallel", false);
+
+    /**
+     * The preferences key for the number of threads used to run parallelizable tests
+     * @since xxx
+     */
+    public static final String PREF_NUMBER_OF_THREADS = PREFIX + ".numberOfThreads";
+
+    /**
+     * The preferences key for validating the edit layer incrementally while editing
+     * @since xxx
+     */
+    public static final BooleanProperty PREF_INCREMENTAL = new BooleanProperty(PREFIX + ".incremental", false);
+
     /**
      * The preferences key for enabling the permanent filtering
      * of the displayed errors in the tree regarding the current selection
@@ -1,8 +1,7 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.protobuf;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Parse packed values (only numerical values)
@@ -11,9 +10,8 @@ import java.util.List;
  * @since 17862
  */
 public class ProtobufPacked {
-    private final byte[] bytes;
+    private static final int VAR_INT_SHIFT = 7;
     private final Number[] numbers;
-    private int location;
 
     /**
      * Create a new ProtobufPacked object
@@ -21,16 +19,10 @@ public class ProtobufPacked {
      * @param bytes The packed bytes
      */
     public ProtobufPacked(byte[] bytes) {
-        this.location = 0;
-        this.bytes = bytes;
-        List<Number> numbersT = new ArrayList<>();
-        while (this.location < bytes.length) {
-            numbersT.add(ProtobufParser.convertByteArray(this.nextVarInt(), ProtobufParser.VAR_INT_BYTE_SIZE));
-        }
-
-        this.numbers = new Number[numbersT.size()];
-        for (int i = 0; i < numbersT.size(); i++) {
-            this.numbers[i] = numbersT.get(i);
+        long[] values = decodeVarInts(bytes);
+        this.numbers = new Number[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.numbers[i] = ProtobufParser.convertLong(values[i]);
         }
     }
 
@@ -43,20 +35,28 @@ public class ProtobufPacked {
         return this.numbers;
     }
 
-    private byte[] nextVarInt() {
-        List<Byte> byteList = new ArrayList<>();
-        while ((this.bytes[this.location] & ProtobufParser.MOST_SIGNIFICANT_BYTE)
-          == ProtobufParser.MOST_SIGNIFICANT_BYTE) {
-            // Get rid of the leading bit (shift left 1, then shift right 1 unsigned)
-            byteList.add((byte) (this.bytes[this.location++] ^ ProtobufParser.MOST_SIGNIFICANT_BYTE));
-        }
-        // The last byte doesn't drop the most significant bit
-        byteList.add(this.bytes[this.location++]);
-        byte[] byteArray = new byte[byteList.size()];
-        for (int i = 0; i < byteList.size(); i++) {
-            byteArray[i] = byteList.get(i);
+    /**
+     * Decode packed var ints directly into a primitive array, without the boxing of {@link #getArray()}
+     *
+     * @param bytes The packed bytes
+     * @return The unsigned var ints
+     * @since xxx
+     */
+    public static long[] decodeVarInts(byte[] bytes) {
+        long[] values = new long[bytes.length];
+        int count = 0;
+        int location = 0;
+        while (location < bytes.length) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[location++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += VAR_INT_SHIFT;
+            } while ((b & ProtobufParser.MOST_SIGNIFICANT_BYTE) != 0);
+            values[count++] = value;
         }
-
-        return byteArray;
+        return count == values.length ? values : Arrays.copyOf(values, count);
     }
 }
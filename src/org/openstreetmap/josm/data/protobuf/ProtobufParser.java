@@ -6,8 +6,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 
 import org.openstreetmap.josm.tools.Logging;
 
@@ -211,21 +211,19 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public byte[] nextVarInt() throws IOException {
-        List<Byte> byteList = new ArrayList<>();
+        // A var int has at most 10 bytes
+        byte[] byteArray = new byte[10];
+        int length = 0;
         int currentByte = this.nextByte();
-        while ((byte) (currentByte & MOST_SIGNIFICANT_BYTE) == MOST_SIGNIFICANT_BYTE && currentByte > 0) {
+        while ((byte) (currentByte & MOST_SIGNIFICANT_BYTE) == MOST_SIGNIFICANT_BYTE && currentByte > 0
+                && length < byteArray.length - 1) {
             // Get rid of the leading bit (shift left 1, then shift right 1 unsigned)
-            byteList.add((byte) (currentByte ^ MOST_SIGNIFICANT_BYTE));
+            byteArray[length++] = (byte) (currentByte ^ MOST_SIGNIFICANT_BYTE);
             currentByte = this.nextByte();
         }
         // The last byte doesn't drop the most significant bit
-        byteList.add((byte) currentByte);
-        byte[] byteArray = new byte[byteList.size()];
-        for (int i = 0; i < byteList.size(); i++) {
-            byteArray[i] = byteList.get(i);
-        }
-
-        return byteArray;
+        byteArray[length++] = (byte) currentByte;
+        return Arrays.copyOf(byteArray, length);
     }
 
     /**
@@ -0,0 +1,338 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A cursor over protobuf encoded bytes, which decodes values directly into primitives.
+ * <p>
+ * Unlike {@link ProtobufParser} and {@link ProtobufRecord}, this does not copy the bytes of each field:
+ * the values are read from the underlying {@link ByteBuffer}, which can be a heap buffer or a memory-mapped file.
+ * Only absolute reads are used, so the buffer is never modified and several readers can share it between threads.
+ * <p>
+ * Usage:
+ * <pre>
+ * while (reader.next()) {
+ *     switch (reader.getField()) {
+ *         case 1: id = reader.readVarInt(); break;
+ *         case 2: name = reader.readString(); break;
+ *         default: reader.skip();
+ *     }
+ * }
+ * </pre>
+ * @since xxx
+ */
+public final class ProtobufReader {
+    private static final WireType[] WIRE_TYPES = WireType.values();
+    /** The maximal length of a var int, in bytes */
+    private static final int MAX_VAR_INT_LENGTH = 10;
+
+    private final ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private int field;
+    private int wireType;
+
+    /**
+     * Create a new reader
+     * @param bytes The bytes to read
+     */
+    public ProtobufReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create a new reader for the remaining bytes of a buffer. The position of the buffer is not changed.
+     * @param buffer The buffer to read
+     */
+    public ProtobufReader(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.limit());
+    }
+
+    private ProtobufReader(ByteBuffer buffer, int position, int limit) {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * Decode a zig-zag encoded value
+     * @param value The value to decode
+     * @return The decoded value
+     * @see ProtobufParser#decodeZigZag(Number)
+     */
+    public static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Check if there is more data to read
+     * @return {@code true} if there is more data to read
+     */
+    public boolean hasNext() {
+        return this.position < this.limit;
+    }
+
+    /**
+     * Read the key of the next field. Its value must then be read with the {@code read} method matching
+     * {@link #getType()}, or skipped with {@link #skip()}.
+     * @return {@code false} if there are no more fields
+     * @throws IOException if the key is malformed
+     */
+    public boolean next() throws IOException {
+        if (!hasNext()) {
+            return false;
+        }
+        long key = readVarInt();
+        // I don't foresee having field numbers > {@code Integer#MAX_VALUE >> 3}
+        this.field = (int) (key >>> 3);
+        // 7 is 111 (so last three bits)
+        this.wireType = (int) (key & 7);
+        return true;
+    }
+
+    /**
+     * Get the field number of the current field
+     * @return The field number
+     */
+    public int getField() {
+        return this.field;
+    }
+
+    /**
+     * Get the {@link WireType} of the current field
+     * @return The {@link WireType}, or {@link WireType#UNKNOWN}
+     */
+    public WireType getType() {
+        for (WireType type : WIRE_TYPES) {
+            if (type.getTypeRepresentation() == this.wireType) {
+                return type;
+            }
+        }
+        return WireType.UNKNOWN;
+    }
+
+    /**
+     * Read a var int ({@link WireType#VARINT})
+     * @return The var int ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     * @throws IOException if the var int is malformed
+     */
+    public long readVarInt() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < MAX_VAR_INT_LENGTH * 7; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & ProtobufParser.MOST_SIGNIFICANT_BYTE) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed var int at " + this.position);
+    }
+
+    /**
+     * Read a zig-zag encoded var int ({@link WireType#VARINT})
+     * @return The signed var int ({@code sint32} or {@code sint64})
+     * @throws IOException if the var int is malformed
+     */
+    public long readSignedVarInt() throws IOException {
+        return decodeZigZag(readVarInt());
+    }
+
+    /**
+     * Read 32 bits ({@link WireType#THIRTY_TWO_BIT})
+     * @return The 32 bits ({@code fixed32} or {@code sfixed32})
+     * @throws IOException if there are not enough bytes
+     */
+    public int readFixed32() throws IOException {
+        int start = advance(Integer.BYTES);
+        int value = 0;
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            value = value << 8 | (this.buffer.get(start + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Read 64 bits ({@link WireType#SIXTY_FOUR_BIT})
+     * @return The 64 bits ({@code fixed64} or {@code sfixed64})
+     * @throws IOException if there are not enough bytes
+     */
+    public long readFixed64() throws IOException {
+        int start = advance(Long.BYTES);
+        long value = 0;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            value = value << 8 | (this.buffer.get(start + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Read a float ({@link WireType#THIRTY_TWO_BIT})
+     * @return The float
+     * @throws IOException if there are not enough bytes
+     */
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readFixed32());
+    }
+
+    /**
+     * Read a double ({@link WireType#SIXTY_FOUR_BIT})
+     * @return The double
+     * @throws IOException if there are not enough bytes
+     */
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readFixed64());
+    }
+
+    /**
+     * Read a string ({@link WireType#LENGTH_DELIMITED})
+     * @return The string (encoded as {@link StandardCharsets#UTF_8})
+     * @throws IOException if the length is malformed or there are not enough bytes
+     */
+    public String readString() throws IOException {
+        int length = readLength();
+        int start = advance(length);
+        if (this.buffer.hasArray()) {
+            return new String(this.buffer.array(), this.buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read bytes ({@link WireType#LENGTH_DELIMITED})
+     * @return A copy of the bytes
+     * @throws IOException if the length is malformed or there are not enough bytes
+     */
+    public byte[] readBytes() throws IOException {
+        int length = readLength();
+        int start = advance(length);
+        byte[] bytes = new byte[length];
+        ByteBuffer source = this.buffer.duplicate();
+        source.position(start);
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Read a packed repeated var int field ({@link WireType#LENGTH_DELIMITED})
+     * @return The var ints
+     * @throws IOException if the length or a var int is malformed or there are not enough bytes
+     */
+    public long[] readPackedVarInts() throws IOException {
+        int oldLimit = pushLimit();
+        // each var int takes at least one byte
+        long[] values = new long[this.limit - this.position];
+        int count = 0;
+        while (hasNext()) {
+            values[count++] = readVarInt();
+        }
+        popLimit(oldLimit);
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Read an embedded message or packed repeated field ({@link WireType#LENGTH_DELIMITED}) with a new reader.
+     * This reader continues after the message.
+     * @return A reader for the message, sharing the buffer of this reader
+     * @throws IOException if the length is malformed or there are not enough bytes
+     * @see #pushLimit()
+     */
+    public ProtobufReader readMessage() throws IOException {
+        int length = readLength();
+        int start = advance(length);
+        return new ProtobufReader(this.buffer, start, start + length);
+    }
+
+    /**
+     * Restrict this reader to the current embedded message or packed repeated field ({@link WireType#LENGTH_DELIMITED}),
+     * without creating a new reader. {@link #hasNext()} then returns {@code false} at the end of the message,
+     * and {@link #popLimit(int)} must be called to continue after it:
+     * <pre>
+     * int oldLimit = reader.pushLimit();
+     * while (reader.hasNext()) {
+     *     values.add(reader.readVarInt());
+     * }
+     * reader.popLimit(oldLimit);
+     * </pre>
+     * @return The previous limit, to be given to {@link #popLimit(int)}
+     * @throws IOException if the length is malformed or there are not enough bytes
+     */
+    public int pushLimit() throws IOException {
+        int length = readLength();
+        int oldLimit = this.limit;
+        if (length > oldLimit - this.position) {
+            throw new IOException("Truncated message at " + this.position);
+        }
+        this.limit = this.position + length;
+        return oldLimit;
+    }
+
+    /**
+     * Skip the rest of the current embedded message, and restore the limit before {@link #pushLimit()}
+     * @param oldLimit The value returned by {@link #pushLimit()}
+     */
+    public void popLimit(int oldLimit) {
+        this.position = this.limit;
+        this.limit = oldLimit;
+    }
+
+    /**
+     * Skip the value of the current field
+     * @throws IOException if the value is malformed, or has a wire type that cannot be skipped
+     */
+    public void skip() throws IOException {
+        switch (this.wireType) {
+        case 0: // VARINT
+            readVarInt();
+            break;
+        case 1: // SIXTY_FOUR_BIT
+            advance(Long.BYTES);
+            break;
+        case 2: // LENGTH_DELIMITED
+            advance(readLength());
+            break;
+        case 5: // THIRTY_TWO_BIT
+            advance(Integer.BYTES);
+            break;
+        default:
+            throw new IOException("Cannot skip wire type " + this.wireType + " of field " + this.field);
+        }
+    }
+
+    private byte readByte() throws IOException {
+        if (this.position >= this.limit) {
+            throw new IOException("Truncated message at " + this.position);
+        }
+        return this.buffer.get(this.position++);
+    }
+
+    private int readLength() throws IOException {
+        long length = readVarInt();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length " + length + " at " + this.position);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Advance the position
+     * @param length The number of bytes to advance
+     * @return The position before advancing
+     * @throws IOException if there are not enough bytes
+     */
+    private int advance(int length) throws IOException {
+        if (length > this.limit - this.position) {
+            throw new IOException("Truncated message at " + this.position);
+        }
+        int start = this.position;
+        this.position += length;
+        return start;
+    }
+}
@@ -3,7 +3,6 @@ package org.openstreetmap.josm.data.protobuf;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Stream;
 
 import org.openstreetmap.josm.tools.Utils;
 
@@ -15,6 +14,7 @@ import org.openstreetmap.josm.tools.Utils;
  */
 public class ProtobufRecord implements AutoCloseable {
     private static final byte[] EMPTY_BYTES = {};
+    private static final WireType[] WIRE_TYPES = WireType.values();
     private final WireType type;
     private final int field;
     private byte[] bytes;
@@ -31,8 +31,14 @@ public class ProtobufRecord implements AutoCloseable {
         this.field = (int) number.longValue() >> 3;
         // 7 is 111 (so last three bits)
         byte wireType = (byte) (number.longValue() & 7);
-        this.type = Stream.of(WireType.values()).filter(wType -> wType.getTypeRepresentation() == wireType).findFirst()
-          .orElse(WireType.UNKNOWN);
+        WireType tType = WireType.UNKNOWN;
+        for (WireType wType : WIRE_TYPES) {
+            if (wType.getTypeRepresentation() == wireType) {
+                tType = wType;
+                break;
+            }
+        }
+        this.type = tType;
 
         if (this.type == WireType.VARINT) {
             this.bytes = parser.nextVarInt();
@@ -0,0 +1,393 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Stopwatch;
+
+/**
+ * Keeps the validation errors of a data set up to date while it is edited.
+ * <p>
+ * The validator listens to the data set events and collects the changed primitives. After an edit, only the affected
+ * neighbourhood is checked again: the changed primitives, their referrers and children, and all primitives whose
+ * bounding box lies within {@link #getNeighbourhoodSize()} degrees. Errors involving these primitives are replaced by
+ * the result of the tests run on the neighbourhood; all other errors are kept.
+ * Spatial tests such as {@link org.openstreetmap.josm.data.validation.tests.CrossingWays} thus only build their cell
+ * index for the neighbourhood instead of the whole data set.
+ * <p>
+ * Revalidation runs on the given executor, with copies of the given tests which are not shared with other validations.
+ * The changed primitives are checked in chunks of {@link #CHUNK_SIZE}. The data set is only read locked while a chunk
+ * is checked, and each chunk is a separate task of the executor, so that other tasks can run in between. A validation
+ * of the whole data set is run as a sequence of chunks of spatially sorted primitives.
+ * <p>
+ * Other validations can {@linkplain #suspend() suspend} the revalidation while they run.
+ * @since xxx
+ */
+public class IncrementalValidator implements DataSetListener {
+
+    private static final double DEFAULT_NEIGHBOURHOOD_SIZE = 0.001;
+
+    /** The maximum number of changed primitives which are checked again while the data set is read locked */
+    static final int CHUNK_SIZE = 1000;
+
+    private final DataSet dataSet;
+    private final Collection<Test> tests;
+    private final Executor executor;
+    private final Consumer<List<TestError>> errorListener;
+    private final double neighbourhoodSize;
+
+    /** The current errors, only accessed when holding the monitor of this object */
+    private final List<TestError> errors = new ArrayList<>();
+    /** The primitives changed since the last revalidation, only accessed when holding the monitor of this object */
+    private Set<OsmPrimitive> dirty = new LinkedHashSet<>();
+    private boolean fullRevalidation;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger suspended = new AtomicInteger();
+    /** Held while a chunk is checked */
+    private final ReentrantLock runLock = new ReentrantLock();
+    /** The copies of the tests, only accessed when holding {@link #runLock} */
+    private List<Test> testCopies;
+
+    /**
+     * Constructs a new {@code IncrementalValidator}. Call {@link #start()} to begin listening.
+     * @param dataSet the data set to validate
+     * @param tests the tests to run, the revalidations use copies of them, see {@link Test#createCopy()}
+     * @param executor the executor running the revalidations
+     * @param errorListener notified with a copy of all current errors after each revalidation
+     */
+    public IncrementalValidator(DataSet dataSet, Collection<Test> tests, Executor executor, Consumer<List<TestError>> errorListener) {
+        this(dataSet, tests, executor, errorListener, DEFAULT_NEIGHBOURHOOD_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code IncrementalValidator}. Call {@link #start()} to begin listening.
+     * @param dataSet the data set to validate
+     * @param tests the tests to run, the revalidations use copies of them, see {@link Test#createCopy()}
+     * @param executor the executor running the revalidations
+     * @param errorListener notified with a copy of all current errors after each revalidation
+     * @param neighbourhoodSize the distance around changed primitives to check again, in degrees
+     */
+    public IncrementalValidator(DataSet dataSet, Collection<Test> tests, Executor executor, Consumer<List<TestError>> errorListener,
+            double neighbourhoodSize) {
+        this.dataSet = dataSet;
+        this.tests = new ArrayList<>(tests);
+        this.executor = executor;
+        this.errorListener = errorListener;
+        this.neighbourhoodSize = neighbourhoodSize;
+    }
+
+    /**
+     * Starts listening to the data set and schedules a validation of the whole data set.
+     */
+    public void start() {
+        dataSet.addDataSetListener(this);
+        synchronized (this) {
+            fullRevalidation = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Stops listening to the data set.
+     */
+    public void stop() {
+        dataSet.removeDataSetListener(this);
+    }
+
+    /**
+     * Suspends the revalidation, e.g. while another validation runs. A running chunk is abandoned and checked again
+     * once the revalidation is resumed. This method waits until the running chunk has stopped.
+     * Each call must be followed by a call to {@link #resume()}.
+     */
+    public void suspend() {
+        suspended.incrementAndGet();
+        runLock.lock();
+        runLock.unlock();
+    }
+
+    /**
+     * Resumes the revalidation suspended by {@link #suspend()}.
+     */
+    public void resume() {
+        if (suspended.decrementAndGet() == 0) {
+            schedule();
+        }
+    }
+
+    /**
+     * Returns the distance around changed primitives which is checked again.
+     * @return the distance, in degrees
+     */
+    public double getNeighbourhoodSize() {
+        return neighbourhoodSize;
+    }
+
+    /**
+     * Returns the current errors.
+     * @return a copy of the current errors
+     */
+    public synchronized List<TestError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::revalidate);
+        }
+    }
+
+    private void markDirty(Collection<? extends OsmPrimitive> primitives) {
+        synchronized (this) {
+            dirty.addAll(primitives);
+        }
+        schedule();
+    }
+
+    /**
+     * Revalidates the next chunk of the primitives changed since the last call, and schedules the next chunk.
+     * Normally called by the executor.
+     */
+    public void revalidate() {
+        scheduled.set(false);
+        runLock.lock();
+        try {
+            if (suspended.get() == 0) {
+                revalidateChunk();
+            }
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private void revalidateChunk() {
+        Lock readLock = dataSet.getReadLock();
+        boolean full;
+        synchronized (this) {
+            full = fullRevalidation;
+            fullRevalidation = false;
+        }
+        if (full) {
+            List<OsmPrimitive> all;
+            readLock.lock();
+            try {
+                all = new ArrayList<>(dataSet.allPrimitives());
+                all.sort(Comparator.comparingLong(ValidationTask::getSpatialKey));
+            } finally {
+                readLock.unlock();
+            }
+            // pick up changed rules and preferences
+            testCopies = null;
+            synchronized (this) {
+                errors.clear();
+                all.addAll(dirty);
+                dirty = new LinkedHashSet<>(all);
+            }
+        }
+        Set<OsmPrimitive> changed = new LinkedHashSet<>();
+        synchronized (this) {
+            for (Iterator<OsmPrimitive> it = dirty.iterator(); it.hasNext() && changed.size() < CHUNK_SIZE;) {
+                changed.add(it.next());
+                it.remove();
+            }
+        }
+        if (!full && changed.isEmpty()) {
+            return;
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<Test> chunkTests = getTestCopies();
+        readLock.lock();
+        try {
+            Collection<OsmPrimitive> neighbourhood = getNeighbourhood(changed);
+            List<TestError> newErrors = runTests(chunkTests, neighbourhood);
+            if (newErrors == null) {
+                // suspended, check the chunk again when resumed
+                synchronized (this) {
+                    changed.addAll(dirty);
+                    dirty = changed;
+                }
+                return;
+            }
+            synchronized (this) {
+                Set<OsmPrimitive> recheck = Collections.newSetFromMap(new IdentityHashMap<>());
+                recheck.addAll(neighbourhood);
+                recheck.addAll(changed);
+                errors.removeIf(e -> e.getPrimitives().stream().anyMatch(p -> recheck.contains(p) || !p.isUsable()));
+                errors.addAll(newErrors);
+            }
+            Logging.debug(stopwatch.toString("IncrementalValidator: " + neighbourhood.size() + " primitives"));
+        } finally {
+            readLock.unlock();
+        }
+        boolean done;
+        synchronized (this) {
+            done = dirty.isEmpty() && !fullRevalidation;
+        }
+        if (done) {
+            errorListener.accept(getErrors());
+        } else {
+            schedule();
+        }
+    }
+
+    private List<Test> getTestCopies() {
+        if (testCopies == null) {
+            testCopies = new ArrayList<>(tests.size());
+            for (Test test : tests) {
+                try {
+                    testCopies.add(test.createCopy());
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    Logging.warn("IncrementalValidator: unable to create a copy of test " + test.getName());
+                    Logging.debug(e);
+                }
+            }
+        }
+        return testCopies;
+    }
+
+    private Collection<OsmPrimitive> getNeighbourhood(Set<OsmPrimitive> changed) {
+        Set<OsmPrimitive> result = new LinkedHashSet<>();
+        for (OsmPrimitive p : changed) {
+            if (p.getDataSet() != dataSet || !p.isUsable()) {
+                continue;
+            }
+            result.add(p);
+            result.addAll(p.getReferrers());
+            if (p instanceof Way) {
+                result.addAll(((Way) p).getNodes());
+            } else if (p instanceof Relation) {
+                result.addAll(((Relation) p).getMemberPrimitivesList());
+            }
+            BBox bbox = new BBox();
+            bbox.addPrimitive(p, neighbourhoodSize);
+            if (bbox.isValid()) {
+                result.addAll(dataSet.searchNodes(bbox));
+                result.addAll(dataSet.searchWays(bbox));
+                result.addAll(dataSet.searchRelations(bbox));
+            }
+        }
+        result.removeIf(p -> !p.isUsable());
+        return result;
+    }
+
+    /**
+     * Runs the tests on the given primitives.
+     * @param chunkTests the tests
+     * @param primitives the primitives
+     * @return the errors, or {@code null} if the revalidation has been suspended
+     */
+    private List<TestError> runTests(List<Test> chunkTests, Collection<OsmPrimitive> primitives) {
+        List<TestError> result = new ArrayList<>();
+        boolean useIgnore = Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get());
+        for (Test test : chunkTests) {
+            if (suspended.get() > 0) {
+                return null;
+            }
+            test.setBeforeUpload(false);
+            test.setPartialSelection(true);
+            test.startTest(NullProgressMonitor.INSTANCE);
+            test.visit(primitives);
+            test.endTest();
+            for (TestError error : test.getErrors()) {
+                if (!useIgnore || !error.updateIgnored()) {
+                    result.add(error);
+                }
+            }
+            test.clear();
+        }
+        return result;
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        markDirty(event.getPrimitives());
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        // errors involving removed primitives are dropped, the other primitives of these errors are checked again
+        List<OsmPrimitive> affected = new ArrayList<>(event.getPrimitives());
+        synchronized (this) {
+            for (TestError error : errors) {
+                if (error.getPrimitives().stream().anyMatch(event.getPrimitives()::contains)) {
+                    affected.addAll(error.getPrimitives());
+                }
+            }
+        }
+        markDirty(affected);
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        markDirty(event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        Node node = event.getNode();
+        List<OsmPrimitive> affected = new ArrayList<>(node.getReferrers());
+        affected.add(node);
+        markDirty(affected);
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        markDirty(event.getPrimitives());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        markDirty(event.getPrimitives());
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Changeset id changes and the like do not affect validation
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        List<AbstractDatasetChangedEvent> events = event.getEvents();
+        if (events == null) {
+            synchronized (this) {
+                fullRevalidation = true;
+            }
+            schedule();
+        } else {
+            for (AbstractDatasetChangedEvent e : events) {
+                e.fire(this);
+            }
+        }
+    }
+}
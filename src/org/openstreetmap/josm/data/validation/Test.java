@@ -364,6 +364,47 @@ public class Test implements OsmPrimitiveVisitor {
         return p.hasTag("landuse", "residential");
     }
 
+    /**
+     * Determines if this test can be run concurrently with other tests by a {@link ValidationTask}.
+     * <p>
+     * Tests may opt in if they do not share mutable state with other tests (except the read-only data set).
+     * The test itself is still run by a single thread, from {@link #startTest} to {@link #endTest}.
+     * @return {@code true} if this test can run concurrently with other tests
+     * @since xxx
+     */
+    public boolean isParallelizable() {
+        return isShardable();
+    }
+
+    /**
+     * Determines if the primitives to test can be split into shards which are visited concurrently.
+     * <p>
+     * Tests may opt in if {@link #visit(Node)}, {@link #visit(Way)} and {@link #visit(Relation)} only depend on the
+     * visited primitive and only add errors to {@link #errors}, which is then synchronized.
+     * The errors are sorted in the order of the visited primitives afterwards.
+     * @return {@code true} if the primitives can be visited concurrently
+     * @since xxx
+     */
+    public boolean isShardable() {
+        return false;
+    }
+
+    /**
+     * Creates a new instance of this test which can be run independently of this instance, e.g. by another thread.
+     * <p>
+     * The default implementation uses the public constructor without arguments. Tests which keep instance state
+     * set by {@link #initialize()} must override this method to copy it.
+     * @return a new instance of this test, enabled like this instance
+     * @throws ReflectiveOperationException if the test cannot be instantiated
+     * @since xxx
+     */
+    public Test createCopy() throws ReflectiveOperationException {
+        Test copy = getClass().getConstructor().newInstance();
+        copy.enabled = enabled;
+        copy.testBeforeUpload = testBeforeUpload;
+        return copy;
+    }
+
     /**
      * Free resources.
      */
@@ -5,10 +5,19 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 
 import javax.swing.JOptionPane;
 
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -16,6 +25,7 @@ import org.openstreetmap.josm.gui.MapFrame;
 import org.openstreetmap.josm.gui.Notification;
 import org.openstreetmap.josm.gui.PleaseWaitRunnable;
 import org.openstreetmap.josm.gui.layer.ValidatorLayer;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.gui.progress.swing.PleaseWaitProgressMonitor;
 import org.openstreetmap.josm.gui.util.GuiHelper;
@@ -28,8 +38,10 @@ public class ValidationTask extends PleaseWaitRunnable {
     private Collection<Test> tests;
     private final Collection<OsmPrimitive> validatedPrimitives;
     private final Collection<OsmPrimitive> formerValidatedPrimitives;
-    private boolean canceled;
+    private volatile boolean canceled;
     private List<TestError> errors;
+    private List<List<OsmPrimitive>> shards;
+    private Map<OsmPrimitive, Integer> primitiveOrder;
 
     /**
      * Constructs a new {@code ValidationTask}
@@ -82,19 +94,17 @@ public class ValidationTask extends PleaseWaitRunnable {
             return;
         errors = new ArrayList<>();
         getProgressMonitor().setTicksCount(tests.size() * validatedPrimitives.size());
-        int testCounter = 0;
-        for (Test test : tests) {
-            if (canceled)
+        ForkJoinPool pool = null;
+        if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_PARALLEL.get()) && tests.stream().anyMatch(Test::isParallelizable)) {
+            pool = Utils.newForkJoinPool(ValidatorPrefHelper.PREF_NUMBER_OF_THREADS, "validator-%d", Thread.NORM_PRIORITY);
+        }
+        try {
+            if (!runTests(pool))
                 return;
-            testCounter++;
-            getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testCounter, tests.size(), test.getName()));
-            test.setBeforeUpload(false);
-            test.setPartialSelection(formerValidatedPrimitives != null);
-            test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
-            test.visit(validatedPrimitives);
-            test.endTest();
-            errors.addAll(test.getErrors());
-            test.clear();
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
         }
         tests = null;
         if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get())) {
@@ -117,6 +127,144 @@ public class ValidationTask extends PleaseWaitRunnable {
         }
     }
 
+    /**
+     * Runs the tests. Parallelizable tests are submitted to the given pool while the other tests run in this thread.
+     * The errors are collected in the order of the tests, regardless of the order of their completion.
+     * @param pool the pool for parallelizable tests, or {@code null} to run all tests in this thread
+     * @return {@code false} if the task has been canceled
+     */
+    private boolean runTests(ForkJoinPool pool) {
+        Map<Test, ForkJoinTask<List<TestError>>> parallelTests = new IdentityHashMap<>();
+        if (pool != null) {
+            for (Test test : tests) {
+                if (test.isParallelizable()) {
+                    parallelTests.put(test, pool.submit(() -> runParallelTest(test, pool.getParallelism())));
+                }
+            }
+        }
+        try {
+            Map<Test, List<TestError>> testErrors = new IdentityHashMap<>();
+            int testCounter = 0;
+            for (Test test : tests) {
+                testCounter++;
+                if (canceled)
+                    return false;
+                if (parallelTests.containsKey(test))
+                    continue;
+                getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testCounter, tests.size(), test.getName()));
+                test.setBeforeUpload(false);
+                test.setPartialSelection(formerValidatedPrimitives != null);
+                test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
+                test.visit(validatedPrimitives);
+                test.endTest();
+                testErrors.put(test, new ArrayList<>(test.getErrors()));
+                test.clear();
+            }
+            if (!parallelTests.isEmpty()) {
+                getProgressMonitor().setCustomText(tr("Waiting for {0} tests running in parallel", parallelTests.size()));
+            }
+            for (Map.Entry<Test, ForkJoinTask<List<TestError>>> entry : parallelTests.entrySet()) {
+                if (canceled)
+                    return false;
+                testErrors.put(entry.getKey(), entry.getValue().join());
+                getProgressMonitor().worked(validatedPrimitives.size());
+            }
+            for (Test test : tests) {
+                errors.addAll(testErrors.get(test));
+            }
+            return !canceled;
+        } finally {
+            // the tests are shared instances, they must be finished before the task ends, even when it is canceled
+            parallelTests.values().forEach(ForkJoinTask::quietlyJoin);
+        }
+    }
+
+    /**
+     * Runs a parallelizable test in a worker thread. The primitives of shardable tests are split into spatial shards
+     * which are visited concurrently.
+     * @param test the test
+     * @param parallelism the number of worker threads
+     * @return the errors found by the test
+     */
+    private List<TestError> runParallelTest(Test test, int parallelism) {
+        test.setBeforeUpload(false);
+        test.setPartialSelection(formerValidatedPrimitives != null);
+        test.startTest(NullProgressMonitor.INSTANCE);
+        if (test.isShardable()) {
+            test.errors = Collections.synchronizedList(test.errors);
+            ForkJoinTask.invokeAll(getShards(parallelism).stream()
+                    .map(shard -> ForkJoinTask.adapt(() -> {
+                        if (!canceled) {
+                            test.visit(shard);
+                        }
+                    }))
+                    .collect(Collectors.toList()));
+        } else if (!canceled) {
+            test.visit(validatedPrimitives);
+        }
+        test.endTest();
+        List<TestError> result = new ArrayList<>(test.getErrors());
+        test.clear();
+        if (test.isShardable()) {
+            // restore the order of a sequential run
+            Map<OsmPrimitive, Integer> order = getPrimitiveOrder();
+            result.sort(Comparator.<TestError>comparingInt(e -> e.getPrimitives().stream().findFirst()
+                    .map(p -> order.getOrDefault(p, Integer.MAX_VALUE)).orElse(Integer.MAX_VALUE))
+                    .thenComparingInt(TestError::getCode)
+                    .thenComparing(TestError::getMessage));
+        }
+        return result;
+    }
+
+    /**
+     * Splits the validated primitives into spatially coherent shards, sorted along a Z-order curve.
+     * @param parallelism the number of worker threads
+     * @return the shards
+     */
+    private synchronized List<List<OsmPrimitive>> getShards(int parallelism) {
+        if (shards == null) {
+            List<OsmPrimitive> sorted = new ArrayList<>(validatedPrimitives);
+            sorted.sort(Comparator.comparingLong(ValidationTask::getSpatialKey));
+            int shardCount = Math.max(1, Math.min(sorted.size(), parallelism * 4));
+            shards = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                shards.add(new ArrayList<>(sorted.subList(i * sorted.size() / shardCount, (i + 1) * sorted.size() / shardCount)));
+            }
+        }
+        return shards;
+    }
+
+    private synchronized Map<OsmPrimitive, Integer> getPrimitiveOrder() {
+        if (primitiveOrder == null) {
+            primitiveOrder = new IdentityHashMap<>(validatedPrimitives.size());
+            int i = 0;
+            for (OsmPrimitive p : validatedPrimitives) {
+                primitiveOrder.put(p, i++);
+            }
+        }
+        return primitiveOrder;
+    }
+
+    /**
+     * Returns the position of the center of a primitive along a Z-order curve, to sort primitives spatially.
+     * @param p the primitive
+     * @return the position, {@link Long#MAX_VALUE} for primitives without a valid bounding box
+     */
+    static long getSpatialKey(OsmPrimitive p) {
+        BBox bbox = p.getBBox();
+        if (!bbox.isValid()) {
+            return Long.MAX_VALUE;
+        }
+        LatLon center = bbox.getCenter();
+        long x = (long) ((LatLon.toIntervalLon(center.lon()) + 180) / 360 * 0xFFFF);
+        long y = (long) ((LatLon.toIntervalLat(center.lat()) + 90) / 180 * 0xFFFF);
+        long key = 0;
+        for (int bit = 0; bit < 16; bit++) {
+            key |= ((x >> bit) & 1) << (2 * bit) | ((y >> bit) & 1) << (2 * bit + 1);
+        }
+        return key;
+    }
+
     /**
      * Gets the validation errors accumulated until this moment.
      * @return The list of errors
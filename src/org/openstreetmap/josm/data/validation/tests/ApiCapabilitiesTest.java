@@ -40,6 +40,13 @@ public class ApiCapabilitiesTest extends Test {
         }
     }
 
+    @Override
+    public ApiCapabilitiesTest createCopy() throws ReflectiveOperationException {
+        ApiCapabilitiesTest copy = (ApiCapabilitiesTest) super.createCopy();
+        copy.maxNodes = maxNodes;
+        return copy;
+    }
+
     @Override
     public void visit(Way w) {
         if (maxNodes > 1 && w.getNodesCount() > maxNodes) {
@@ -295,6 +295,11 @@ public abstract class CrossingWays extends Test {
         this.code = code;
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
@@ -120,6 +120,11 @@ public class DuplicateNode extends Test {
                 tr("This test checks that there are no nodes at the very same location."));
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
@@ -32,6 +32,11 @@ public class DuplicatedWayNodes extends Test {
                 tr("Checks for ways with identical consecutive nodes."));
     }
 
+    @Override
+    public boolean isShardable() {
+        return true;
+    }
+
     @Override
     public void visit(Way w) {
         if (!w.isUsable()) return;
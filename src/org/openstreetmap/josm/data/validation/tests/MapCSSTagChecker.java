@@ -59,8 +59,8 @@ import org.openstreetmap.josm.tools.Utils;
 public class MapCSSTagChecker extends Test.TagTest {
     private MapCSSStyleIndex indexData;
     private final Map<MapCSSRule, MapCSSTagCheckerAndRule> ruleToCheckMap = new HashMap<>();
-    private static final Map<IPrimitive, Area> mpAreaCache = new HashMap<>();
-    private static final Set<IPrimitive> toMatchForSurrounding = new HashSet<>();
+    private final Map<IPrimitive, Area> mpAreaCache = new HashMap<>();
+    private final Set<IPrimitive> toMatchForSurrounding = new HashSet<>();
     static final boolean ALL_TESTS = true;
     static final boolean ONLY_SELECTED_TESTS = false;
 
@@ -220,8 +220,8 @@ public class MapCSSTagChecker extends Test.TagTest {
         // this variant is only used by the assertion tests
         final List<TestError> r = new ArrayList<>();
         final Environment env = new Environment(p, new MultiCascade(), Environment.DEFAULT_LAYER, null);
-        env.mpAreaCache = mpAreaCache;
-        env.toMatchForSurrounding = toMatchForSurrounding;
+        env.mpAreaCache = new HashMap<>();
+        env.toMatchForSurrounding = new HashSet<>();
         for (Set<MapCSSTagCheckerRule> schecks : checksCol) {
             for (MapCSSTagCheckerRule check : schecks) {
                 boolean ignoreError = Severity.OTHER == check.getSeverity() && !includeOtherSeverity;
@@ -292,6 +292,31 @@ public class MapCSSTagChecker extends Test.TagTest {
         return result;
     }
 
+    /**
+     * Returns a new tag checker with the checks from the URLs matching the given predicate.
+     * The copy does not share any state used while visiting primitives, so it can be used while this checker runs.
+     * @param urlPredicate a predicate deciding whether the rules from the given URL shall be copied
+     * @return the new tag checker
+     */
+    synchronized MapCSSTagChecker copyChecks(Predicate<String> urlPredicate) {
+        MapCSSTagChecker copy = new MapCSSTagChecker();
+        for (Entry<String, Set<MapCSSTagCheckerRule>> entry : checks.entrySet()) {
+            if (urlPredicate.test(entry.getKey())) {
+                copy.checks.putAll(entry.getKey(), entry.getValue());
+                copy.urlTitles.put(entry.getKey(), getTitle(entry.getKey()));
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public MapCSSTagChecker createCopy() {
+        MapCSSTagChecker copy = copyChecks(url -> true);
+        copy.enabled = enabled;
+        copy.testBeforeUpload = testBeforeUpload;
+        return copy;
+    }
+
     /** Find a user friendly string for the url.
      *
      * @param url the source for the set of rules
@@ -358,6 +383,11 @@ public class MapCSSTagChecker extends Test.TagTest {
         }
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public synchronized void startTest(ProgressMonitor progressMonitor) {
         super.startTest(progressMonitor);
@@ -29,6 +29,11 @@ public class SelfIntersectingWay extends Test {
                         "that contain some of their nodes more than once."));
     }
 
+    @Override
+    public boolean isShardable() {
+        return true;
+    }
+
     @Override
     public void visit(Way w) {
         int last = w.getNodesCount();
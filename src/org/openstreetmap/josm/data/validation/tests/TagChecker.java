@@ -1045,10 +1045,14 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
         if (deprecatedChecker == null)
             return 0;
         deprecatedChecker.getErrors().clear();
-        deprecatedChecker.visit(Collections.singleton(p), url -> url.endsWith("deprecated.mapcss"));
+        deprecatedChecker.visit(Collections.singleton(p), TagChecker::isDeprecatedRulesUrl);
         return deprecatedChecker.getErrors().size();
     }
 
+    private static boolean isDeprecatedRulesUrl(String url) {
+        return url.endsWith("deprecated.mapcss");
+    }
+
     private static boolean isNum(String harmonizedValue) {
         try {
             Double.parseDouble(harmonizedValue);
@@ -1099,7 +1103,9 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
         if (isBeforeUpload) {
             checkPresetsTypes = checkPresetsTypes && Config.getPref().getBoolean(PREF_CHECK_PRESETS_TYPES_BEFORE_UPLOAD, true);
         }
-        deprecatedChecker = OsmValidator.getTest(MapCSSTagChecker.class);
+        // use a private copy of the deprecated rules, the shared MapCSSTagChecker may run at the same time, see ValidationTask
+        MapCSSTagChecker mapCSSTagChecker = OsmValidator.getTest(MapCSSTagChecker.class);
+        deprecatedChecker = mapCSSTagChecker != null ? mapCSSTagChecker.copyChecks(TagChecker::isDeprecatedRulesUrl) : null;
         ignoreForOuterMPSameTagCheck.addAll(Config.getPref().getList(PREF_KEYS_IGNORE_OUTER_MP_SAME_TAG, Collections.emptyList()));
     }
 
@@ -244,6 +244,11 @@ public abstract class UnconnectedWays extends Test {
         this.isHighwayTest = isHighwayTest;
     }
 
+    @Override
+    public boolean isParallelizable() {
+        return true;
+    }
+
     @Override
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
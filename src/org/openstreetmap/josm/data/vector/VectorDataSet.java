@@ -11,8 +11,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
@@ -77,6 +79,16 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
             ListenerList.create();
 
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    /**
+     * Tiles decoded by the tile loader threads, waiting to be merged into {@link #dataStoreMap}.
+     * See {@link #mergePendingTiles()}.
+     */
+    private final Queue<MVTTile> pendingAddedTiles = new ConcurrentLinkedQueue<>();
+    /**
+     * Tiles dropped from the tile cache, waiting to be removed from {@link #dataStoreMap}.
+     * See {@link #mergePendingTiles()}.
+     */
+    private final Queue<MVTTile> pendingRemovedTiles = new ConcurrentLinkedQueue<>();
 
     /**
      * The distance to consider nodes duplicates -- mostly a memory saving measure.
@@ -165,13 +177,15 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
     @Override
     public void clear() {
         synchronized (this.dataStoreMap) {
+            this.pendingAddedTiles.clear();
+            this.pendingRemovedTiles.clear();
             this.dataStoreMap.clear();
         }
     }
 
     @Override
     public List<VectorNode> searchNodes(BBox bbox) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -181,7 +195,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public boolean containsNode(VectorNode vectorNode) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -191,7 +205,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public List<VectorWay> searchWays(BBox bbox) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -201,7 +215,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public boolean containsWay(VectorWay vectorWay) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -211,7 +225,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public List<VectorRelation> searchRelations(BBox bbox) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -221,7 +235,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public boolean containsRelation(VectorRelation vectorRelation) {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getStore)
@@ -246,6 +260,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
      * @return The primitives for the ids (note: as this is vector data, a {@link PrimitiveId} may have multiple associated primitives)
      */
     public Stream<VectorPrimitive> getPrimitivesById(PrimitiveId... primitiveIds) {
+        this.mergePendingTiles();
         final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
         return Stream.concat(dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty(),
                 Stream.of(this.customDataStore)).map(VectorDataStore::getPrimitivesMap)
@@ -254,7 +269,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public <T extends VectorPrimitive> Collection<T> getPrimitives(Predicate<? super VectorPrimitive> predicate) {
-        Collection<VectorPrimitive> primitives = tryRead(this.readWriteLock, () -> {
+        Collection<VectorPrimitive> primitives = tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             final Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
             return Stream.concat(dataStoreStream, Stream.of(this.customDataStore))
@@ -363,7 +378,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
 
     @Override
     public Collection<VectorPrimitive> getAllSelected() {
-        return tryRead(this.readWriteLock, () -> {
+        return tryRead(() -> {
             final Storage<MVTTile> dataStore = this.getBestZoomDataStore().orElse(null);
             Stream<VectorDataStore> dataStoreStream = dataStore != null ? dataStore.stream().map(MVTTile::getData) : Stream.empty();
                 return Stream.concat(dataStoreStream, Stream.of(this.customDataStore)).map(VectorDataStore::getPrimitivesMap)
@@ -529,6 +544,7 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
         }
         this.zoom = zoom;
         this.clearMappaintCache();
+        this.mergePendingTiles();
         final int[] nearestZoom = {-1, -1, -1, -1};
         nearestZoom[0] = zoom;
         // Create a new list to avoid concurrent modification issues
@@ -558,17 +574,68 @@ public class VectorDataSet implements OsmData<VectorPrimitive, VectorNode, Vecto
     }
 
     /**
-     * Add tile data to this dataset
+     * Add tile data to this dataset.
+     * This is usually called from the tile loader threads. The tile is only prepared there, and merged into the dataset
+     * together with other pending tiles by the next thread which can get the write lock without waiting.
      * @param tile The tile to add
      */
     public void addTileData(MVTTile tile) {
-        tryWrite(this.readWriteLock, () -> {
-            final int currentZoom = tile.getZoom();
-            // computeIfAbsent should be thread safe (ConcurrentHashMap indicates it is, anyway)
-            final Storage<MVTTile> dataStore = this.dataStoreMap.computeIfAbsent(currentZoom, tZoom -> new Storage<>());
-            tile.getData().getAllPrimitives().forEach(primitive -> primitive.setDataSet(this));
-            dataStore.add(tile);
-        });
+        tile.getData().getAllPrimitives().forEach(primitive -> primitive.setDataSet(this));
+        this.pendingRemovedTiles.remove(tile);
+        this.pendingAddedTiles.add(tile);
+        this.mergePendingTiles();
+    }
+
+    /**
+     * Remove tile data from this dataset, e.g. when the tile has been dropped from the tile cache
+     * @param tile The tile to remove
+     * @since xxx
+     */
+    public void removeTileData(MVTTile tile) {
+        if (!this.pendingAddedTiles.remove(tile)) {
+            this.pendingRemovedTiles.add(tile);
+        }
+        this.mergePendingTiles();
+    }
+
+    /**
+     * Merge the pending added and removed tiles in one batch.
+     * This never waits for the write lock: if another thread holds a lock, the tiles are merged on a later call.
+     */
+    private void mergePendingTiles() {
+        if ((this.pendingAddedTiles.isEmpty() && this.pendingRemovedTiles.isEmpty())
+                // We cannot upgrade a read lock to a write lock
+                || this.readWriteLock.getReadHoldCount() > 0
+                || !this.readWriteLock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            MVTTile tile;
+            while ((tile = this.pendingRemovedTiles.poll()) != null) {
+                final Storage<MVTTile> dataStore = this.dataStoreMap.get(tile.getZoom());
+                if (dataStore != null && dataStore.remove(tile) && dataStore.isEmpty()) {
+                    this.dataStoreMap.remove(tile.getZoom());
+                }
+            }
+            while ((tile = this.pendingAddedTiles.poll()) != null) {
+                // computeIfAbsent should be thread safe (ConcurrentHashMap indicates it is, anyway)
+                this.dataStoreMap.computeIfAbsent(tile.getZoom(), tZoom -> new Storage<>()).add(tile);
+            }
+        } finally {
+            this.readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the pending tiles, and read something
+     * @param supplier The reading function
+     * @param <T>      The return type
+     * @return The optional return
+     * @see #tryRead(ReentrantReadWriteLock, Supplier)
+     */
+    private <T> Optional<T> tryRead(Supplier<T> supplier) {
+        this.mergePendingTiles();
+        return tryRead(this.readWriteLock, supplier);
     }
 
     /**
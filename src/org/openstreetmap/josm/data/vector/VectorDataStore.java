@@ -12,8 +12,11 @@ import java.awt.geom.PathIterator;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 import org.openstreetmap.gui.jmapviewer.Coordinate;
 import org.openstreetmap.gui.jmapviewer.Tile;
@@ -24,12 +27,13 @@ import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Feature;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Layer;
 import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.INode;
-import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.data.osm.IWay;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
 import org.openstreetmap.josm.data.osm.UniqueIdGenerator;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.dialogs.relation.sort.RelationSorter;
 import org.openstreetmap.josm.tools.Destroyable;
 import org.openstreetmap.josm.tools.Geometry;
@@ -46,6 +50,8 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
     private static final String ORIGINAL_ID = "original_id";
     private static final String MULTIPOLYGON_TYPE = "multipolygon";
     private static final String RELATION_TYPE = "type";
+    /** The bounds of the tile currently being added, see {@link #getTileBBox} */
+    private BBox tileBBox;
 
     @Override
     protected void addPrimitive(VectorPrimitive primitive) {
@@ -157,16 +163,7 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
 
     private synchronized <T extends Tile & VectorTile> VectorNode pointToNode(T tile, Layer layer,
       Collection<VectorPrimitive> featureObjects, int x, int y) {
-        final BBox tileBbox;
-        if (tile instanceof IQuadBucketType) {
-            tileBbox = ((IQuadBucketType) tile).getBBox();
-        } else {
-            final ICoordinate upperLeft = tile.getTileSource().tileXYToLatLon(tile);
-            final ICoordinate lowerRight = tile.getTileSource()
-                    .tileXYToLatLon(tile.getXtile() + 1, tile.getYtile() + 1, tile.getZoom());
-
-            tileBbox = new BBox(upperLeft.getLon(), upperLeft.getLat(), lowerRight.getLon(), lowerRight.getLat());
-        }
+        final BBox tileBbox = getTileBBox(tile);
         final int layerExtent = layer.getExtent();
         final ICoordinate coords = new Coordinate(
                 tileBbox.getMaxLat() - (tileBbox.getMaxLat() - tileBbox.getMinLat()) * y / layerExtent,
@@ -291,11 +288,39 @@ public class VectorDataStore extends DataStore<VectorPrimitive, VectorNode, Vect
         }
         // Replace original_ids with the same object (reduce memory usage)
         // Strings aren't interned automatically in some GC implementations
-        Collection<IPrimitive> primitives = this.getAllPrimitives().stream().filter(p -> p.hasKey(ORIGINAL_ID)).collect(toList());
-        List<String> toReplace = primitives.stream().map(p -> p.get(ORIGINAL_ID)).filter(Objects::nonNull).collect(toList());
-        primitives.stream().filter(p -> toReplace.contains(p.get(ORIGINAL_ID)))
-                .forEach(p -> p.put(ORIGINAL_ID, toReplace.stream().filter(shared -> shared.equals(p.get(ORIGINAL_ID)))
-                        .findAny().orElse(null)));
+        final Map<String, String> originalIds = new HashMap<>();
+        // Project the nodes now, while we are still off the EDT. The projected coordinates are cached in the nodes.
+        final Projection projection = ProjectionRegistry.getProjection();
+        for (VectorPrimitive primitive : this.getAllPrimitives()) {
+            final String originalId = primitive.get(ORIGINAL_ID);
+            if (originalId != null) {
+                primitive.put(ORIGINAL_ID, originalIds.computeIfAbsent(originalId, Function.identity()));
+            }
+            if (projection != null && primitive instanceof VectorNode) {
+                ((VectorNode) primitive).getEastNorth(projection);
+            }
+        }
+        this.tileBBox = null;
+    }
+
+    /**
+     * Get the bounds of a tile. The bounds are computed once per tile, not for each point.
+     * @param tile The tile
+     * @param <T> The tile type
+     * @return The bounds of the tile
+     */
+    private <T extends Tile & VectorTile> BBox getTileBBox(T tile) {
+        if (tile instanceof IQuadBucketType) {
+            return ((IQuadBucketType) tile).getBBox();
+        }
+        if (this.tileBBox == null) {
+            final ICoordinate upperLeft = tile.getTileSource().tileXYToLatLon(tile);
+            final ICoordinate lowerRight = tile.getTileSource()
+                    .tileXYToLatLon(tile.getXtile() + 1, tile.getYtile() + 1, tile.getZoom());
+
+            this.tileBBox = new BBox(upperLeft.getLon(), upperLeft.getLat(), lowerRight.getLon(), lowerRight.getLat());
+        }
+        return this.tileBBox;
     }
 
     private <T extends Tile & VectorTile> void addFeatureData(T tile, Layer layer, Feature feature) {
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.data.vector;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.openstreetmap.gui.jmapviewer.interfaces.ICoordinate;
 import org.openstreetmap.josm.data.coor.EastNorth;
@@ -13,6 +14,7 @@ import org.openstreetmap.josm.data.osm.IWay;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.UniqueIdGenerator;
 import org.openstreetmap.josm.data.osm.visitor.PrimitiveVisitor;
+import org.openstreetmap.josm.data.projection.Projecting;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.tools.Utils;
 
@@ -25,6 +27,12 @@ public class VectorNode extends VectorPrimitive implements INode {
     private static final UniqueIdGenerator ID_GENERATOR = new UniqueIdGenerator();
     private double lon = Double.NaN;
     private double lat = Double.NaN;
+    private double east = Double.NaN;
+    private double north = Double.NaN;
+    /**
+     * The cache key to use for {@link #east} and {@link #north}.
+     */
+    private Object eastNorthCacheKey;
 
     /**
      * Create a new vector node
@@ -44,6 +52,32 @@ public class VectorNode extends VectorPrimitive implements INode {
         return this.lat;
     }
 
+    @Override
+    public EastNorth getEastNorth(Projecting projection) {
+        if (!isLatLonKnown()) return null;
+
+        if (Double.isNaN(east) || Double.isNaN(north) || !Objects.equals(projection.getCacheKey(), eastNorthCacheKey)) {
+            // projected coordinates haven't been calculated yet,
+            // so fill the cache of the projected node coordinates
+            EastNorth en = projection.latlon2eastNorth(this);
+            this.east = en.east();
+            this.north = en.north();
+            this.eastNorthCacheKey = projection.getCacheKey();
+        }
+        return new EastNorth(east, north);
+    }
+
+    /**
+     * Invalidate the cache of projected east/north coordinates.
+     * Coordinates are projected again when {@link #getEastNorth()} is called next time.
+     * @since xxx
+     */
+    public void invalidateEastNorthCache() {
+        this.east = Double.NaN;
+        this.north = Double.NaN;
+        this.eastNorthCacheKey = null;
+    }
+
     @Override
     public UniqueIdGenerator getIdGenerator() {
         return ID_GENERATOR;
@@ -58,6 +92,7 @@ public class VectorNode extends VectorPrimitive implements INode {
     public void setCoor(LatLon coordinates) {
         this.lat = coordinates.lat();
         this.lon = coordinates.lon();
+        invalidateEastNorthCache();
     }
 
     /**
@@ -69,6 +104,7 @@ public class VectorNode extends VectorPrimitive implements INode {
     public void setCoor(ICoordinate coordinates) {
         this.lat = coordinates.getLat();
         this.lon = coordinates.getLon();
+        invalidateEastNorthCache();
     }
 
     @Override
@@ -76,6 +112,9 @@ public class VectorNode extends VectorPrimitive implements INode {
         final LatLon ll = ProjectionRegistry.getProjection().eastNorth2latlon(eastNorth);
         this.lat = ll.lat();
         this.lon = ll.lon();
+        this.east = eastNorth.east();
+        this.north = eastNorth.north();
+        this.eastNorthCacheKey = ProjectionRegistry.getProjection().getCacheKey();
     }
 
     @Override
@@ -971,6 +971,26 @@ public class MainApplication {
             menu.fullscreenToggleAction.initial();
         }
 
+        if (!skipLoadingPlugins && PluginHandler.hasLazyPlugins()) {
+            // on the worker before the finalization worker, which opens files handled by these plugins on the worker too
+            worker.submit(new PleaseWaitRunnable(tr("Loading plugins")) {
+                @Override
+                protected void realRun() {
+                    PluginHandler.loadLazyPlugins(mainFrame, getProgressMonitor().createSubTaskMonitor(1, false));
+                }
+
+                @Override
+                protected void finish() {
+                    toolbar.refreshToolbarControl();
+                }
+
+                @Override
+                protected void cancel() {
+                    // plugins cannot be unloaded
+                }
+            });
+        }
+
         SwingUtilities.invokeLater(new GuiFinalizationWorker(args, proxySelector));
 
         if (RemoteControl.PROP_REMOTECONTROL_ENABLED.get()) {
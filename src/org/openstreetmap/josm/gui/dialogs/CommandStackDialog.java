@@ -374,8 +374,13 @@ public class CommandStackDialog extends ToggleDialog implements CommandQueuePrec
     @Override
     public void commandAdded(CommandAddedEvent e) {
         if (isVisible()) {
-            undoRoot.add(getNodeForCommand(e.getCommand()));
-            undoTreeModel.nodeStructureChanged(undoRoot);
+            if (e.isMerged()) {
+                // the last command has been replaced by the merged command
+                buildUndoTree();
+            } else {
+                undoRoot.add(getNodeForCommand(e.getCommand()));
+                undoTreeModel.nodeStructureChanged(undoRoot);
+            }
             // fix 16911: make sure that redo tree is rebuild with empty list
             if (!redoTreeIsEmpty())
                 buildRedoTree();
@@ -29,7 +29,6 @@ import javax.swing.table.TableModel;
 import org.openstreetmap.josm.actions.mapmode.MapMode;
 import org.openstreetmap.josm.actions.search.SearchAction;
 import org.openstreetmap.josm.data.osm.Filter;
-import org.openstreetmap.josm.data.osm.FilterModel;
 import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
 import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent.DatasetEventType;
 import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
@@ -54,6 +53,7 @@ import org.openstreetmap.josm.gui.widgets.DisableShortcutsOnFocusGainedTextField
 import org.openstreetmap.josm.tools.ImageProvider;
 import org.openstreetmap.josm.tools.InputMapUtils;
 import org.openstreetmap.josm.tools.Shortcut;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * The filter dialog displays a list of filters that are active on the current edit layer.
@@ -361,12 +361,14 @@ public class FilterDialog extends ToggleDialog implements DataSetListener, MapMo
     }
 
     /**
-     * Updates the headline of this dialog to display the number of active filters.
+     * Updates the headline of this dialog to display the number of active filters
+     * and the duration of the last run of the filters.
      */
     public void updateDialogHeader() {
         SwingUtilities.invokeLater(() -> setTitle(
                 tr("Filter Hidden: {0} Disabled: {1}",
-                        filterModel.model.getDisabledAndHiddenCount(), filterModel.model.getDisabledCount())));
+                        filterModel.model.getDisabledAndHiddenCount(), filterModel.model.getDisabledCount())
+                + ' ' + tr("Time: {0}", Utils.getDurationString(filterModel.model.getLastExecutionTime()))));
     }
 
     /**
@@ -379,44 +381,44 @@ public class FilterDialog extends ToggleDialog implements DataSetListener, MapMo
 
     @Override
     public void dataChanged(DataChangedEvent event) {
-        filterModel.executeFilters();
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void nodeMoved(NodeMovedEvent event) {
-        filterModel.executeFilters();
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void otherDatasetChange(AbstractDatasetChangedEvent event) {
         if (DatasetEventType.FILTERS_CHANGED != event.getType()) {
-            filterModel.executeFilters();
+            filterModel.executeFilters(event);
         }
     }
 
     @Override
     public void primitivesAdded(PrimitivesAddedEvent event) {
-        filterModel.executeFilters(event.getPrimitives());
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void primitivesRemoved(PrimitivesRemovedEvent event) {
-        filterModel.executeFilters();
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void relationMembersChanged(RelationMembersChangedEvent event) {
-        filterModel.executeFilters(FilterModel.getAffectedPrimitives(event.getPrimitives()));
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void tagsChanged(TagsChangedEvent event) {
-        filterModel.executeFilters(FilterModel.getAffectedPrimitives(event.getPrimitives()));
+        filterModel.executeFilters(event);
     }
 
     @Override
     public void wayNodesChanged(WayNodesChangedEvent event) {
-        filterModel.executeFilters(FilterModel.getAffectedPrimitives(event.getPrimitives()));
+        filterModel.executeFilters(event);
     }
 
     @Override
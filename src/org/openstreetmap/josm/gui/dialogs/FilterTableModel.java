@@ -14,6 +14,7 @@ import javax.swing.table.AbstractTableModel;
 import org.openstreetmap.josm.data.osm.Filter;
 import org.openstreetmap.josm.data.osm.FilterModel;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
 import org.openstreetmap.josm.gui.autofilter.AutoFilterManager;
@@ -115,6 +116,19 @@ public class FilterTableModel extends AbstractTableModel implements SortableTabl
         }
     }
 
+    /**
+     * Runs the filters on the primitives of the edit data set that can be affected by a change of the data set, if any.
+     * Does nothing if no filter is enabled.
+     * @param event the change of the data set
+     * @since xxx
+     */
+    public void executeFilters(AbstractDatasetChangedEvent event) {
+        if (AutoFilterManager.getInstance().getCurrentAutoFilter() == null && model.hasFilters()) {
+            model.executeFilters(event);
+            updateMap();
+        }
+    }
+
     private void updateMap() {
         MapFrame map = MainApplication.getMap();
         if (map != null && model.isChanged()) {
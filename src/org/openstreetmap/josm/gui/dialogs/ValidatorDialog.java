@@ -49,6 +49,7 @@ import org.openstreetmap.josm.data.osm.event.SelectionEventManager;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.PrimitiveVisitor;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.data.validation.IncrementalValidator;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.TestError;
@@ -110,6 +111,9 @@ public class ValidatorDialog extends ToggleDialog
     /** Last selected element */
     private DefaultMutableTreeNode lastSelectedNode;
 
+    /** Keeps the errors of the edit layer up to date, if enabled */
+    private transient IncrementalValidator incrementalValidator;
+
     /**
      * Constructor
      */
@@ -432,6 +436,34 @@ public class ValidatorDialog extends ToggleDialog
         } else {
             tree.setErrorList(editLayer.validationErrors);
         }
+        updateIncrementalValidator(editLayer);
+    }
+
+    private void updateIncrementalValidator(OsmDataLayer editLayer) {
+        if (incrementalValidator != null) {
+            incrementalValidator.stop();
+            incrementalValidator = null;
+        }
+        if (editLayer != null && ValidatorPrefHelper.PREF_INCREMENTAL.get()) {
+            // The revalidation runs copies of the tests, the validation before upload suspends it
+            incrementalValidator = new IncrementalValidator(editLayer.getDataSet(), OsmValidator.getEnabledTests(false),
+                    MainApplication.worker, errors -> GuiHelper.runInEDT(() -> {
+                        if (editLayer == MainApplication.getLayerManager().getEditLayer()) {
+                            tree.setErrors(errors);
+                            invalidateValidatorLayers();
+                        }
+                    }));
+            incrementalValidator.start();
+        }
+    }
+
+    /**
+     * Returns the validator which keeps the errors of the edit layer up to date.
+     * @return the incremental validator, or {@code null} if incremental validation is disabled
+     * @since xxx
+     */
+    public IncrementalValidator getIncrementalValidator() {
+        return incrementalValidator;
     }
 
     /**
@@ -726,6 +758,10 @@ public class ValidatorDialog extends ToggleDialog
     @Override
     public void destroy() {
         super.destroy();
+        if (incrementalValidator != null) {
+            incrementalValidator.stop();
+            incrementalValidator = null;
+        }
         if (ignoreForNowAction != null) {
             ignoreForNowAction.destroy();
         }
@@ -0,0 +1,62 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmBinaryReader;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * File importer that reads *.osmb files, the binary format used for autosaving data layers.
+ * @since xxx
+ */
+public class OsmBinaryImporter extends OsmImporter {
+
+    /**
+     * The binary OSM file filter (*.osmb files).
+     */
+    public static final ExtensionFileFilter FILE_FILTER = new ExtensionFileFilter(
+            "osmb", "osmb", tr("JOSM binary OSM files") + " (*.osmb)");
+
+    /**
+     * Constructs a new {@code OsmBinaryImporter}.
+     */
+    public OsmBinaryImporter() {
+        super(FILE_FILTER);
+    }
+
+    @Override
+    public void importData(File file, ProgressMonitor progressMonitor) throws IOException, IllegalDataException {
+        DataSet dataSet;
+        try {
+            dataSet = OsmBinaryReader.parseDataSet(file.toPath(), progressMonitor);
+        } catch (NoSuchFileException e) {
+            Logging.error(e);
+            throw new IOException(tr("File ''{0}'' does not exist.", file.getName()), e);
+        }
+        OsmDataLayer layer = createLayer(dataSet, file, file.getName());
+        Runnable postLayerTask = createPostLayerTask(dataSet, file, file.getName(), layer);
+        GuiHelper.runInEDT(() -> {
+            MainApplication.getLayerManager().addLayer(layer);
+            postLayerTask.run();
+            layer.onPostLoadFromFile();
+        });
+    }
+
+    @Override
+    protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return OsmBinaryReader.parseDataSet(in, progressMonitor);
+    }
+}
@@ -0,0 +1,43 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.layer.Layer;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.OsmPbfWriter;
+
+/**
+ * Exporter to write map data to an OSM PBF file.
+ * @since xxx
+ */
+public class OsmPbfExporter extends FileExporter {
+
+    /**
+     * Constructs a new {@code OsmPbfExporter}.
+     */
+    public OsmPbfExporter() {
+        super(OsmPbfImporter.FILE_FILTER);
+    }
+
+    @Override
+    public void exportData(File file, Layer layer) throws IOException {
+        if (layer instanceof OsmDataLayer) {
+            DataSet data = ((OsmDataLayer) layer).data;
+            data.getReadLock().lock();
+            try (OsmPbfWriter writer = new OsmPbfWriter(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+                writer.write(data);
+            } finally {
+                data.getReadLock().unlock();
+            }
+        } else {
+            throw new IllegalArgumentException(tr("Layer ''{0}'' not supported", layer.getClass().toString()));
+        }
+    }
+}
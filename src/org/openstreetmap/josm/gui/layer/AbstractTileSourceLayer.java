@@ -38,6 +38,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -58,7 +59,6 @@ import javax.swing.JSeparator;
 import javax.swing.Timer;
 
 import org.openstreetmap.gui.jmapviewer.AttributionSupport;
-import org.openstreetmap.gui.jmapviewer.MemoryTileCache;
 import org.openstreetmap.gui.jmapviewer.OsmTileLoader;
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.TileRange;
@@ -68,6 +68,7 @@ import org.openstreetmap.gui.jmapviewer.interfaces.ICoordinate;
 import org.openstreetmap.gui.jmapviewer.interfaces.IProjected;
 import org.openstreetmap.gui.jmapviewer.interfaces.TemplatedTileSource;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileCache;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileJob;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileLoader;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileLoaderListener;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
@@ -79,6 +80,7 @@ import org.openstreetmap.josm.actions.RenameLayerAction;
 import org.openstreetmap.josm.actions.SaveActionBase;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.cache.JCSCachedTileLoaderJob;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.imagery.CoordinateConversion;
@@ -104,6 +106,7 @@ import org.openstreetmap.josm.gui.dialogs.LayerListPopup;
 import org.openstreetmap.josm.gui.io.importexport.WMSLayerImporter;
 import org.openstreetmap.josm.gui.layer.imagery.AutoLoadTilesAction;
 import org.openstreetmap.josm.gui.layer.imagery.AutoZoomAction;
+import org.openstreetmap.josm.gui.layer.imagery.DecodedTileCache;
 import org.openstreetmap.josm.gui.layer.imagery.DecreaseZoomAction;
 import org.openstreetmap.josm.gui.layer.imagery.FlushTileCacheAction;
 import org.openstreetmap.josm.gui.layer.imagery.ImageryFilterSettings.FilterChangeListener;
@@ -176,18 +179,30 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
      */
     public static final IntegerProperty ZOOM_OFFSET = new IntegerProperty(PREFERENCE_PREFIX + ".zoom_offset", 0);
 
+    /**
+     * Number of tiles around the loaded area, that are prefetched in background once all visible tiles are loaded.
+     * Tiles of the next zoom level in and out are prefetched too. Use 0 to disable prefetching.
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_PREFETCH_TILES = new IntegerProperty(PREFERENCE_PREFIX + ".prefetch_tiles", 1);
+
     private static final BooleanProperty POPUP_MENU_ENABLED = new BooleanProperty(PREFERENCE_PREFIX + ".popupmenu", true);
 
     /*
-     *  use MemoryTileCache instead of tileLoader JCS cache, as tileLoader caches only content (byte[] of image)
-     *  and MemoryTileCache caches whole Tile. This gives huge performance improvement when a lot of tiles are visible
+     *  use DecodedTileCache instead of tileLoader JCS cache, as tileLoader caches only content (byte[] of image)
+     *  and DecodedTileCache caches whole Tile. This gives huge performance improvement when a lot of tiles are visible
      *  in MapView (for example - when limiting min zoom in imagery)
      *
-     *  Use per-layer tileCache instance, as the more layers there are, the more tiles needs to be cached
+     *  The tiles of all layers share one memory budget, so the least recently used tiles of any layer are dropped first
      */
     protected TileCache tileCache; // initialized together with tileSource
     protected T tileSource;
     protected TileLoader tileLoader;
+    /** queued or running prefetch jobs by tile key, so they can be promoted, when the tile becomes visible */
+    private final Map<String, JCSCachedTileLoaderJob<?, ?>> prefetchJobs = new ConcurrentHashMap<>();
+    /** view for which the tiles have been prefetched last, so they are not prefetched again on each repaint */
+    private ProjectionBounds prefetchedBounds;
+    private int prefetchedZoom;
 
     /** A timer that is used to delay invalidation events if required. */
     private final Timer invalidateLaterTimer = new Timer(100, e -> this.invalidate());
@@ -298,16 +313,32 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         if (tileLoader == null)
             tileLoader = new OsmTileLoader(this, headers);
 
-        tileCache = new MemoryTileCache(estimateTileCacheSize());
+        tileCache = DecodedTileCache.getInstance().createTileCache(tileSource.getTileSize());
     }
 
     @Override
-    public synchronized void tileLoadingFinished(Tile tile, boolean success) {
-        if (tile.hasError()) {
-            success = false;
-            tile.setImage(null);
+    public void tileLoadingFinished(Tile tile, boolean success) {
+        if (!tile.hasError() && !(tile instanceof ReprojectionTile) && !(tile instanceof VectorTile)) {
+            // called by the thread that decoded the image, convert it here rather than on every paint
+            synchronized (tile) {
+                BufferedImage img = tile.getImage();
+                BufferedImage compatible = DecodedTileCache.toCompatibleImage(img);
+                if (compatible != img) {
+                    tile.setImage(compatible);
+                }
+            }
+        }
+        synchronized (this) {
+            prefetchJobs.remove(tile.getKey());
+            if (tile.hasError()) {
+                success = false;
+                tile.setImage(null);
+            }
+            if (tileCache instanceof DecodedTileCache.LayerTileCache) {
+                ((DecodedTileCache.LayerTileCache) tileCache).tileLoaded(tile);
+            }
+            invalidateLater();
         }
-        invalidateLater();
         Logging.debug("tileLoadingFinished() tile: {0} success: {1}", tile, success);
     }
 
@@ -658,13 +689,16 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
          * @see #drawInViewArea((Graphics2D, MapView, ProjectionBounds)
          *
          * Add +2 to maxYtiles / maxXtiles to add space in cache for extra tiles in current zoom level that are
-         * download by overloadTiles(). This is not added in computation of visibleTiles as this unnecessarily grow the cache size
+         * download by overloadTiles(), and the tiles around them that are prefetched by prefetchTiles().
+         * This is not added in computation of visibleTiles as this unnecessarily grow the cache size
          * @see #overloadTiles()
+         * @see #prefetchTiles(TileSet, ProjectionBounds)
          */
+        int ring = 2 + 2 * Math.max(0, PROP_PREFETCH_TILES.get());
         int ret = (int) Math.ceil(
                 Math.pow(2d, ZOOM_OFFSET.get()) * // use offset to decide, how many tiles are visible
                 visibleTiles * 7 + // 7 to cover tiles from other zooms as described above
-                ((maxYtiles + 2) * (maxXtiles +2))); // to add as many tiles as they will be accessed on current zoom level
+                ((maxYtiles + ring) * (maxXtiles + ring))); // to add as many tiles as they will be accessed on current zoom level
         Logging.info("AbstractTileSourceLayer: estimated visible tiles: {0}, estimated cache size: {1}", visibleTiles, ret);
         return ret;
     }
@@ -921,12 +955,69 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             return false;
         if (!force && tile.isLoaded())
             return false;
-        if (tile.isLoading())
+        if (tile.isLoading()) {
+            // the tile is needed now, so do not let it wait behind other tiles, if it was queued by prefetchTiles()
+            JCSCachedTileLoaderJob<?, ?> prefetchJob = prefetchJobs.remove(tile.getKey());
+            if (prefetchJob != null) {
+                prefetchJob.setPrefetch(false);
+            }
             return false;
+        }
         tileLoader.createTileLoaderJob(tile).submit(force);
         return true;
     }
 
+    private void prefetchTile(Tile tile) {
+        if (tile.isLoaded() || tile.isLoading())
+            return;
+        TileJob job = tileLoader.createTileLoaderJob(tile);
+        if (job instanceof JCSCachedTileLoaderJob) {
+            JCSCachedTileLoaderJob<?, ?> jcsJob = (JCSCachedTileLoaderJob<?, ?>) job;
+            jcsJob.setPrefetch(true);
+            prefetchJobs.put(tile.getKey(), jcsJob);
+        }
+        job.submit(false);
+    }
+
+    /**
+     * Loads the tiles, that are likely needed next, in background: the tiles of the next zoom level out, a ring of
+     * {@link #PROP_PREFETCH_TILES} tiles around the tiles loaded by {@link TileSet#overloadTiles()} and the tiles of
+     * the next zoom level in. The next zoom level in is only loaded for the center of the view, so the tile cache is
+     * not trashed. Nothing is prefetched until all tiles of the tile set are loaded, and the tiles are prefetched only
+     * once for a given view and zoom level.
+     * @param ts the tile set that is displayed
+     * @param pb the bounds of the view
+     */
+    private void prefetchTiles(TileSet ts, ProjectionBounds pb) {
+        int ring = PROP_PREFETCH_TILES.get();
+        if (ring <= 0 || !(tileLoader instanceof TMSCachedTileLoader) || ts.getZoom() == 0 || ts.tooLarge()
+                || (ts.getZoom() == prefetchedZoom && isSameView(pb, prefetchedBounds)) || ts.hasLoadingTiles()) {
+            return;
+        }
+        prefetchedBounds = new ProjectionBounds(pb.getMin(), pb.getMax());
+        prefetchedZoom = ts.getZoom();
+        List<Tile> tiles = new ArrayList<>();
+        if (ts.getZoom() > getMinZoomLvl()) {
+            tiles.addAll(getTileSet(pb, ts.getZoom() - 1).allTilesCreate());
+        }
+        tiles.addAll(ts.extend(1 + ring).allTilesCreate());
+        if (ts.getZoom() < getMaxZoomLvl()) {
+            double dx = (pb.maxEast - pb.minEast) / 4;
+            double dy = (pb.maxNorth - pb.minNorth) / 4;
+            EastNorth center = pb.getCenter();
+            ProjectionBounds centerBounds = new ProjectionBounds(
+                    center.east() - dx, center.north() - dy, center.east() + dx, center.north() + dy);
+            tiles.addAll(getTileSet(centerBounds, ts.getZoom() + 1).allTilesCreate());
+        }
+        for (Tile t : tiles) {
+            prefetchTile(t);
+        }
+    }
+
+    private static boolean isSameView(ProjectionBounds pb, ProjectionBounds other) {
+        return other != null && pb.getMin().equals(other.getMin()) && pb.getMax().equals(other.getMax());
+    }
+
     private TileSet getVisibleTileSet() {
         if (!MainApplication.isDisplayingMapView())
             return new TileSet();
@@ -1330,13 +1421,21 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
              */
             int overload = 1;
 
-            int minXo = Utils.clamp(minX-overload, tileSource.getTileXMin(zoom), tileSource.getTileXMax(zoom));
-            int maxXo = Utils.clamp(maxX+overload, tileSource.getTileXMin(zoom), tileSource.getTileXMax(zoom));
-            int minYo = Utils.clamp(minY-overload, tileSource.getTileYMin(zoom), tileSource.getTileYMax(zoom));
-            int maxYo = Utils.clamp(maxY+overload, tileSource.getTileYMin(zoom), tileSource.getTileYMax(zoom));
+            extend(overload).loadAllTiles(false);
+        }
+
+        /**
+         * Returns a tile set that extends this set by the given number of tiles on each side.
+         * @param tiles number of tiles to add on each side
+         * @return the extended tile set
+         */
+        private TileSet extend(int tiles) {
+            int minXo = Utils.clamp(minX-tiles, tileSource.getTileXMin(zoom), tileSource.getTileXMax(zoom));
+            int maxXo = Utils.clamp(maxX+tiles, tileSource.getTileXMin(zoom), tileSource.getTileXMax(zoom));
+            int minYo = Utils.clamp(minY-tiles, tileSource.getTileYMin(zoom), tileSource.getTileYMax(zoom));
+            int maxYo = Utils.clamp(maxY+tiles, tileSource.getTileYMin(zoom), tileSource.getTileYMax(zoom));
 
-            TileSet ts = new TileSet(new TileXY(minXo, minYo), new TileXY(maxXo, maxYo), zoom);
-            ts.loadAllTiles(false);
+            return new TileSet(new TileXY(minXo, minYo), new TileXY(maxXo, maxYo), zoom);
         }
 
         private void loadAllErrorTiles(boolean force) {
@@ -1592,6 +1691,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         List<Tile> missedTiles = this.paintTileImages(g, ts);
         if (getDisplaySettings().isAutoLoad()) {
             ts.overloadTiles();
+            prefetchTiles(ts, pb);
         }
         if (getDisplaySettings().isAutoZoom()) {
             /**
@@ -1641,8 +1741,10 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             myDrawString(g, tr("Pixel scale: {0}", getScaleFactor(currentZoomLevel)), 50, 170);
             myDrawString(g, tr("Best zoom: {0}", getBestZoom()), 50, 185);
             myDrawString(g, tr("Estimated cache size: {0}", estimateTileCacheSize()), 50, 200);
+            myDrawString(g, tr("Decoded tiles: {0} MiB of {1} MiB", DecodedTileCache.getInstance().getSize() >> 20,
+                    DecodedTileCache.getInstance().getMaxSize() >> 20), 50, 215);
             if (tileLoader instanceof TMSCachedTileLoader) {
-                int offset = 200;
+                int offset = 215;
                 for (String part: ((TMSCachedTileLoader) tileLoader).getStats().split("\n", -1)) {
                     offset += 15;
                     myDrawString(g, tr("Cache stats: {0}", part), 50, offset);
@@ -1983,6 +2085,9 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         if (tileLoader instanceof TMSCachedTileLoader) {
             ((TMSCachedTileLoader) tileLoader).shutdown();
         }
+        if (tileCache != null) {
+            tileCache.clear();
+        }
     }
 
     private class TileSourcePainter extends CompatibilityModeLayerPainter {
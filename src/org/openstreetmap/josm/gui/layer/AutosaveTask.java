@@ -45,12 +45,14 @@ import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.Notification;
 import org.openstreetmap.josm.gui.io.importexport.NoteImporter;
+import org.openstreetmap.josm.gui.io.importexport.OsmBinaryImporter;
 import org.openstreetmap.josm.gui.io.importexport.OsmImporter;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerAddEvent;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerChangeListener;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerOrderChangeEvent;
 import org.openstreetmap.josm.gui.layer.LayerManager.LayerRemoveEvent;
 import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.io.OsmBinaryJournal;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
@@ -71,6 +73,9 @@ import org.openstreetmap.josm.tools.Utils;
  *
  *      The deleted layers dir keeps at most PROP_DELETED_LAYERS files.
  *
+ * If PROP_BINARY is enabled, data layers are saved with {@link OsmBinaryJournal}: only the changes
+ * since the last autosave are appended to the current file, which is compacted from time to time.
+ *
  * @since  3378 (creation)
  * @since 10386 (new LayerChangeListener interface)
  */
@@ -104,12 +109,18 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      * Defines if a notification should be displayed after each autosave
      */
     public static final BooleanProperty PROP_NOTIFICATION = new BooleanProperty("autosave.notification", false);
+    /**
+     * Defines if data layers are saved incrementally in binary format instead of .osm files
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_BINARY = new BooleanProperty("autosave.binary", false);
 
     protected static final class AutosaveLayerInfo<T extends AbstractModifiableLayer> {
         private final T layer;
         private String layerName;
         private String layerFileName;
         private final Deque<File> backupFiles = new LinkedList<>();
+        private OsmBinaryJournal journal;
 
         AutosaveLayerInfo(T layer) {
             this.layer = layer;
@@ -195,10 +206,15 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         while (true) {
             String filename = String.format(Locale.ENGLISH, "%1$s_%2$tY%2$tm%2$td_%2$tH%2$tM%2$tS%2$tL%3$s",
                     layer.layerFileName, Date.from(now), index == 0 ? "" : ('_' + Integer.toString(index)));
-            File result = new File(autosaveDir, filename + '.' +
-                    (layer.layer instanceof NoteLayer ?
-                            Config.getPref().get("autosave.notes.extension", "osn") :
-                            Config.getPref().get("autosave.extension", "osm")));
+            String extension;
+            if (layer.layer instanceof NoteLayer) {
+                extension = Config.getPref().get("autosave.notes.extension", "osn");
+            } else if (layer.journal != null) {
+                extension = OsmBinaryImporter.FILE_FILTER.getDefaultExtension();
+            } else {
+                extension = Config.getPref().get("autosave.extension", "osm");
+            }
+            File result = new File(autosaveDir, filename + '.' + extension);
             try {
                 if (index > PROP_INDEX_LIMIT.get())
                     throw new IOException("index limit exceeded");
@@ -234,10 +250,17 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         try {
             Data data = info.layer.getData();
             if (data != null && changedData.remove(data)) {
-                File file = getNewLayerFile(info, Instant.now(), 0);
-                if (file != null) {
-                    info.backupFiles.add(file);
-                    info.layer.autosave(file);
+                // if possible, only append the changes to the current file
+                if (info.journal == null || !info.journal.appendChanges()) {
+                    File file = getNewLayerFile(info, Instant.now(), 0);
+                    if (file != null) {
+                        info.backupFiles.add(file);
+                        if (info.journal != null) {
+                            info.journal.writeSnapshot(file);
+                        } else {
+                            info.layer.autosave(file);
+                        }
+                    }
                 }
             }
         } catch (IOException e) {
@@ -284,7 +307,11 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
     private void registerNewlayer(OsmDataLayer layer) {
         synchronized (layersLock) {
             layer.getDataSet().addDataSetListener(datasetAdapter);
-            layersInfo.add(new AutosaveLayerInfo<>(layer));
+            AutosaveLayerInfo<OsmDataLayer> info = new AutosaveLayerInfo<>(layer);
+            if (PROP_BINARY.get()) {
+                info.journal = new OsmBinaryJournal(layer.getDataSet());
+            }
+            layersInfo.add(info);
         }
     }
 
@@ -341,6 +368,9 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             if (info.layer == removedLayer) {
 
                 savelayer(info);
+                if (info.journal != null) {
+                    info.journal.close();
+                }
                 File lastFile = info.backupFiles.pollLast();
                 if (lastFile != null) {
                     moveToDeletedLayersFolder(lastFile);
@@ -395,7 +425,8 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         List<File> result = new ArrayList<>();
         try {
             File[] files = autosaveDir.listFiles((FileFilter)
-                    pathname -> OsmImporter.FILE_FILTER.accept(pathname) || NoteImporter.FILE_FILTER.accept(pathname));
+                    pathname -> OsmImporter.FILE_FILTER.accept(pathname) || OsmBinaryImporter.FILE_FILTER.accept(pathname)
+                            || NoteImporter.FILE_FILTER.accept(pathname));
             if (files == null)
                 return result;
             for (File file: files) {
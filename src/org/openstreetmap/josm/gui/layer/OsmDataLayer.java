@@ -37,6 +37,7 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -88,10 +89,12 @@ import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
 import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
 import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter.Listener;
+import org.openstreetmap.josm.data.osm.search.SearchPlanner;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.OsmPrimitiveVisitor;
 import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.osm.visitor.paint.RenderSnapshot;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
@@ -383,6 +386,11 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
     public final DataSet data;
     private final DataSetListenerAdapter dataSetListenerAdapter;
 
+    /**
+     * Last frame, painted while the data set is locked, see {@link RenderSnapshot#PROP_ENABLED}
+     */
+    private RenderSnapshot renderSnapshot;
+
     /**
      * a texture for non-downloaded area
      */
@@ -537,10 +545,23 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
             }
         }
 
-        AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
-        painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
-                || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
-        painter.render(data, virtual, box);
+        Function<Graphics2D, AbstractMapRenderer> rendererFactory = graphics -> {
+            AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(graphics, mv, inactive);
+            painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
+                    || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
+            return painter;
+        };
+        if (RenderSnapshot.PROP_ENABLED.get()) {
+            if (renderSnapshot == null) {
+                renderSnapshot = new RenderSnapshot();
+            }
+            if (!renderSnapshot.render(g, mv, data, rendererFactory, virtual, box)) {
+                rendererFactory.apply(g).render(data, virtual, box);
+            }
+        } else {
+            renderSnapshot = null;
+            rendererFactory.apply(g).render(data, virtual, box);
+        }
         MainApplication.getMap().conflictDialog.paintConflicts(g, mv);
     }
 
@@ -1140,6 +1161,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         data.removeHighlightUpdateListener(this);
         data.removeDataSetListener(dataSetListenerAdapter);
         data.removeDataSetListener(MultipolygonCache.getInstance());
+        SearchPlanner.clearIndexes(data);
         data.clearSelection();
         validationErrors.clear();
         removeClipboardDataFor(this);
@@ -0,0 +1,258 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.geoimage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.jcs3.access.behavior.ICacheAccess;
+import org.apache.commons.jcs3.engine.behavior.ICache;
+import org.openstreetmap.josm.data.cache.CacheEntry;
+import org.openstreetmap.josm.data.cache.JCSCacheManager;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.gpx.GpxImageEntry;
+import org.openstreetmap.josm.data.imagery.street_level.Projections;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Disk cache of the metadata read by {@link GpxImageEntry#extractExif()}, so that images do not have to be parsed
+ * again when they are opened in another session.
+ * <p>
+ * The elements are keyed by {@link #getCacheKey(File)}, i.e. path, size and modification time of the image file,
+ * so that changed files are read again. They are stored in a pack file, see {@link JCSCacheManager#getPackCache}.
+ * @since xxx
+ */
+final class ImageMetadataCache {
+
+    /** Property to disable the cache */
+    static final BooleanProperty PROP_CACHE_OFF = new BooleanProperty("geoimage.noMetadataCache", false);
+    /** Maximum size of the cache on disk, in MB */
+    static final IntegerProperty PROP_MAX_DISK_SIZE = new IntegerProperty("geoimage.metadata_cache.max_disk_size", 32);
+
+    /** Version of the encoding, elements with another version are read again from the image file */
+    private static final byte VERSION = 1;
+    /** Orientation returned by {@link GpxImageEntry#getExifOrientation()} for images without orientation */
+    private static final int DEFAULT_ORIENTATION = 1;
+
+    private static final ImageMetadataCache INSTANCE = new ImageMetadataCache();
+
+    private ICacheAccess<String, CacheEntry> cache;
+    private boolean initialized;
+
+    private ImageMetadataCache() {
+        // Hide default constructor
+    }
+
+    /**
+     * Returns the unique instance.
+     * @return the unique instance
+     */
+    static ImageMetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the key of an image file in the caches of the geoimage layer.
+     * @param file the image file
+     * @return the key, made of path, size and modification time of the file
+     */
+    static String getCacheKey(File file) {
+        return file.getAbsolutePath() + ICache.NAME_COMPONENT_DELIMITER + file.length()
+                + ICache.NAME_COMPONENT_DELIMITER + file.lastModified();
+    }
+
+    private synchronized ICacheAccess<String, CacheEntry> getCache() {
+        if (!initialized) {
+            initialized = true;
+            cache = JCSCacheManager.getPackCache("geoimage-metadata", 0, PROP_MAX_DISK_SIZE.get() * 1024,
+                    Config.getDirs().getCacheDirectory(true).getPath() + File.separator + "geoimage-metadata");
+        }
+        return cache;
+    }
+
+    /**
+     * Fills in the metadata of an image entry from the cache, or reads it from the image file and caches it.
+     * This method can be called from several threads at the same time.
+     * @param entry the image entry
+     * @see GpxImageEntry#extractExif()
+     */
+    void extractExif(GpxImageEntry entry) {
+        File file = entry.getFile();
+        ICacheAccess<String, CacheEntry> metadataCache = file == null || PROP_CACHE_OFF.get() ? null : getCache();
+        if (metadataCache == null) {
+            entry.extractExif();
+            return;
+        }
+        String key = getCacheKey(file);
+        CacheEntry cacheEntry = metadataCache.get(key);
+        if (cacheEntry != null) {
+            try {
+                if (decode(cacheEntry.getContent(), entry)) {
+                    return;
+                }
+            } catch (IOException e) {
+                Logging.debug(e);
+            }
+        }
+        entry.extractExif();
+        try {
+            metadataCache.put(key, new CacheEntry(encode(entry)));
+        } catch (IOException | RuntimeException e) {
+            Logging.warn("Failed to save geoimage metadata to cache");
+            Logging.warn(e);
+        }
+    }
+
+    /**
+     * Encodes the metadata of an image entry.
+     * @param entry the image entry
+     * @return the encoded metadata
+     * @throws IOException if the metadata cannot be encoded
+     */
+    static byte[] encode(GpxImageEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeInstant(out, entry.getExifInstant());
+            writeInstant(out, entry.getExifGpsInstant());
+            LatLon coor = entry.getExifCoor();
+            out.writeBoolean(coor != null);
+            if (coor != null) {
+                out.writeDouble(coor.lat());
+                out.writeDouble(coor.lon());
+            }
+            writeDouble(out, entry.getExifImgDir());
+            writeDouble(out, entry.getSpeed());
+            writeDouble(out, entry.getElevation());
+            out.writeInt(entry.getExifOrientation());
+            out.writeInt(entry.getWidth());
+            out.writeInt(entry.getHeight());
+            writeString(out, entry.getProjectionType() != null ? entry.getProjectionType().name() : null);
+            writeString(out, entry.getIptcCaption());
+            writeString(out, entry.getIptcHeadline());
+            writeString(out, entry.getIptcObjectName());
+            List<String> keywords = entry.getIptcKeywords();
+            out.writeInt(keywords != null ? keywords.size() : -1);
+            if (keywords != null) {
+                for (String keyword : keywords) {
+                    writeString(out, keyword);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Fills in the metadata of an image entry, like {@link GpxImageEntry#extractExif()}.
+     * @param content the metadata encoded by {@link #encode(GpxImageEntry)}
+     * @param entry the image entry
+     * @return {@code false} if the metadata was encoded by another version
+     * @throws IOException if the metadata cannot be decoded
+     */
+    static boolean decode(byte[] content, GpxImageEntry entry) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readByte() != VERSION) {
+                return false;
+            }
+            Instant exifTime = readInstant(in);
+            Instant exifGpsTime = readInstant(in);
+            LatLon coor = in.readBoolean() ? new LatLon(in.readDouble(), in.readDouble()) : null;
+            Double imgDir = readDouble(in);
+            Double speed = readDouble(in);
+            Double elevation = readDouble(in);
+            int orientation = in.readInt();
+            int width = in.readInt();
+            int height = in.readInt();
+            String projection = readString(in);
+            String caption = readString(in);
+            String headline = readString(in);
+            String objectName = readString(in);
+            int keywordCount = in.readInt();
+            List<String> keywords = null;
+            if (keywordCount >= 0) {
+                keywords = new ArrayList<>(keywordCount);
+                for (int i = 0; i < keywordCount; i++) {
+                    keywords.add(readString(in));
+                }
+            }
+
+            // only change the entry once everything could be read
+            entry.setExifTime(exifTime);
+            entry.setExifGpsTime(exifGpsTime);
+            entry.setExifCoor(coor);
+            entry.setPos(coor);
+            entry.setExifImgDir(imgDir);
+            entry.setSpeed(speed);
+            entry.setElevation(elevation);
+            if (orientation != DEFAULT_ORIENTATION) {
+                entry.setExifOrientation(orientation);
+            }
+            entry.setWidth(width);
+            entry.setHeight(height);
+            if (projection != null) {
+                entry.setProjectionType(Projections.valueOf(projection));
+            }
+            entry.setIptcCaption(caption);
+            entry.setIptcHeadline(headline);
+            entry.setIptcObjectName(objectName);
+            entry.setIptcKeywords(keywords);
+            return true;
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeBoolean(instant != null);
+        if (instant != null) {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -14,6 +14,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 import javax.swing.JOptionPane;
@@ -36,7 +38,7 @@ import org.openstreetmap.josm.tools.Utils;
  */
 final class ImagesLoader extends PleaseWaitRunnable {
 
-    private boolean canceled;
+    private volatile boolean canceled;
     private final List<GeoImageLayer> layers = new ArrayList<>();
     private final Collection<File> selection;
     private final Set<String> loadedDirectories = new HashSet<>();
@@ -44,6 +46,8 @@ final class ImagesLoader extends PleaseWaitRunnable {
     private final GpxLayer gpxLayer;
 
     private static final BooleanProperty PROP_ONE_LAYER_PER_FOLDER = new BooleanProperty("geoimage.one-layer-per-folder", false);
+    /** Preference for the number of threads reading the metadata of the images */
+    private static final String PREF_NUMBER_OF_THREADS = "geoimage.loader.numberOfThreads";
 
     /**
      * Constructs a new {@code ImagesLoader}.
@@ -80,19 +84,36 @@ final class ImagesLoader extends PleaseWaitRunnable {
         // read the image files
         Map<String, List<ImageEntry>> entries = new TreeMap<>();
 
-        for (File f : files) {
-
-            if (canceled) {
-                break;
+        // the metadata is read in parallel, and the entries are collected in the order of the files
+        ImageMetadataCache metadataCache = ImageMetadataCache.getInstance();
+        ForkJoinPool pool = Utils.newForkJoinPool(PREF_NUMBER_OF_THREADS, "geoimage-loader-%d", Thread.NORM_PRIORITY);
+        try {
+            List<ForkJoinTask<ImageEntry>> tasks = new ArrayList<>(files.size());
+            for (File f : files) {
+                tasks.add(pool.submit(() -> {
+                    ImageEntry e = new ImageEntry(f);
+                    if (!canceled) {
+                        metadataCache.extractExif(e);
+                    }
+                    return e;
+                }));
             }
+            for (ForkJoinTask<ImageEntry> task : tasks) {
+
+                if (canceled) {
+                    break;
+                }
 
-            progressMonitor.subTask(tr("Reading {0}...", f.getName()));
-            progressMonitor.worked(1);
+                ImageEntry e = task.join();
+                File f = e.getFile();
+                progressMonitor.subTask(tr("Reading {0}...", f.getName()));
+                progressMonitor.worked(1);
 
-            ImageEntry e = new ImageEntry(f);
-            e.extractExif();
-            File parentFile = f.getParentFile();
-            entries.computeIfAbsent(parentFile != null ? parentFile.getName() : "", x -> new ArrayList<>()).add(e);
+                File parentFile = f.getParentFile();
+                entries.computeIfAbsent(parentFile != null ? parentFile.getName() : "", x -> new ArrayList<>()).add(e);
+            }
+        } finally {
+            pool.shutdownNow();
         }
         if (Boolean.TRUE.equals(PROP_ONE_LAYER_PER_FOLDER.get())) {
             entries.entrySet().stream().map(e -> new GeoImageLayer(e.getValue(), gpxLayer, e.getKey())).forEach(layers::add);
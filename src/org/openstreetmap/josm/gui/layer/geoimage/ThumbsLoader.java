@@ -8,25 +8,37 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.jcs3.access.behavior.ICacheAccess;
 import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.openstreetmap.josm.data.cache.BufferedImageCacheEntry;
 import org.openstreetmap.josm.data.cache.JCSCacheManager;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Stopwatch;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * Loads thumbnail previews for a list of images from a {@link GeoImageLayer}.
  *
  * Thumbnails are loaded in the background and cached on disk for the next session.
+ * Images that are not in the cache are decoded on several threads.
  */
 public class ThumbsLoader implements Runnable {
     public static final int maxSize = 120;
     public static final int minSize = 22;
     public volatile boolean stop;
+    /** Maximum size of the thumbnail cache on disk, in MB */
+    private static final IntegerProperty PROP_MAX_DISK_SIZE = new IntegerProperty("geoimage.thumbnail_cache.max_disk_size", 256);
+    /** Memory needed to decode an image, in bytes, to bound the number of decoding threads */
+    private static final long DECODING_MEMORY = 64L * 1024 * 1024;
     private final Collection<ImageEntry> data;
     private final GeoImageLayer layer;
     private ICacheAccess<String, BufferedImageCacheEntry> cache;
@@ -59,7 +71,7 @@ public class ThumbsLoader implements Runnable {
      */
     private void initCache() {
         if (!cacheOff) {
-            cache = JCSCacheManager.getCache("geoimage-thumbnails", 0, 120,
+            cache = JCSCacheManager.getPackCache("geoimage-thumbnails", 0, PROP_MAX_DISK_SIZE.get() * 1024,
                     Config.getDirs().getCacheDirectory(true).getPath() + File.separator + "geoimage-thumbnails");
         }
     }
@@ -69,19 +81,31 @@ public class ThumbsLoader implements Runnable {
         int count = 0;
         Stopwatch stopwatch = Stopwatch.createStarted();
         Logging.debug("Loading {0} thumbnails", data.size());
+        // Thumbnails from the cache are shown first, the other images are then decoded in parallel.
+        List<ImageEntry> toDecode = new ArrayList<>();
         for (ImageEntry entry : data) {
             if (stop) return;
 
             // Do not load thumbnails that were loaded before.
             if (!entry.hasThumbnail()) {
-                entry.setThumbnail(loadThumb(entry));
-
-                if (layer != null && MainApplication.isDisplayingMapView()) {
-                    layer.updateBufferAndRepaint();
+                BufferedImage img = loadCachedThumb(entry);
+                if (img != null) {
+                    setThumbnail(entry, img);
+                } else {
+                    toDecode.add(entry);
                 }
             }
             count++;
         }
+        int threads = getNumberOfThreads();
+        if (threads <= 1 || toDecode.size() <= 1) {
+            for (ImageEntry entry : toDecode) {
+                if (stop) return;
+                setThumbnail(entry, decodeThumb(entry));
+            }
+        } else if (!decodeThumbsInParallel(toDecode, threads)) {
+            return;
+        }
         Logging.debug("Loaded {0} thumbnails in {1}", count, stopwatch);
         if (layer != null) {
             layer.thumbsLoaded();
@@ -89,10 +113,64 @@ public class ThumbsLoader implements Runnable {
         }
     }
 
-    private BufferedImage loadThumb(ImageEntry entry) {
-        final String cacheIdent = entry.getFile().toString() + ICache.NAME_COMPONENT_DELIMITER + maxSize;
+    /**
+     * Decodes thumbnails on several threads. The thumbnails are set in the order of the entries.
+     * @param entries the entries without thumbnail
+     * @param threads the number of threads
+     * @return {@code false} if the loader has been stopped
+     */
+    private boolean decodeThumbsInParallel(List<ImageEntry> entries, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Utils.newThreadFactory("thumbnail-decoder-%d", Thread.MIN_PRIORITY));
+        try {
+            List<Future<BufferedImage>> thumbs = new ArrayList<>(entries.size());
+            for (ImageEntry entry : entries) {
+                thumbs.add(executor.submit(() -> stop ? null : decodeThumb(entry)));
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                if (stop) return false;
+                try {
+                    setThumbnail(entries.get(i), thumbs.get(i).get());
+                } catch (ExecutionException e) {
+                    Logging.warn(e);
+                    setThumbnail(entries.get(i), null);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    /**
+     * Returns the number of threads decoding thumbnails. Each thread needs memory for a full-size image,
+     * so that the number of threads is also limited to a quarter of the maximum heap size.
+     * @return the number of threads decoding thumbnails
+     */
+    private static int getNumberOfThreads() {
+        int threads = Config.getPref().getInt("geoimage.thumbnails.numberOfThreads", Runtime.getRuntime().availableProcessors());
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 4 / DECODING_MEMORY;
+        return (int) Math.max(1, Math.min(threads, memoryBudget));
+    }
+
+    private void setThumbnail(ImageEntry entry, BufferedImage img) {
+        entry.setThumbnail(img);
+
+        if (layer != null && MainApplication.isDisplayingMapView()) {
+            layer.updateBufferAndRepaint();
+        }
+    }
+
+    private static String getCacheIdent(ImageEntry entry) {
+        return ImageMetadataCache.getCacheKey(entry.getFile()) + ICache.NAME_COMPONENT_DELIMITER + maxSize;
+    }
+
+    private BufferedImage loadCachedThumb(ImageEntry entry) {
         if (!cacheOff && cache != null) {
+            String cacheIdent = getCacheIdent(entry);
             try {
                 BufferedImageCacheEntry cacheEntry = cache.get(cacheIdent);
                 if (cacheEntry != null && cacheEntry.getImage() != null) {
@@ -103,7 +181,10 @@ public class ThumbsLoader implements Runnable {
                 Logging.warn(e);
             }
         }
+        return null;
+    }
 
+    private BufferedImage decodeThumb(ImageEntry entry) {
         BufferedImage img;
         try {
             img = entry.read(new Dimension(maxSize, maxSize));
@@ -120,7 +201,7 @@ public class ThumbsLoader implements Runnable {
 
         if (!cacheOff && cache != null) {
             try {
-                cache.put(cacheIdent, BufferedImageCacheEntry.pngEncoded(img));
+                cache.put(getCacheIdent(entry), BufferedImageCacheEntry.pngEncoded(img));
             } catch (UncheckedIOException e) {
                 Logging.warn("Failed to save geoimage thumb to cache");
                 Logging.warn(e);
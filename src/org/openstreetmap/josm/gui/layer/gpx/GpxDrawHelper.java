@@ -25,8 +25,10 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
@@ -42,7 +44,10 @@ import org.openstreetmap.josm.data.gpx.GpxData.GpxDataChangeEvent;
 import org.openstreetmap.josm.data.gpx.GpxData.GpxDataChangeListener;
 import org.openstreetmap.josm.data.gpx.Line;
 import org.openstreetmap.josm.data.gpx.WayPoint;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.DoubleProperty;
 import org.openstreetmap.josm.data.preferences.NamedColorProperty;
+import org.openstreetmap.josm.data.projection.Ellipsoid;
 import org.openstreetmap.josm.gui.MapView;
 import org.openstreetmap.josm.gui.MapViewState;
 import org.openstreetmap.josm.gui.layer.GpxLayer;
@@ -52,6 +57,7 @@ import org.openstreetmap.josm.gui.layer.MapViewPaintable.MapViewEvent;
 import org.openstreetmap.josm.gui.layer.MapViewPaintable.PaintableInvalidationEvent;
 import org.openstreetmap.josm.gui.layer.MapViewPaintable.PaintableInvalidationListener;
 import org.openstreetmap.josm.gui.preferences.display.GPXSettingsPanel;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.io.CachedFile;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.ColorScale;
@@ -73,6 +79,22 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
      */
     public static final NamedColorProperty DEFAULT_COLOR_PROPERTY = new NamedColorProperty(marktr("gps point"), Color.magenta);
 
+    /**
+     * The distance in pixels by which the drawn lines may deviate from the way points. Way points which are closer
+     * to the simplified line are skipped when zoomed out. Set to 0 to draw all way points.
+     * @since xxx
+     */
+    public static final DoubleProperty PROP_LOD_TOLERANCE = new DoubleProperty("draw.rawgps.lod-tolerance", 0.5);
+
+    /**
+     * Determines if the heat map is drawn in cached tiles anchored to the map, see {@link HeatMapTileCache}.
+     * Otherwise the whole heat map is drawn again whenever the map is moved.
+     * @since xxx
+     */
+    public static final BooleanProperty PROP_HEATMAP_TILE_CACHE = new BooleanProperty("draw.rawgps.heatmap.tile-cache", true);
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(Ellipsoid.WGS84.a);
+
     private final GpxData data;
     private final GpxLayer layer;
 
@@ -170,6 +192,9 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
     Rectangle heatMapCacheScreenBounds = new Rectangle();
     MapViewState heatMapMapViewState;
     int heatMapCacheLineWith;
+    final HeatMapTileCache heatMapTileCache = new HeatMapTileCache(this::heatMapTileLoaded);
+    // set while the layer is invalidated because a heat map tile has been drawn
+    private boolean heatMapTileInvalidation;
 
     // copied value for line drawing
     private final List<Integer> heatMapPolyX = new ArrayList<>();
@@ -196,6 +221,12 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
     // The heat map was invalidated since the last draw.
     private boolean gpxLayerInvalidated;
 
+    // skip way points which are closer than this distance in meters to the simplified line
+    private double lodTolerance;
+
+    // significance of the way points of each line, see computeSignificance, by the first way point of the line
+    private final Map<WayPoint, float[]> significances = new IdentityHashMap<>();
+
     private void setupColors() {
         hdopAlpha = Config.getPref().getInt("hdop.color.alpha", -1);
         velocityScale = ColorScale.createHSBScale(256);
@@ -355,9 +386,12 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
     @Override
     public void paint(MapViewGraphics graphics) {
         Bounds clipBounds = graphics.getClipBounds().getLatLonBoundsBox();
+        readPreferences();
+        // drawing single points needs all of them
+        lodTolerance = large || hdopCircle || (colored == ColorMode.HEATMAP && heatMapDrawPointMode) ? 0
+                : PROP_LOD_TOLERANCE.get() * graphics.getMapView().getDist100Pixel() / 100;
         List<WayPoint> visibleSegments = listVisibleSegments(clipBounds);
         if (!visibleSegments.isEmpty()) {
-            readPreferences();
             drawAll(graphics.getDefaultGraphics(), graphics.getMapView(), visibleSegments, clipBounds);
             if (graphics.getMapView().getLayerManager().getActiveLayer() == layer) {
                 drawColorBar(graphics.getDefaultGraphics(), graphics.getMapView());
@@ -371,8 +405,12 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
 
         ensureTrackVisibilityLength();
         for (Line segment : getLinesIterable(layer.trackVisibility)) {
-
+            float[] significance = lodTolerance > 0 ? getSignificance(segment) : null;
+            int index = 0;
             for (WayPoint pt : segment) {
+                if (significance != null && significance[index++] <= lodTolerance) {
+                    continue;
+                }
                 Bounds b = new Bounds(pt.getCoor());
                 if (pt.drawLine && last != null) {
                     b.extend(last.getCoor());
@@ -396,6 +434,14 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
         return visibleSegments;
     }
 
+    private float[] getSignificance(Line segment) {
+        if (segment.isEmpty()) {
+            return null;
+        }
+        float[] significance = significances.get(segment.iterator().next());
+        return significance != null && significance.length == segment.size() ? significance : null;
+    }
+
     protected Iterable<Line> getLinesIterable(final boolean[] trackVisibility) {
         return data.getLinesIterable(trackVisibility);
     }
@@ -572,11 +618,15 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
         }
 
         // Now the colors for all the points will be assigned
+        List<WayPoint> points = new ArrayList<>();
+        significances.clear();
         for (Line segment : getLinesIterable(null)) {
             if (!forceLines) { // don't draw lines between segments, unless forced to
                 oldWp = null;
             }
+            points.clear();
             for (WayPoint trkPnt : segment) {
+                points.add(trkPnt);
                 LatLon c = trkPnt.getCoor();
                 trkPnt.customColoring = segment.getColor();
                 if (Double.isNaN(c.lat()) || Double.isNaN(c.lon())) {
@@ -633,6 +683,9 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
                 }
                 oldWp = trkPnt;
             }
+            if (!points.isEmpty()) {
+                significances.put(points.get(0), computeSignificance(points));
+            }
         }
 
         // heat mode
@@ -644,11 +697,93 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
 
             // force redraw of image
             heatMapMapViewState = null;
+            heatMapTileCache.clear();
         }
 
         computeCacheInSync = true;
     }
 
+    /**
+     * Computes the significance of the given way points of a track segment, so that skipping the way points whose
+     * significance is not greater than a distance yields the Douglas-Peucker simplification of the lines with this
+     * distance. The significance is the largest distance in meters by which the line may be simplified while still
+     * keeping the way point. Lines are split where {@link WayPoint#drawLine} is not set.
+     * @param points the way points of a track segment, after the {@link WayPoint#drawLine} flags have been computed
+     * @return the significance of each way point
+     */
+    static float[] computeSignificance(List<WayPoint> points) {
+        float[] significance = new float[points.size()];
+        int start = 0;
+        for (int i = 0; i <= points.size(); i++) {
+            WayPoint wp = i < points.size() ? points.get(i) : null;
+            if (wp == null || !wp.isLatLonKnown() || !wp.drawLine) {
+                simplify(points, start, i - 1, significance);
+                if (wp != null && !wp.isLatLonKnown()) {
+                    significance[i] = Float.POSITIVE_INFINITY;
+                    start = i + 1;
+                } else {
+                    start = i;
+                }
+            }
+        }
+        return significance;
+    }
+
+    /**
+     * Computes the significance of the way points of a connected line, see {@link #computeSignificance}.
+     */
+    private static void simplify(List<WayPoint> points, int first, int last, float[] significance) {
+        int n = last - first + 1;
+        if (n <= 0) {
+            return;
+        }
+        // local equirectangular coordinates in meters
+        double cos = Math.cos(Utils.toRadians(points.get(first).lat()));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            WayPoint wp = points.get(first + i);
+            x[i] = wp.lon() * cos * METERS_PER_DEGREE;
+            y[i] = wp.lat() * METERS_PER_DEGREE;
+        }
+        significance[first] = Float.POSITIVE_INFINITY;
+        significance[last] = Float.POSITIVE_INFINITY;
+        // the parts of the line still to be split, which are at most n - 1
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int to = stack[--top];
+            int from = stack[--top];
+            if (to - from < 2) {
+                continue;
+            }
+            double dx = x[to] - x[from];
+            double dy = y[to] - y[from];
+            double lengthSq = dx * dx + dy * dy;
+            double maxDistanceSq = -1;
+            int split = from + 1;
+            for (int i = from + 1; i < to; i++) {
+                double t = lengthSq == 0 ? 0 : Utils.clamp(((x[i] - x[from]) * dx + (y[i] - y[from]) * dy) / lengthSq, 0, 1);
+                double ex = x[from] + t * dx - x[i];
+                double ey = y[from] + t * dy - y[i];
+                double distanceSq = ex * ex + ey * ey;
+                if (distanceSq > maxDistanceSq) {
+                    maxDistanceSq = distanceSq;
+                    split = i;
+                }
+            }
+            // a way point is only kept if the part of the line it splits is kept
+            significance[first + split] = (float) Math.min(Math.sqrt(maxDistanceSq),
+                    Math.min(significance[first + from], significance[first + to]));
+            stack[top++] = from;
+            stack[top++] = split;
+            stack[top++] = split;
+            stack[top++] = to;
+        }
+    }
+
     /**
      * Draw all GPX ways segments
      * @param g               the common draw object to use
@@ -1318,6 +1453,27 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
 
         // 3rd Calculate the heat map data by draw GPX traces with alpha value ----------
 
+        // draw lines in cached tiles anchored to the map
+        if (!heatMapDrawPointMode && PROP_HEATMAP_TILE_CACHE.get()) {
+            if (gpxLayerInvalidated || heatMapCacheLineWith != globalLineWidth
+                    || !heatMapTileCache.hasLines(mapViewState.getProjection())) {
+                ensureTrackVisibilityLength();
+                heatMapTileCache.setLines(getLinesIterable(layer.trackVisibility), mapViewState.getProjection());
+                heatMapCacheLineWith = globalLineWidth;
+                gpxLayerInvalidated = false;
+            }
+            heatMapGraph2d.clearRect(0, 0, heatMapImgGray.getWidth(), heatMapImgGray.getHeight());
+            heatMapTileCache.paint(heatMapGraph2d, mapViewState, new HeatMapTileCache.Style(
+                    AlphaComposite.SrcOver.derive(lineAlphaBLine),
+                    new BasicStroke(lineWidthB, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND),
+                    lineWidthF > 1 && heatMapDrawExtraLine ? AlphaComposite.SrcOver.derive(lineAlphaFLine) : null,
+                    new BasicStroke(lineWidthF, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND),
+                    Math.max(lineWidthB, lineWidthF)));
+            heatMapMapViewState = null;
+            drawHeatMapGrayMap(g, heatMapImgGray, lineWidthB > 2 ? (int) (lineWidthB*1.25f) : 1, lineWidth > 2 ? (lineWidth - 2) : 1);
+            return;
+        }
+
         // recalculation of image needed
         final boolean imageRecalc = !mapViewState.equalsInWindow(heatMapMapViewState)
                 || gpxLayerInvalidated
@@ -1526,7 +1682,20 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
 
     @Override
     public void paintableInvalidated(PaintableInvalidationEvent event) {
-        gpxLayerInvalidated = true;
+        if (!heatMapTileInvalidation) {
+            gpxLayerInvalidated = true;
+        }
+    }
+
+    private void heatMapTileLoaded() {
+        GuiHelper.runInEDT(() -> {
+            heatMapTileInvalidation = true;
+            try {
+                layer.invalidate();
+            } finally {
+                heatMapTileInvalidation = false;
+            }
+        });
     }
 
     @Override
@@ -1534,5 +1703,6 @@ public class GpxDrawHelper implements SoMChangeListener, MapViewPaintable.LayerP
         SystemOfMeasurement.removeSoMChangeListener(this);
         layer.removeInvalidationListener(this);
         data.removeChangeListener(this);
+        heatMapTileCache.clear();
     }
 }
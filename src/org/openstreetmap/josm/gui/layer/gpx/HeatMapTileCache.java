@@ -0,0 +1,423 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.gpx;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.gpx.WayPoint;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * A cache of the gray scale heat map of a GPX layer, see {@link GpxDrawHelper}.
+ * <p>
+ * The heat map is split into square tiles which are anchored to the east/north coordinates of the projection, one set of
+ * tiles per scale. When the map is panned, only the newly exposed tiles are drawn, and when the scale changes, the
+ * tiles of the nearest other scale are resampled until the tiles of the new scale are ready. The tiles are drawn by
+ * background threads and the least recently used tiles are dropped, see {@link #PROP_MAX_TILES}.
+ * @since xxx
+ */
+final class HeatMapTileCache {
+
+    /** The width and height of a tile in pixels */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * The maximum number of tiles to keep, for all scales.
+     */
+    static final IntegerProperty PROP_MAX_TILES = new IntegerProperty("draw.rawgps.heatmap.cache-tiles", 128);
+
+    /** The lines are split into parts of this number of points, which are culled separately */
+    private static final int PART_SIZE = 512;
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private static ThreadPoolExecutor newExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                Utils.newThreadFactory("gpx-heatmap-%d", Thread.MIN_PRIORITY));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The style of the lines of the gray scale heat map at one scale.
+     */
+    static final class Style {
+        private final Composite backComposite;
+        private final Stroke backStroke;
+        private final Composite foreComposite;
+        private final Stroke foreStroke;
+        private final int margin;
+
+        /**
+         * Constructs a new {@code Style}.
+         * @param backComposite composite used to draw the background lines
+         * @param backStroke stroke used to draw the background lines
+         * @param foreComposite composite used to draw the foreground lines, or {@code null}
+         * @param foreStroke stroke used to draw the foreground lines, or {@code null}
+         * @param margin the maximum distance of the drawn pixels from the lines
+         */
+        Style(Composite backComposite, Stroke backStroke, Composite foreComposite, Stroke foreStroke, int margin) {
+            this.backComposite = backComposite;
+            this.backStroke = backStroke;
+            this.foreComposite = foreComposite;
+            this.foreStroke = foreStroke;
+            this.margin = margin;
+        }
+    }
+
+    /**
+     * A part of a line, in east/north coordinates.
+     */
+    private static final class Part {
+        private final double[] east;
+        private final double[] north;
+        private final double minEast;
+        private final double minNorth;
+        private final double maxEast;
+        private final double maxNorth;
+
+        Part(List<EastNorth> points) {
+            east = new double[points.size()];
+            north = new double[points.size()];
+            double x0 = Double.POSITIVE_INFINITY;
+            double y0 = Double.POSITIVE_INFINITY;
+            double x1 = Double.NEGATIVE_INFINITY;
+            double y1 = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < east.length; i++) {
+                east[i] = points.get(i).east();
+                north[i] = points.get(i).north();
+                x0 = Math.min(x0, east[i]);
+                y0 = Math.min(y0, north[i]);
+                x1 = Math.max(x1, east[i]);
+                y1 = Math.max(y1, north[i]);
+            }
+            minEast = x0;
+            minNorth = y0;
+            maxEast = x1;
+            maxNorth = y1;
+        }
+    }
+
+    /**
+     * The key of a tile. Tile {@code (x, y)} covers the pixels {@code floor(east / scale)} from {@code x * TILE_SIZE}
+     * to {@code (x + 1) * TILE_SIZE - 1} and {@code floor(-north / scale)} from {@code y * TILE_SIZE} to
+     * {@code (y + 1) * TILE_SIZE - 1}.
+     */
+    private static final class TileKey {
+        private final double scale;
+        private final long x;
+        private final long y;
+
+        TileKey(double scale, long x, long y) {
+            this.scale = scale;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scale, x, y);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            TileKey other = (TileKey) obj;
+            return Double.compare(scale, other.scale) == 0 && x == other.x && y == other.y;
+        }
+
+        @Override
+        public String toString() {
+            return "TileKey [scale=" + scale + ", x=" + x + ", y=" + y + ']';
+        }
+    }
+
+    /**
+     * Map of the drawn tiles in access order, which drops the least recently used tiles, see {@link #PROP_MAX_TILES}.
+     */
+    private static final class TileMap extends LinkedHashMap<TileKey, BufferedImage> {
+        private static final long serialVersionUID = 1L;
+
+        TileMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, BufferedImage> eldest) {
+            return size() > PROP_MAX_TILES.get();
+        }
+    }
+
+    private final Runnable tileLoaded;
+
+    // all fields are guarded by this
+    private Projection projection;
+    private List<Part> parts;
+    private int generation;
+    private final Map<Double, Style> styles = new HashMap<>();
+    private final Map<TileKey, Future<?>> pending = new HashMap<>();
+    private final TileMap tiles = new TileMap();
+
+    /**
+     * Constructs a new {@code HeatMapTileCache}.
+     * @param tileLoaded called by a background thread when a tile has been drawn
+     */
+    HeatMapTileCache(Runnable tileLoaded) {
+        this.tileLoaded = tileLoaded;
+    }
+
+    /**
+     * Drops all tiles and lines, e.g. when the data or the style has changed.
+     */
+    synchronized void clear() {
+        generation++;
+        pending.values().forEach(f -> f.cancel(false));
+        pending.clear();
+        tiles.clear();
+        styles.clear();
+        parts = null;
+        projection = null;
+    }
+
+    /**
+     * Determines if the cache has lines for the given projection, see {@link #setLines}.
+     * @param projection the projection
+     * @return {@code true} if the cache has lines for the given projection
+     */
+    synchronized boolean hasLines(Projection projection) {
+        return parts != null && Objects.equals(this.projection, projection);
+    }
+
+    /**
+     * Sets the lines of the heat map and drops all tiles. Lines are split where {@link WayPoint#drawLine} is not set,
+     * as in {@link GpxDrawHelper#drawAll}.
+     * @param lines the visible lines, in drawing order
+     * @param projection the projection of the tiles
+     */
+    void setLines(Iterable<? extends Iterable<WayPoint>> lines, Projection projection) {
+        List<Part> newParts = new ArrayList<>();
+        List<EastNorth> points = new ArrayList<>();
+        for (Iterable<WayPoint> line : lines) {
+            for (WayPoint wp : line) {
+                if (!wp.isLatLonKnown() || !wp.drawLine) {
+                    addParts(newParts, points);
+                    points.clear();
+                }
+                if (wp.isLatLonKnown()) {
+                    points.add(wp.getEastNorth(projection));
+                }
+            }
+        }
+        addParts(newParts, points);
+        synchronized (this) {
+            clear();
+            this.parts = newParts;
+            this.projection = projection;
+        }
+    }
+
+    private static void addParts(List<Part> parts, List<EastNorth> points) {
+        // consecutive parts share one point
+        for (int i = 0; i < points.size() - 1; i += PART_SIZE - 1) {
+            parts.add(new Part(points.subList(i, Math.min(points.size(), i + PART_SIZE))));
+        }
+    }
+
+    /**
+     * Draws the cached tiles of the heat map for the given view and schedules the missing tiles.
+     * @param g the graphics of the gray scale image covering the view
+     * @param state the view
+     * @param style the style to use if there are no tiles for the scale of the view yet
+     * @return {@code true} if all tiles of the view were cached
+     */
+    synchronized boolean paint(Graphics2D g, MapViewState state, Style style) {
+        if (parts == null) {
+            return false;
+        }
+        double scale = state.getScale();
+        styles.putIfAbsent(scale, style);
+        EastNorth topLeft = state.getForView(0, 0).getEastNorth();
+        double width = state.getViewWidth();
+        double height = state.getViewHeight();
+
+        // resample the nearest other scale first, the tiles of the current scale are drawn on top
+        double nearest = Double.NaN;
+        for (TileKey key : tiles.keySet()) {
+            if (key.scale != scale && (Double.isNaN(nearest)
+                    || Math.abs(Math.log(key.scale / scale)) < Math.abs(Math.log(nearest / scale)))) {
+                nearest = key.scale;
+            }
+        }
+        if (!Double.isNaN(nearest)) {
+            drawTiles(g, nearest, topLeft, scale, width, height, null);
+        }
+        List<TileKey> missing = new ArrayList<>();
+        drawTiles(g, scale, topLeft, scale, width, height, missing);
+
+        // cancel the tiles which are not visible anymore, and draw the center of the view first
+        for (Iterator<Map.Entry<TileKey, Future<?>>> it = pending.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<TileKey, Future<?>> e = it.next();
+            if (!missing.contains(e.getKey()) && e.getValue().cancel(false)) {
+                it.remove();
+            }
+        }
+        double centerX = (topLeft.east() / scale + width / 2) / TILE_SIZE - 0.5;
+        double centerY = (-topLeft.north() / scale + height / 2) / TILE_SIZE - 0.5;
+        missing.sort(Comparator.comparingDouble(k -> Math.hypot(k.x - centerX, k.y - centerY)));
+        for (TileKey key : missing) {
+            if (!pending.containsKey(key)) {
+                int tileGeneration = generation;
+                List<Part> tileParts = parts;
+                Style tileStyle = styles.get(scale);
+                pending.put(key, EXECUTOR.submit(() -> load(key, tileParts, tileStyle, tileGeneration)));
+            }
+        }
+        return missing.isEmpty();
+    }
+
+    /**
+     * Draws the tiles of the given scale which cover the view.
+     */
+    private void drawTiles(Graphics2D g, double tileScale, EastNorth topLeft, double scale, double width, double height,
+            List<TileKey> missing) {
+        double x0 = Math.floor(topLeft.east() / tileScale);
+        double y0 = Math.floor(-topLeft.north() / tileScale);
+        double factor = tileScale / scale;
+        long tileX0 = (long) Math.floor(x0 / TILE_SIZE);
+        long tileY0 = (long) Math.floor(y0 / TILE_SIZE);
+        long tileX1 = (long) Math.floor((x0 + width / factor) / TILE_SIZE);
+        long tileY1 = (long) Math.floor((y0 + height / factor) / TILE_SIZE);
+        for (long y = tileY0; y <= tileY1; y++) {
+            for (long x = tileX0; x <= tileX1; x++) {
+                TileKey key = new TileKey(tileScale, x, y);
+                BufferedImage tile = tiles.get(key);
+                if (tile == null) {
+                    if (missing != null) {
+                        missing.add(key);
+                    }
+                } else if (factor == 1) {
+                    g.drawImage(tile, (int) (x * TILE_SIZE - x0), (int) (y * TILE_SIZE - y0), null);
+                } else {
+                    int left = (int) Math.floor((x * TILE_SIZE - x0) * factor);
+                    int top = (int) Math.floor((y * TILE_SIZE - y0) * factor);
+                    int right = (int) Math.floor(((x + 1) * TILE_SIZE - x0) * factor);
+                    int bottom = (int) Math.floor(((y + 1) * TILE_SIZE - y0) * factor);
+                    g.drawImage(tile, left, top, right - left, bottom - top, null);
+                }
+            }
+        }
+    }
+
+    private void load(TileKey key, List<Part> tileParts, Style style, int tileGeneration) {
+        BufferedImage tile;
+        try {
+            tile = drawTile(key, tileParts, style);
+        } catch (RuntimeException e) {
+            Logging.error(e);
+            synchronized (this) {
+                pending.remove(key);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (tileGeneration != generation) {
+                return;
+            }
+            pending.remove(key);
+            tiles.put(key, tile);
+        }
+        tileLoaded.run();
+    }
+
+    /**
+     * Draws the gray scale heat map of a tile.
+     */
+    private static BufferedImage drawTile(TileKey key, List<Part> parts, Style style) {
+        // same image type and settings as the image covering the view in GpxDrawHelper
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setBackground(new Color(0, 0, 0, 255));
+            g.clearRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setColor(Color.WHITE);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+            g.setRenderingHint(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_DISABLE);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+
+            double scale = key.scale;
+            double offsetX = (double) key.x * TILE_SIZE;
+            double offsetY = (double) key.y * TILE_SIZE;
+            double margin = (style.margin + 1) * scale;
+            double minEast = offsetX * scale - margin;
+            double maxEast = (offsetX + TILE_SIZE) * scale + margin;
+            double minNorth = -(offsetY + TILE_SIZE) * scale - margin;
+            double maxNorth = -offsetY * scale + margin;
+            for (Part part : parts) {
+                if (part.maxEast < minEast || part.minEast > maxEast || part.maxNorth < minNorth || part.minNorth > maxNorth) {
+                    continue;
+                }
+                int[] x = new int[part.east.length];
+                int[] y = new int[part.east.length];
+                for (int i = 0; i < x.length; i++) {
+                    x[i] = (int) (Math.floor(part.east[i] / scale) - offsetX);
+                    y[i] = (int) (Math.floor(-part.north[i] / scale) - offsetY);
+                }
+                g.setStroke(style.backStroke);
+                g.setComposite(style.backComposite);
+                g.drawPolyline(x, y, x.length);
+                if (style.foreComposite != null && style.foreStroke != null) {
+                    g.setStroke(style.foreStroke);
+                    g.setComposite(style.foreComposite);
+                    g.drawPolyline(x, y, x.length);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the number of cached tiles.
+     * @return the number of cached tiles
+     */
+    synchronized int size() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns the number of tiles which are being drawn.
+     * @return the number of tiles which are being drawn
+     */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.swing.AbstractAction;
@@ -19,6 +20,7 @@ import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileFilter;
 
 import org.openstreetmap.josm.actions.DiskAccessAction;
+import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.gpx.GpxConstants;
 import org.openstreetmap.josm.data.gpx.GpxData;
 import org.openstreetmap.josm.data.gpx.IGpxTrack;
@@ -173,11 +175,18 @@ public class ImportAudioAction extends AbstractAction {
 
         // (b) try explicit waypoints without timestamps - unless suppressed
         if (hasWaypoints && Config.getPref().getBoolean("marker.audiofromuntimedwaypoints", true)) {
+            List<WayPoint> untimed = new ArrayList<>();
+            List<EastNorth> positions = new ArrayList<>();
             for (WayPoint w : layer.data.waypoints) {
-                if (waypoints.contains(w)) {
-                    continue;
+                if (!waypoints.contains(w)) {
+                    untimed.add(w);
+                    positions.add(w.getEastNorth(ProjectionRegistry.getProjection()));
                 }
-                WayPoint wNear = layer.data.nearestPointOnTrack(w.getEastNorth(ProjectionRegistry.getProjection()), snapDistance);
+            }
+            List<WayPoint> nearest = layer.data.nearestPointsOnTrack(positions, snapDistance);
+            for (int i = 0; i < untimed.size(); i++) {
+                WayPoint w = untimed.get(i);
+                WayPoint wNear = nearest.get(i);
                 if (wNear != null) {
                     WayPoint wc = new WayPoint(w.getCoor());
                     wc.setTimeInMillis(wNear.getTimeInMillis());
@@ -0,0 +1,298 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileCache;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTTile;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * A memory cache of decoded tiles, that is shared by all imagery layers.
+ * <p>
+ * Each layer uses its own {@link TileCache} view, see {@link #createTileCache(int)}. The memory used by the tile images
+ * is accounted in bytes, and when it exceeds {@link #PROP_MAX_SIZE}, the least recently used tiles of any layer are
+ * dropped. Layers call {@link LayerTileCache#tileLoaded(Tile)} once the image of a tile is set, as tiles are added to
+ * the cache before they are loaded. The data of vector tiles is accounted by its number of primitives.
+ * <p>
+ * See {@link #toCompatibleImage(BufferedImage)} for converting decoded tile images to the pixel format of the screen.
+ * @since xxx
+ */
+public final class DecodedTileCache {
+
+    /**
+     * The maximum memory used by the decoded tile images of all imagery layers, in MiB.
+     * The default is a quarter of the maximum heap size, but at least 64 MiB.
+     */
+    public static final IntegerProperty PROP_MAX_SIZE = new IntegerProperty("imagery.generic.decoded_cache_mb",
+            (int) Math.max(64, Runtime.getRuntime().maxMemory() / (4 * 1024 * 1024)));
+
+    /** The memory accounted for a tile, in addition to its image */
+    private static final int TILE_OVERHEAD = 256;
+    /** The memory accounted for each primitive of a vector tile */
+    private static final int PRIMITIVE_SIZE = 256;
+
+    private static final DecodedTileCache INSTANCE = new DecodedTileCache();
+
+    /** the image types of the compatible images of the default screen, by transparency */
+    private static int[] compatibleTypes;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long size;
+
+    private static final class Key {
+        private final LayerTileCache owner;
+        private final String tileKey;
+
+        Key(LayerTileCache owner, String tileKey) {
+            this.owner = owner;
+            this.tileKey = tileKey;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            Key other = (Key) obj;
+            return owner == other.owner && tileKey.equals(other.tileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(owner), tileKey);
+        }
+    }
+
+    private static final class Entry {
+        private final Tile tile;
+        private long size;
+
+        Entry(Tile tile) {
+            this.tile = tile;
+        }
+    }
+
+    /**
+     * The tiles of one layer in the {@link DecodedTileCache}.
+     */
+    public final class LayerTileCache implements TileCache {
+        private final long bytesPerTile;
+        private int count;
+        private Consumer<Tile> removalListener;
+
+        private LayerTileCache(int tileSize) {
+            this.bytesPerTile = 4L * tileSize * tileSize + TILE_OVERHEAD;
+        }
+
+        @Override
+        public Tile getTile(TileSource source, int x, int y, int z) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = entries.get(new Key(this, Tile.getTileKey(source, x, y, z)));
+                return entry != null ? entry.tile : null;
+            }
+        }
+
+        @Override
+        public void addTile(Tile tile) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = new Entry(tile);
+                Entry old = entries.put(new Key(this, tile.getKey()), entry);
+                if (old != null) {
+                    size -= old.size;
+                    if (old.tile != tile) {
+                        tileRemoved(old.tile);
+                    }
+                } else {
+                    count++;
+                }
+                updateSize(entry);
+            }
+        }
+
+        /**
+         * Updates the memory accounted for a tile, once its image was set.
+         * @param tile the tile
+         */
+        public void tileLoaded(Tile tile) {
+            synchronized (DecodedTileCache.this) {
+                Key key = new Key(this, tile.getKey());
+                Entry entry = entries.get(key);
+                if (entry != null && entry.tile == tile) {
+                    updateSize(entry);
+                }
+            }
+        }
+
+        @Override
+        public int getTileCount() {
+            synchronized (DecodedTileCache.this) {
+                return count;
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (DecodedTileCache.this) {
+                for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<Key, Entry> e = it.next();
+                    if (e.getKey().owner == this) {
+                        size -= e.getValue().size;
+                        it.remove();
+                        tileRemoved(e.getValue().tile);
+                    }
+                }
+                count = 0;
+            }
+        }
+
+        /**
+         * Sets the listener that is notified when a tile of this layer is dropped from the cache, so the layer can
+         * release the data of the tile. The listener is called while the cache is locked, so it must not block.
+         * @param removalListener the listener, can be {@code null}
+         */
+        public void setRemovalListener(Consumer<Tile> removalListener) {
+            synchronized (DecodedTileCache.this) {
+                this.removalListener = removalListener;
+            }
+        }
+
+        private void tileRemoved(Tile tile) {
+            if (removalListener != null) {
+                removalListener.accept(tile);
+            }
+        }
+
+        /**
+         * Returns the number of tiles of this layer that fit into the cache.
+         * @return the number of tiles of this layer that fit into the cache
+         */
+        @Override
+        public int getCacheSize() {
+            return (int) Math.min(Integer.MAX_VALUE, getMaxSize() / bytesPerTile);
+        }
+    }
+
+    private DecodedTileCache() {
+        // Hide default constructor
+    }
+
+    /**
+     * Returns the unique instance.
+     * @return the unique instance
+     */
+    public static DecodedTileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates the tile cache of a layer.
+     * @param tileSize the size of the tiles of the layer, used to estimate the number of tiles that fit into the cache
+     * @return a new tile cache, whose tiles are stored in this cache
+     */
+    public LayerTileCache createTileCache(int tileSize) {
+        return new LayerTileCache(tileSize);
+    }
+
+    /**
+     * Returns the memory used by the cached tiles.
+     * @return the memory used by the cached tiles in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum memory used by the cached tiles, see {@link #PROP_MAX_SIZE}.
+     * @return the maximum memory used by the cached tiles in bytes
+     */
+    public long getMaxSize() {
+        return PROP_MAX_SIZE.get() * 1024L * 1024L;
+    }
+
+    private void updateSize(Entry entry) {
+        long newSize = TILE_OVERHEAD + getImageSize(entry.tile.getImage()) + getVectorDataSize(entry.tile);
+        size += newSize - entry.size;
+        entry.size = newSize;
+        long maxSize = getMaxSize();
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); size > maxSize && it.hasNext();) {
+            Map.Entry<Key, Entry> e = it.next();
+            size -= e.getValue().size;
+            e.getKey().owner.count--;
+            it.remove();
+            e.getKey().owner.tileRemoved(e.getValue().tile);
+        }
+    }
+
+    private static long getVectorDataSize(Tile tile) {
+        if (tile instanceof MVTTile && ((MVTTile) tile).getData() != null) {
+            return (long) PRIMITIVE_SIZE * ((MVTTile) tile).getData().getAllPrimitives().size();
+        }
+        return 0;
+    }
+
+    private static long getImageSize(BufferedImage image) {
+        if (image == null || image == Tile.LOADING_IMAGE || image == Tile.ERROR_IMAGE) {
+            // the placeholder images are shared by all tiles
+            return 0;
+        }
+        return (long) image.getWidth() * image.getHeight() * ((image.getColorModel().getPixelSize() + 7) / 8);
+    }
+
+    /**
+     * Converts an image to the pixel format of the default screen, so it can be drawn without conversion and kept
+     * in video memory by Java2D. This should be done once, when a tile is decoded, and not on the event dispatch thread.
+     * @param image the image, can be {@code null}
+     * @return the given image if it already has a compatible format or if there is no screen, or a converted copy
+     */
+    public static BufferedImage toCompatibleImage(BufferedImage image) {
+        if (image == null || GraphicsEnvironment.isHeadless()) {
+            return image;
+        }
+        try {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            int transparency = image.getTransparency();
+            if (image.getType() != BufferedImage.TYPE_CUSTOM && image.getType() == getCompatibleType(gc, transparency)) {
+                return image;
+            }
+            BufferedImage compatible = gc.createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+            Graphics2D g = compatible.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            return compatible;
+        } catch (RuntimeException e) {
+            Logging.trace(e);
+            return image;
+        }
+    }
+
+    private static synchronized int getCompatibleType(GraphicsConfiguration gc, int transparency) {
+        if (compatibleTypes == null) {
+            compatibleTypes = new int[] {
+                    gc.createCompatibleImage(1, 1, Transparency.OPAQUE).getType(),
+                    gc.createCompatibleImage(1, 1, Transparency.BITMASK).getType(),
+                    gc.createCompatibleImage(1, 1, Transparency.TRANSLUCENT).getType()
+            };
+        }
+        return compatibleTypes[transparency - Transparency.OPAQUE];
+    }
+}
@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -67,7 +68,8 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
     private static final String CACHE_REGION_NAME = "MVT";
     // Just to avoid allocating a bunch of 0 length action arrays
     private static final Action[] EMPTY_ACTIONS = new Action[0];
-    private final Map<String, Boolean> layerNames = new HashMap<>();
+    // Tiles are finished by the tile loader threads
+    private final Map<String, Boolean> layerNames = new ConcurrentHashMap<>();
     private final VectorDataSet dataSet = new VectorDataSet();
 
     /**
@@ -134,6 +136,19 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
         return source;
     }
 
+    @Override
+    protected void initTileSource(MapboxVectorTileSource tileSource) {
+        super.initTileSource(tileSource);
+        if (this.tileCache instanceof DecodedTileCache.LayerTileCache) {
+            // Drop the data of the tiles which are no longer cached, e.g. far outside the view
+            ((DecodedTileCache.LayerTileCache) this.tileCache).setRemovalListener(tile -> {
+                if (tile instanceof MVTTile) {
+                    this.dataSet.removeTileData((MVTTile) tile);
+                }
+            });
+        }
+    }
+
     @Override
     public Tile createTile(MapboxVectorTileSource source, int x, int y, int zoom) {
         final MVTTile tile = new MVTTile(source, x, y, zoom);
@@ -6,6 +6,10 @@ import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
@@ -17,6 +21,7 @@ import org.openstreetmap.josm.data.projection.Projection;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.data.projection.Projections;
 import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.util.LruCache;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.ImageWarp;
 import org.openstreetmap.josm.tools.Utils;
@@ -28,6 +33,14 @@ import org.openstreetmap.josm.tools.bugreport.BugReport;
  */
 public class ReprojectionTile extends Tile {
 
+    /**
+     * The inverse transforms used to warp the tiles, by source projection, target projection, tile and scale.
+     * They are kept, as computing them is the most expensive part of the reprojection, and a tile is reprojected
+     * again with the same parameters when it is dropped from the memory cache and loaded again.
+     */
+    private static final Map<List<Object>, ImageWarp.PrecomputedGridTransform> GRID_CACHE =
+            Collections.synchronizedMap(new LruCache<>(256));
+
     private final Tile tile;
     protected TileAnchor anchor;
     private double nativeScale;
@@ -83,9 +96,27 @@ public class ReprojectionTile extends Tile {
      * @return true if the tile should be reprojected again from the source image.
      */
     public synchronized boolean needsUpdate(double currentScale) {
-        if (Utils.equalsEpsilon(nativeScale, currentScale))
+        double scale = getScaleBucket(currentScale);
+        if (Utils.equalsEpsilon(nativeScale, scale))
             return false;
-        return !maxZoomReached || currentScale >= nativeScale;
+        return !maxZoomReached || scale >= nativeScale;
+    }
+
+    /**
+     * Rounds a mapview scale down to one of a few steps per power of 2, so that tiles are not reprojected
+     * for each small scale change. The reprojected tiles then have at least the resolution of the screen.
+     * @param scale the mapview scale
+     * @return the scale to use for reprojecting the tiles
+     * @since xxx
+     */
+    public static double getScaleBucket(double scale) {
+        int steps = Config.getPref().getInt("imagery.warp.scale-steps", 4);
+        if (steps <= 0 || !(scale > 0) || Double.isInfinite(scale)) {
+            return scale;
+        }
+        // small epsilon, so that scales which are already a step are not rounded down by floating point errors
+        double step = Math.floor(Math.log(scale) / Math.log(2) * steps + 1e-9);
+        return Math.pow(2, step / steps);
     }
 
     @Override
@@ -135,7 +166,7 @@ public class ReprojectionTile extends Tile {
             reset();
             return;
         }
-        double scaleMapView = MainApplication.getMap().mapView.getScale();
+        double scaleMapView = getScaleBucket(MainApplication.getMap().mapView.getScale());
         ImageWarp.Interpolation interpolation;
         switch (Config.getPref().get("imagery.warp.pixel-interpolation", "bilinear")) {
             case "nearest_neighbor":
@@ -160,13 +191,15 @@ public class ReprojectionTile extends Tile {
         double scale = scaleFix == null ? scaleMapView : (scaleMapView * scaleFix);
         ProjectionBounds pbTargetAligned = pbMarginAndAlign(pbTarget, scale, margin);
 
+        // the transform may be cached, so it must not keep a reference to this tile
+        int tileSize = source.getTileSize();
         ImageWarp.PointTransform pointTransform = pt -> {
             EastNorth target = new EastNorth(pbTargetAligned.minEast + pt.getX() * scale,
                     pbTargetAligned.maxNorth - pt.getY() * scale);
             EastNorth sourceEN = projServer.latlon2eastNorth(projCurrent.eastNorth2latlon(target));
-            double x = source.getTileSize() *
+            double x = tileSize *
                     (sourceEN.east() - pbServer.minEast) / (pbServer.maxEast - pbServer.minEast);
-            double y = source.getTileSize() *
+            double y = tileSize *
                     (pbServer.maxNorth - sourceEN.north()) / (pbServer.maxNorth - pbServer.minNorth);
             return new Point2D.Double(x, y);
         };
@@ -182,16 +215,22 @@ public class ReprojectionTile extends Tile {
                 (en11Current.east() - pbTargetAligned.minEast) / scale,
                 (pbTargetAligned.maxNorth - en11Current.north()) / scale);
 
-        ImageWarp.PointTransform transform;
         int stride = Config.getPref().getInt("imagery.warp.projection-interpolation.stride", 7);
-        if (stride > 0) {
-            transform = new ImageWarp.GridTransform(pointTransform, stride);
-        } else {
-            transform = pointTransform;
-        }
         Dimension targetDim = getDimension(pbTargetAligned, scale);
         try {
-            BufferedImage imageOut = ImageWarp.warp(imageIn, targetDim, transform, interpolation);
+            ImageWarp.PointTransform transform;
+            if (stride > 0) {
+                List<Object> key = Arrays.asList(projServer.toCode(), projCurrent.getCacheKey(), getKey(), scale, stride, targetDim);
+                transform = GRID_CACHE.get(key);
+                if (transform == null) {
+                    ImageWarp.PrecomputedGridTransform grid = new ImageWarp.PrecomputedGridTransform(pointTransform, stride, targetDim);
+                    GRID_CACHE.put(key, grid);
+                    transform = grid;
+                }
+            } else {
+                transform = pointTransform;
+            }
+            BufferedImage imageOut = ImageWarp.warp(imageIn, targetDim, transform, interpolation, stride > 0);
             synchronized (this) {
                 this.image = imageOut;
                 this.anchor = new TileAnchor(p00Img, p11Img);
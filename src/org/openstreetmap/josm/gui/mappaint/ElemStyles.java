@@ -58,7 +58,8 @@ import org.openstreetmap.josm.tools.Pair;
  * adds a default StyleElement for primitives that would be invisible otherwise.
  * (For example untagged nodes and ways.)</li>
  * </ol>
- * The results are cached with respect to the current scale.
+ * The results are cached with respect to the current scale. In addition, the results of step 1 are shared between
+ * primitives with the same tags, see {@link SharedStyleCache}.
  *
  * Use {@link #setStyleSources(Collection)} to select the StyleSources that are applied.
  */
@@ -78,6 +79,8 @@ public class ElemStyles implements PreferenceChangedListener {
 
     private volatile Color backgroundColorCache;
 
+    private final SharedStyleCache sharedStyleCache = new SharedStyleCache();
+
     /**
      * Constructs a new {@code ElemStyles}.
      */
@@ -104,12 +107,22 @@ public class ElemStyles implements PreferenceChangedListener {
         GuiHelper.runInEDT(() -> {
             cacheIdx++;
             preferenceCache.clear();
+            sharedStyleCache.clear();
             backgroundColorCache = null;
             MainApplication.getLayerManager().getLayersOfType(OsmDataLayer.class).forEach(
                     dl -> dl.data.clearMappaintCache());
         });
     }
 
+    /**
+     * Returns the cache of styles shared between primitives with the same tags.
+     * @return the shared style cache
+     * @since xxx
+     */
+    public SharedStyleCache getSharedStyleCache() {
+        return sharedStyleCache;
+    }
+
     /**
      * Returns the list of style sources.
      * @return the list of style sources
@@ -379,6 +392,8 @@ public class ElemStyles implements PreferenceChangedListener {
      *
      * Loops over the list of style sources, to generate the map of properties.
      * From these properties, it generates the different types of styles.
+     * The result is looked up in and stored to the {@link SharedStyleCache}, unless it depends on more than
+     * the tags and the selection state of the primitive.
      *
      * @param osm the primitive to create styles for
      * @param scale the scale (in meters per 100 px), must be &gt; 0
@@ -389,6 +404,16 @@ public class ElemStyles implements PreferenceChangedListener {
      * @since 13810 (signature)
      */
     public Pair<StyleElementList, Range> generateStyles(IPrimitive osm, double scale, boolean pretendWayIsClosed) {
+        SharedStyleCache.Key key = null;
+        if (scale > 0 && SharedStyleCache.isEnabled() && isSharedStyleCacheSupported()) {
+            key = sharedStyleCache.createKey(osm, pretendWayIsClosed);
+            Pair<StyleElementList, Range> cached = sharedStyleCache.get(key, scale, osm.isSelected());
+            if (cached != null) {
+                // callers modify the pair
+                return new Pair<>(cached.a, cached.b);
+            }
+        }
+
         List<StyleElement> sl = new ArrayList<>();
         MultiCascade mc = new MultiCascade();
         Environment env = new Environment(osm, mc, null, null);
@@ -444,7 +469,29 @@ public class ElemStyles implements PreferenceChangedListener {
                 }
             }
         }
-        return new Pair<>(new StyleElementList(sl), mc.range);
+        StyleElementList styles = new StyleElementList(sl);
+        if (key != null) {
+            if (mc.isContextDependent()) {
+                sharedStyleCache.countContextDependent();
+            } else {
+                sharedStyleCache.put(key, styles, mc.range, osm.isSelected());
+            }
+        }
+        return new Pair<>(styles, mc.range);
+    }
+
+    /**
+     * Determines if the results of the active style sources can be shared, i.e. if all of them are MapCSS style sources,
+     * which mark {@linkplain MultiCascade#isContextDependent() context dependent} results.
+     * @return {@code true} if the shared style cache can be used
+     */
+    private boolean isSharedStyleCacheSupported() {
+        for (StyleSource s : styleSources) {
+            if (s.active && !(s instanceof MapCSSStyleSource)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private static <T> void addIfNotNull(List<T> list, T obj) {
@@ -20,6 +20,7 @@ public class MultiCascade implements StyleKeys {
      * The scale range this cascade is valid for
      */
     public Range range;
+    private boolean contextDependent;
 
     /**
      * Constructs a new {@code MultiCascade}.
@@ -92,4 +93,23 @@ public class MultiCascade implements StyleKeys {
     public boolean hasLayer(String layer) {
         return layers.containsKey(layer);
     }
+
+    /**
+     * Marks this cascade as depending on more than the tags and the selection state of the primitive, e.g. on its parents
+     * or its geometry. Such cascades must not be shared between primitives with the same tags, see {@link SharedStyleCache}.
+     * @since xxx
+     */
+    public void setContextDependent() {
+        contextDependent = true;
+    }
+
+    /**
+     * Determines if this cascade depends on more than the tags and the selection state of the primitive.
+     * @return {@code true} if a style source marked this cascade as context dependent
+     * @see #setContextDependent()
+     * @since xxx
+     */
+    public boolean isContextDependent() {
+        return contextDependent;
+    }
 }
@@ -0,0 +1,230 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.CachingProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.gui.mappaint.DividedScale.RangeViolatedError;
+import org.openstreetmap.josm.gui.util.LruCache;
+import org.openstreetmap.josm.tools.Pair;
+
+/**
+ * A style cache shared by all primitives with the same tags.
+ * <p>
+ * Most primitives get their style from their tags alone, e.g. all {@code highway=residential} ways of a data set look the same.
+ * This cache stores the result of {@link ElemStyles#generateStyles} for a tag set, the {@linkplain OsmPrimitiveType type}
+ * of the primitive, whether it is a closed way, whether it has parents, and its selection state, for the scale ranges that
+ * have been requested so far.
+ * A primitive with the same tags reuses the styles without applying the style sources again.
+ * <p>
+ * Results which depend on more than that, e.g. on the parents or the geometry of the primitive, must not be stored,
+ * see {@link MultiCascade#isContextDependent()}.
+ * <p>
+ * This class is thread safe.
+ * @since xxx
+ */
+public final class SharedStyleCache {
+
+    /**
+     * Preference to enable the cache.
+     */
+    public static final BooleanProperty PROP_ENABLED = new BooleanProperty("mappaint.style-cache.shared", true);
+
+    /**
+     * Preference for the number of tag sets to keep. The least recently used tag sets are removed when this limit is reached.
+     * A new limit applies when the cache is cleared, e.g. when the styles are reloaded.
+     */
+    public static final IntegerProperty PROP_MAX_ENTRIES = new IntegerProperty("mappaint.style-cache.shared.max-entries", 50_000);
+
+    private static final CachingProperty<Boolean> ENABLED = PROP_ENABLED.cached();
+    private static final CachingProperty<Integer> MAX_ENTRIES = PROP_MAX_ENTRIES.cached();
+
+    private volatile Map<Key, StyleCache> cache = createCache();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder contextDependent = new LongAdder();
+
+    /**
+     * The key of a cache entry, i.e. everything except for the scale and the selection state which the styles
+     * of a context free primitive depend on.
+     */
+    public static final class Key {
+        private final OsmPrimitiveType type;
+        private final boolean pretendWayIsClosed;
+        private final boolean closed;
+        private final boolean hasReferrers;
+        private final Map<String, String> tags;
+        private final int hash;
+
+        private Key(IPrimitive osm, boolean pretendWayIsClosed) {
+            this.type = osm.getType();
+            this.pretendWayIsClosed = pretendWayIsClosed;
+            this.closed = osm instanceof IWay && ((IWay<?>) osm).isClosed();
+            this.hasReferrers = !osm.getReferrers(true).isEmpty();
+            this.tags = osm.getKeys();
+            this.hash = Objects.hash(type, pretendWayIsClosed, closed, hasReferrers, tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            Key other = (Key) obj;
+            return hash == other.hash && type == other.type && pretendWayIsClosed == other.pretendWayIsClosed
+                    && closed == other.closed && hasReferrers == other.hasReferrers && tags.equals(other.tags);
+        }
+
+        @Override
+        public String toString() {
+            return "Key [type=" + type + ", pretendWayIsClosed=" + pretendWayIsClosed + ", closed=" + closed
+                    + ", hasReferrers=" + hasReferrers + ", tags=" + tags + ']';
+        }
+    }
+
+    /**
+     * Determines if the shared style cache is enabled, see {@link #PROP_ENABLED}.
+     * @return {@code true} if the shared style cache is enabled
+     */
+    public static boolean isEnabled() {
+        return ENABLED.get();
+    }
+
+    /**
+     * Creates the key for a primitive.
+     * @param osm the primitive
+     * @param pretendWayIsClosed see {@link ElemStyles#generateStyles}
+     * @return the key
+     */
+    public Key createKey(IPrimitive osm, boolean pretendWayIsClosed) {
+        return new Key(osm, pretendWayIsClosed);
+    }
+
+    /**
+     * Looks up the styles for the given key.
+     * @param key the key, see {@link #createKey}
+     * @param scale the scale
+     * @param selected the selection state of the primitive
+     * @return the styles and the range they are valid for, or {@code null} if they are not cached
+     */
+    public Pair<StyleElementList, Range> get(Key key, double scale, boolean selected) {
+        StyleCache styleCache = cache.get(key);
+        if (styleCache != null) {
+            Pair<StyleElementList, Range> p = styleCache.getWithRange(scale, selected);
+            if (p.a != null) {
+                hits.increment();
+                return p;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the styles for the given key.
+     * @param key the key, see {@link #createKey}
+     * @param styles the styles
+     * @param range the range the styles are valid for
+     * @param selected the selection state of the primitive
+     */
+    public void put(Key key, StyleElementList styles, Range range, boolean selected) {
+        cache.compute(key, (k, styleCache) -> {
+            StyleCache old = styleCache != null ? styleCache : StyleCache.EMPTY_STYLECACHE;
+            try {
+                return old.put(styles, range, selected);
+            } catch (RangeViolatedError e) {
+                // another thread stored the styles for an overlapping range in the meantime
+                return old;
+            }
+        });
+    }
+
+    /**
+     * Counts a result that could not be stored as it is {@linkplain MultiCascade#isContextDependent() context dependent}.
+     */
+    public void countContextDependent() {
+        contextDependent.increment();
+    }
+
+    /**
+     * Removes all entries. The statistics are kept.
+     */
+    public void clear() {
+        cache = createCache();
+    }
+
+    private static Map<Key, StyleCache> createCache() {
+        return Collections.synchronizedMap(new LruCache<>(Math.max(1, MAX_ENTRIES.get())));
+    }
+
+    /**
+     * Returns the number of tag sets in the cache.
+     * @return the number of tag sets in the cache
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the number of lookups which found the styles.
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which did not find the styles.
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of generated styles that could not be stored, as they depend on more than the tags of the primitive.
+     * @return the number of context dependent results
+     */
+    public long getContextDependent() {
+        return contextDependent.sum();
+    }
+
+    /**
+     * Returns the ratio of lookups which found the styles.
+     * @return the hit rate between 0 and 1, or 0 if there was no lookup yet
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        contextDependent.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedStyleCache [size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses()
+                + ", contextDependent=" + getContextDependent() + ", hitRate=" + getHitRate() + ']';
+    }
+}
@@ -957,6 +957,25 @@ public final class ConditionFactory {
             return predicate.test(e);
         }
 
+        /**
+         * Determines if this pseudo class only depends on the tags, the selection state and whether the primitive is a closed way.
+         * @param osm the primitive
+         * @return {@code true} for {@code :selected}, {@code :tagged}, {@code :closed} and, except for relations, {@code :closed2}
+         * @since xxx
+         */
+        boolean isContextFree(IPrimitive osm) {
+            switch (name.substring(name.indexOf(':') + 1)) {
+                case "selected":
+                case "tagged":
+                case "closed":
+                    return true;
+                case "closed2":
+                    return !(osm instanceof IRelation);
+                default:
+                    return false;
+            }
+        }
+
         @Override
         public String toString() {
             return name;
@@ -6,12 +6,15 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.DoubleUnaryOperator;
@@ -19,6 +22,7 @@ import java.util.function.Function;
 
 import org.openstreetmap.josm.gui.mappaint.Cascade;
 import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.SubclassFilteredCollection;
 import org.openstreetmap.josm.tools.Utils;
 
@@ -50,11 +54,11 @@ public final class ExpressionFactory {
     interface Factory {
         Expression createExpression(List<Expression> args);
 
-        static Factory of(DoubleUnaryOperator operator) {
+        static PureFactory of(DoubleUnaryOperator operator) {
             return of(Double.class, operator::applyAsDouble);
         }
 
-        static Factory ofNumberVarArgs(double identity, DoubleUnaryOperator unaryOperator, DoubleBinaryOperator operator) {
+        static PureFactory ofNumberVarArgs(double identity, DoubleUnaryOperator unaryOperator, DoubleBinaryOperator operator) {
             return args -> env -> {
                 if (args.isEmpty()) {
                     return identity;
@@ -82,14 +86,14 @@ public final class ExpressionFactory {
                     .toArray(Object[]::new));
         }
 
-        static <T> Factory of(Class<T> type, Function<T, ?> function) {
+        static <T> PureFactory of(Class<T> type, Function<T, ?> function) {
             return args -> env -> {
                 T v = Cascade.convertTo(args.get(0).evaluate(env), type);
                 return v == null ? null : function.apply(v);
             };
         }
 
-        static <T, U> Factory of(Class<T> type1, Class<U> type2, BiFunction<T, U, ?> function) {
+        static <T, U> PureFactory of(Class<T> type1, Class<U> type2, BiFunction<T, U, ?> function) {
             return args -> env -> {
                 T v1 = Cascade.convertTo(args.get(0).evaluate(env), type1);
                 U v2 = Cascade.convertTo(args.get(1).evaluate(env), type2);
@@ -97,8 +101,8 @@ public final class ExpressionFactory {
             };
         }
 
-        static <T, U, V> Factory of(Class<T> type1, Class<U> type2, Class<V> type3,
-                                    BiFunction<T, U, ?> biFunction, TriFunction<T, U, V, ?> triFunction) {
+        static <T, U, V> PureFactory of(Class<T> type1, Class<U> type2, Class<V> type3,
+                                        BiFunction<T, U, ?> biFunction, TriFunction<T, U, V, ?> triFunction) {
             return args -> env -> {
                 T v1 = args.size() >= 1 ? Cascade.convertTo(args.get(0).evaluate(env), type1) : null;
                 U v2 = args.size() >= 2 ? Cascade.convertTo(args.get(1).evaluate(env), type2) : null;
@@ -107,8 +111,8 @@ public final class ExpressionFactory {
             };
         }
 
-        static <T, U, V, W> Factory of(Class<T> type1, Class<U> type2, Class<V> type3, Class<W> type4,
-                                       QuadFunction<T, U, V, W, ?> function) {
+        static <T, U, V, W> PureFactory of(Class<T> type1, Class<U> type2, Class<V> type3, Class<W> type4,
+                                           QuadFunction<T, U, V, W, ?> function) {
             return args -> env -> {
                 T v1 = args.size() >= 1 ? Cascade.convertTo(args.get(0).evaluate(env), type1) : null;
                 U v2 = args.size() >= 2 ? Cascade.convertTo(args.get(1).evaluate(env), type2) : null;
@@ -118,6 +122,10 @@ public final class ExpressionFactory {
             };
         }
 
+        static Factory withSideEffects(Factory factory) {
+            return factory::createExpression;
+        }
+
         static <T> Factory ofEnv(Function<Environment, ?> function) {
             return args -> function::apply;
         }
@@ -139,8 +147,28 @@ public final class ExpressionFactory {
         }
     }
 
+    /**
+     * A factory for functions whose result only depends on their arguments. Such functions are evaluated when the
+     * expression is created if all arguments are constant.
+     */
+    @FunctionalInterface
+    interface PureFactory extends Factory {
+    }
+
     static final Map<String, Factory> FACTORY_MAP = new HashMap<>();
 
+    /**
+     * Functions which use the environment, but only depend on the tags and the cascade of the primitive, or on preferences.
+     */
+    private static final Set<String> TAG_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "JOSM_pref", "any", "concat", "has_tag_key", "is_prop_set", "join", "list", "number_of_tags", "prop", "setting", "sort",
+            "tag", "tag_regex", "tr", "uniq"));
+
+    /**
+     * Operators which only depend on their arguments.
+     */
+    private static final Set<String> OPERATORS = new HashSet<>(Arrays.asList("cond", "and", "or", "length", "max", "min"));
+
     static {
         initFactories();
     }
@@ -217,8 +245,8 @@ public final class ExpressionFactory {
         FACTORY_MAP.put("parent_tag", Factory.ofEnv(String.class, Functions::parent_tag));
         FACTORY_MAP.put("parent_tags", Factory.ofEnv(String.class, Functions::parent_tags));
         FACTORY_MAP.put("plus", Factory.ofNumberVarArgs(0.0, DoubleUnaryOperator.identity(), Functions::plus));
-        FACTORY_MAP.put("print", Factory.of(Object.class, Functions::print));
-        FACTORY_MAP.put("println", Factory.of(Object.class, Functions::println));
+        FACTORY_MAP.put("print", Factory.withSideEffects(Factory.of(Object.class, Functions::print)));
+        FACTORY_MAP.put("println", Factory.withSideEffects(Factory.of(Object.class, Functions::println)));
         FACTORY_MAP.put("prop", Factory.ofEnv(String.class, String.class, Functions::prop, Functions::prop));
         FACTORY_MAP.put("red", Factory.of(Color.class, Functions::red));
         FACTORY_MAP.put("regexp_match", Factory.of(String.class, String.class, String.class, Functions::regexp_match, Functions::regexp_match));
@@ -272,6 +300,19 @@ public final class ExpressionFactory {
      * returns {@link NullExpression#INSTANCE}.
      */
     public static Expression createFunctionExpression(String name, List<Expression> args) {
+        Expression expression = createFunctionExpressionImpl(name, args);
+        if (expression instanceof ConstantExpression || !args.stream().allMatch(ExpressionFactory::isContextFree)) {
+            return expression;
+        }
+        Factory factory = FACTORY_MAP.get(name);
+        if ((factory instanceof PureFactory && !(expression instanceof IsInsideFunction)) || TAG_FUNCTIONS.contains(name)
+                || OPERATORS.contains(name)) {
+            return new ContextFreeFunction(expression);
+        }
+        return expression;
+    }
+
+    private static Expression createFunctionExpressionImpl(String name, List<Expression> args) {
         if ("cond".equals(name) && args.size() == 3)
             return new CondOperator(args.get(0), args.get(1), args.get(2));
         else if ("and".equals(name))
@@ -291,11 +332,97 @@ public final class ExpressionFactory {
 
         Factory factory = FACTORY_MAP.get(name);
         if (factory != null) {
-            return factory.createExpression(args);
+            Expression expression = factory.createExpression(args);
+            if (factory instanceof PureFactory && args.stream().allMatch(ExpressionFactory::isConstant)) {
+                return ConstantExpression.evaluate(expression);
+            }
+            return expression;
         }
         return NullExpression.INSTANCE;
     }
 
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof LiteralExpression || expression instanceof ConstantExpression;
+    }
+
+    /**
+     * Determines if the expression only depends on the tags, the cascade and the selection state of the primitive,
+     * and not on its geometry, its parents or children, or its metadata.
+     * @param expression the expression
+     * @return {@code true} if the value of the expression is the same for all primitives with the same tags
+     * @since xxx
+     */
+    static boolean isContextFree(Expression expression) {
+        return isConstant(expression) || expression instanceof NullExpression || expression instanceof ContextFreeFunction;
+    }
+
+    /**
+     * A function which only depends on context free arguments, see {@link #isContextFree(Expression)}.
+     * @since xxx
+     */
+    static final class ContextFreeFunction implements Expression {
+
+        private final Expression function;
+
+        private ContextFreeFunction(Expression function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            return function.evaluate(env);
+        }
+
+        @Override
+        public String toString() {
+            return function.toString();
+        }
+    }
+
+    /**
+     * The result of a function with constant arguments, evaluated when the expression is created.
+     * <p>
+     * Unlike a {@link LiteralExpression}, this is not treated as a literal value in declarations,
+     * e.g., {@code text: eval("a static text")} does not refer to a tag.
+     * @since xxx
+     */
+    static final class ConstantExpression implements Expression {
+
+        private final Object value;
+
+        private ConstantExpression(Object value) {
+            this.value = value;
+        }
+
+        /**
+         * Evaluates the expression once.
+         * @param expression an expression which does not depend on the environment
+         * @return the constant expression, or {@code expression} if it cannot be evaluated in advance
+         */
+        static Expression evaluate(Expression expression) {
+            final Object value;
+            try {
+                value = expression.evaluate(null);
+            } catch (RuntimeException e) {
+                // report the error when the expression is evaluated
+                Logging.trace(e);
+                return expression;
+            }
+            // mutable results must not be shared between evaluations
+            return value instanceof Collection ? expression : new ConstantExpression(value);
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "ConstantExpression{" + value + '}';
+        }
+    }
+
     /**
      * Expression that always evaluates to null.
      */
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
@@ -11,12 +12,26 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
+import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
+import org.openstreetmap.josm.data.osm.IWay;
 import org.openstreetmap.josm.data.osm.KeyValueVisitor;
 import org.openstreetmap.josm.data.osm.Tagged;
+import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.Range;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Condition.TagCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.ClassCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.ExpressionCondition;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyRegexpCondition;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyValueCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.PseudoClassCondition;
 import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.SimpleKeyValueCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.ChildOrParentSelector;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.ChildOrParentSelectorType;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.GeneralSelector;
+import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -30,6 +45,9 @@ import org.openstreetmap.josm.tools.Utils;
  * To use this index, you need to {@link #add(MapCSSRule)} all rules to it. You then need to call
  * {@link #initIndex()}. Afterwards, you can use {@link #getRuleCandidates(IPrimitive)} to get an iterator over
  * all rules that might be applied to that primitive.
+ *
+ * {@link #initIndex()} also compiles the selectors of all rules, see {@link CompiledSelector}. The compiled rules are
+ * matched with a reusable {@link MatchContext}, see {@link #prepare(MatchContext, IPrimitive)}.
  */
 public class MapCSSRuleIndex {
     /**
@@ -120,6 +138,303 @@ public class MapCSSRuleIndex {
         }
     }
 
+    /**
+     * A selector prepared for matching against many primitives.
+     * <p>
+     * The base of a {@link GeneralSelector} is resolved to a bit mask of primitive kinds. Its tag conditions are evaluated
+     * before all other conditions, and tag conditions that are used by several rules are only evaluated once per primitive,
+     * see {@link MatchContext}. The layer of a fixed subpart is resolved as well. Child and parent selectors are matched as before,
+     * once their compiled right selector matches and, for child and sibling selectors, the primitive has any parent.
+     * <p>
+     * Evaluating a condition which depends on more than the tags and the selection state of the primitive marks the
+     * match context as {@linkplain MatchContext#contextDependent context dependent}.
+     * @since xxx
+     */
+    static final class CompiledSelector {
+        private static final int NODE = 1;
+        private static final int WAY = 2;
+        private static final int RELATION = 4;
+        private static final int MULTIPOLYGON = 8;
+        private static final int CANVAS = 16;
+
+        /**
+         * The selector this has been compiled from.
+         */
+        final Selector selector;
+        /**
+         * The scale range of the selector.
+         */
+        final Range range;
+        private final Subpart subpart;
+        /**
+         * The layer of a fixed subpart, or {@code null} if it has to be evaluated.
+         */
+        private final String layer;
+        /**
+         * The primitive kinds matched by the base of a general selector.
+         */
+        private final int kinds;
+        /**
+         * The conditions of a general selector, or {@code null} for other selectors.
+         */
+        private final Condition[] conditions;
+        /**
+         * For each condition, the index of the shared result in the {@link MatchContext}, or -1 if it is not shared.
+         */
+        private final int[] shared;
+        /**
+         * For each condition, whether it only depends on the tags and the selection state of the primitive.
+         */
+        private final boolean[] contextFree;
+        /**
+         * The compiled right selector of a child or parent selector, or {@code null} for other selectors.
+         */
+        private final CompiledSelector right;
+        /**
+         * Whether the selector can only match primitives with parents.
+         */
+        private final boolean requiresReferrers;
+
+        private CompiledSelector(Selector selector, Map<String, Integer> sharedConditions) {
+            this.selector = selector;
+            this.range = selector.getRange();
+            this.subpart = selector.getSubpart();
+            this.layer = subpart instanceof Subpart.StringSubpart ? subpart.getId(null) : null;
+            if (selector instanceof GeneralSelector) {
+                this.kinds = kinds(selector.getBase());
+                List<Condition> selectorConditions = selector.getConditions();
+                this.conditions = new Condition[selectorConditions.size()];
+                this.shared = new int[conditions.length];
+                this.contextFree = new boolean[conditions.length];
+                // tag conditions have no side effects, evaluate them first as their results are shared
+                int tagConditions = 0;
+                for (Condition c : selectorConditions) {
+                    if (sharedConditionKey(c) != null) {
+                        tagConditions++;
+                    }
+                }
+                int nextTagCondition = 0;
+                int nextOtherCondition = tagConditions;
+                for (Condition c : selectorConditions) {
+                    String key = sharedConditionKey(c);
+                    int i = key != null ? nextTagCondition++ : nextOtherCondition++;
+                    conditions[i] = c;
+                    shared[i] = key != null ? sharedConditions.computeIfAbsent(key, k -> sharedConditions.size()) : -1;
+                    contextFree[i] = isContextFree(c);
+                }
+                this.right = null;
+                this.requiresReferrers = false;
+            } else {
+                this.kinds = 0;
+                this.conditions = null;
+                this.shared = null;
+                this.contextFree = null;
+                this.right = selector instanceof ChildOrParentSelector
+                        ? new CompiledSelector(((ChildOrParentSelector) selector).right, sharedConditions) : null;
+                this.requiresReferrers = selector instanceof ChildOrParentSelector
+                        && (((ChildOrParentSelector) selector).type == ChildOrParentSelectorType.CHILD
+                        || ((ChildOrParentSelector) selector).type == ChildOrParentSelectorType.SIBLING);
+            }
+        }
+
+        private static int kinds(String base) {
+            switch (base) {
+            case Selector.BASE_ANY:
+                return NODE | WAY | RELATION | MULTIPOLYGON | CANVAS;
+            case Selector.BASE_NODE:
+                return NODE;
+            case Selector.BASE_WAY:
+                return WAY;
+            case Selector.BASE_AREA:
+                return WAY | MULTIPOLYGON;
+            case Selector.BASE_RELATION:
+                return RELATION | MULTIPOLYGON | CANVAS;
+            case Selector.BASE_CANVAS:
+                return CANVAS;
+            default:
+                return 0;
+            }
+        }
+
+        private static int kindsOf(IPrimitive osm) {
+            if (osm instanceof INode) {
+                return NODE;
+            } else if (osm instanceof IWay) {
+                return WAY;
+            } else if (osm instanceof IRelation) {
+                int kinds = RELATION;
+                if (((IRelation<?>) osm).isMultipolygon()) {
+                    kinds |= MULTIPOLYGON;
+                }
+                if (osm.get("#canvas") != null) {
+                    kinds |= CANVAS;
+                }
+                return kinds;
+            }
+            return 0;
+        }
+
+        /**
+         * Returns a key identifying conditions which only depend on the tags of the primitive and yield the same result.
+         * @param c the condition
+         * @return the key, or {@code null} if the result of the condition cannot be shared
+         */
+        private static String sharedConditionKey(Condition c) {
+            if (c instanceof SimpleKeyValueCondition) {
+                SimpleKeyValueCondition kv = (SimpleKeyValueCondition) c;
+                return "=" + kv.k + '\u0000' + kv.v;
+            } else if (c instanceof KeyValueCondition) {
+                KeyValueCondition kv = (KeyValueCondition) c;
+                return c.getClass().getName() + kv.op + kv.considerValAsKey + '\u0000' + kv.k + '\u0000' + kv.v;
+            } else if (c instanceof KeyCondition) {
+                KeyCondition k = (KeyCondition) c;
+                return c.getClass().getName() + k.matchType + k.negateResult + '\u0000' + k.label;
+            } else if (c instanceof KeyRegexpCondition) {
+                KeyRegexpCondition k = (KeyRegexpCondition) c;
+                return c.getClass().getName() + k.pattern.flags() + k.negateResult + '\u0000' + k.pattern.pattern();
+            }
+            return null;
+        }
+
+        /**
+         * Determines if the condition only depends on the tags and the selection state of the primitive.
+         * Pseudo classes are checked for each primitive, see {@link PseudoClassCondition#isContextFree(IPrimitive)}.
+         * @param c the condition
+         * @return {@code true} if the condition yields the same result for all primitives with the same tags
+         */
+        private static boolean isContextFree(Condition c) {
+            if (c instanceof TagCondition || c instanceof ClassCondition) {
+                return true;
+            } else if (c instanceof ExpressionCondition) {
+                return ExpressionFactory.isContextFree(((ExpressionCondition) c).getExpression());
+            }
+            return false;
+        }
+
+        /**
+         * Determines the layer of the selector, i.e. the id of its subpart.
+         * @param context the match context
+         * @return the layer
+         */
+        String getLayer(MatchContext context) {
+            if (layer != null) {
+                return layer;
+            }
+            context.contextDependent = true;
+            return subpart.getId(context.env);
+        }
+
+        /**
+         * Determines if the selector matches the primitive of the match context.
+         * @param env the environment of the match context
+         * @param context the match context
+         * @return {@code true} if the selector matches
+         */
+        boolean matches(Environment env, MatchContext context) {
+            if (conditions == null) {
+                // the primitive has to match the right selector, regardless of its parents or children
+                if (right != null && (!right.matches(env, context) || (requiresReferrers && !context.hasReferrers(env.osm)))) {
+                    return false;
+                }
+                context.contextDependent = true;
+                return selector.matches(env);
+            }
+            if ((kinds & context.kinds) == 0) {
+                return false;
+            }
+            for (int i = 0; i < conditions.length; i++) {
+                Condition c = conditions[i];
+                if (!contextFree[i] && !(c instanceof PseudoClassCondition && ((PseudoClassCondition) c).isContextFree(env.osm))) {
+                    context.contextDependent = true;
+                }
+                try {
+                    if (!(shared[i] >= 0 ? context.applies(shared[i], (TagCondition) c, env.osm) : c.applies(env))) {
+                        return false;
+                    }
+                } catch (RuntimeException e) {
+                    Logging.log(Logging.LEVEL_ERROR, "Exception while applying condition" + c + ':', e);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "CompiledSelector{" + selector + '}';
+        }
+    }
+
+    /**
+     * The reusable state for matching the compiled rules of an index against one primitive after the other.
+     * <p>
+     * A match context must only be used by one thread and for one primitive at a time.
+     * @since xxx
+     */
+    static final class MatchContext implements KeyValueVisitor {
+        /**
+         * The environment to match the selectors and to execute the declarations with.
+         */
+        final Environment env = new Environment();
+        /**
+         * The indexes of the rules that might match the current primitive.
+         */
+        final BitSet candidates = new BitSet();
+        /**
+         * Whether this context is in use, to detect reentrant matching.
+         */
+        boolean inUse;
+        /**
+         * Whether the result for the current primitive depends on more than its tags and its selection state,
+         * e.g. on its parents, its children or its geometry.
+         */
+        boolean contextDependent;
+        private MapCSSRuleIndex ruleIndex;
+        private int kinds;
+        private int generation;
+        private int[] generations = new int[0];
+        private boolean[] results = new boolean[0];
+        private int referrersGeneration;
+        private boolean hasReferrers;
+
+        @Override
+        public void visitKeyValue(Tagged p, String key, String value) {
+            MapCSSKeyRules v = ruleIndex.index.get(key);
+            if (v != null) {
+                candidates.or(v.get(value));
+            }
+        }
+
+        private boolean applies(int sharedIndex, TagCondition c, IPrimitive osm) {
+            if (generations[sharedIndex] != generation) {
+                results[sharedIndex] = c.applies(osm);
+                generations[sharedIndex] = generation;
+            }
+            return results[sharedIndex];
+        }
+
+        private boolean hasReferrers(IPrimitive osm) {
+            if (referrersGeneration != generation) {
+                hasReferrers = !osm.getReferrers(true).isEmpty();
+                referrersGeneration = generation;
+            }
+            return hasReferrers;
+        }
+
+        /**
+         * Releases the references to the last primitive and marks this context as unused.
+         */
+        void release() {
+            env.clearSelectorMatchingInformation();
+            env.osm = null;
+            env.mc = null;
+            env.layer = null;
+            env.source = null;
+            ruleIndex = null;
+            inUse = false;
+        }
+    }
+
     /**
      * All rules this index is for. Once this index is built, this list is sorted.
      */
@@ -132,6 +447,18 @@ public class MapCSSRuleIndex {
      * Rules that do not require any key to be present. Only the index in the {@link #rules} array is stored.
      */
     private final BitSet remaining = new BitSet();
+    /**
+     * The compiled selectors of each rule, in the order of {@link #rules}.
+     */
+    private CompiledSelector[][] compiledRules = new CompiledSelector[0][];
+    /**
+     * The number of distinct tag conditions shared between the compiled selectors.
+     */
+    private int sharedConditionCount;
+    /**
+     * For each rule, whether its declaration only depends on the tags and the selection state of the primitive.
+     */
+    private boolean[] contextFreeDeclarations = new boolean[0];
 
     /**
      * Add a rule to this index. This needs to be called before {@link #initIndex()} is called.
@@ -175,6 +502,35 @@ public class MapCSSRuleIndex {
                 }
             }
         }
+        compileRules();
+    }
+
+    private void compileRules() {
+        Map<String, Integer> sharedConditions = new HashMap<>();
+        compiledRules = new CompiledSelector[rules.size()][];
+        contextFreeDeclarations = new boolean[rules.size()];
+        for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+            contextFreeDeclarations[ruleIndex] = isContextFree(rules.get(ruleIndex).declaration);
+            List<Selector> selectors = rules.get(ruleIndex).selectors;
+            compiledRules[ruleIndex] = new CompiledSelector[selectors.size()];
+            for (int i = 0; i < selectors.size(); i++) {
+                compiledRules[ruleIndex][i] = new CompiledSelector(selectors.get(i), sharedConditions);
+            }
+        }
+        sharedConditionCount = sharedConditions.size();
+    }
+
+    private static boolean isContextFree(Declaration declaration) {
+        for (Instruction instruction : declaration.instructions) {
+            if (!(instruction instanceof Instruction.AssignmentInstruction)) {
+                return false;
+            }
+            Object val = ((Instruction.AssignmentInstruction) instruction).val;
+            if (val instanceof Expression && !ExpressionFactory.isContextFree((Expression) val)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -230,6 +586,67 @@ public class MapCSSRuleIndex {
         return candidatesIterator;
     }
 
+    /**
+     * Prepares the match context for the given primitive. Afterwards, {@link MatchContext#candidates} contains the indexes
+     * of all rules that might match the primitive, see {@link #getRule(int)} and {@link #getCompiledSelectors(int)}.
+     * <p>
+     * You must have a read lock of STYLE_SOURCE_LOCK when calling this method and when using the match context.
+     *
+     * @param context the match context
+     * @param osm the primitive to match
+     * @since xxx
+     */
+    void prepare(MatchContext context, IPrimitive osm) {
+        if (context.generations.length < sharedConditionCount) {
+            context.generations = new int[sharedConditionCount];
+            context.results = new boolean[sharedConditionCount];
+            context.referrersGeneration = 0;
+            context.generation = 0;
+        } else if (context.generation == Integer.MAX_VALUE) {
+            Arrays.fill(context.generations, 0);
+            context.referrersGeneration = 0;
+            context.generation = 0;
+        }
+        context.generation++;
+        context.contextDependent = false;
+        context.ruleIndex = this;
+        context.kinds = CompiledSelector.kindsOf(osm);
+        context.candidates.clear();
+        context.candidates.or(remaining);
+        osm.visitKeys(context);
+    }
+
+    /**
+     * Returns the rule with the given index.
+     * @param ruleIndex the index of the rule
+     * @return the rule
+     * @since xxx
+     */
+    MapCSSRule getRule(int ruleIndex) {
+        return rules.get(ruleIndex);
+    }
+
+    /**
+     * Returns the compiled selectors of the rule with the given index.
+     * @param ruleIndex the index of the rule
+     * @return the compiled selectors, in the order of {@link MapCSSRule#selectors}
+     * @since xxx
+     */
+    CompiledSelector[] getCompiledSelectors(int ruleIndex) {
+        return compiledRules[ruleIndex];
+    }
+
+    /**
+     * Determines if the declaration of the rule with the given index only depends on the tags and the selection state
+     * of the primitive, i.e. if it does not evaluate functions such as {@code parent_tag} or {@code osm_id}.
+     * @param ruleIndex the index of the rule
+     * @return {@code true} if the declaration yields the same result for all primitives with the same tags
+     * @since xxx
+     */
+    boolean hasContextFreeDeclaration(int ruleIndex) {
+        return contextFreeDeclarations[ruleIndex];
+    }
+
     /**
      * Clear the index.
      * <p>
@@ -239,6 +656,9 @@ public class MapCSSRuleIndex {
         rules.clear();
         index.clear();
         remaining.clear();
+        compiledRules = new CompiledSelector[0][];
+        contextFreeDeclarations = new boolean[0];
+        sharedConditionCount = 0;
     }
 
     /**
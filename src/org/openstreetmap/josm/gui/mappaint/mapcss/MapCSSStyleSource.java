@@ -14,8 +14,8 @@ import java.io.StringReader;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
@@ -39,6 +39,8 @@ import org.openstreetmap.josm.gui.mappaint.StyleSetting;
 import org.openstreetmap.josm.gui.mappaint.StyleSetting.StyleSettingGroup;
 import org.openstreetmap.josm.gui.mappaint.StyleSettingFactory;
 import org.openstreetmap.josm.gui.mappaint.StyleSource;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSRuleIndex.CompiledSelector;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSRuleIndex.MatchContext;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.GeneralSelector;
 import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.MapCSSParser;
 import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.ParseException;
@@ -73,6 +75,10 @@ public class MapCSSStyleSource extends StyleSource {
      * Index of rules in this style file
      */
     private final MapCSSStyleIndex ruleIndex = new MapCSSStyleIndex();
+    /**
+     * The match context of the current thread, reused for all primitives
+     */
+    private final ThreadLocal<MatchContext> matchContext = ThreadLocal.withInitial(MatchContext::new);
 
     private Color backgroundColorOverride;
     private String css;
@@ -348,31 +354,55 @@ public class MapCSSStyleSource extends StyleSource {
 
     @Override
     public void apply(MultiCascade mc, IPrimitive osm, double scale, boolean pretendWayIsClosed) {
+        MatchContext context = matchContext.get();
+        if (context.inUse) {
+            // reentrant call, e.g., from the areaStyle pseudo class
+            context = new MatchContext();
+        }
+        context.inUse = true;
+        try {
+            apply(context, mc, osm, scale);
+            if (context.contextDependent) {
+                mc.setContextDependent();
+            }
+        } finally {
+            context.release();
+        }
+    }
 
-        Environment env = new Environment(osm, mc, null, this);
+    private void apply(MatchContext context, MultiCascade mc, IPrimitive osm, double scale) {
+        MapCSSRuleIndex index = ruleIndex.get(osm);
+        index.prepare(context, osm);
+        Environment env = context.env;
+        env.osm = osm;
+        env.mc = mc;
+        env.source = this;
         // the declaration indices are sorted, so it suffices to save the last used index
         int lastDeclUsed = -1;
 
-        Iterator<MapCSSRule> candidates = ruleIndex.getRuleCandidates(osm);
-        while (candidates.hasNext()) {
-            MapCSSRule r = candidates.next();
-            for (Selector s : r.selectors) {
+        BitSet candidates = context.candidates;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            MapCSSRule r = index.getRule(i);
+            for (CompiledSelector s : index.getCompiledSelectors(i)) {
                 env.clearSelectorMatchingInformation();
-                env.layer = s.getSubpart().getId(env);
+                env.layer = s.getLayer(context);
                 String sub = env.layer;
-                if (!s.matches(env)) { // as side effect env.parent will be set (if s is a child selector)
+                if (!s.matches(env, context)) { // as side effect env.parent will be set (if s is a child selector)
                     continue;
                 }
-                if (s.getRange().contains(scale)) {
-                    mc.range = Range.cut(mc.range, s.getRange());
+                if (s.range.contains(scale)) {
+                    mc.range = Range.cut(mc.range, s.range);
                 } else {
-                    mc.range = mc.range.reduceAround(scale, s.getRange());
+                    mc.range = mc.range.reduceAround(scale, s.range);
                     continue;
                 }
 
                 if (r.declaration.idx == lastDeclUsed)
                     continue; // don't apply one declaration more than once
                 lastDeclUsed = r.declaration.idx;
+                if (!index.hasContextFreeDeclaration(i)) {
+                    context.contextDependent = true;
+                }
                 if ("*".equals(sub)) {
                     for (Entry<String, Cascade> entry : mc.getLayers()) {
                         env.layer = entry.getKey();
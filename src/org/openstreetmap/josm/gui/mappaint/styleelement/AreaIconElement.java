@@ -50,6 +50,11 @@ public class AreaIconElement extends StyleElement {
         }
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        return Math.hypot(iconImage.getWidth(), iconImage.getHeight()) / 2 + Math.abs(iconImage.offsetX) + Math.abs(iconImage.offsetY);
+    }
+
     /**
      * Create a new {@link AreaIconElement}
      * @param env The current style definitions
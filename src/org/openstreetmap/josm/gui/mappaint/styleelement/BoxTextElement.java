@@ -273,6 +273,13 @@ public class BoxTextElement extends StyleElement {
         }
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        Rectangle box = getBox();
+        return Math.abs(box.x) + Math.abs(box.y) + box.width + box.height + Math.abs(xOffset) + Math.abs(yOffset)
+                + text.getMaxExtent(primitive);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -175,6 +175,19 @@ public class LineElement extends StyleElement {
         }
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        float width = line.getLineWidth();
+        if (dashesLine != null) {
+            width = Math.max(width, dashesLine.getLineWidth());
+        }
+        if (realWidth > 0 && paintSettings.isUseRealWidth()) {
+            width = Math.max(width, (float) (100 / (painter.getCircum() / realWidth)));
+        }
+        // the direction and oneway arrows are 10 + width pixels long
+        return Math.abs(offset) + width / 2 + 10 + width;
+    }
+
     @Override
     public boolean isProperLineStyle() {
         return !isModifier;
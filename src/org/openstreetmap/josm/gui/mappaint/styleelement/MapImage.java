@@ -134,7 +134,7 @@ public class MapImage {
         return imageResource;
     }
 
-    private Image getDisabled() {
+    private synchronized Image getDisabled() {
         if (disabledImgCache != null)
             return disabledImgCache;
         if (img == null)
@@ -151,16 +151,15 @@ public class MapImage {
         return disabledImgCache;
     }
 
-    private Image getImage() {
+    private synchronized Image getImage() {
+        // synchronized, as the images are painted concurrently by the tiled rendering
         if (img != null)
             return img;
         temporary = false;
         loadImage();
-        synchronized (this) {
-            if (img == null) {
-                img = ImageProvider.get("clock").getImage();
-                temporary = true;
-            }
+        if (img == null) {
+            img = ImageProvider.get("clock").getImage();
+            temporary = true;
         }
         return img;
     }
@@ -304,6 +304,21 @@ public class NodeElement extends StyleElement {
         }
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings settings, StyledMapRenderer painter) {
+        double size = max(settings.getSelectedNodeSize(), settings.getTaggedNodeSize(),
+                settings.getConnectionNodeSize(), settings.getUnselectedNodeSize());
+        if (mapImage != null) {
+            size = Math.max(size, Math.hypot(mapImage.getWidth(), mapImage.getHeight())
+                    + 2 * (Math.abs(mapImage.offsetX) + Math.abs(mapImage.offsetY)));
+        }
+        if (symbol != null) {
+            float strokeWidth = symbol.stroke instanceof BasicStroke ? ((BasicStroke) symbol.stroke).getLineWidth() : 1;
+            size = Math.max(size, symbol.size + 2 * strokeWidth);
+        }
+        return size / 2;
+    }
+
     private void paintWithSymbol(MapPaintSettings settings, StyledMapRenderer painter, boolean selected, boolean member,
             INode n) {
         Color fillColor = symbol.fillColor;
@@ -134,6 +134,11 @@ public class RepeatImageElement extends StyleElement {
         }
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        return Math.abs(offset) + Math.hypot(pattern.getWidth(), pattern.getHeight());
+    }
+
     @Override
     public boolean isProperLineStyle() {
         return true;
@@ -93,6 +93,21 @@ public abstract class StyleElement implements StyleKeys {
     public abstract void paintPrimitive(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter,
             boolean selected, boolean outermember, boolean member);
 
+    /**
+     * Returns the distance (in pixels) the painting of this style may extend beyond the bounding box of the primitive.
+     * <p>
+     * This is used to determine the parts of the map view a primitive has to be painted in,
+     * e.g. when the view is split into tiles.
+     * @param primitive primitive to draw
+     * @param paintSettings paint settings
+     * @param painter painter
+     * @return the distance in pixels, {@code 0} if the style does not paint outside the primitive
+     * @since xxx
+     */
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        return 0;
+    }
+
     /**
      * Check if this is a style that makes the line visible to the user
      * @return <code>true</code> for line styles
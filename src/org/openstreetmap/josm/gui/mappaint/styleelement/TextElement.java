@@ -1,6 +1,7 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.styleelement;
 
+import java.awt.geom.Point2D;
 import java.util.Objects;
 
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -25,6 +26,10 @@ public class TextElement extends StyleElement {
      * The position strategy for this text label.
      */
     private final PositionForAreaStrategy labelPositionStrategy;
+    /**
+     * The distance of the label from the position given by {@link #labelPositionStrategy}.
+     */
+    private final double textOffset;
 
     /**
      * Create a new way/area text element definition
@@ -33,9 +38,14 @@ public class TextElement extends StyleElement {
      * @param labelPositionStrategy The position in the area.
      */
     protected TextElement(Cascade c, TextLabel text, PositionForAreaStrategy labelPositionStrategy) {
+        this(c, text, labelPositionStrategy, 0);
+    }
+
+    private TextElement(Cascade c, TextLabel text, PositionForAreaStrategy labelPositionStrategy, double textOffset) {
         super(c, 4.9f);
         this.text = Objects.requireNonNull(text, "text");
         this.labelPositionStrategy = Objects.requireNonNull(labelPositionStrategy, "labelPositionStrategy");
+        this.textOffset = textOffset;
     }
 
     /**
@@ -60,9 +70,10 @@ public class TextElement extends StyleElement {
 
         Keyword positionKeyword = c.get(AreaElement.TEXT_POSITION, null, Keyword.class);
         PositionForAreaStrategy position = PositionForAreaStrategy.forKeyword(positionKeyword);
-        position = position.withAddedOffset(TextLabel.getTextOffset(c));
+        Point2D offset = TextLabel.getTextOffset(c);
+        position = position.withAddedOffset(offset);
 
-        return new TextElement(c, text, position);
+        return new TextElement(c, text, position, Math.abs(offset.getX()) + Math.abs(offset.getY()));
     }
 
     /**
@@ -92,6 +103,11 @@ public class TextElement extends StyleElement {
         painter.drawText(primitive, text, getLabelPositionStrategy());
     }
 
+    @Override
+    public double getPaintMargin(IPrimitive primitive, MapPaintSettings paintSettings, StyledMapRenderer painter) {
+        return textOffset + text.getMaxExtent(primitive);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -198,6 +198,20 @@ public class TextLabel implements StyleKeys {
         return labelCompositionStrategy.compose(osm);
     }
 
+    /**
+     * Returns an upper bound of the distance (in pixels) between the anchor of the label and its painted glyphs.
+     * @param osm the OSM object
+     * @return the distance in pixels, {@code 0} if there is no label for {@code osm}
+     */
+    double getMaxExtent(IPrimitive osm) {
+        String s = getString(osm);
+        if (s == null || s.isEmpty()) {
+            return 0;
+        }
+        // no glyph is wider than about the font size
+        return (s.length() + 1) * (double) font.getSize2D() + (haloRadius != null ? haloRadius : 0);
+    }
+
     @Override
     public String toString() {
         return "TextLabel{" + toStringImpl() + '}';
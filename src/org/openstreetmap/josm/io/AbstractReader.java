@@ -328,21 +328,29 @@ public abstract class AbstractReader {
         } catch (IOException e) {
             throw new IllegalDataException(e);
         } finally {
-            for (OsmPrimitiveType dataType : OsmPrimitiveType.dataValues()) {
-                OptionalLong minId = externalIdMap.entrySet().parallelStream()
-                        .filter(e -> e.getKey().getType() == dataType)
-                        .mapToLong(e -> e.getValue().getUniqueId()).min();
-                synchronized (dataType.getDataClass()) {
-                    if (minId.isPresent() && minId.getAsLong() < dataType.getIdGenerator().currentUniqueId()) {
-                        dataType.getIdGenerator().advanceUniqueId(minId.getAsLong());
-                    }
-                }
-            }
+            advanceUniqueIds();
             progressMonitor.finishTask();
             progressMonitor.removeCancelListener(cancelListener);
         }
     }
 
+    /**
+     * Makes sure that new primitives do not get the ids of the read primitives.
+     * @since xxx
+     */
+    protected final void advanceUniqueIds() {
+        for (OsmPrimitiveType dataType : OsmPrimitiveType.dataValues()) {
+            OptionalLong minId = externalIdMap.entrySet().parallelStream()
+                    .filter(e -> e.getKey().getType() == dataType)
+                    .mapToLong(e -> e.getValue().getUniqueId()).min();
+            synchronized (dataType.getDataClass()) {
+                if (minId.isPresent() && minId.getAsLong() < dataType.getIdGenerator().currentUniqueId()) {
+                    dataType.getIdGenerator().advanceUniqueId(minId.getAsLong());
+                }
+            }
+        }
+    }
+
     protected final long getLong(String name, String value) throws IllegalDataException {
         if (value == null) {
             throw new IllegalDataException(tr("Missing required attribute ''{0}''.", name));
@@ -423,14 +431,14 @@ public abstract class AbstractReader {
         }
     }
 
-    private final Map<String, Integer> timestampCache = new LruCache<>(30);
+    private final ThreadLocal<Map<String, Integer>> timestampCache = ThreadLocal.withInitial(() -> new LruCache<>(30));
 
     protected final void parseTimestamp(PrimitiveData current, String time) {
         if (Utils.isEmpty(time)) {
             return;
         }
         try {
-            int timestamp = timestampCache.computeIfAbsent(time, t -> (int) DateUtils.parseInstant(t).getEpochSecond());
+            int timestamp = timestampCache.get().computeIfAbsent(time, t -> (int) DateUtils.parseInstant(t).getEpochSecond());
             current.setRawTimestamp(timestamp);
         } catch (UncheckedParseException | DateTimeException e) {
             Logging.error(e);
@@ -573,10 +581,20 @@ public abstract class AbstractReader {
             // Drop the tag on import, but flag the primitive as modified
             ((AbstractPrimitive) t).setModified(true);
         } else {
-            t.put(key.intern(), value.intern());
+            t.put(intern(key), intern(value));
         }
     }
 
+    /**
+     * Returns a canonical representation of a string read from the input, used for tag keys and values.
+     * @param s the string
+     * @return the canonical representation of {@code s}
+     * @since xxx
+     */
+    protected String intern(String s) {
+        return s.intern();
+    }
+
     @FunctionalInterface
     protected interface CommonReader {
         /**
@@ -668,6 +686,22 @@ public abstract class AbstractReader {
 
     protected final Node parseNode(String lat, String lon, CommonReader commonReader, NodeReader nodeReader)
             throws IllegalDataException {
+        return (Node) buildPrimitive(parseNodeData(lat, lon, commonReader, nodeReader));
+    }
+
+    /**
+     * Reads a node without adding it to the data set. Unlike the other methods of this class, this method can be called
+     * concurrently, as long as the readers given as parameters do not access shared state.
+     * @param lat the latitude, can be {@code null}
+     * @param lon the longitude, can be {@code null}
+     * @param commonReader the reader of the common attributes
+     * @param nodeReader the reader of the node tags
+     * @return the node data
+     * @throws IllegalDataException in case of invalid data
+     * @since xxx
+     */
+    protected final NodeData parseNodeData(String lat, String lon, CommonReader commonReader, NodeReader nodeReader)
+            throws IllegalDataException {
         NodeData nd = new NodeData(0);
         LatLon ll = null;
         if (areLatLonDefined(lat, lon)) {
@@ -683,35 +717,66 @@ public abstract class AbstractReader {
             throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
                     Long.toString(nd.getId()), lat, lon));
         }
-        return addNode(nd, nodeReader);
+        nodeReader.accept(nd);
+        return nd;
     }
 
     protected final Way parseWay(CommonReader commonReader, WayReader wayReader) throws IllegalDataException {
+        Collection<Long> nodeIds = new ArrayList<>();
+        WayData wd = parseWayData(commonReader, wayReader, nodeIds);
+        ways.put(wd.getUniqueId(), nodeIds);
+        return (Way) buildPrimitive(wd);
+    }
+
+    /**
+     * Reads a way without adding it to the data set. Like {@link #parseNodeData}, this method can be called concurrently.
+     * @param commonReader the reader of the common attributes
+     * @param wayReader the reader of the way nodes and tags
+     * @param nodeIds collection of resulting node ids, to be resolved when the data set is prepared
+     * @return the way data
+     * @throws IllegalDataException in case of invalid data
+     * @since xxx
+     */
+    protected final WayData parseWayData(CommonReader commonReader, WayReader wayReader, Collection<Long> nodeIds)
+            throws IllegalDataException {
         WayData wd = new WayData(0);
         commonReader.accept(wd);
 
-        Collection<Long> nodeIds = new ArrayList<>();
         wayReader.accept(wd, nodeIds);
         if (wd.isDeleted() && !nodeIds.isEmpty()) {
             Logging.info(tr("Deleted way {0} contains nodes", Long.toString(wd.getUniqueId())));
-            nodeIds = new ArrayList<>();
+            nodeIds.clear();
         }
-        ways.put(wd.getUniqueId(), nodeIds);
-        return (Way) buildPrimitive(wd);
+        return wd;
     }
 
     protected final Relation parseRelation(CommonReader commonReader, RelationReader relationReader) throws IllegalDataException {
+        Collection<RelationMemberData> members = new ArrayList<>();
+        RelationData rd = parseRelationData(commonReader, relationReader, members);
+        relations.put(rd.getUniqueId(), members);
+        return (Relation) buildPrimitive(rd);
+    }
+
+    /**
+     * Reads a relation without adding it to the data set. Like {@link #parseNodeData}, this method can be called concurrently.
+     * @param commonReader the reader of the common attributes
+     * @param relationReader the reader of the relation members and tags
+     * @param members collection of resulting members, to be resolved when the data set is prepared
+     * @return the relation data
+     * @throws IllegalDataException in case of invalid data
+     * @since xxx
+     */
+    protected final RelationData parseRelationData(CommonReader commonReader, RelationReader relationReader,
+            Collection<RelationMemberData> members) throws IllegalDataException {
         RelationData rd = new RelationData(0);
         commonReader.accept(rd);
 
-        Collection<RelationMemberData> members = new ArrayList<>();
         relationReader.accept(rd, members);
         if (rd.isDeleted() && !members.isEmpty()) {
             Logging.info(tr("Deleted relation {0} contains members", Long.toString(rd.getUniqueId())));
-            members = new ArrayList<>();
+            members.clear();
         }
-        relations.put(rd.getUniqueId(), members);
-        return (Relation) buildPrimitive(rd);
+        return rd;
     }
 
     protected final RelationMemberData parseRelationMember(RelationData r, String ref, String type, String role) throws IllegalDataException {
@@ -14,6 +14,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Function;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -64,6 +65,8 @@ public class GpxReader implements GpxConstants, IGpxReader {
         COPYRIGHT
     }
 
+    private static final int MAX_SHARED_VALUES = 4096;
+
     private String version;
     /** The resulting gpx data */
     private GpxData gpxData;
@@ -90,9 +93,15 @@ public class GpxReader implements GpxConstants, IGpxReader {
 
         private boolean nokiaSportsTrackerBug;
 
+        /** Shared attribute values of the way points, as high-frequency recordings repeat them a lot */
+        private final Map<String, String> sharedStrings = new HashMap<>();
+        private final Map<String, Float> sharedFloats = new HashMap<>();
+
         @Override
         public void startDocument() {
             accumulator = new StringBuilder();
+            sharedStrings.clear();
+            sharedFloats.clear();
             states = new Stack<>();
             data = new GpxData(true);
             currentExtensionCollection = new GpxExtensionCollection();
@@ -104,6 +113,22 @@ public class GpxReader implements GpxConstants, IGpxReader {
             data.getNamespaces().add(new XMLNamespace(prefix, uri));
         }
 
+        /**
+         * Returns the value for the given text, reusing the value of a previous way point with the same text.
+         * The map is cleared when it reaches {@link #MAX_SHARED_VALUES} to bound its size.
+         */
+        private <T> T share(Map<String, T> values, String text, Function<String, T> parser) {
+            if (values.size() >= MAX_SHARED_VALUES) {
+                values.clear();
+            }
+            T value = values.get(text);
+            if (value == null) {
+                value = parser.apply(text);
+                values.put(text, value);
+            }
+            return value;
+        }
+
         private double parseCoord(Attributes atts, String key) {
             String val = atts.getValue(key);
             if (val != null) {
@@ -464,13 +489,13 @@ public class GpxReader implements GpxConstants, IGpxReader {
                 case "urlname":
                 case "cmt":
                 case "desc":
-                    currentWayPoint.put(localName, accumulator.toString());
+                    currentWayPoint.put(localName, share(sharedStrings, accumulator.toString(), Function.identity()));
                     break;
                 case "hdop":
                 case "vdop":
                 case "pdop":
                     try {
-                        currentWayPoint.put(localName, Float.valueOf(accumulator.toString()));
+                        currentWayPoint.put(localName, share(sharedFloats, accumulator.toString(), Float::valueOf));
                     } catch (NumberFormatException e) {
                         currentWayPoint.put(localName, 0f);
                     }
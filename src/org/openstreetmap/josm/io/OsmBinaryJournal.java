@@ -0,0 +1,239 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.ChangesetIdChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitiveFlagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Saves a data set incrementally in the format of {@link OsmBinaryWriter}.
+ * <p>
+ * A {@linkplain #writeSnapshot snapshot} writes the whole data set to a new file. Afterwards, the journal listens
+ * to the data set and {@linkplain #appendChanges appends} only the primitives changed since the last save.
+ * When the appended records outgrow the snapshot, or a change cannot be expressed as a record (e.g. an id change
+ * after upload), a new snapshot is needed, which compacts the file.
+ * @since xxx
+ */
+public class OsmBinaryJournal implements DataSetListener, Closeable {
+
+    /** the minimum number of appended records before a new snapshot is needed */
+    private static final long MIN_COMPACTION_RECORDS = 10_000;
+
+    private final DataSet data;
+
+    private OsmBinaryWriter writer;
+    private File file;
+    private long snapshotRecords;
+
+    /** Changed primitives, only accessed when holding the monitor of this object */
+    private final Set<OsmPrimitive> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Removed primitives, only accessed when holding the monitor of this object */
+    private final List<PrimitiveId> removed = new ArrayList<>();
+    private boolean snapshotNeeded = true;
+
+    /**
+     * Constructs a new {@code OsmBinaryJournal} and starts listening to the data set.
+     * @param data the data set to save
+     */
+    public OsmBinaryJournal(DataSet data) {
+        this.data = data;
+        data.addDataSetListener(this);
+    }
+
+    /**
+     * Returns the file written to.
+     * @return the file of the last snapshot, or {@code null}
+     */
+    public synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * Determines if the next save has to be a {@linkplain #writeSnapshot snapshot}.
+     * @return {@code true} if there is no usable snapshot, or if it should be compacted
+     */
+    public synchronized boolean isSnapshotNeeded() {
+        return snapshotNeeded || writer == null
+                || writer.getRecordCount() - snapshotRecords > Math.max(MIN_COMPACTION_RECORDS, snapshotRecords / 2);
+    }
+
+    /**
+     * Writes the whole data set to a new file, which replaces the current one for appending.
+     * @param newFile the file to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeSnapshot(File newFile) throws IOException {
+        // lock before synchronizing, events are fired with the read lock held
+        data.getReadLock().lock();
+        try {
+            synchronized (this) {
+                closeWriter();
+                file = newFile;
+                changed.clear();
+                removed.clear();
+                snapshotNeeded = true;
+                OsmBinaryWriter newWriter = new OsmBinaryWriter(new FileOutputStream(newFile));
+                try {
+                    newWriter.write(data);
+                } catch (IOException e) {
+                    Utils.close(newWriter);
+                    throw e;
+                }
+                writer = newWriter;
+                snapshotRecords = newWriter.getRecordCount();
+                snapshotNeeded = false;
+            }
+        } finally {
+            data.getReadLock().unlock();
+        }
+    }
+
+    /**
+     * Appends the primitives changed since the last save to the current file.
+     * @return {@code false} if nothing was written because a {@linkplain #writeSnapshot snapshot} is needed
+     * @throws IOException if an I/O error occurs. A new snapshot is needed then.
+     */
+    public boolean appendChanges() throws IOException {
+        data.getReadLock().lock();
+        try {
+            synchronized (this) {
+                if (isSnapshotNeeded()) {
+                    return false;
+                }
+                if (changed.isEmpty() && removed.isEmpty()) {
+                    return true;
+                }
+                try {
+                    writer.writeHeader(data);
+                    for (PrimitiveId id : removed) {
+                        writer.writeRemoved(id);
+                    }
+                    for (OsmPrimitive p : changed) {
+                        if (p.getDataSet() == data) {
+                            writer.writePrimitive(p);
+                        }
+                    }
+                    writer.commit();
+                } catch (IOException e) {
+                    snapshotNeeded = true;
+                    throw e;
+                }
+                changed.clear();
+                removed.clear();
+                return true;
+            }
+        } finally {
+            data.getReadLock().unlock();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Logging.warn(e);
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Stops listening to the data set and closes the current file.
+     */
+    @Override
+    public synchronized void close() {
+        data.removeDataSetListener(this);
+        closeWriter();
+    }
+
+    private synchronized void markChanged(Collection<? extends OsmPrimitive> primitives) {
+        changed.addAll(primitives);
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        markChanged(event.getPrimitives());
+    }
+
+    @Override
+    public synchronized void primitivesRemoved(PrimitivesRemovedEvent event) {
+        for (OsmPrimitive p : event.getPrimitives()) {
+            if (p.getDataSet() == null) {
+                changed.remove(p);
+                removed.add(new SimplePrimitiveId(p.getUniqueId(), p.getType()));
+            } else if (p.isDeleted()) {
+                changed.add(p);
+            } else {
+                // re-added with a new id, the record with the old id cannot be identified anymore
+                snapshotNeeded = true;
+            }
+        }
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        markChanged(event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        markChanged(event.getPrimitives());
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        markChanged(event.getPrimitives());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        markChanged(event.getPrimitives());
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        if (event instanceof ChangesetIdChangedEvent || event instanceof PrimitiveFlagsChangedEvent) {
+            markChanged(event.getPrimitives());
+        }
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        List<AbstractDatasetChangedEvent> events = event.getEvents();
+        if (events == null) {
+            synchronized (this) {
+                snapshotNeeded = true;
+            }
+        } else {
+            for (AbstractDatasetChangedEvent e : events) {
+                e.fire(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.PlatformManager;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Reads OSM data written by {@link OsmBinaryWriter}.
+ * <p>
+ * Files are memory-mapped instead of being read through a stream. Records which replace or remove
+ * earlier ones, as appended by {@link OsmBinaryJournal}, are resolved while reading, so only the last state
+ * of each primitive is added to the data set.
+ * @since xxx
+ */
+public class OsmBinaryReader extends AbstractReader {
+
+    private static final OsmPrimitiveType[] TYPES = OsmPrimitiveType.dataValues().toArray(new OsmPrimitiveType[0]);
+
+    private ByteBuffer buffer;
+
+    private final List<String> strings = new ArrayList<>();
+    private final long[] lastIds = new long[3];
+    private long lastLat;
+    private long lastLon;
+
+    /** the committed primitives, by id */
+    private final Map<PrimitiveId, PrimitiveData> primitives = new LinkedHashMap<>();
+    /** the records read since the last commit, either {@link PrimitiveData} or removed {@link PrimitiveId}s */
+    private final List<PrimitiveId> pending = new ArrayList<>();
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private List<DataSource> pendingDataSources;
+    private String downloadPolicy;
+    private String uploadPolicy;
+    private boolean pendingLocked;
+    private boolean locked;
+
+    /**
+     * constructor (for private and subclasses use only)
+     *
+     * @see #parseDataSet(InputStream, ProgressMonitor)
+     * @see #parseDataSet(Path, ProgressMonitor)
+     */
+    protected OsmBinaryReader() {
+        strings.add(null);
+    }
+
+    /**
+     * Determines if the given bytes start with the header written by {@link OsmBinaryWriter}.
+     * @param header the first bytes of a file
+     * @return {@code true} if the bytes start with the magic of the binary format
+     */
+    public static boolean isBinaryOsm(byte[] header) {
+        return header != null && header.length >= OsmBinaryWriter.MAGIC.length
+                && Arrays.equals(Arrays.copyOf(header, OsmBinaryWriter.MAGIC.length), OsmBinaryWriter.MAGIC);
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        CheckParameterUtil.ensureParameterNotNull(source, "source");
+        try {
+            return doParseDataSet(ByteBuffer.wrap(Utils.readBytesFromStream(source)), progressMonitor);
+        } catch (IOException e) {
+            throw new IllegalDataException(e);
+        }
+    }
+
+    protected DataSet doParseDataSet(ByteBuffer source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        if (progressMonitor == null) {
+            progressMonitor = NullProgressMonitor.INSTANCE;
+        }
+        ProgressMonitor.CancelListener cancelListener = () -> cancel = true;
+        progressMonitor.addCancelListener(cancelListener);
+        try {
+            progressMonitor.beginTask(tr("Prepare OSM data..."), 4); // read, prepare, post-process, render
+            progressMonitor.indeterminateSubTask(tr("Parsing OSM data..."));
+            buffer = source.order(ByteOrder.LITTLE_ENDIAN);
+            parse();
+            buffer = null;
+            if (cancel) {
+                return getDataSet();
+            }
+            progressMonitor.worked(1);
+
+            progressMonitor.indeterminateSubTask(tr("Preparing data set..."));
+            buildPrimitives();
+            prepareDataSet();
+            if (locked) {
+                getDataSet().lock();
+            }
+            progressMonitor.worked(1);
+            progressMonitor.indeterminateSubTask(tr("Post-processing data set..."));
+            callPostProcessors(progressMonitor);
+            progressMonitor.worked(1);
+            progressMonitor.indeterminateSubTask(tr("Rendering data set..."));
+            if (locked && !getDataSet().isLocked()) {
+                getDataSet().lock();
+            }
+            return getDataSet();
+        } finally {
+            advanceUniqueIds();
+            progressMonitor.finishTask();
+            progressMonitor.removeCancelListener(cancelListener);
+        }
+    }
+
+    private void parse() throws IllegalDataException {
+        int recordStart = 0;
+        try {
+            byte[] magic = new byte[OsmBinaryWriter.MAGIC.length];
+            buffer.get(magic);
+            if (!isBinaryOsm(magic)) {
+                throw new IllegalDataException(tr("Not a binary OSM file"));
+            }
+            int version = (int) readVarint();
+            if (version != OsmBinaryWriter.FORMAT_VERSION) {
+                throw new IllegalDataException(tr("Unsupported binary OSM format version {0}", version));
+            }
+            while (buffer.hasRemaining() && !cancel) {
+                recordStart = buffer.position();
+                int type = buffer.get();
+                switch (type) {
+                case OsmBinaryWriter.NODE:
+                case OsmBinaryWriter.WAY:
+                case OsmBinaryWriter.RELATION:
+                    pending.add(readPrimitive(TYPES[type - OsmBinaryWriter.NODE]));
+                    break;
+                case OsmBinaryWriter.REMOVE:
+                    OsmPrimitiveType removedType = readType();
+                    pending.add(new SimplePrimitiveId(readSignedVarint(), removedType));
+                    break;
+                case OsmBinaryWriter.DATASET:
+                    readHeader();
+                    break;
+                case OsmBinaryWriter.COMMIT:
+                    commit();
+                    break;
+                default:
+                    throw new IllegalDataException(tr("Unknown record type {0} at offset {1}", type, buffer.position() - 1));
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // Only the last record can exceed the end of the file, e.g. if appending to the journal was interrupted
+            Logging.trace(e);
+            Logging.warn(tr("Ignoring incomplete record at offset {0} at the end of binary OSM file", recordStart));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalDataException(tr("Invalid record at offset {0} in binary OSM file", recordStart), e);
+        }
+        if (!pending.isEmpty() || pendingDataSources != null) {
+            Logging.warn(tr("Ignoring uncommitted records at the end of binary OSM file"));
+        }
+    }
+
+    private void commit() throws IllegalDataException {
+        for (PrimitiveId record : pending) {
+            if (record instanceof PrimitiveData) {
+                primitives.put(new SimplePrimitiveId(record.getUniqueId(), record.getType()), (PrimitiveData) record);
+            } else {
+                primitives.remove(record);
+            }
+        }
+        pending.clear();
+        if (pendingDataSources != null) {
+            dataSources.clear();
+            dataSources.addAll(pendingDataSources);
+            pendingDataSources = null;
+            parseDownloadPolicy("download", downloadPolicy);
+            parseUploadPolicy("upload", uploadPolicy);
+            locked = pendingLocked;
+        }
+    }
+
+    private void readHeader() throws IllegalDataException {
+        String version = readString();
+        if (!"0.6".equals(version)) {
+            throw new IllegalDataException(tr("Unsupported version: {0}", version));
+        }
+        ds.setVersion(version);
+        downloadPolicy = readString();
+        uploadPolicy = readString();
+        pendingLocked = buffer.get() != 0;
+        int count = (int) readVarint();
+        pendingDataSources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Bounds bounds = new Bounds(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            pendingDataSources.add(new DataSource(bounds, readString()));
+        }
+    }
+
+    private PrimitiveData readPrimitive(OsmPrimitiveType type) throws IllegalDataException {
+        if (ds.getVersion() == null) {
+            throw new IllegalDataException(tr("Missing data set header in binary OSM file"));
+        }
+        int index = type.ordinal();
+        long id = lastIds[index] + readSignedVarint();
+        lastIds[index] = id;
+
+        PrimitiveData current;
+        switch (type) {
+        case NODE:
+            current = new NodeData(0);
+            break;
+        case WAY:
+            current = new WayData(0);
+            break;
+        default:
+            current = new RelationData(0);
+        }
+        parseId(current, id);
+        int flags = buffer.get();
+        parseVersion(current, (int) readVarint());
+        int changeset = (int) readVarint();
+        if (changeset != 0) {
+            parseChangeset(current, changeset);
+        }
+        current.setRawTimestamp((int) readVarint());
+        if ((flags & OsmBinaryWriter.FLAG_OSM_USER) != 0) {
+            long uid = readSignedVarint();
+            current.setUser(User.createOsmUser(uid, readString()));
+        } else if ((flags & OsmBinaryWriter.FLAG_LOCAL_USER) != 0) {
+            current.setUser(User.createLocalUser(readString()));
+        }
+        current.setVisible((flags & OsmBinaryWriter.FLAG_INVISIBLE) == 0);
+        current.setDeleted((flags & OsmBinaryWriter.FLAG_DELETED) != 0);
+        current.setModified((flags & OsmBinaryWriter.FLAG_MODIFIED) != 0);
+
+        if (current instanceof NodeData) {
+            if ((flags & OsmBinaryWriter.FLAG_COOR_E7) != 0) {
+                lastLat += readSignedVarint();
+                lastLon += readSignedVarint();
+                ((NodeData) current).setCoor(new LatLon(lastLat / OsmBinaryWriter.E7, lastLon / OsmBinaryWriter.E7));
+            } else if ((flags & OsmBinaryWriter.FLAG_COOR) != 0) {
+                ((NodeData) current).setCoor(new LatLon(buffer.getDouble(), buffer.getDouble()));
+            }
+        } else if (current instanceof WayData) {
+            int count = (int) readVarint();
+            List<Long> nodeIds = new ArrayList<>(count);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                last += readSignedVarint();
+                nodeIds.add(last);
+            }
+            ((WayData) current).setNodeIds(nodeIds);
+        } else {
+            int count = (int) readVarint();
+            List<RelationMemberData> members = new ArrayList<>(count);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                OsmPrimitiveType memberType = readType();
+                last += readSignedVarint();
+                members.add(new RelationMemberData(readString(), memberType, last));
+            }
+            ((RelationData) current).setMembers(members);
+        }
+
+        int tags = (int) readVarint();
+        for (int i = 0; i < tags; i++) {
+            parseTag(current, readString(), readString());
+        }
+        return current;
+    }
+
+    private void buildPrimitives() {
+        for (PrimitiveData pd : primitives.values()) {
+            if (pd instanceof WayData) {
+                WayData wd = (WayData) pd;
+                List<Long> nodeIds = wd.getNodeIds();
+                wd.setNodeIds(new ArrayList<>());
+                if (wd.isDeleted() && !nodeIds.isEmpty()) {
+                    Logging.info(tr("Deleted way {0} contains nodes", Long.toString(wd.getUniqueId())));
+                    nodeIds = new ArrayList<>();
+                }
+                ways.put(wd.getUniqueId(), nodeIds);
+            } else if (pd instanceof RelationData) {
+                RelationData rd = (RelationData) pd;
+                List<RelationMemberData> members = rd.getMembers();
+                rd.setMembers(new ArrayList<>());
+                if (rd.isDeleted() && !members.isEmpty()) {
+                    Logging.info(tr("Deleted relation {0} contains members", Long.toString(rd.getUniqueId())));
+                    members = new ArrayList<>();
+                }
+                relations.put(rd.getUniqueId(), members);
+            }
+            buildPrimitive(pd);
+        }
+        primitives.clear();
+        for (DataSource source : dataSources) {
+            ds.addDataSource(source);
+        }
+    }
+
+    private OsmPrimitiveType readType() throws IllegalDataException {
+        int type = buffer.get();
+        if (type < 0 || type >= TYPES.length) {
+            throw new IllegalDataException(tr("Unknown primitive type {0} at offset {1}", type, buffer.position() - 1));
+        }
+        return TYPES[type];
+    }
+
+    private String readString() throws IllegalDataException {
+        int index = (int) readVarint();
+        if (index != 0) {
+            if (index >= strings.size()) {
+                throw new IllegalDataException(tr("Unknown string {0} at offset {1}", index, buffer.position()));
+            }
+            return strings.get(index);
+        }
+        int length = (int) readVarint();
+        if (length < 0) {
+            throw new IllegalDataException(tr("Invalid string length {0} at offset {1}", length, buffer.position()));
+        } else if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String s;
+        if (buffer.hasArray()) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        strings.add(s);
+        return s;
+    }
+
+    private long readSignedVarint() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return new OsmBinaryReader().doParseDataSet(source, progressMonitor);
+    }
+
+    /**
+     * Memory-maps the given file and returns the dataset.
+     * <p>
+     * On Windows, the file is read into memory instead, as a mapped file cannot be moved or deleted until the
+     * mapping is garbage collected.
+     *
+     * @param file the file to read
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IOException if the file cannot be read
+     * @throws IllegalDataException if an error was found while parsing the data from the file
+     */
+    public static DataSet parseDataSet(Path file, ProgressMonitor progressMonitor) throws IOException, IllegalDataException {
+        ByteBuffer buffer;
+        if (PlatformManager.isPlatformWindows()) {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalDataException(tr("File ''{0}'' is too large", file));
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return new OsmBinaryReader().doParseDataSet(buffer, progressMonitor);
+    }
+}
@@ -0,0 +1,340 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DownloadPolicy;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * Writes OSM data in a compact binary format, read by {@link OsmBinaryReader}.
+ * <p>
+ * The format is similar in spirit to the PBF format, but streamable and appendable. A file starts with the
+ * magic {@code JOSMOSMB} and a format version, followed by records. Each record starts with a type byte:
+ * <ul>
+ * <li>{@code DATASET}: API version, policies, lock state and data sources of the data set</li>
+ * <li>{@code NODE}, {@code WAY}, {@code RELATION}: a primitive, replacing any previous record with the same id</li>
+ * <li>{@code REMOVE}: removes a primitive written before</li>
+ * <li>{@code COMMIT}: the records since the last commit are complete. Uncommitted records at the end of a file,
+ * e.g. after a crash, are ignored by the reader.</li>
+ * </ul>
+ * Integers are written as base 128 varints, signed ones zigzag encoded. Ids are delta encoded per primitive type,
+ * way node ids and relation member ids relative to the previous one. Coordinates which are exact multiples of
+ * 10<sup>-7</sup> degrees (as returned by the OSM API) are delta encoded as fixed-point integers, others are written
+ * as raw doubles. Strings are written once and then referenced by their index in a string table.
+ * <p>
+ * The writer keeps the encoding state, so more records can be appended to the same stream later on.
+ * @since xxx
+ */
+public class OsmBinaryWriter implements Closeable, Flushable {
+
+    static final byte[] MAGIC = "JOSMOSMB".getBytes(StandardCharsets.US_ASCII);
+    static final int FORMAT_VERSION = 1;
+
+    static final int NODE = 1;
+    static final int WAY = 2;
+    static final int RELATION = 3;
+    static final int REMOVE = 4;
+    static final int DATASET = 5;
+    static final int COMMIT = 6;
+
+    static final int FLAG_MODIFIED = 1;
+    static final int FLAG_DELETED = 1 << 1;
+    static final int FLAG_INVISIBLE = 1 << 2;
+    static final int FLAG_OSM_USER = 1 << 3;
+    static final int FLAG_LOCAL_USER = 1 << 4;
+    static final int FLAG_COOR = 1 << 5;
+    static final int FLAG_COOR_E7 = 1 << 6;
+
+    static final double E7 = 1e7;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position;
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final long[] lastIds = new long[3];
+    private long lastLat;
+    private long lastLon;
+    private long recordCount;
+
+    /**
+     * Constructs a new {@code OsmBinaryWriter} and writes the file header.
+     * @param out the stream to write to, should not be buffered
+     * @throws IOException if an I/O error occurs
+     */
+    public OsmBinaryWriter(OutputStream out) throws IOException {
+        this.out = out;
+        ensure(MAGIC.length);
+        System.arraycopy(MAGIC, 0, buffer, position, MAGIC.length);
+        position += MAGIC.length;
+        writeVarint(FORMAT_VERSION);
+    }
+
+    /**
+     * Writes the complete data set, followed by a commit. The data set should be read locked by the caller.
+     * @param data the data set
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataSet data) throws IOException {
+        writeHeader(data);
+        for (Node n : sortById(data.getNodes())) {
+            writePrimitive(n);
+        }
+        for (Way w : sortById(data.getWays())) {
+            writePrimitive(w);
+        }
+        for (Relation r : sortById(data.getRelations())) {
+            writePrimitive(r);
+        }
+        commit();
+    }
+
+    private static <T extends OsmPrimitive> List<T> sortById(Collection<T> primitives) {
+        List<T> result = new ArrayList<>(primitives);
+        result.sort(OsmWriter.byIdComparator);
+        return result;
+    }
+
+    /**
+     * Writes the properties and data sources of the data set.
+     * @param data the data set
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeHeader(DataSet data) throws IOException {
+        writeByte(DATASET);
+        writeString(data.getVersion() != null ? data.getVersion() : OsmWriter.DEFAULT_API_VERSION);
+        DownloadPolicy download = data.getDownloadPolicy();
+        UploadPolicy upload = data.getUploadPolicy();
+        writeString(download != null ? download.getXmlFlag() : DownloadPolicy.NORMAL.getXmlFlag());
+        writeString(upload != null ? upload.getXmlFlag() : UploadPolicy.NORMAL.getXmlFlag());
+        writeByte(data.isLocked() ? 1 : 0);
+        Collection<DataSource> dataSources = data.getDataSources();
+        writeVarint(dataSources.size());
+        for (DataSource source : dataSources) {
+            writeDouble(source.bounds.getMinLat());
+            writeDouble(source.bounds.getMinLon());
+            writeDouble(source.bounds.getMaxLat());
+            writeDouble(source.bounds.getMaxLon());
+            writeString(source.origin != null ? source.origin : "");
+        }
+    }
+
+    /**
+     * Writes a primitive. Primitives which are not written to OSM files, i.e. incomplete or new deleted ones,
+     * are written as {@linkplain #writeRemoved removed}.
+     * @param p the primitive
+     * @throws IOException if an I/O error occurs
+     */
+    public void writePrimitive(OsmPrimitive p) throws IOException {
+        if (p.isIncomplete() || (p.isNewOrUndeleted() && p.isDeleted())) {
+            writeRemoved(p.getPrimitiveId());
+            return;
+        }
+        if (p.getUniqueId() == 0) {
+            throw new IllegalStateException(tr("Unexpected id 0 for osm primitive found"));
+        }
+        recordCount++;
+        OsmPrimitiveType type = p.getType();
+        writeByte(type == OsmPrimitiveType.NODE ? NODE : type == OsmPrimitiveType.WAY ? WAY : RELATION);
+        writeId(type, p.getUniqueId());
+
+        int flags = 0;
+        if (p.isModified()) flags |= FLAG_MODIFIED;
+        if (p.isDeleted()) flags |= FLAG_DELETED;
+        if (!p.isVisible()) flags |= FLAG_INVISIBLE;
+        User user = p.getUser();
+        if (user != null) {
+            flags |= user.isOsmUser() ? FLAG_OSM_USER : FLAG_LOCAL_USER;
+        }
+        Node node = p instanceof Node ? (Node) p : null;
+        long latE7 = 0;
+        long lonE7 = 0;
+        if (node != null && node.isLatLonKnown()) {
+            flags |= FLAG_COOR;
+            latE7 = Math.round(node.lat() * E7);
+            lonE7 = Math.round(node.lon() * E7);
+            if (latE7 / E7 == node.lat() && lonE7 / E7 == node.lon()) {
+                flags |= FLAG_COOR_E7;
+            }
+        }
+        writeByte(flags);
+        writeVarint(p.getVersion());
+        writeVarint(p.isNew() ? 0 : Math.max(0, p.getChangesetId()));
+        writeVarint(p.getRawTimestamp() & 0xffffffffL);
+        if (user != null) {
+            if (user.isOsmUser()) {
+                writeSignedVarint(user.getId());
+            }
+            writeString(user.getName() != null ? user.getName() : "");
+        }
+
+        if (node != null) {
+            if ((flags & FLAG_COOR_E7) != 0) {
+                writeSignedVarint(latE7 - lastLat);
+                writeSignedVarint(lonE7 - lastLon);
+                lastLat = latE7;
+                lastLon = lonE7;
+            } else if ((flags & FLAG_COOR) != 0) {
+                writeDouble(node.lat());
+                writeDouble(node.lon());
+            }
+        } else if (p instanceof Way) {
+            Way w = (Way) p;
+            int count = w.getNodesCount();
+            writeVarint(count);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                long id = w.getNodeId(i);
+                writeSignedVarint(id - last);
+                last = id;
+            }
+        } else {
+            Relation r = (Relation) p;
+            int count = r.getMembersCount();
+            writeVarint(count);
+            long last = 0;
+            for (int i = 0; i < count; i++) {
+                long id = r.getMemberId(i);
+                writeByte(r.getMemberType(i).ordinal());
+                writeSignedVarint(id - last);
+                writeString(r.getRole(i));
+                last = id;
+            }
+        }
+
+        writeVarint(p.getNumKeys());
+        for (Map.Entry<String, String> tag : p.getKeys().entrySet()) {
+            writeString(tag.getKey());
+            writeString(tag.getValue());
+        }
+    }
+
+    /**
+     * Writes that a primitive was removed from the data set.
+     * @param id the id of the primitive
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeRemoved(PrimitiveId id) throws IOException {
+        recordCount++;
+        writeByte(REMOVE);
+        writeByte(id.getType().ordinal());
+        writeSignedVarint(id.getUniqueId());
+    }
+
+    /**
+     * Marks the records written so far as complete and flushes them.
+     * @throws IOException if an I/O error occurs
+     */
+    public void commit() throws IOException {
+        writeByte(COMMIT);
+        flush();
+    }
+
+    /**
+     * Returns the number of primitive records written so far.
+     * @return the number of primitive and remove records
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private void writeId(OsmPrimitiveType type, long id) throws IOException {
+        int index = type.ordinal();
+        writeSignedVarint(id - lastIds[index]);
+        lastIds[index] = id;
+    }
+
+    private void writeString(String s) throws IOException {
+        Integer index = strings.get(s);
+        if (index != null) {
+            writeVarint(index);
+            return;
+        }
+        strings.put(s, strings.size() + 1);
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(0);
+        writeVarint(bytes.length);
+        if (bytes.length > buffer.length) {
+            flushBuffer();
+            out.write(bytes);
+        } else {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[position++] = (byte) (bits >>> (i * 8));
+        }
+    }
+
+    private void writeSignedVarint(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(long value) throws IOException {
+        ensure(10);
+        long v = value;
+        while ((v & ~0x7fL) != 0) {
+            buffer[position++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buffer[position++] = (byte) v;
+    }
+
+    private void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
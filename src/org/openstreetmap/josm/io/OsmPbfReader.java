@@ -0,0 +1,781 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Parser for the OSM PBF format, see <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">PBF Format</a>.
+ * <p>
+ * The file is read sequentially, but the data blocks are decompressed and decoded on a worker pool.
+ * The decoded blocks are added to the data set in file order by the calling thread.
+ * @since xxx
+ */
+public class OsmPbfReader extends AbstractReader {
+
+    /** The preference key for the number of threads used to decode data blocks */
+    public static final String PREF_NUMBER_OF_THREADS = "pbf.reader.numberOfThreads";
+
+    /** The maximal size of a blob header, as defined by the format */
+    private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+    /** The maximal size of a blob, as defined by the format */
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    private static final double NANO_DEGREES = 1e9;
+    private static final Collection<String> SUPPORTED_FEATURES = Arrays.asList("OsmSchema-V0.6", "DenseNodes");
+    private static final OsmPrimitiveType[] MEMBER_TYPES = {OsmPrimitiveType.NODE, OsmPrimitiveType.WAY, OsmPrimitiveType.RELATION};
+    private static final long[] EMPTY = {};
+
+    /**
+     * constructor (for private and subclasses use only)
+     *
+     * @see #parseDataSet(InputStream, ProgressMonitor)
+     */
+    protected OsmPbfReader() {
+        // Restricts visibility
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        CheckParameterUtil.ensureParameterNotNull(source, "source");
+        if (progressMonitor == null) {
+            progressMonitor = NullProgressMonitor.INSTANCE;
+        }
+        ProgressMonitor.CancelListener cancelListener = () -> cancel = true;
+        progressMonitor.addCancelListener(cancelListener);
+        try {
+            progressMonitor.beginTask(tr("Prepare OSM data..."), 4); // read, prepare, post-process, render
+            progressMonitor.indeterminateSubTask(tr("Parsing OSM data..."));
+            ds.setVersion("0.6");
+            parse(source);
+            if (cancel) {
+                return getDataSet();
+            }
+            progressMonitor.worked(1);
+
+            progressMonitor.indeterminateSubTask(tr("Preparing data set..."));
+            prepareDataSet();
+            progressMonitor.worked(1);
+            progressMonitor.indeterminateSubTask(tr("Post-processing data set..."));
+            callPostProcessors(progressMonitor);
+            progressMonitor.worked(1);
+            progressMonitor.indeterminateSubTask(tr("Rendering data set..."));
+            return getDataSet();
+        } catch (IOException e) {
+            throw new IllegalDataException(e);
+        } finally {
+            advanceUniqueIds();
+            progressMonitor.finishTask();
+            progressMonitor.removeCancelListener(cancelListener);
+        }
+    }
+
+    private void parse(InputStream source) throws IOException, IllegalDataException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source));
+        ForkJoinPool pool = Utils.newForkJoinPool(PREF_NUMBER_OF_THREADS, "pbf-reader-%d", Thread.NORM_PRIORITY);
+        int maxPending = 2 * pool.getParallelism();
+        Deque<Future<List<PrimitiveData>>> pending = new ArrayDeque<>(maxPending);
+        try {
+            boolean headerRead = false;
+            Blob blob;
+            while (!cancel && (blob = Blob.read(in)) != null) {
+                if ("OSMHeader".equals(blob.type)) {
+                    parseHeader(decompress(blob.data));
+                    headerRead = true;
+                } else if ("OSMData".equals(blob.type)) {
+                    if (!headerRead) {
+                        throw new IllegalDataException(tr("Missing OSMHeader block in PBF file"));
+                    }
+                    pending.add(pool.submit(new BlockDecoder(blob.data)));
+                    if (pending.size() >= maxPending) {
+                        addPrimitives(pending.remove());
+                    }
+                } else {
+                    // unknown blob types are to be skipped
+                    Logging.debug("Skipping PBF blob of type {0}", blob.type);
+                }
+            }
+            while (!cancel && !pending.isEmpty()) {
+                addPrimitives(pending.remove());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void addPrimitives(Future<List<PrimitiveData>> block) throws IOException, IllegalDataException {
+        List<PrimitiveData> primitives;
+        try {
+            primitives = block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalDataException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+        for (PrimitiveData pd : primitives) {
+            if (pd instanceof WayData) {
+                WayData wd = (WayData) pd;
+                ways.put(wd.getUniqueId(), wd.getNodeIds());
+                wd.setNodeIds(new ArrayList<>());
+            } else if (pd instanceof RelationData) {
+                RelationData rd = (RelationData) pd;
+                relations.put(rd.getUniqueId(), rd.getMembers());
+                rd.setMembers(new ArrayList<>());
+            }
+            buildPrimitive(pd);
+        }
+    }
+
+    private void parseHeader(byte[] block) throws IOException, IllegalDataException {
+        Bounds bounds = null;
+        String writingProgram = null;
+        String source = null;
+        ProtobufReader reader = new ProtobufReader(block);
+        while (reader.next()) {
+            switch (reader.getField()) {
+            case 1:
+                bounds = parseBounds(reader.readMessage());
+                break;
+            case 4:
+                String feature = reader.readString();
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IllegalDataException(tr("Unsupported PBF feature: {0}", feature));
+                }
+                break;
+            case 16:
+                writingProgram = reader.readString();
+                break;
+            case 17:
+                source = reader.readString();
+                break;
+            default:
+                // optional features, replication information
+                reader.skip();
+            }
+        }
+        if (bounds != null) {
+            ds.addDataSource(new DataSource(bounds, source != null ? source : writingProgram));
+        }
+    }
+
+    private static Bounds parseBounds(ProtobufReader reader) throws IOException, IllegalDataException {
+        long left = 0;
+        long right = 0;
+        long top = 0;
+        long bottom = 0;
+        while (reader.next()) {
+            switch (reader.getField()) {
+            case 1:
+                left = reader.readSignedVarInt();
+                break;
+            case 2:
+                right = reader.readSignedVarInt();
+                break;
+            case 3:
+                top = reader.readSignedVarInt();
+                break;
+            case 4:
+                bottom = reader.readSignedVarInt();
+                break;
+            default:
+                reader.skip();
+            }
+        }
+        LatLon min = new LatLon(bottom / NANO_DEGREES, left / NANO_DEGREES);
+        LatLon max = new LatLon(top / NANO_DEGREES, right / NANO_DEGREES);
+        if (!min.isValid() || !max.isValid()) {
+            throw new IllegalDataException(tr("Illegal bounding box in PBF header: {0}, {1}", min, max));
+        }
+        return new Bounds(min, max);
+    }
+
+    /**
+     * Decompresses the content of a blob.
+     * @param blob the blob message
+     * @return the uncompressed block
+     * @throws IOException if the blob cannot be parsed
+     * @throws IllegalDataException if the compression is not supported or the data is corrupt
+     */
+    static byte[] decompress(byte[] blob) throws IOException, IllegalDataException {
+        byte[] raw = null;
+        byte[] zlib = null;
+        int rawSize = -1;
+        ProtobufReader reader = new ProtobufReader(blob);
+        while (reader.next()) {
+            switch (reader.getField()) {
+            case 1:
+                raw = reader.readBytes();
+                break;
+            case 2:
+                rawSize = (int) reader.readVarInt();
+                break;
+            case 3:
+                zlib = reader.readBytes();
+                break;
+            default:
+                throw new IllegalDataException(tr("Unsupported PBF blob compression: {0}", reader.getField()));
+            }
+        }
+        if (raw != null) {
+            return raw;
+        } else if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Invalid PBF blob"));
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            byte[] data = new byte[rawSize];
+            int length = 0;
+            while (length < rawSize) {
+                int inflated = inflater.inflate(data, length, rawSize - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawSize) {
+                throw new IllegalDataException(tr("Invalid PBF blob"));
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IllegalDataException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A blob with its type, as read from the file.
+     */
+    private static final class Blob {
+        final String type;
+        final byte[] data;
+
+        Blob(String type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        static Blob read(DataInputStream in) throws IOException, IllegalDataException {
+            int headerSize;
+            try {
+                headerSize = in.readInt();
+            } catch (EOFException e) {
+                Logging.trace(e);
+                return null;
+            }
+            if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+                throw new IllegalDataException(tr("Invalid PBF blob header size: {0}", headerSize));
+            }
+            byte[] header = new byte[headerSize];
+            in.readFully(header);
+            String type = null;
+            int dataSize = -1;
+            ProtobufReader reader = new ProtobufReader(header);
+            while (reader.next()) {
+                if (reader.getField() == 1) {
+                    type = reader.readString();
+                } else if (reader.getField() == 3) {
+                    dataSize = (int) reader.readVarInt();
+                } else {
+                    reader.skip();
+                }
+            }
+            if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+                throw new IllegalDataException(tr("Invalid PBF blob header"));
+            }
+            byte[] data = new byte[dataSize];
+            in.readFully(data);
+            return new Blob(type, data);
+        }
+    }
+
+    /**
+     * Decodes a compressed primitive block. Does not access the reader, so it can run concurrently.
+     * <p>
+     * The block is decoded with a {@link ProtobufReader} cursor: numbers are read into primitive values and arrays,
+     * strings are decoded directly from the uncompressed block.
+     */
+    private static final class BlockDecoder implements Callable<List<PrimitiveData>> {
+        private final byte[] blob;
+        private final List<PrimitiveData> primitives = new ArrayList<>();
+        private String[] strings = {};
+        private long granularity = 100;
+        private long latOffset;
+        private long lonOffset;
+        private long dateGranularity = 1000;
+
+        BlockDecoder(byte[] blob) {
+            this.blob = blob;
+        }
+
+        @Override
+        public List<PrimitiveData> call() throws IOException, IllegalDataException {
+            List<ProtobufReader> groups = new ArrayList<>();
+            ProtobufReader reader = new ProtobufReader(decompress(blob));
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    parseStringTable(reader.readMessage());
+                    break;
+                case 2:
+                    // the granularity and offsets may follow the groups
+                    groups.add(reader.readMessage());
+                    break;
+                case 17:
+                    granularity = reader.readVarInt();
+                    break;
+                case 18:
+                    dateGranularity = reader.readVarInt();
+                    break;
+                case 19:
+                    latOffset = reader.readVarInt();
+                    break;
+                case 20:
+                    lonOffset = reader.readVarInt();
+                    break;
+                default:
+                    reader.skip();
+                }
+            }
+            for (ProtobufReader group : groups) {
+                parseGroup(group);
+            }
+            return primitives;
+        }
+
+        private void parseStringTable(ProtobufReader reader) throws IOException {
+            List<String> list = new ArrayList<>();
+            while (reader.next()) {
+                if (reader.getField() == 1) {
+                    list.add(reader.readString().intern());
+                } else {
+                    reader.skip();
+                }
+            }
+            strings = list.toArray(new String[0]);
+        }
+
+        private void parseGroup(ProtobufReader reader) throws IOException, IllegalDataException {
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    parseNode(reader.readMessage());
+                    break;
+                case 2:
+                    parseDenseNodes(reader.readMessage());
+                    break;
+                case 3:
+                    parseWay(reader.readMessage());
+                    break;
+                case 4:
+                    parseRelation(reader.readMessage());
+                    break;
+                default:
+                    // changesets are not supported
+                    reader.skip();
+                }
+            }
+        }
+
+        private void parseNode(ProtobufReader reader) throws IOException, IllegalDataException {
+            NodeData nd = new NodeData(0);
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            long[] keys = EMPTY;
+            long[] values = EMPTY;
+            ProtobufReader info = null;
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    id = reader.readSignedVarInt();
+                    break;
+                case 2:
+                    keys = reader.readPackedVarInts();
+                    break;
+                case 3:
+                    values = reader.readPackedVarInts();
+                    break;
+                case 4:
+                    info = reader.readMessage();
+                    break;
+                case 8:
+                    lat = reader.readSignedVarInt();
+                    break;
+                case 9:
+                    lon = reader.readSignedVarInt();
+                    break;
+                default:
+                    reader.skip();
+                }
+            }
+            parseInfo(nd, id, info);
+            setCoor(nd, lat, lon);
+            if (keys.length != values.length) {
+                throw new IllegalDataException(tr("Invalid tags on node {0}", Long.toString(id)));
+            }
+            for (int i = 0; i < keys.length; i++) {
+                put(nd, keys[i], values[i]);
+            }
+            primitives.add(nd);
+        }
+
+        private void parseDenseNodes(ProtobufReader reader) throws IOException, IllegalDataException {
+            long[] ids = EMPTY;
+            long[] lats = EMPTY;
+            long[] lons = EMPTY;
+            long[] keysValues = EMPTY;
+            long[] versions = null;
+            long[] timestamps = null;
+            long[] changesets = null;
+            long[] uids = null;
+            long[] userSids = null;
+            long[] visibles = null;
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    ids = reader.readPackedVarInts();
+                    break;
+                case 5:
+                    int oldLimit = reader.pushLimit();
+                    while (reader.next()) {
+                        switch (reader.getField()) {
+                        case 1:
+                            versions = reader.readPackedVarInts();
+                            break;
+                        case 2:
+                            timestamps = reader.readPackedVarInts();
+                            break;
+                        case 3:
+                            changesets = reader.readPackedVarInts();
+                            break;
+                        case 4:
+                            uids = reader.readPackedVarInts();
+                            break;
+                        case 5:
+                            userSids = reader.readPackedVarInts();
+                            break;
+                        case 6:
+                            visibles = reader.readPackedVarInts();
+                            break;
+                        default:
+                            reader.skip();
+                        }
+                    }
+                    reader.popLimit(oldLimit);
+                    break;
+                case 8:
+                    lats = reader.readPackedVarInts();
+                    break;
+                case 9:
+                    lons = reader.readPackedVarInts();
+                    break;
+                case 10:
+                    keysValues = reader.readPackedVarInts();
+                    break;
+                default:
+                    reader.skip();
+                }
+            }
+            int count = ids.length;
+            if (lats.length != count || lons.length != count || !hasLength(count, versions, timestamps, changesets, uids, userSids)
+                    || (visibles != null && visibles.length != count)) {
+                throw new IllegalDataException(tr("Invalid dense nodes in PBF block"));
+            }
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            long timestamp = 0;
+            long changeset = 0;
+            long uid = 0;
+            long userSid = 0;
+            int kv = 0;
+            for (int i = 0; i < count; i++) {
+                id += ProtobufReader.decodeZigZag(ids[i]);
+                lat += ProtobufReader.decodeZigZag(lats[i]);
+                lon += ProtobufReader.decodeZigZag(lons[i]);
+                NodeData nd = new NodeData(0);
+                if (versions != null) {
+                    timestamp += ProtobufReader.decodeZigZag(timestamps[i]);
+                    changeset += ProtobufReader.decodeZigZag(changesets[i]);
+                    uid += ProtobufReader.decodeZigZag(uids[i]);
+                    userSid += ProtobufReader.decodeZigZag(userSids[i]);
+                    setInfo(nd, id, (int) versions[i], timestamp, changeset, (int) uid, (int) userSid,
+                            visibles == null || visibles[i] != 0);
+                } else {
+                    setInfo(nd, id, 0, 0, 0, -1, 0, true);
+                }
+                setCoor(nd, lat, lon);
+                // keys and values of all nodes, each node is terminated by 0
+                while (kv < keysValues.length && keysValues[kv] != 0) {
+                    if (kv + 1 >= keysValues.length) {
+                        throw new IllegalDataException(tr("Invalid tags on node {0}", Long.toString(id)));
+                    }
+                    put(nd, keysValues[kv], keysValues[kv + 1]);
+                    kv += 2;
+                }
+                kv++;
+                primitives.add(nd);
+            }
+        }
+
+        private void parseWay(ProtobufReader reader) throws IOException, IllegalDataException {
+            WayData wd = new WayData(0);
+            long id = 0;
+            long[] keys = EMPTY;
+            long[] values = EMPTY;
+            long[] refs = EMPTY;
+            ProtobufReader info = null;
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    id = reader.readVarInt();
+                    break;
+                case 2:
+                    keys = reader.readPackedVarInts();
+                    break;
+                case 3:
+                    values = reader.readPackedVarInts();
+                    break;
+                case 4:
+                    info = reader.readMessage();
+                    break;
+                case 8:
+                    refs = reader.readPackedVarInts();
+                    break;
+                default:
+                    reader.skip();
+                }
+            }
+            parseInfo(wd, id, info);
+            if (keys.length != values.length) {
+                throw new IllegalDataException(tr("Invalid tags on way {0}", Long.toString(id)));
+            }
+            for (int i = 0; i < keys.length; i++) {
+                put(wd, keys[i], values[i]);
+            }
+            List<Long> nodeIds = new ArrayList<>(refs.length);
+            long ref = 0;
+            for (long delta : refs) {
+                ref += ProtobufReader.decodeZigZag(delta);
+                nodeIds.add(ref);
+            }
+            wd.setNodeIds(nodeIds);
+            primitives.add(wd);
+        }
+
+        private void parseRelation(ProtobufReader reader) throws IOException, IllegalDataException {
+            RelationData rd = new RelationData(0);
+            long id = 0;
+            long[] keys = EMPTY;
+            long[] values = EMPTY;
+            long[] roles = EMPTY;
+            long[] memberIds = EMPTY;
+            long[] types = EMPTY;
+            ProtobufReader info = null;
+            while (reader.next()) {
+                switch (reader.getField()) {
+                case 1:
+                    id = reader.readVarInt();
+                    break;
+                case 2:
+                    keys = reader.readPackedVarInts();
+                    break;
+                case 3:
+                    values = reader.readPackedVarInts();
+                    break;
+                case 4:
+                    info = reader.readMessage();
+                    break;
+                case 8:
+                    roles = reader.readPackedVarInts();
+                    break;
+                case 9:
+                    memberIds = reader.readPackedVarInts();
+                    break;
+                case 10:
+                    types = reader.readPackedVarInts();
+                    break;
+                default:
+                    reader.skip();
+                }
+            }
+            parseInfo(rd, id, info);
+            if (keys.length != values.length || roles.length != memberIds.length || roles.length != types.length) {
+                throw new IllegalDataException(tr("Invalid relation {0}", Long.toString(id)));
+            }
+            for (int i = 0; i < keys.length; i++) {
+                put(rd, keys[i], values[i]);
+            }
+            List<RelationMemberData> members = new ArrayList<>(roles.length);
+            long memberId = 0;
+            for (int i = 0; i < roles.length; i++) {
+                memberId += ProtobufReader.decodeZigZag(memberIds[i]);
+                if (types[i] < 0 || types[i] >= MEMBER_TYPES.length) {
+                    throw new IllegalDataException(tr("Invalid member type in relation {0}", Long.toString(id)));
+                }
+                members.add(new RelationMemberData(string(roles[i]), MEMBER_TYPES[(int) types[i]], memberId));
+            }
+            rd.setMembers(members);
+            primitives.add(rd);
+        }
+
+        private void parseInfo(PrimitiveData pd, long id, ProtobufReader info) throws IOException, IllegalDataException {
+            int version = 0;
+            long timestamp = 0;
+            long changeset = 0;
+            int uid = -1;
+            int userSid = 0;
+            boolean visible = true;
+            if (info != null) {
+                while (info.next()) {
+                    switch (info.getField()) {
+                    case 1:
+                        version = (int) info.readVarInt();
+                        break;
+                    case 2:
+                        timestamp = info.readVarInt();
+                        break;
+                    case 3:
+                        changeset = info.readVarInt();
+                        break;
+                    case 4:
+                        uid = (int) info.readVarInt();
+                        break;
+                    case 5:
+                        userSid = (int) info.readVarInt();
+                        break;
+                    case 6:
+                        visible = info.readVarInt() != 0;
+                        break;
+                    default:
+                        info.skip();
+                    }
+                }
+            }
+            setInfo(pd, id, version, timestamp, changeset, uid, userSid, visible);
+        }
+
+        private void setInfo(PrimitiveData pd, long id, int version, long timestamp, long changeset, int uid, int userSid,
+                boolean visible) throws IllegalDataException {
+            if (id == 0) {
+                throw new IllegalDataException(tr("Illegal object with ID=0."));
+            }
+            pd.setId(id);
+            if (!pd.isNew()) {
+                // version expected for OSM primitives with an id assigned by the server (id > 0), since API 0.6
+                if (version <= 0) {
+                    throw new IllegalDataException(
+                            tr("Missing attribute ''version'' on OSM primitive with ID {0}.", Long.toString(id)));
+                }
+                pd.setVersion(version);
+                if (changeset > 0 && changeset <= Integer.MAX_VALUE) {
+                    pd.setChangesetId((int) changeset);
+                }
+            }
+            if (timestamp > 0) {
+                pd.setRawTimestamp((int) (timestamp * dateGranularity / 1000));
+            }
+            String user = userSid == 0 ? "" : string(userSid);
+            if (uid > 0 || !user.isEmpty()) {
+                pd.setUser(User.createOsmUser(uid, user));
+            }
+            pd.setVisible(visible);
+        }
+
+        private void setCoor(NodeData nd, long lat, long lon) throws IllegalDataException {
+            LatLon ll = new LatLon((latOffset + granularity * lat) / NANO_DEGREES, (lonOffset + granularity * lon) / NANO_DEGREES);
+            if (!ll.isValid()) {
+                throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
+                        Long.toString(nd.getId()), ll.lat(), ll.lon()));
+            }
+            nd.setCoor(ll);
+        }
+
+        private void put(PrimitiveData pd, long key, long value) throws IllegalDataException {
+            String k = string(key);
+            if (Utils.isStripEmpty(k)) {
+                // #14199: Empty keys as ignored by AbstractPrimitive#put, but it causes problems to fix existing data
+                // Drop the tag on import, but flag the primitive as modified
+                pd.setModified(true);
+            } else {
+                pd.put(k, string(value));
+            }
+        }
+
+        private String string(long index) throws IllegalDataException {
+            if (index < 0 || index >= strings.length) {
+                throw new IllegalDataException(tr("Invalid string table index: {0}", index));
+            }
+            return strings[(int) index];
+        }
+
+        private static boolean hasLength(int count, long[]... arrays) {
+            if (arrays[0] == null) {
+                return true;
+            }
+            for (long[] array : arrays) {
+                if (array == null || array.length != count) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return new OsmPbfReader().doParseDataSet(source, progressMonitor);
+    }
+}
@@ -0,0 +1,382 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.AbstractPrimitive;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * Writes OSM data in the PBF format, see <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">PBF Format</a>,
+ * which can be read by {@link OsmPbfReader}.
+ * <p>
+ * Nodes are written as dense nodes with the default granularity of 100 nanodegrees, data blocks are zlib compressed.
+ * The format has no means to store the JOSM specific state of primitives, so modified flags are lost, and deleted
+ * or incomplete primitives are not written.
+ * @since xxx
+ */
+public class OsmPbfWriter implements Closeable, Flushable {
+
+    /** The maximal number of entities in a data block, as recommended by the format */
+    private static final int BLOCK_SIZE = 8000;
+    private static final double GRANULARITY = 1e7;
+    private static final double NANO_DEGREES = 1e9;
+    private static final Comparator<AbstractPrimitive> BY_ID = Comparator.comparingLong(AbstractPrimitive::getUniqueId);
+
+    private final DataOutputStream out;
+
+    /**
+     * Constructs a new {@code OsmPbfWriter}.
+     * @param out the output stream to write to
+     */
+    public OsmPbfWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    /**
+     * Writes the given data set. The caller is responsible for locking the data set.
+     * @param ds the data set to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataSet ds) throws IOException {
+        writeHeader(ds);
+        List<Node> nodes = sorted(ds.getNodes());
+        // nodes without coordinates cannot be written, ways refer to them as incomplete nodes
+        nodes.removeIf(n -> !n.isLatLonKnown());
+        writeNodes(nodes);
+        writeWays(sorted(ds.getWays()));
+        writeRelations(sorted(ds.getRelations()));
+    }
+
+    private static <T extends OsmPrimitive> List<T> sorted(Collection<T> primitives) {
+        List<T> result = new ArrayList<>(primitives.size());
+        for (T p : primitives) {
+            if (!p.isIncomplete() && !p.isDeleted()) {
+                result.add(p);
+            }
+        }
+        result.sort(BY_ID);
+        return result;
+    }
+
+    private void writeHeader(DataSet ds) throws IOException {
+        Message header = new Message();
+        Bounds bounds = null;
+        for (Bounds b : ds.getDataSourceBounds()) {
+            if (bounds == null) {
+                bounds = new Bounds(b);
+            } else {
+                bounds.extend(b);
+            }
+        }
+        if (bounds != null) {
+            Message bbox = new Message();
+            bbox.writeSigned(1, Math.round(bounds.getMinLon() * NANO_DEGREES));
+            bbox.writeSigned(2, Math.round(bounds.getMaxLon() * NANO_DEGREES));
+            bbox.writeSigned(3, Math.round(bounds.getMaxLat() * NANO_DEGREES));
+            bbox.writeSigned(4, Math.round(bounds.getMinLat() * NANO_DEGREES));
+            header.writeMessage(1, bbox);
+        }
+        header.writeString(4, "OsmSchema-V0.6");
+        header.writeString(4, "DenseNodes");
+        header.writeString(16, "JOSM");
+        writeBlob("OSMHeader", header);
+    }
+
+    private void writeNodes(List<Node> nodes) throws IOException {
+        for (int start = 0; start < nodes.size(); start += BLOCK_SIZE) {
+            List<Node> block = nodes.subList(start, Math.min(nodes.size(), start + BLOCK_SIZE));
+            StringTable strings = new StringTable();
+            PackedLongs ids = new PackedLongs();
+            PackedLongs versions = new PackedLongs();
+            PackedLongs timestamps = new PackedLongs();
+            PackedLongs changesets = new PackedLongs();
+            PackedLongs uids = new PackedLongs();
+            PackedLongs userSids = new PackedLongs();
+            PackedLongs lats = new PackedLongs();
+            PackedLongs lons = new PackedLongs();
+            PackedLongs keysValues = new PackedLongs();
+            long lastId = 0;
+            long lastTimestamp = 0;
+            long lastChangeset = 0;
+            long lastUid = 0;
+            long lastUserSid = 0;
+            long lastLat = 0;
+            long lastLon = 0;
+            for (Node n : block) {
+                ids.addSigned(n.getUniqueId() - lastId);
+                lastId = n.getUniqueId();
+                versions.add(n.getVersion());
+                timestamps.addSigned(n.getRawTimestamp() - lastTimestamp);
+                lastTimestamp = n.getRawTimestamp();
+                changesets.addSigned(n.getChangesetId() - lastChangeset);
+                lastChangeset = n.getChangesetId();
+                long uid = uid(n.getUser());
+                uids.addSigned(uid - lastUid);
+                lastUid = uid;
+                long userSid = strings.userName(n.getUser());
+                userSids.addSigned(userSid - lastUserSid);
+                lastUserSid = userSid;
+                long lat = Math.round(n.lat() * GRANULARITY);
+                long lon = Math.round(n.lon() * GRANULARITY);
+                lats.addSigned(lat - lastLat);
+                lons.addSigned(lon - lastLon);
+                lastLat = lat;
+                lastLon = lon;
+                n.visitKeys((p, key, value) -> {
+                    keysValues.add(strings.get(key));
+                    keysValues.add(strings.get(value));
+                });
+                keysValues.add(0);
+            }
+            Message denseInfo = new Message();
+            denseInfo.writePacked(1, versions);
+            denseInfo.writePacked(2, timestamps);
+            denseInfo.writePacked(3, changesets);
+            denseInfo.writePacked(4, uids);
+            denseInfo.writePacked(5, userSids);
+            Message dense = new Message();
+            dense.writePacked(1, ids);
+            dense.writeMessage(5, denseInfo);
+            dense.writePacked(8, lats);
+            dense.writePacked(9, lons);
+            dense.writePacked(10, keysValues);
+            Message group = new Message();
+            group.writeMessage(2, dense);
+            writeBlock(strings, group);
+        }
+    }
+
+    private void writeWays(List<Way> ways) throws IOException {
+        for (int start = 0; start < ways.size(); start += BLOCK_SIZE) {
+            StringTable strings = new StringTable();
+            Message group = new Message();
+            for (Way w : ways.subList(start, Math.min(ways.size(), start + BLOCK_SIZE))) {
+                Message way = new Message();
+                way.writeVarint(1, w.getUniqueId());
+                writeTags(way, w, strings);
+                way.writeMessage(4, info(w, strings));
+                PackedLongs refs = new PackedLongs();
+                long last = 0;
+                for (int i = 0; i < w.getNodesCount(); i++) {
+                    long id = w.getNodeId(i);
+                    refs.addSigned(id - last);
+                    last = id;
+                }
+                way.writePacked(8, refs);
+                group.writeMessage(3, way);
+            }
+            writeBlock(strings, group);
+        }
+    }
+
+    private void writeRelations(List<Relation> relations) throws IOException {
+        for (int start = 0; start < relations.size(); start += BLOCK_SIZE) {
+            StringTable strings = new StringTable();
+            Message group = new Message();
+            for (Relation r : relations.subList(start, Math.min(relations.size(), start + BLOCK_SIZE))) {
+                Message relation = new Message();
+                relation.writeVarint(1, r.getUniqueId());
+                writeTags(relation, r, strings);
+                relation.writeMessage(4, info(r, strings));
+                PackedLongs roles = new PackedLongs();
+                PackedLongs memberIds = new PackedLongs();
+                PackedLongs types = new PackedLongs();
+                long last = 0;
+                for (RelationMember member : r.getMembers()) {
+                    roles.add(strings.get(member.getRole()));
+                    long id = member.getUniqueId();
+                    memberIds.addSigned(id - last);
+                    last = id;
+                    types.add(member.getType().ordinal());
+                }
+                relation.writePacked(8, roles);
+                relation.writePacked(9, memberIds);
+                relation.writePacked(10, types);
+                group.writeMessage(4, relation);
+            }
+            writeBlock(strings, group);
+        }
+    }
+
+    private static void writeTags(Message message, OsmPrimitive p, StringTable strings) {
+        PackedLongs keys = new PackedLongs();
+        PackedLongs values = new PackedLongs();
+        p.visitKeys((primitive, key, value) -> {
+            keys.add(strings.get(key));
+            values.add(strings.get(value));
+        });
+        message.writePacked(2, keys);
+        message.writePacked(3, values);
+    }
+
+    private static Message info(OsmPrimitive p, StringTable strings) {
+        Message info = new Message();
+        info.writeVarint(1, p.getVersion());
+        info.writeVarint(2, p.getRawTimestamp());
+        info.writeVarint(3, p.getChangesetId());
+        info.writeVarint(4, uid(p.getUser()));
+        info.writeVarint(5, strings.userName(p.getUser()));
+        return info;
+    }
+
+    private static long uid(User user) {
+        return user != null && user.isOsmUser() ? user.getId() : 0;
+    }
+
+    private void writeBlock(StringTable strings, Message group) throws IOException {
+        Message block = new Message();
+        Message table = new Message();
+        for (String s : strings.list) {
+            table.writeString(1, s);
+        }
+        block.writeMessage(1, table);
+        block.writeMessage(2, group);
+        writeBlob("OSMData", block);
+    }
+
+    private void writeBlob(String type, Message data) throws IOException {
+        byte[] raw = data.toByteArray();
+        Deflater deflater = new Deflater();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[1 << 16];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        Message blob = new Message();
+        blob.writeVarint(2, raw.length);
+        blob.writeBytes(3, compressed.toByteArray());
+        Message header = new Message();
+        header.writeString(1, type);
+        header.writeVarint(3, blob.size());
+        out.writeInt(header.size());
+        header.writeTo(out);
+        blob.writeTo(out);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * The string table of a block. Index 0 is reserved for the empty string, which is used as delimiter.
+     */
+    private static final class StringTable {
+        final List<String> list = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+
+        StringTable() {
+            get("");
+        }
+
+        int get(String s) {
+            return indices.computeIfAbsent(s, k -> {
+                list.add(k);
+                return list.size() - 1;
+            });
+        }
+
+        int userName(User user) {
+            return user != null && user.isOsmUser() ? get(user.getName()) : 0;
+        }
+    }
+
+    /**
+     * Packed varints of a repeated field.
+     */
+    private static final class PackedLongs {
+        final Message bytes = new Message();
+
+        void add(long value) {
+            bytes.varint(value);
+        }
+
+        void addSigned(long value) {
+            bytes.varint((value << 1) ^ (value >> 63));
+        }
+    }
+
+    /**
+     * An encoded protobuf message.
+     */
+    private static final class Message extends ByteArrayOutputStream {
+        private static final int VARINT = 0;
+        private static final int LENGTH_DELIMITED = 2;
+
+        void varint(long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void key(int field, int wireType) {
+            varint((long) field << 3 | wireType);
+        }
+
+        void writeVarint(int field, long value) {
+            key(field, VARINT);
+            varint(value);
+        }
+
+        void writeSigned(int field, long value) {
+            writeVarint(field, (value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(int field, byte[] value) {
+            key(field, LENGTH_DELIMITED);
+            varint(value.length);
+            write(value, 0, value.length);
+        }
+
+        void writeString(int field, String value) {
+            writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeMessage(int field, Message message) {
+            key(field, LENGTH_DELIMITED);
+            varint(message.size());
+            write(message.buf, 0, message.count);
+        }
+
+        void writePacked(int field, PackedLongs values) {
+            if (values.bytes.size() > 0) {
+                writeMessage(field, values.bytes);
+            }
+        }
+    }
+}
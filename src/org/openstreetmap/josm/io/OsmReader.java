@@ -80,6 +80,16 @@ public class OsmReader extends AbstractReader {
         COMMON_XML_ATTRIBUTES.add("lon");
     }
 
+    /**
+     * Determines if the given attribute is a common attribute of OSM primitives, i.e. not converted to a tag
+     * with {@link Options#CONVERT_UNKNOWN_TO_TAGS}.
+     * @param name attribute name
+     * @return {@code true} if the attribute is a common attribute of OSM primitives
+     */
+    static boolean isCommonXmlAttribute(String name) {
+        return COMMON_XML_ATTRIBUTES.contains(name);
+    }
+
     /**
      * constructor (for private and subclasses use only)
      *
@@ -169,13 +179,9 @@ public class OsmReader extends AbstractReader {
                     parseBounds(generator);
                     break;
                 case "node":
-                    parseNode();
-                    break;
                 case "way":
-                    parseWay();
-                    break;
                 case "relation":
-                    parseRelation();
+                    parsePrimitive(parser.getLocalName());
                     break;
                 case "changeset":
                     parseChangeset(uploadChangesetId);
@@ -226,6 +232,25 @@ public class OsmReader extends AbstractReader {
         jumpToEnd();
     }
 
+    /**
+     * Parses the current node, way or relation of the root element and adds it to the data set.
+     * @param type the element name, {@code node}, {@code way} or {@code relation}
+     * @throws XMLStreamException if there is an error processing the underlying XML source
+     * @since xxx
+     */
+    protected void parsePrimitive(String type) throws XMLStreamException {
+        switch (type) {
+        case "node":
+            parseNode();
+            break;
+        case "way":
+            parseWay();
+            break;
+        default:
+            parseRelation();
+        }
+    }
+
     protected Node parseNode() throws XMLStreamException {
         String lat = parser.getAttributeValue(null, "lat");
         String lon = parser.getAttributeValue(null, "lon");
@@ -0,0 +1,460 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.UncheckedParseException;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Parser for the Osm API (XML output) which spreads the work over several threads. The result is the same as the
+ * one of {@link OsmReader}.
+ * <p>
+ * The reading is organized as a pipeline:
+ * <ol>
+ * <li>the calling thread tokenizes the XML stream and copies the raw attributes of nodes, ways and relations
+ * and of their children into batches of elements,</li>
+ * <li>the batches are parsed into primitive data by a worker pool: ids, versions, timestamps, users, coordinates
+ * and tags,</li>
+ * <li>the calling thread adds the parsed batches in document order, and eventually resolves the references of ways
+ * and relations in bulk when the data set is prepared.</li>
+ * </ol>
+ * Tag keys and values are deduplicated through an intern table shared by the workers.
+ * @since xxx
+ */
+public class ParallelOsmReader extends OsmReader {
+
+    /** Whether to use this reader when opening OSM files */
+    public static final BooleanProperty PREF_PARALLEL = new BooleanProperty("osm.reader.parallel", false);
+    /** The preference key for the number of threads used to parse elements */
+    public static final String PREF_NUMBER_OF_THREADS = "osm.reader.numberOfThreads";
+
+    /** The number of elements parsed by one task */
+    private static final int BATCH_SIZE = 1000;
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private ForkJoinPool pool;
+    private int maxPending;
+    private Deque<Future<List<Element>>> pending;
+    private List<Element> batch;
+    private boolean batchFailed;
+
+    /**
+     * constructor (for private and subclasses use only)
+     * @param options The options to use when reading data
+     *
+     * @see #parseDataSet(InputStream, ProgressMonitor, Options...)
+     */
+    protected ParallelOsmReader(Options... options) {
+        super(options);
+    }
+
+    @Override
+    protected String intern(String s) {
+        return strings.computeIfAbsent(s, String::intern);
+    }
+
+    @Override
+    protected void parse() throws XMLStreamException {
+        pool = Utils.newForkJoinPool(PREF_NUMBER_OF_THREADS, "osm-reader-%d", Thread.NORM_PRIORITY);
+        maxPending = 2 * pool.getParallelism();
+        pending = new ArrayDeque<>(maxPending);
+        batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            try {
+                super.parse();
+            } catch (XMLStreamException | RuntimeException e) {
+                if (!batchFailed && !(e instanceof ImportCancelException)) {
+                    // errors in the elements read so far are reported first, as by OsmReader
+                    addAllElements();
+                }
+                throw e;
+            }
+            addAllElements();
+        } finally {
+            pool.shutdownNow();
+            strings.clear();
+        }
+    }
+
+    /**
+     * Queues the current node, way or relation for parsing. The primitive is added to the data set later.
+     */
+    @Override
+    protected void parsePrimitive(String type) throws XMLStreamException {
+        switch (type) {
+        case "node":
+            addElement(readElement(Element.NODE));
+            break;
+        case "way":
+            addElement(readElement(Element.WAY));
+            break;
+        default:
+            addElement(readElement(Element.RELATION));
+        }
+    }
+
+    /**
+     * Copies the attributes of the current element and of its children. Unknown children are skipped as by {@link OsmReader}.
+     * @param type the element type
+     * @return the element
+     * @throws XMLStreamException if there is an error processing the underlying XML source
+     */
+    private Element readElement(int type) throws XMLStreamException {
+        Element element = new Element(type, parser);
+        while (parser.hasNext()) {
+            int event = parser.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = parser.getLocalName();
+                if ("tag".equals(name)) {
+                    element.tags.add(parser.getAttributeValue(null, "k"));
+                    element.tags.add(parser.getAttributeValue(null, "v"));
+                    jumpToEnd();
+                } else if ("nd".equals(name) && type == Element.WAY) {
+                    element.refs.add(parser.getAttributeValue(null, "ref"));
+                    jumpToEnd();
+                } else if ("member".equals(name) && type == Element.RELATION) {
+                    element.refs.add(parser.getAttributeValue(null, "ref"));
+                    element.refs.add(parser.getAttributeValue(null, "type"));
+                    element.refs.add(parser.getAttributeValue(null, "role"));
+                    jumpToEnd();
+                } else {
+                    parseUnknown();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        return element;
+    }
+
+    private void addAllElements() throws XMLStreamException {
+        submitBatch();
+        while (!pending.isEmpty()) {
+            addElements(pending.remove());
+        }
+    }
+
+    private void addElement(Element element) throws XMLStreamException {
+        batch.add(element);
+        if (batch.size() >= BATCH_SIZE) {
+            submitBatch();
+        }
+    }
+
+    private void submitBatch() throws XMLStreamException {
+        if (!batch.isEmpty()) {
+            pending.add(pool.submit(new BatchParser(batch)));
+            batch = new ArrayList<>(BATCH_SIZE);
+            if (pending.size() >= maxPending) {
+                addElements(pending.remove());
+            }
+        }
+    }
+
+    private void addElements(Future<List<Element>> parsed) throws XMLStreamException {
+        List<Element> elements;
+        try {
+            batchFailed = true;
+            elements = parsed.get();
+            batchFailed = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XmlStreamParsingException(e.getMessage(), parser.getLocation(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new XmlStreamParsingException(cause.getMessage(), parser.getLocation(), cause);
+        }
+        for (Element element : elements) {
+            if (element.type == Element.WAY) {
+                ways.put(element.data.getUniqueId(), element.nodeIds);
+            } else if (element.type == Element.RELATION) {
+                relations.put(element.data.getUniqueId(), element.members);
+            }
+            buildPrimitive(element.data);
+        }
+    }
+
+    /**
+     * Parses a batch of elements into primitive data.
+     */
+    private class BatchParser implements Callable<List<Element>> {
+        private final List<Element> elements;
+
+        BatchParser(List<Element> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public List<Element> call() throws XMLStreamException {
+            for (Element element : elements) {
+                try {
+                    parseElement(element);
+                } catch (IllegalDataException e) {
+                    throw new XmlStreamParsingException(e.getMessage(), element.location, e);
+                }
+                element.clearRawData();
+            }
+            return elements;
+        }
+
+        private void parseElement(Element e) throws IllegalDataException {
+            switch (e.type) {
+            case Element.NODE:
+                e.data = parseNodeData(e.getAttribute("lat"), e.getAttribute("lon"), pd -> readCommon(pd, e), nd -> readTags(nd, e));
+                break;
+            case Element.WAY:
+                e.nodeIds = new ArrayList<>(e.refs.size());
+                e.data = parseWayData(pd -> readCommon(pd, e), (wd, nodeIds) -> {
+                    readTags(wd, e);
+                    for (String ref : e.refs) {
+                        if (ref == null) {
+                            throw new IllegalDataException(
+                                    tr("Missing mandatory attribute ''{0}'' on <nd> of way {1}.", "ref", Long.toString(wd.getUniqueId())));
+                        }
+                        long id = getLong("ref", ref);
+                        if (id == 0) {
+                            throw new IllegalDataException(
+                                    tr("Illegal value of attribute ''ref'' of element <nd>. Got {0}.", Long.toString(id)));
+                        }
+                        nodeIds.add(id);
+                    }
+                }, e.nodeIds);
+                break;
+            default:
+                e.members = new ArrayList<>(e.refs.size() / 3);
+                e.data = parseRelationData(pd -> readCommon(pd, e), (rd, members) -> {
+                    readTags(rd, e);
+                    for (int i = 0; i < e.refs.size(); i += 3) {
+                        members.add(parseRelationMember(rd, e.refs.get(i), e.refs.get(i + 1), e.refs.get(i + 2)));
+                    }
+                }, e.members);
+            }
+        }
+
+        /**
+         * Reads the common attributes as {@link OsmReader} does.
+         * @param current primitive to update
+         * @param e the element
+         * @throws IllegalDataException in case of invalid data
+         */
+        private void readCommon(PrimitiveData current, Element e) throws IllegalDataException {
+            try {
+                parseId(current, getLong("id", e.getAttribute("id")));
+                parseTimestamp(current, e.getAttribute("timestamp"));
+                parseUser(current, e.getAttribute("user"), e.getAttribute("uid"));
+                parseVisible(current, e.getAttribute("visible"));
+                parseVersion(current, e.getAttribute("version"));
+                parseAction(current, e.getAttribute("action"));
+                parseChangeset(current, e.getAttribute("changeset"));
+
+                if (options.contains(Options.SAVE_ORIGINAL_ID)) {
+                    parseTag(current, "current_id", Long.toString(getLong("id", e.getAttribute("id"))));
+                }
+                if (options.contains(Options.CONVERT_UNKNOWN_TO_TAGS)) {
+                    for (int i = 0; i < e.attributes.length; i += 2) {
+                        if (!isCommonXmlAttribute(e.attributes[i])) {
+                            parseTag(current, e.attributes[i], e.attributes[i + 1]);
+                        }
+                    }
+                }
+            } catch (UncheckedParseException ex) {
+                throw new IllegalDataException(ex);
+            }
+        }
+
+        private void readTags(PrimitiveData current, Element e) throws IllegalDataException {
+            for (int i = 0; i < e.tags.size(); i += 2) {
+                parseTag(current, e.tags.get(i), e.tags.get(i + 1));
+            }
+        }
+    }
+
+    /**
+     * The raw attributes of a node, way or relation and of its children, and the parsing result.
+     */
+    private static final class Element {
+        static final int NODE = 0;
+        static final int WAY = 1;
+        static final int RELATION = 2;
+
+        final int type;
+        final Location location;
+        /** the attribute names and values, alternating */
+        String[] attributes;
+        /** the tag keys and values, alternating */
+        List<String> tags = new ArrayList<>();
+        /** the node refs of a way, or the member refs, types and roles of a relation */
+        List<String> refs = new ArrayList<>();
+
+        PrimitiveData data;
+        Collection<Long> nodeIds;
+        Collection<RelationMemberData> members;
+
+        Element(int type, XMLStreamReader parser) {
+            this.type = type;
+            this.location = new FixedLocation(parser.getLocation());
+            int count = parser.getAttributeCount();
+            attributes = new String[2 * count];
+            for (int i = 0; i < count; i++) {
+                attributes[2 * i] = parser.getAttributeLocalName(i);
+                attributes[2 * i + 1] = parser.getAttributeValue(i);
+            }
+        }
+
+        String getAttribute(String name) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (name.equals(attributes[i])) {
+                    return attributes[i + 1];
+                }
+            }
+            return null;
+        }
+
+        void clearRawData() {
+            attributes = null;
+            tags = null;
+            refs = null;
+        }
+    }
+
+    /**
+     * A copy of a parser location, which is not updated when the parser moves on.
+     */
+    private static final class FixedLocation implements Location {
+        private final int lineNumber;
+        private final int columnNumber;
+        private final int characterOffset;
+        private final String publicId;
+        private final String systemId;
+
+        FixedLocation(Location location) {
+            lineNumber = location.getLineNumber();
+            columnNumber = location.getColumnNumber();
+            characterOffset = location.getCharacterOffset();
+            publicId = location.getPublicId();
+            systemId = location.getSystemId();
+        }
+
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+
+        @Override
+        public int getCharacterOffset() {
+            return characterOffset;
+        }
+
+        @Override
+        public String getPublicId() {
+            return publicId;
+        }
+
+        @Override
+        public String getSystemId() {
+            return systemId;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the source, to report the throughput.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        CountingInputStream in = source == null ? null : new CountingInputStream(source);
+        long start = System.nanoTime();
+        DataSet result = super.doParseDataSet(in, progressMonitor);
+        if (Logging.isDebugEnabled()) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double megabytes = in.count / 1e6;
+            Logging.debug(String.format("Read %.1f MB of OSM data in %.2f s (%.1f MB/s)", megabytes, seconds, megabytes / seconds));
+        }
+        return result;
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link org.openstreetmap.josm.gui.progress.NullProgressMonitor#INSTANCE} is assumed
+     * @param options The options to use when parsing the dataset
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor, Options... options)
+            throws IllegalDataException {
+        return new ParallelOsmReader(options).doParseDataSet(source, progressMonitor);
+    }
+}
@@ -19,14 +19,17 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -38,6 +41,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -78,6 +83,7 @@ import org.openstreetmap.josm.tools.I18n;
 import org.openstreetmap.josm.tools.ImageProvider;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.ResourceProvider;
+import org.openstreetmap.josm.tools.Stopwatch;
 import org.openstreetmap.josm.tools.SubclassFilteredCollection;
 import org.openstreetmap.josm.tools.Utils;
 
@@ -296,6 +302,12 @@ public final class PluginHandler {
      */
     static final Collection<PluginInformation> pluginListNotLoaded = new LinkedList<>();
 
+    /**
+     * All installed plugins which are loaded once the main window is shown
+     * @see #loadLazyPlugins(Component, ProgressMonitor)
+     */
+    static final Collection<PluginInformation> pluginListLazy = new ArrayList<>();
+
     /**
      * All exceptions that occurred during plugin loading
      */
@@ -328,6 +340,12 @@ public final class PluginHandler {
 
     private static PluginDownloadTask pluginDownloadTask;
 
+    /**
+     * Pool loading the classes of plugins in parallel.
+     * @see #preloadPluginClasses(List)
+     */
+    private static ForkJoinPool preloadingPool;
+
     /**
      * Returns the list of currently installed and loaded plugins, sorted by name.
      * @return the list of currently installed and loaded plugins, sorted by name
@@ -806,12 +824,14 @@ public final class PluginHandler {
     private static void loadPlugin(Component parent, PluginInformation plugin, PluginClassLoader pluginClassLoader) {
         String msg = tr("Could not load plugin {0}. Delete from preferences?", "'"+plugin.name+"'");
         try {
+            Stopwatch stopwatch = Stopwatch.createStarted();
             Class<?> klass = plugin.loadClass(pluginClassLoader);
             if (klass != null) {
                 Logging.info(tr("loading plugin ''{0}'' (version {1})", plugin.name, plugin.localversion));
                 PluginProxy pluginProxy = plugin.load(klass, pluginClassLoader);
                 pluginList.add(pluginProxy);
                 MainApplication.addAndFireMapFrameListener(pluginProxy);
+                Logging.info(stopwatch.toString("Loading plugin " + plugin.name));
             }
             msg = null;
         } catch (PluginException e) {
@@ -838,6 +858,20 @@ public final class PluginHandler {
      * @param monitor the progress monitor. Defaults to {@link NullProgressMonitor#INSTANCE} if null.
      */
     public static void loadPlugins(Component parent, Collection<PluginInformation> plugins, ProgressMonitor monitor) {
+        loadPlugins(parent, plugins, monitor, false);
+    }
+
+    /**
+     * Loads the plugin in <code>plugins</code> from locally available jar files into memory.
+     *
+     * @param parent The parent component to be used for the displayed dialog
+     * @param plugins the list of plugins
+     * @param monitor the progress monitor. Defaults to {@link NullProgressMonitor#INSTANCE} if null.
+     * @param instantiateInEDT if {@code true}, the classes of the plugins are loaded by the calling thread, and the
+     * plugins are instantiated and registered as map frame listeners in the EDT
+     */
+    private static void loadPlugins(Component parent, Collection<PluginInformation> plugins, ProgressMonitor monitor,
+            boolean instantiateInEDT) {
         if (monitor == null) {
             monitor = NullProgressMonitor.INSTANCE;
         }
@@ -891,17 +925,76 @@ public final class PluginHandler {
 
             extendJoinedPluginResourceCL(toLoad);
             ResourceProvider.addAdditionalClassLoaders(getResourceClassLoaders());
+            ForkJoinTask<?> preloading = preloadPluginClasses(toLoad);
+            if (instantiateInEDT) {
+                if (preloading != null) {
+                    preloading.join();
+                    preloading = null;
+                }
+                for (PluginInformation info : toLoad) {
+                    if (info.className != null) {
+                        preloadClass(info.className, classLoaders.get(info.name));
+                    }
+                }
+            }
             monitor.setTicksCount(toLoad.size());
             for (PluginInformation info : toLoad) {
                 monitor.setExtraText(tr("Loading plugin ''{0}''...", info.name));
-                loadPlugin(parent, info, classLoaders.get(info.name));
+                if (instantiateInEDT) {
+                    GuiHelper.runInEDTAndWait(() -> loadPlugin(parent, info, classLoaders.get(info.name)));
+                } else {
+                    loadPlugin(parent, info, classLoaders.get(info.name));
+                }
                 monitor.worked(1);
             }
+            if (preloading != null) {
+                preloading.join();
+            }
         } finally {
             monitor.finishTask();
         }
     }
 
+    /**
+     * Loads the main classes of the plugins that do not depend on each other in parallel, so that their jars are
+     * opened and their classes defined while the plugins are instantiated one after the other.
+     * Plugins are still instantiated in the order of their stage, by {@link #loadPlugin}, since their constructors
+     * register actions, menus and other extensions in shared structures.
+     * @param toLoad the plugins to load, with their class loaders and dependencies set up
+     * @return the task loading the classes, or {@code null} if there is nothing to load in parallel
+     */
+    private static ForkJoinTask<?> preloadPluginClasses(List<PluginInformation> toLoad) {
+        Map<String, PluginClassLoader> independentPlugins = new LinkedHashMap<>();
+        for (PluginInformation info : toLoad) {
+            if (info.className != null && info.getLocalRequiredPlugins().isEmpty()
+                    && toLoad.stream().noneMatch(other -> other.getLocalRequiredPlugins().stream()
+                            .anyMatch(depName -> isDependency(info, depName)))) {
+                independentPlugins.put(info.className, classLoaders.get(info.name));
+            }
+        }
+        if (independentPlugins.size() <= 1) {
+            return null;
+        }
+        return getPreloadingPool().submit(() -> independentPlugins.entrySet().parallelStream()
+                .forEach(e -> preloadClass(e.getKey(), e.getValue())));
+    }
+
+    private static void preloadClass(String className, ClassLoader classLoader) {
+        try {
+            Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            // reported when the plugin is loaded
+            Logging.trace(ex);
+        }
+    }
+
+    private static synchronized ForkJoinPool getPreloadingPool() {
+        if (preloadingPool == null) {
+            preloadingPool = Utils.newForkJoinPool("plugins.loader.numberOfThreads", "plugin-loader-%d", Thread.NORM_PRIORITY);
+        }
+        return preloadingPool;
+    }
+
     private static boolean isDependency(PluginInformation pi, String depName) {
         return depName.equals(pi.getName()) || depName.equals(pi.provides);
     }
@@ -943,12 +1036,80 @@ public final class PluginHandler {
      * @param monitor the progress monitor. Defaults to {@link NullProgressMonitor#INSTANCE} if null.
      */
     public static void loadLatePlugins(Component parent, Collection<PluginInformation> plugins, ProgressMonitor monitor) {
+        List<PluginInformation> lazyPlugins = getLazyPlugins(plugins);
         List<PluginInformation> latePlugins = plugins.stream()
-                .filter(pi -> !pi.early)
+                .filter(pi -> !pi.early && !lazyPlugins.contains(pi))
                 .collect(Collectors.toList());
+        synchronized (pluginListLazy) {
+            pluginListLazy.addAll(lazyPlugins);
+        }
         loadPlugins(parent, latePlugins, monitor);
     }
 
+    /**
+     * Returns the late plugins from <code>plugins</code> with the flag {@link PluginInformation#lazy} set to true
+     * which can be loaded after the other plugins. Lazy plugins required by non-lazy plugins, directly or through
+     * other lazy plugins, are not returned since they must be loaded with them.
+     *
+     * @param plugins the collection of plugins
+     * @return the plugins which can be loaded by {@link #loadLazyPlugins}
+     */
+    static List<PluginInformation> getLazyPlugins(Collection<PluginInformation> plugins) {
+        List<PluginInformation> lazyPlugins = plugins.stream()
+                .filter(pi -> !pi.early && pi.lazy)
+                .collect(Collectors.toList());
+        Deque<PluginInformation> requiring = plugins.stream()
+                .filter(pi -> !pi.lazy)
+                .collect(Collectors.toCollection(ArrayDeque::new));
+        while (!requiring.isEmpty() && !lazyPlugins.isEmpty()) {
+            PluginInformation info = requiring.poll();
+            for (Iterator<PluginInformation> it = lazyPlugins.iterator(); it.hasNext();) {
+                PluginInformation lazyPlugin = it.next();
+                if (info.getLocalRequiredPlugins().stream().anyMatch(depName -> isDependency(lazyPlugin, depName))) {
+                    it.remove();
+                    requiring.add(lazyPlugin);
+                }
+            }
+        }
+        return lazyPlugins;
+    }
+
+    /**
+     * Determines if plugins with the flag {@link PluginInformation#lazy} set to true have been left out by
+     * {@link #loadLatePlugins} and still have to be loaded by {@link #loadLazyPlugins}.
+     *
+     * @return {@code true} if there are lazy plugins to load
+     * @since xxx
+     */
+    public static boolean hasLazyPlugins() {
+        synchronized (pluginListLazy) {
+            return !pluginListLazy.isEmpty();
+        }
+    }
+
+    /**
+     * Loads the plugins with the flag {@link PluginInformation#lazy} set to true, which have been left out by
+     * {@link #loadLatePlugins}. This is meant to be called once the main window is shown, outside of the EDT.
+     * The classes of the plugins are loaded by the calling thread, while the plugins are instantiated in the EDT,
+     * since they add menus, actions and other components to the user interface.
+     *
+     * @param parent The parent component to be used for the displayed dialog
+     * @param monitor the progress monitor. Defaults to {@link NullProgressMonitor#INSTANCE} if null.
+     * @since xxx
+     */
+    public static void loadLazyPlugins(Component parent, ProgressMonitor monitor) {
+        List<PluginInformation> lazyPlugins;
+        synchronized (pluginListLazy) {
+            lazyPlugins = new ArrayList<>(pluginListLazy);
+            pluginListLazy.clear();
+        }
+        if (!lazyPlugins.isEmpty()) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            loadPlugins(parent, lazyPlugins, monitor, true);
+            Logging.info(stopwatch.toString("Loading " + lazyPlugins.size() + " lazy plugins"));
+        }
+    }
+
     /**
      * Loads locally available plugin information from local plugin jars and from cached
      * plugin lists.
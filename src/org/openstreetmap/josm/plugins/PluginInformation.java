@@ -89,6 +89,11 @@ public class PluginInformation {
     private ImageProvider icon;
     /** Plugin can be loaded at any time and not just at start. */
     public boolean canloadatruntime;
+    /**
+     * Plugin is not needed to show the main window, and is activated once it is shown.
+     * @since xxx
+     */
+    public boolean lazy;
     /** The libraries referenced in Class-Path manifest attribute. */
     public List<URL> libraries = new LinkedList<>();
     /** All manifest attributes. */
@@ -120,11 +125,37 @@ public class PluginInformation {
      * @throws PluginException if reading the manifest file fails
      */
     public PluginInformation(File file, String name) throws PluginException {
+        this(file, name, readManifest(file, name));
+    }
+
+    /**
+     * Creates a plugin information object for the plugin with name {@code name},
+     * from the manifest already read from the plugin jar {@code file}.
+     * @param file the plugin jar
+     * @param name the plugin name
+     * @param manifest the manifest of the plugin jar
+     * @see #readManifest(File, String)
+     * @since xxx
+     */
+    PluginInformation(File file, String name, Manifest manifest) {
+        this.name = name;
+        this.file = file;
+        scanManifest(manifest.getMainAttributes(), false);
+        libraries.add(0, Utils.fileToURL(file));
+    }
+
+    /**
+     * Reads the manifest of a plugin jar.
+     * @param file the plugin jar
+     * @param name the plugin name
+     * @return the manifest of the plugin jar
+     * @throws PluginException if the jar is invalid or does not include a manifest
+     * @since xxx
+     */
+    static Manifest readManifest(File file, String name) throws PluginException {
         if (!PluginHandler.isValidJar(file)) {
             throw new PluginException(tr("Invalid jar file ''{0}''", file));
         }
-        this.name = name;
-        this.file = file;
         try (
             InputStream fis = Files.newInputStream(file.toPath());
             JarInputStream jar = new JarInputStream(fis)
@@ -132,8 +163,7 @@ public class PluginInformation {
             Manifest manifest = jar.getManifest();
             if (manifest == null)
                 throw new PluginException(tr("The plugin file ''{0}'' does not include a Manifest.", file.toString()));
-            scanManifest(manifest.getMainAttributes(), false);
-            libraries.add(0, Utils.fileToURL(file));
+            return manifest;
         } catch (IOException | InvalidPathException e) {
             throw new PluginException(name, e);
         }
@@ -203,6 +233,7 @@ public class PluginInformation {
         this.icon = other.icon;
         this.iconPath = other.iconPath;
         this.canloadatruntime = other.canloadatruntime;
+        this.lazy = other.lazy;
         this.libraries = other.libraries;
         this.attr = new Attributes(other.attr);
         this.invalidManifestEntries.clear();
@@ -224,6 +255,7 @@ public class PluginInformation {
         this.early = other.early;
         this.className = other.className;
         this.canloadatruntime = other.canloadatruntime;
+        this.lazy = other.lazy;
         this.libraries = other.libraries;
         this.stage = other.stage;
         this.file = other.file;
@@ -294,6 +326,7 @@ public class PluginInformation {
             }
         }
         canloadatruntime = Boolean.parseBoolean(attr.getValue("Plugin-Canloadatruntime"));
+        lazy = Boolean.parseBoolean(attr.getValue("Plugin-Lazy"));
         int myv = Version.getInstance().getVersion();
         for (Map.Entry<Object, Object> entry : attr.entrySet()) {
             String key = ((Attributes.Name) entry.getKey()).toString();
@@ -0,0 +1,169 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Cache of the manifests of the plugin jars, so that the jars do not have to be opened at each startup.
+ * <p>
+ * The manifests are stored in a single file of the cache directory, keyed by the path, size and modification
+ * time of the jar. The file only keeps the manifests of the jars looked up since it was loaded.
+ * @since xxx
+ */
+final class PluginManifestCache {
+
+    /** Version of the cache file, files with another version are ignored */
+    private static final int VERSION = 1;
+
+    private final File cacheFile;
+    private final Map<String, CachedManifest> manifests = new HashMap<>();
+    private final Map<String, CachedManifest> usedManifests = new HashMap<>();
+    private boolean modified;
+
+    private static final class CachedManifest {
+        private final long length;
+        private final long lastModified;
+        private final byte[] content;
+
+        CachedManifest(long length, long lastModified, byte[] content) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+        boolean isValidFor(File jar) {
+            return length == jar.length() && lastModified == jar.lastModified();
+        }
+    }
+
+    /**
+     * Constructs a new {@code PluginManifestCache}.
+     * @param cacheFile the cache file
+     */
+    PluginManifestCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache from the default cache file.
+     * @return the loaded cache, empty if the cache file does not exist or cannot be read
+     */
+    static PluginManifestCache load() {
+        PluginManifestCache cache = new PluginManifestCache(
+                new File(Config.getDirs().getCacheDirectory(true), "plugin-manifests.cache"));
+        cache.read();
+        return cache;
+    }
+
+    /**
+     * Reads the cache file. The cache is left empty if the file does not exist or cannot be read.
+     */
+    void read() {
+        manifests.clear();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            if (in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long length = in.readLong();
+                long lastModified = in.readLong();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                manifests.put(path, new CachedManifest(length, lastModified, content));
+            }
+        } catch (IOException | InvalidPathException | NegativeArraySizeException e) {
+            Logging.warn("Unable to read plugin manifest cache " + cacheFile);
+            Logging.debug(e);
+            manifests.clear();
+        }
+    }
+
+    /**
+     * Returns the cached manifest of a plugin jar.
+     * @param jar the plugin jar
+     * @return the manifest, or {@code null} if it is not cached or the jar has changed
+     */
+    Manifest get(File jar) {
+        String path = jar.getAbsolutePath();
+        CachedManifest cached = usedManifests.getOrDefault(path, manifests.get(path));
+        if (cached == null || !cached.isValidFor(jar)) {
+            return null;
+        }
+        try {
+            Manifest manifest = new Manifest(new ByteArrayInputStream(cached.content));
+            usedManifests.put(path, cached);
+            return manifest;
+        } catch (IOException e) {
+            Logging.debug(e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds the manifest of a plugin jar to the cache.
+     * @param jar the plugin jar
+     * @param manifest the manifest read from the jar
+     */
+    void put(File jar, Manifest manifest) {
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            manifest.write(content);
+            usedManifests.put(jar.getAbsolutePath(), new CachedManifest(jar.length(), jar.lastModified(), content.toByteArray()));
+            modified = true;
+        } catch (IOException e) {
+            Logging.debug(e);
+        }
+    }
+
+    /**
+     * Writes the manifests looked up or added since the cache was read to the cache file, if they changed.
+     */
+    void save() {
+        if (!modified && usedManifests.size() == manifests.size()) {
+            return;
+        }
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath())))) {
+                out.writeInt(VERSION);
+                out.writeInt(usedManifests.size());
+                for (Map.Entry<String, CachedManifest> entry : usedManifests.entrySet()) {
+                    CachedManifest cached = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(cached.length);
+                    out.writeLong(cached.lastModified);
+                    out.writeInt(cached.content.length);
+                    out.write(cached.content);
+                }
+            }
+            Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            manifests.clear();
+            manifests.putAll(usedManifests);
+            modified = false;
+        } catch (IOException | InvalidPathException e) {
+            Logging.warn("Unable to write plugin manifest cache " + cacheFile);
+            Logging.debug(e);
+        }
+    }
+}
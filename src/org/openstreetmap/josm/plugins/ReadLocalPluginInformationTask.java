@@ -13,12 +13,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.jar.Manifest;
 
 import org.openstreetmap.josm.data.Preferences;
 import org.openstreetmap.josm.gui.PleaseWaitRunnable;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.io.OsmTransferException;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.xml.sax.SAXException;
 
@@ -39,6 +41,8 @@ import org.xml.sax.SAXException;
 public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
     private final Map<String, PluginInformation> availablePlugins;
     private boolean canceled;
+    /** Cache of the plugin manifests, while plugin files are scanned */
+    private PluginManifestCache manifestCache;
 
     /**
      * Constructs a new {@code ReadLocalPluginInformationTask}.
@@ -68,10 +72,20 @@ public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
     }
 
     protected void processJarFile(File f, String pluginName) throws PluginException {
-        PluginInformation info = new PluginInformation(
-                f,
-                pluginName
-        );
+        PluginInformation info;
+        if (manifestCache != null) {
+            Manifest manifest = manifestCache.get(f);
+            if (manifest == null) {
+                manifest = PluginInformation.readManifest(f, pluginName);
+                manifestCache.put(f, manifest);
+            }
+            info = new PluginInformation(f, pluginName, manifest);
+        } else {
+            info = new PluginInformation(
+                    f,
+                    pluginName
+            );
+        }
         if (!availablePlugins.containsKey(info.getName())) {
             info.updateLocalInfo(info);
             availablePlugins.put(info.getName(), info);
@@ -112,6 +126,18 @@ public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
             return;
         monitor.subTask(tr("Processing plugin files..."));
         monitor.setTicksCount(pluginFiles.length);
+        manifestCache = Config.getPref().getBoolean("plugins.manifest-cache", true) ? PluginManifestCache.load() : null;
+        try {
+            processPluginFiles(monitor, pluginFiles);
+        } finally {
+            if (manifestCache != null) {
+                manifestCache.save();
+                manifestCache = null;
+            }
+        }
+    }
+
+    private void processPluginFiles(ProgressMonitor monitor, File[] pluginFiles) {
         for (File f: pluginFiles) {
             String fname = f.getName();
             monitor.setCustomText(tr("Processing file ''{0}''", fname));
@@ -3,13 +3,16 @@ package org.openstreetmap.josm.tools;
 
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Image warping algorithm.
@@ -19,6 +22,11 @@ import java.util.Set;
  */
 public final class ImageWarp {
 
+    /** The minimal number of rows warped by one thread */
+    private static final int MIN_BAND_HEIGHT = 32;
+
+    private static ForkJoinPool threadPool;
+
     private ImageWarp() {
         // Hide default constructor
     }
@@ -121,6 +129,67 @@ public final class ImageWarp {
         }
     }
 
+    /**
+     * Wrapper that optimizes a given {@link ImageWarp.PointTransform} for a target image of known size.
+     *
+     * Like {@link GridTransform}, it invokes the master transform only at the points of a grid with
+     * certain step size, and uses bilinear interpolation in between. But the whole grid is computed
+     * once, when the transform is created. So this transform is random access and thread safe, and
+     * it can be kept and used again to warp other images with the same target dimension.
+     * @since xxx
+     */
+    public static final class PrecomputedGridTransform implements ImageWarp.PointTransform {
+
+        private final double stride;
+        private final ImageWarp.PointTransform trfm;
+        private final int columns;
+        private final int rows;
+        private final double[] valuesX;
+        private final double[] valuesY;
+
+        /**
+         * Create a new PrecomputedGridTransform.
+         * @param trfm the master transform, that needs to be optimized
+         * @param stride step size
+         * @param targetDim dimension of the target image
+         */
+        public PrecomputedGridTransform(ImageWarp.PointTransform trfm, double stride, Dimension targetDim) {
+            this.trfm = trfm;
+            this.stride = stride;
+            // one more grid point in each direction, so the last pixels can be interpolated
+            this.columns = (int) Math.floor(Math.max(targetDim.width - 1, 0) / stride) + 2;
+            this.rows = (int) Math.floor(Math.max(targetDim.height - 1, 0) / stride) + 2;
+            this.valuesX = new double[columns * rows];
+            this.valuesY = new double[columns * rows];
+            for (int yIdx = 0; yIdx < rows; yIdx++) {
+                for (int xIdx = 0; xIdx < columns; xIdx++) {
+                    Point2D value = trfm.transform(new Point2D.Double(xIdx * stride, yIdx * stride));
+                    valuesX[yIdx * columns + xIdx] = value.getX();
+                    valuesY[yIdx * columns + xIdx] = value.getY();
+                }
+            }
+        }
+
+        @Override
+        public Point2D transform(Point2D pt) {
+            int xIdx = (int) Math.floor(pt.getX() / stride);
+            int yIdx = (int) Math.floor(pt.getY() / stride);
+            if (xIdx < 0 || yIdx < 0 || xIdx + 1 >= columns || yIdx + 1 >= rows) {
+                // outside of the target image
+                return trfm.transform(pt);
+            }
+            double dx = pt.getX() / stride - xIdx;
+            double dy = pt.getY() / stride - yIdx;
+            int i00 = yIdx * columns + xIdx;
+            int i01 = i00 + columns;
+            double valueX = (valuesX[i00] * (1-dx) + valuesX[i00 + 1] * dx) * (1-dy) +
+                    (valuesX[i01] * (1-dx) + valuesX[i01 + 1] * dx) * dy;
+            double valueY = (valuesY[i00] * (1-dx) + valuesY[i00 + 1] * dx) * (1-dy) +
+                    (valuesY[i01] * (1-dx) + valuesY[i01 + 1] * dx) * dy;
+            return new Point2D.Double(valueX, valueY);
+        }
+    }
+
     /**
      * Interpolation method.
      */
@@ -150,26 +219,74 @@ public final class ImageWarp {
      * @return the warped image
      */
     public static BufferedImage warp(BufferedImage srcImg, Dimension targetDim, PointTransform invTransform, Interpolation interpolation) {
+        return warp(srcImg, targetDim, invTransform, interpolation, false);
+    }
+
+    /**
+     * Warp an image, optionally on several threads.
+     *
+     * The pixels are read and written as arrays of ARGB values. In parallel mode, the target image is split into bands
+     * of rows, which are warped at the same time. The transform must then be thread safe and random access, like
+     * {@link PrecomputedGridTransform}; {@link GridTransform} is not.
+     * @param srcImg the original image
+     * @param targetDim dimension of the target image
+     * @param invTransform inverse transformation (translates pixel coordinates
+     * of the target image to pixel coordinates of the original image)
+     * @param interpolation the interpolation method
+     * @param parallel if {@code true}, warp bands of rows on several threads
+     * @return the warped image
+     * @since xxx
+     */
+    public static BufferedImage warp(BufferedImage srcImg, Dimension targetDim, PointTransform invTransform, Interpolation interpolation,
+            boolean parallel) {
+        Objects.requireNonNull(interpolation, "interpolation");
         BufferedImage imgTarget = new BufferedImage(targetDim.width, targetDim.height, BufferedImage.TYPE_INT_ARGB);
-        Rectangle2D srcRect = new Rectangle2D.Double(0, 0, srcImg.getWidth(), srcImg.getHeight());
-        for (int j = 0; j < imgTarget.getHeight(); j++) {
-            for (int i = 0; i < imgTarget.getWidth(); i++) {
+        SourcePixels src = new SourcePixels(srcImg);
+        int width = imgTarget.getWidth();
+        int height = imgTarget.getHeight();
+        int[] target = new int[width * height];
+        ForkJoinPool pool = parallel ? getThreadPool() : null;
+        int bands = pool == null ? 1 : Math.min(pool.getParallelism() * 2, height / MIN_BAND_HEIGHT);
+        if (bands > 1) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+            for (int band = 0; band < bands; band++) {
+                int startRow = band * height / bands;
+                int endRow = (band + 1) * height / bands;
+                tasks.add(pool.submit(() -> warpRows(src, target, width, startRow, endRow, invTransform, interpolation)));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } else {
+            warpRows(src, target, width, 0, height, invTransform, interpolation);
+        }
+        // copy the pixels instead of writing to the data buffer, so the image can still be accelerated by Java2D
+        imgTarget.getRaster().setDataElements(0, 0, width, height, target);
+        return imgTarget;
+    }
+
+    private static void warpRows(SourcePixels src, int[] target, int width, int startRow, int endRow, PointTransform invTransform,
+            Interpolation interpolation) {
+        for (int j = startRow; j < endRow; j++) {
+            for (int i = 0; i < width; i++) {
                 Point2D srcCoord = invTransform.transform(new Point2D.Double(i, j));
-                if (srcRect.contains(srcCoord)) {
+                double x = srcCoord.getX();
+                double y = srcCoord.getY();
+                if (x >= 0 && y >= 0 && x < src.width && y < src.height) {
                     int rgba;
                     switch (interpolation) {
                         case NEAREST_NEIGHBOR:
-                            rgba = getColor((int) Math.round(srcCoord.getX()), (int) Math.round(srcCoord.getY()), srcImg);
+                            rgba = src.getColor((int) Math.round(x), (int) Math.round(y));
                             break;
                         case BILINEAR:
-                            int x0 = (int) Math.floor(srcCoord.getX());
-                            double dx = srcCoord.getX() - x0;
-                            int y0 = (int) Math.floor(srcCoord.getY());
-                            double dy = srcCoord.getY() - y0;
-                            int c00 = getColor(x0, y0, srcImg);
-                            int c01 = getColor(x0, y0 + 1, srcImg);
-                            int c10 = getColor(x0 + 1, y0, srcImg);
-                            int c11 = getColor(x0 + 1, y0 + 1, srcImg);
+                            int x0 = (int) Math.floor(x);
+                            double dx = x - x0;
+                            int y0 = (int) Math.floor(y);
+                            double dy = y - y0;
+                            int c00 = src.getColor(x0, y0);
+                            int c01 = src.getColor(x0, y0 + 1);
+                            int c10 = src.getColor(x0 + 1, y0);
+                            int c11 = src.getColor(x0 + 1, y0 + 1);
                             rgba = 0;
                             // loop over color components: blue, green, red, alpha
                             for (int ch = 0; ch <= 3; ch++) {
@@ -183,17 +300,40 @@ public final class ImageWarp {
                         default:
                             throw new AssertionError(Objects.toString(interpolation));
                     }
-                    imgTarget.setRGB(i, j, rgba);
+                    target[j * width + i] = rgba;
                 }
             }
         }
-        return imgTarget;
     }
 
-    private static int getColor(int x, int y, BufferedImage img) {
-        // border strategy: continue with the color of the outermost pixel,
-        return img.getRGB(
-                Utils.clamp(x, 0, img.getWidth() - 1),
-                Utils.clamp(y, 0, img.getHeight() - 1));
+    private static synchronized ForkJoinPool getThreadPool() {
+        if (threadPool == null) {
+            try {
+                threadPool = Utils.newForkJoinPool("imagery.warp.numberOfThreads", "image-warp-%d", Thread.NORM_PRIORITY);
+            } catch (SecurityException e) {
+                Logging.log(Logging.LEVEL_ERROR, "Unable to create new ForkJoinPool", e);
+            }
+        }
+        return threadPool;
+    }
+
+    /**
+     * The pixels of the original image, as ARGB values.
+     */
+    private static final class SourcePixels {
+        private final int width;
+        private final int height;
+        private final int[] pixels;
+
+        SourcePixels(BufferedImage img) {
+            this.width = img.getWidth();
+            this.height = img.getHeight();
+            this.pixels = img.getRGB(0, 0, width, height, null, 0, width);
+        }
+
+        int getColor(int x, int y) {
+            // border strategy: continue with the color of the outermost pixel,
+            return pixels[Utils.clamp(y, 0, height - 1) * width + Utils.clamp(x, 0, width - 1)];
+        }
     }
 }
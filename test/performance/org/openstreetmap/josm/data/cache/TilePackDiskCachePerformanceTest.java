@@ -0,0 +1,116 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
+import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.disk.block.BlockDiskCache;
+import org.apache.commons.jcs3.auxiliary.disk.block.BlockDiskCacheAttributes;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+
+/**
+ * This test compares the JCS block disk cache with {@link TilePackDiskCache} for cold start, hit latency and disk footprint.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class TilePackDiskCachePerformanceTest {
+    private static final int TILES = 5_000;
+    private static final int TILE_SIZE = 20_000;
+    private static final int GETS = 50_000;
+    private static final int MAX_SIZE = 512_000;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Measures the JCS block disk cache.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testBlockDiskCache(@TempDir File dir) throws Exception {
+        run("block disk cache", dir, d -> {
+            BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+            attributes.setCacheName("TMS_BLOCK_v2");
+            attributes.setDiskPath(d.getAbsolutePath());
+            attributes.setMaxKeySize(MAX_SIZE);
+            attributes.setBlockSizeBytes(4096);
+            attributes.setDiskLimitType(IDiskCacheAttributes.DiskLimitType.SIZE);
+            return new BlockDiskCache<>(attributes, new StandardSerializer());
+        });
+    }
+
+    /**
+     * Measures the tile pack disk cache.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testTilePackDiskCache(@TempDir File dir) throws Exception {
+        run("tile pack disk cache", dir, d -> {
+            TilePackDiskCacheAttributes attributes = new TilePackDiskCacheAttributes();
+            attributes.setCacheName("TMS_PACK_v1");
+            attributes.setDiskPath(d);
+            attributes.setMaxSize(MAX_SIZE);
+            TilePackDiskCache<String, CacheEntry> cache = new TilePackDiskCache<>(attributes);
+            cache.setElementSerializer(new StandardSerializer());
+            return cache;
+        });
+    }
+
+    private static void run(String name, File dir, Function<File, AbstractDiskCache<String, CacheEntry>> factory)
+            throws Exception {
+        Random random = new Random(42);
+        byte[] content = new byte[TILE_SIZE];
+        random.nextBytes(content);
+
+        AbstractDiskCache<String, CacheEntry> cache = factory.apply(dir);
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer(name + ": store " + TILES + " tiles");
+        for (int i = 0; i < TILES; i++) {
+            cache.update(new CacheElement<>("TMS", "TMS:" + i, new BufferedImageCacheEntry(content), new CacheEntryAttributes()));
+        }
+        // updates are written by the event queue of the cache
+        while (cache.getSize() < TILES) {
+            Thread.sleep(10);
+        }
+        cache.dispose();
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer(name + ": cold start");
+        cache = factory.apply(dir);
+        assertEquals(TILE_SIZE, cache.get("TMS:0").getVal().getContent().length);
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer(name + ": " + GETS + " hits");
+        for (int i = 0; i < GETS; i++) {
+            cache.get("TMS:" + random.nextInt(TILES));
+        }
+        timer.done();
+        cache.dispose();
+
+        long size = 0;
+        for (File file : dir.listFiles()) {
+            size += file.length();
+        }
+        System.out.printf("%s: %d bytes on disk for %d bytes of tiles%n", name, size, (long) TILES * TILE_SIZE);
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " size (bytes)", size);
+    }
+}
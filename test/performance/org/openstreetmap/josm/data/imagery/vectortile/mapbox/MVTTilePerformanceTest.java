@@ -0,0 +1,103 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
+
+/**
+ * This test measures the throughput and the allocations of decoding Mapbox Vector Tiles.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class MVTTilePerformanceTest {
+    private static final int TIMES = 200;
+    private static final String[] TILES = {
+        "pbf/mapillary/14/3248/6258.mvt",
+        "pbf/mapillary/14/3249/6258.mvt",
+        "pbf/openinframap/17/26028/50060.pbf",
+    };
+    private static final List<byte[]> tiles = new ArrayList<>();
+
+    /**
+     * Prepare the test.
+     * @throws IOException if the tiles cannot be read
+     */
+    @BeforeAll
+    public static void load() throws IOException {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        for (String tile : TILES) {
+            tiles.add(Files.readAllBytes(Paths.get(TestUtils.getTestDataRoot(), tile)));
+        }
+    }
+
+    private static Collection<Layer> decode(byte[] tile) throws IOException {
+        Collection<Layer> layers = new ArrayList<>();
+        ProtobufReader reader = new ProtobufReader(tile);
+        while (reader.next()) {
+            if (reader.getField() == Layer.LAYER_FIELD) {
+                layers.add(new Layer(reader.readMessage()));
+            } else {
+                reader.skip();
+            }
+        }
+        return layers;
+    }
+
+    private static void decodeAll() {
+        try {
+            for (int i = 0; i < TIMES; i++) {
+                for (byte[] tile : tiles) {
+                    assertFalse(decode(tile).isEmpty());
+                }
+            }
+        } catch (IOException e) {
+            throw new JosmRuntimeException(e);
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long[] ids = bean.getAllThreadIds();
+        return Arrays.stream(((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(ids)).filter(b -> b > 0).sum();
+    }
+
+    /**
+     * Measures the time to decode the test tiles.
+     */
+    @Test
+    void testDecodeThroughput() {
+        PerformanceTestUtils.runPerformanceTest("decode " + TIMES + " times " + TILES.length + " vector tiles",
+                MVTTilePerformanceTest::decodeAll);
+    }
+
+    /**
+     * Measures the memory allocated to decode the test tiles.
+     */
+    @Test
+    void testDecodeAllocations() {
+        decodeAll();
+        long before = getAllocatedBytes();
+        decodeAll();
+        long allocated = getAllocatedBytes() - before;
+        PerformanceTestUtils.measurementPlotsPluginOutput("decode vector tile: allocated bytes per tile",
+                (double) allocated / (TIMES * TILES.length));
+    }
+}
@@ -0,0 +1,62 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+
+/**
+ * This test measures the time to merge a large data set, and how long the target data set is locked.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetMergerPerformanceTest {
+    private static DataSet dataSet;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        dataSet = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    /**
+     * Merges the data set into an empty data set.
+     */
+    @Test
+    void testMergeIntoEmptyDataSet() {
+        PerformanceTestUtils.runPerformanceTest("merge into empty data set", () -> {
+            DataSet target = new DataSet();
+            new DataSetMerger(target, dataSet).merge();
+            assertEquals(dataSet.allPrimitives().size(), target.allPrimitives().size());
+        });
+    }
+
+    /**
+     * Merges the data set into a data set already containing it, like a second download of the same area.
+     */
+    @Test
+    void testMergeIntoSameDataSet() {
+        DataSet target = new DataSet();
+        new DataSetMerger(target, dataSet).merge();
+        List<Long> lockHoldTimes = new ArrayList<>();
+        PerformanceTestUtils.runPerformanceTest("merge into data set with the same primitives", () -> {
+            DataSetMerger merger = new DataSetMerger(target, dataSet);
+            merger.merge();
+            assertEquals(0, merger.getConflicts().size());
+            lockHoldTimes.add(merger.getLockHoldTime());
+        });
+        PerformanceTestUtils.measurementPlotsPluginOutput("merge into data set with the same primitives: lock hold time",
+                lockHoldTimes.stream().mapToLong(Long::longValue).average().getAsDouble());
+    }
+}
@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.search.SearchParseError;
+
+/**
+ * This test measures the time to run the filters on a data set, on all primitives and on the primitives affected by a change.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class FilterPerformanceTest {
+    private static DataSet dataSet;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        dataSet = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    private static List<Boolean> getFilterStates(Collection<OsmPrimitive> primitives) {
+        List<Boolean> states = new ArrayList<>(primitives.size() * 2);
+        for (OsmPrimitive p : primitives) {
+            states.add(p.isDisabled());
+            states.add(p.isDisabledAndHidden());
+        }
+        return states;
+    }
+
+    /**
+     * Runs a filter on all primitives, and on the primitives affected by a change of one way.
+     * @param text the filter expression
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"highway=*", "-building=*", "child highway=primary", "parent type=multipolygon"})
+    void testFilter(String text) throws SearchParseError {
+        Filter filter = new Filter();
+        filter.text = text;
+        filter.hiding = true;
+        FilterMatcher filterMatcher = new FilterMatcher();
+        filterMatcher.update(Collections.singleton(filter));
+        Collection<OsmPrimitive> all = dataSet.allNonDeletedCompletePrimitives();
+
+        dataSet.update(() -> {
+            // the result does not depend on running in parallel or not
+            FilterWorker.clearFilterFlags(all);
+            for (Class<? extends OsmPrimitive> type : Arrays.asList(Relation.class, Way.class, Node.class)) {
+                all.stream().filter(type::isInstance).forEach(p -> FilterWorker.executeFilters(p, filterMatcher));
+            }
+            List<Boolean> expected = getFilterStates(all);
+            FilterWorker.clearFilterFlags(all);
+            FilterWorker.executeFilters(all, filterMatcher);
+            assertEquals(expected, getFilterStates(all));
+
+            PerformanceTestUtils.runPerformanceTest("filter all primitives: " + text,
+                    () -> FilterWorker.executeFilters(all, filterMatcher));
+        });
+
+        Way way = dataSet.getWays().stream().filter(w -> w.hasKey("highway")).findFirst().get();
+        PerformanceTestUtils.runPerformanceTest("filter affected primitives: " + text, () -> dataSet.update(() -> {
+            Collection<OsmPrimitive> affected = FilterModel.getAffectedPrimitives(Collections.singleton(way),
+                    filterMatcher.getReferenceDepth());
+            FilterWorker.executeFilters(affected, filterMatcher);
+        }));
+    }
+}
@@ -0,0 +1,105 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test measures the heap used by untagged nodes stored in a {@link DataSet}, compared to a columnar layout
+ * which keeps id, fixed-point coordinates, version and flags of each node in parallel primitive arrays.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class NodeMemoryPerformanceTest {
+    private static final int NODE_COUNT = 1_000_000;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    /**
+     * Parallel arrays holding the same information as the untagged nodes of the data set.
+     */
+    private static final class ColumnarNodes {
+        final long[] ids;
+        final int[] lats;
+        final int[] lons;
+        final int[] versions;
+        final byte[] flags;
+
+        ColumnarNodes(DataSet ds) {
+            int size = ds.getNodes().size();
+            ids = new long[size];
+            lats = new int[size];
+            lons = new int[size];
+            versions = new int[size];
+            flags = new byte[size];
+            int i = 0;
+            for (Node n : ds.getNodes()) {
+                ids[i] = n.getUniqueId();
+                lats[i] = (int) Math.round(n.lat() * 1e7);
+                lons[i] = (int) Math.round(n.lon() * 1e7);
+                versions[i] = n.getVersion();
+                flags[i] = (byte) ((n.isModified() ? 1 : 0) | (n.isVisible() ? 2 : 0));
+                i++;
+            }
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // the collector does not always free everything on the first run
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static DataSet createDataSet() {
+        Random random = new Random(42);
+        DataSet ds = new DataSet();
+        for (int i = 1; i <= NODE_COUNT; i++) {
+            Node n = new Node(i, 1);
+            n.setCoor(new LatLon(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180));
+            ds.addPrimitive(n);
+        }
+        return ds;
+    }
+
+    /**
+     * Measures the bytes retained per untagged node, in a data set and in parallel arrays.
+     */
+    @Test
+    void testMeasureNodeMemory() {
+        long before = usedMemory();
+        DataSet ds = createDataSet();
+        long afterDataSet = usedMemory();
+        ColumnarNodes columnar = new ColumnarNodes(ds);
+        long afterColumnar = usedMemory();
+
+        assertEquals(NODE_COUNT, columnar.ids.length);
+        double dataSetBytes = (double) (afterDataSet - before) / NODE_COUNT;
+        double columnarBytes = (double) (afterColumnar - afterDataSet) / NODE_COUNT;
+        PerformanceTestUtils.measurementPlotsPluginOutput("DataSet bytes per untagged node", dataSetBytes);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Columnar bytes per untagged node", columnarBytes);
+        assertTrue(columnarBytes < dataSetBytes, columnarBytes + " >= " + dataSetBytes);
+        // keep both alive until everything is measured
+        assertEquals(NODE_COUNT, ds.getNodes().size());
+    }
+}
@@ -0,0 +1,61 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Match;
+
+/**
+ * This test measures the time to search a data set, by testing every primitive and by using {@link SearchPlanner}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class SearchPlannerPerformanceTest {
+    private static DataSet dataSet;
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be loaded
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        dataSet = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    /**
+     * Searches the data set with common queries.
+     * @param query the search expression
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"highway=*", "type:node highway=*", "building=yes", "child highway=primary",
+            "type:node indownloadedarea", "name=* (shop=* | amenity=*)"})
+    void testSearch(String query) throws SearchParseError {
+        Match match = SearchCompiler.compile(query);
+        Collection<OsmPrimitive> all = dataSet.allPrimitives();
+        List<OsmPrimitive> expected = all.stream().filter(match).collect(Collectors.toList());
+
+        PerformanceTestUtils.runPerformanceTest("search all primitives: " + query, () -> {
+            assertEquals(expected.size(), all.stream().filter(match).count());
+        });
+        // the first search builds the key index
+        SearchPlanner.getCandidates(match, dataSet);
+        PerformanceTestUtils.runPerformanceTest("search with planner: " + query, () -> {
+            Collection<OsmPrimitive> candidates = SearchPlanner.getCandidates(match, dataSet);
+            assertEquals(expected.size(), (candidates != null ? candidates : all).parallelStream().filter(match).count());
+        });
+    }
+}
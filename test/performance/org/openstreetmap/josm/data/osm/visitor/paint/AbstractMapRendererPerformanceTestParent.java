@@ -45,7 +45,8 @@ abstract class AbstractMapRendererPerformanceTestParent {
     private static DataSet dsRestriction;
     private static DataSet dsMultipolygon;
     private static DataSet dsOverpass;
-    private static DataSet dsCity;
+    @SuppressFBWarnings(value = "MS_PKGPROTECT")
+    protected static DataSet dsCity;
 
     protected static void load() throws Exception {
         JOSMFixture.createPerformanceTestFixture().init(true);
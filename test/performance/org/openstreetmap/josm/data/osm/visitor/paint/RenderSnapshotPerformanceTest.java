@@ -0,0 +1,157 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.command.MoveCommand;
+import org.openstreetmap.josm.command.SequenceCommand;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
+
+/**
+ * Contention benchmark: measures the frame time of {@link StyledMapRenderer} while a background thread applies
+ * {@link SequenceCommand}s to the rendered data set, with and without {@link RenderSnapshot}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class RenderSnapshotPerformanceTest {
+
+    private static final int IMG_WIDTH = 1400;
+    private static final int IMG_HEIGHT = 1050;
+    private static final int FRAMES = 100;
+    private static final int NODES_PER_COMMAND = 10_000;
+
+    private static Graphics2D g;
+    private static NavigatableComponent nc;
+    private static DataSet ds;
+
+    /**
+     * Loads the data and the styles.
+     * @throws Exception if any error occurs
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        BufferedImage img = new BufferedImage(IMG_WIDTH, IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = img.createGraphics();
+        g.setClip(0, 0, IMG_WIDTH, IMG_HEIGHT);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, IMG_WIDTH, IMG_HEIGHT);
+        nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        MapPaintStyles.readFromPreferences();
+        nc.zoomTo(new Bounds(53.51, 13.20, 53.59, 13.34));
+    }
+
+    /**
+     * Releases the resources.
+     */
+    @AfterAll
+    public static void clean() {
+        g = null;
+        nc = null;
+        ds = null;
+    }
+
+    /**
+     * Measures the frame time of the renderer waiting for the read lock.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testBlockingRead() throws Exception {
+        measure("blocking read", () -> new StyledMapRenderer(g, nc, false).render(ds, false, nc.getRealBounds()));
+    }
+
+    /**
+     * Measures the frame time of the renderer in snapshot-read mode.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testSnapshotRead() throws Exception {
+        RenderSnapshot snapshot = new RenderSnapshot();
+        measure("snapshot read", () -> {
+            if (!snapshot.render(g, nc, ds, graphics -> new StyledMapRenderer(graphics, nc, false), false, nc.getRealBounds())) {
+                new StyledMapRenderer(g, nc, false).render(ds, false, nc.getRealBounds());
+            }
+        });
+    }
+
+    private static void measure(String name, Runnable frame) throws InterruptedException {
+        // warm up, also creates the first snapshot
+        frame.run();
+
+        List<OsmPrimitive> nodes = new ArrayList<>(ds.getNodes());
+        Collections.shuffle(nodes);
+        List<OsmPrimitive> moved = nodes.subList(0, Math.min(NODES_PER_COMMAND, nodes.size()));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                List<Command> commands = new ArrayList<>();
+                for (OsmPrimitive n : moved) {
+                    commands.add(new MoveCommand(n, 1e-6, 1e-6));
+                }
+                SequenceCommand command = new SequenceCommand("move", commands);
+                ds.update(command::executeCommand);
+                ds.update(command::undoCommand);
+            }
+        }, "contention-writer");
+        writer.start();
+
+        long[] frameTimes = new long[FRAMES];
+        try {
+            for (int i = 0; i < FRAMES; i++) {
+                long start = System.nanoTime();
+                frame.run();
+                frameTimes[i] = System.nanoTime() - start;
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        long total = 0;
+        long max = 0;
+        for (long time : frameTimes) {
+            total += time;
+            max = Math.max(max, time);
+        }
+        double avgMs = total / 1e6 / FRAMES;
+        double maxMs = max / 1e6;
+        System.out.printf("%s: average frame time %.1f ms, maximum %.1f ms (%d moved nodes)%n",
+                name, avgMs, maxMs, moved.size());
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " average frame time (ms)", avgMs);
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " maximum frame time (ms)", maxMs);
+    }
+}
@@ -8,6 +8,10 @@ import javax.imageio.ImageIO;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.visitor.paint.RenderBenchmarkCollector.CapturingBenchmark;
 import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -17,6 +21,8 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  */
 class StyledMapRendererPerformanceTest extends AbstractMapRendererPerformanceTestParent {
 
+    private static final int TILED_ITERATIONS = 20;
+
     @BeforeAll
     public static void load() throws Exception {
         AbstractMapRendererPerformanceTestParent.load();
@@ -34,6 +40,38 @@ class StyledMapRendererPerformanceTest extends AbstractMapRendererPerformanceTes
         return new StyledMapRenderer(g, nc, false);
     }
 
+    /**
+     * Compares the frame time of the city with and without {@link StyledMapRenderer#PREFERENCE_TILED_RENDERING}.
+     */
+    @Test
+    void testCityTiled() {
+        nc.zoomTo(new Bounds(53.51, 13.20, 53.59, 13.34));
+        try {
+            for (boolean tiled : new boolean[] {false, true}) {
+                StyledMapRenderer.PREFERENCE_TILED_RENDERING.put(tiled);
+                StyledMapRenderer renderer = new StyledMapRenderer(g, nc, false);
+                CapturingBenchmark[] benchmark = new CapturingBenchmark[1];
+                renderer.setBenchmarkFactory(() -> benchmark[0] = new CapturingBenchmark());
+                long drawTime = 0;
+                long frameTime = 0;
+                for (int i = 0; i < TILED_ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    renderer.render(dsCity, false, nc.getRealBounds());
+                    frameTime += System.nanoTime() - start;
+                    drawTime += benchmark[0].getDrawTime();
+                }
+                String mode = tiled ? "tiled" : "sequential";
+                double avgDrawMs = (double) drawTime / TILED_ITERATIONS;
+                double avgFrameMs = frameTime / 1e6 / TILED_ITERATIONS;
+                System.out.printf("%s: average frame time %.1f ms, draw time %.1f ms%n", mode, avgFrameMs, avgDrawMs);
+                PerformanceTestUtils.measurementPlotsPluginOutput(mode + " average frame time (ms)", avgFrameMs);
+                PerformanceTestUtils.measurementPlotsPluginOutput(mode + " average draw time (ms)", avgDrawMs);
+            }
+        } finally {
+            StyledMapRenderer.PREFERENCE_TILED_RENDERING.remove();
+        }
+    }
+
     /**
      * run this manually to verify that the rendering is set up properly
      * @throws IOException if any I/O error occurs
@@ -8,16 +8,20 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.PerformanceTestUtils;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.data.validation.tests.ApiCapabilitiesTest;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -26,6 +30,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class ValidationTaskPerformanceTest {
 
     private List<org.openstreetmap.josm.data.validation.Test> tests;
+    private List<TestError> lastErrors;
 
     /**
      * Setup test.
@@ -64,4 +69,49 @@ class ValidationTaskPerformanceTest {
             assertTrue(validationTask.getErrors().size() > 3000);
         });
     }
+
+    /**
+     * Runs the validation task sequentially, then in parallel with an increasing number of threads,
+     * and reports the speedup.
+     */
+    @Test
+    void testParallel() {
+        DataSet dataSet = MainApplication.getLayerManager().getActiveDataSet();
+        Collection<OsmPrimitive> primitives = dataSet.allPrimitives();
+
+        ValidatorPrefHelper.PREF_PARALLEL.put(false);
+        long sequential = runValidation(primitives);
+        List<TestError> expected = lastErrors;
+        PerformanceTestUtils.measurementPlotsPluginOutput("ValidationTask sequential (ms)", sequential);
+
+        ValidatorPrefHelper.PREF_PARALLEL.put(true);
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= processors; threads = threads == processors ? threads + 1 : Math.min(2 * threads, processors)) {
+            Config.getPref().putInt(ValidatorPrefHelper.PREF_NUMBER_OF_THREADS, threads);
+            long parallel = runValidation(primitives);
+            System.out.printf("ValidationTask with %d threads: %d ms, speedup %.2f%n", threads, parallel, (double) sequential / parallel);
+            PerformanceTestUtils.measurementPlotsPluginOutput("ValidationTask " + threads + " threads (ms)", parallel);
+            // results are deterministic and identical to a sequential run
+            assertEquals(expected.size(), lastErrors.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getCode(), lastErrors.get(i).getCode());
+                assertEquals(new ArrayList<>(expected.get(i).getPrimitives()), new ArrayList<>(lastErrors.get(i).getPrimitives()));
+            }
+        }
+        Config.getPref().put(ValidatorPrefHelper.PREF_NUMBER_OF_THREADS, null);
+        ValidatorPrefHelper.PREF_PARALLEL.remove();
+    }
+
+    private long runValidation(Collection<OsmPrimitive> primitives) {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ValidationTask validationTask = new ValidationTask(NullProgressMonitor.INSTANCE, tests, primitives, primitives);
+            long start = System.nanoTime();
+            validationTask.realRun();
+            times.add((System.nanoTime() - start) / 1_000_000);
+            lastErrors = validationTask.getErrors();
+        }
+        // skip warm up
+        return times.subList(1, times.size()).stream().mapToLong(Long::longValue).min().getAsLong();
+    }
 }
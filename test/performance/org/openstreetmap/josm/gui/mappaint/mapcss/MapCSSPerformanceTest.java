@@ -7,7 +7,10 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeAll;
@@ -15,11 +18,15 @@ import org.openstreetmap.josm.JOSMFixture;
 import org.openstreetmap.josm.PerformanceTestUtils;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
 import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
 import org.openstreetmap.josm.data.preferences.sources.SourceType;
 import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
 import org.openstreetmap.josm.gui.mappaint.MapRendererPerformanceTest;
+import org.openstreetmap.josm.gui.mappaint.MultiCascade;
+import org.openstreetmap.josm.gui.mappaint.SharedStyleCache;
 import org.openstreetmap.josm.io.IllegalDataException;
 
 /**
@@ -62,7 +69,7 @@ class MapCSSPerformanceTest {
         return after - before;
     }
 
-    void loadStyle() {
+    MapCSSStyleSource loadStyle() {
         System.out.print("Loading style '"+STYLE_FILE+"' ...");
         MapCSSStyleSource source = new MapCSSStyleSource(
             new SourceEntry(
@@ -80,6 +87,7 @@ class MapCSSPerformanceTest {
         }
         MapRendererPerformanceTest.resetStylesToSingle(source);
         System.out.println("DONE");
+        return source;
     }
 
     void loadData() throws IllegalDataException, IOException {
@@ -115,4 +123,75 @@ class MapCSSPerformanceTest {
         System.out.println("");
         System.out.println("Rendering took "+time+" ms.");
     }
+
+    /**
+     * Measures the time to apply the style to all primitives with the compiled selectors and with the interpreted selectors.
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalDataException if any invalid data is found
+     */
+    @Test
+    void measureTimeForCompiledSelectors() throws IllegalDataException, IOException {
+        MapCSSStyleSource source = loadStyle();
+        loadData();
+        List<OsmPrimitive> primitives = new ArrayList<>(ds.allPrimitives());
+        MapCSSStyleIndex index = new MapCSSStyleIndex();
+        index.buildIndex(source.rules.stream());
+        double scale = 1.0 / 4000;
+
+        long interpreted = Long.MAX_VALUE;
+        long compiled = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            interpreted = Math.min(interpreted, timed(() -> {
+                for (OsmPrimitive osm : primitives) {
+                    MapCSSRuleIndexTest.applyInterpreted(index, source, new MultiCascade(), osm, scale);
+                }
+            }));
+            compiled = Math.min(compiled, timed(() -> {
+                for (OsmPrimitive osm : primitives) {
+                    source.apply(new MultiCascade(), osm, scale, false);
+                }
+            }));
+        }
+        System.out.println("Applying the style to " + primitives.size() + " primitives took " + interpreted + " ms interpreted, "
+                + compiled + " ms compiled.");
+        PerformanceTestUtils.measurementPlotsPluginOutput("MapCSS apply interpreted (ms)", interpreted);
+        PerformanceTestUtils.measurementPlotsPluginOutput("MapCSS apply compiled (ms)", compiled);
+        PerformanceTestUtils.measurementPlotsPluginOutput("MapCSS compiled selectors speedup", (double) interpreted / compiled);
+    }
+
+    /**
+     * Measures the time to generate the styles of all primitives with and without the shared style cache.
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalDataException if any invalid data is found
+     */
+    @Test
+    void measureTimeForSharedStyleCache() throws IllegalDataException, IOException {
+        ElemStyles styles = new ElemStyles(Collections.singleton(loadStyle()));
+        SharedStyleCache cache = styles.getSharedStyleCache();
+        loadData();
+        List<OsmPrimitive> primitives = new ArrayList<>(ds.allPrimitives());
+        double scale = 1.0 / 4000;
+
+        long uncached = Long.MAX_VALUE;
+        long cached = Long.MAX_VALUE;
+        try {
+            SharedStyleCache.PROP_ENABLED.put(false);
+            for (int i = 0; i < 5; i++) {
+                uncached = Math.min(uncached, timed(() -> primitives.forEach(osm -> styles.generateStyles(osm, scale, false))));
+            }
+            SharedStyleCache.PROP_ENABLED.put(true);
+            for (int i = 0; i < 5; i++) {
+                cache.clear();
+                cache.resetStatistics();
+                cached = Math.min(cached, timed(() -> primitives.forEach(osm -> styles.generateStyles(osm, scale, false))));
+            }
+        } finally {
+            SharedStyleCache.PROP_ENABLED.remove();
+        }
+        System.out.println("Generating the styles of " + primitives.size() + " primitives took " + uncached + " ms without and "
+                + cached + " ms with the shared style cache: " + cache);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Generate styles without shared cache (ms)", uncached);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Generate styles with shared cache (ms)", cached);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Shared style cache hit rate", cache.getHitRate());
+    }
 }
@@ -0,0 +1,118 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.io.importexport.OsmExporter;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+
+/**
+ * This test compares the binary autosave format with the .osm files used so far: file size, save, restore
+ * and incremental save times.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class OsmBinaryPerformanceTest {
+    private static final int TIMES = 4;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Compares size and save/restore times of .osm and binary files.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSaveRestore(@TempDir File dir) throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        File osm = new File(dir, "autosave.osm");
+        File osmb = new File(dir, "autosave.osmb");
+        OsmDataLayer layer = new OsmDataLayer(ds, "autosave", null);
+
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("save .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            new OsmExporter().exportData(osm, layer, true);
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("save .osmb-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (OsmBinaryJournal journal = new OsmBinaryJournal(ds)) {
+                journal.writeSnapshot(osmb);
+            }
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("restore .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = Files.newInputStream(osm.toPath())) {
+                assertEquals(ds.allPrimitives().size(), OsmReader.parseDataSet(in, null).allPrimitives().size());
+            }
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("restore .osmb-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            assertEquals(ds.allPrimitives().size(), OsmBinaryReader.parseDataSet(osmb.toPath(), null).allPrimitives().size());
+        }
+        timer.done();
+
+        System.out.printf(".osm: %d bytes, .osmb: %d bytes%n", osm.length(), osmb.length());
+        PerformanceTestUtils.measurementPlotsPluginOutput(".osm autosave size (bytes)", osm.length());
+        PerformanceTestUtils.measurementPlotsPluginOutput(".osmb autosave size (bytes)", osmb.length());
+        assertTrue(osmb.length() < osm.length());
+    }
+
+    /**
+     * Measures the time to append a small change to a binary file.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testIncrementalSave(@TempDir File dir) throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        List<Node> nodes = new ArrayList<>(ds.getNodes()).subList(0, 100);
+        File osmb = new File(dir, "autosave.osmb");
+        try (OsmBinaryJournal journal = new OsmBinaryJournal(ds)) {
+            PerformanceTestTimer timer = PerformanceTestUtils.startTimer("binary snapshot");
+            journal.writeSnapshot(osmb);
+            timer.done();
+            long size = osmb.length();
+
+            timer = PerformanceTestUtils.startTimer("append " + TIMES + " changes of " + nodes.size() + " nodes");
+            for (int i = 0; i < TIMES; i++) {
+                for (Node n : nodes) {
+                    n.put("note", Integer.toString(i));
+                }
+                assertTrue(journal.appendChanges());
+            }
+            timer.done();
+            System.out.printf("snapshot: %d bytes, appended: %d bytes%n", size, osmb.length() - size);
+        }
+        assertEquals(ds.allPrimitives().size(), OsmBinaryReader.parseDataSet(osmb.toPath(), null).allPrimitives().size());
+    }
+}
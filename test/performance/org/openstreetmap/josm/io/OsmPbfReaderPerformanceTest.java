@@ -0,0 +1,79 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.io.importexport.OsmExporter;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+
+/**
+ * This test compares reading the same data from .osm and .osm.pbf files.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class OsmPbfReaderPerformanceTest {
+    private static final int TIMES = 4;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Compares size and load times of .osm and .osm.pbf files.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRead(@TempDir File dir) throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        File osm = new File(dir, "neubrandenburg.osm");
+        File pbf = new File(dir, "neubrandenburg.osm.pbf");
+        new OsmExporter().exportData(osm, new OsmDataLayer(ds, "neubrandenburg", null), true);
+
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("write .osm.pbf-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (OutputStream out = Files.newOutputStream(pbf.toPath()); OsmPbfWriter writer = new OsmPbfWriter(out)) {
+                writer.write(ds);
+            }
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("read .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = Files.newInputStream(osm.toPath())) {
+                assertEquals(ds.allPrimitives().size(), OsmReader.parseDataSet(in, null).allPrimitives().size());
+            }
+        }
+        timer.done();
+
+        timer = PerformanceTestUtils.startTimer("read .osm.pbf-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            try (InputStream in = Files.newInputStream(pbf.toPath())) {
+                assertEquals(ds.allPrimitives().size(), OsmPbfReader.parseDataSet(in, null).allPrimitives().size());
+            }
+        }
+        timer.done();
+
+        System.out.printf(".osm: %d bytes, .osm.pbf: %d bytes%n", osm.length(), pbf.length());
+        PerformanceTestUtils.measurementPlotsPluginOutput(".osm.pbf size (bytes)", pbf.length());
+    }
+}
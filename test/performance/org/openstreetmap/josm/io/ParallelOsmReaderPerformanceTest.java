@@ -0,0 +1,66 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * This test compares the throughput of {@link OsmReader} and {@link ParallelOsmReader}.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file. We ignore disk access times.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class ParallelOsmReaderPerformanceTest {
+    private static final int TIMES = 4;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Reads a .osm file from memory with both readers and reports the throughput in MB/s.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testThroughput() throws Exception {
+        byte[] osm;
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(PerformanceTestUtils.DATA_FILE))) {
+            osm = Utils.readBytesFromStream(in);
+        }
+        int expected = 0;
+        for (boolean parallel : new boolean[] {false, true}) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < TIMES; i++) {
+                long start = System.nanoTime();
+                DataSet ds = parallel
+                        ? ParallelOsmReader.parseDataSet(new ByteArrayInputStream(osm), null)
+                        : OsmReader.parseDataSet(new ByteArrayInputStream(osm), null);
+                best = Math.min(best, System.nanoTime() - start);
+                if (expected == 0) {
+                    expected = ds.allPrimitives().size();
+                }
+                assertEquals(expected, ds.allPrimitives().size());
+            }
+            String reader = parallel ? "ParallelOsmReader" : "OsmReader";
+            double throughput = osm.length / 1e6 / (best / 1e9);
+            System.out.printf("%s: %.1f MB in %d ms, %.1f MB/s%n", reader, osm.length / 1e6, best / 1_000_000, throughput);
+            PerformanceTestUtils.measurementPlotsPluginOutput(reader + " throughput (MB/s)", throughput);
+        }
+    }
+}
@@ -4,6 +4,7 @@ package org.openstreetmap.josm.command;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -268,6 +269,37 @@ class ChangePropertyCommandTest {
         }
     }
 
+    /**
+     * Test {@link ChangePropertyCommand#mergeWith(Command)}
+     */
+    @Test
+    void testMergeWith() {
+        Node node1 = testData.createNode(15);
+        Node node2 = testData.createNode(16);
+        node1.put("name", "old");
+
+        ChangePropertyCommand command = new ChangePropertyCommand(Arrays.asList(node1, node2), "name", "a");
+        command.executeCommand();
+        ChangePropertyCommand next = new ChangePropertyCommand(Arrays.asList(node2, node1), "name", "b");
+        next.executeCommand();
+        Command merged = command.mergeWith(next);
+        assertNotNull(merged);
+        assertEquals("a", command.getTags().get("name"));
+        assertEquals("b", ((ChangePropertyCommand) merged).getTags().get("name"));
+
+        merged.undoCommand();
+        assertEquals("old", node1.get("name"));
+        assertNull(node2.get("name"));
+        merged.executeCommand();
+        assertEquals("b", node1.get("name"));
+        assertEquals("b", node2.get("name"));
+
+        // different objects or keys
+        assertNull(command.mergeWith(new ChangePropertyCommand(Arrays.asList(node1), "name", "c")));
+        assertNull(command.mergeWith(new ChangePropertyCommand(Arrays.asList(node1, node2), "ref", "c")));
+        assertNull(command.mergeWith(new ChangePropertyCommand(Arrays.asList(node1, node2), "name", "b")));
+    }
+
     /**
      * Unit test of methods {@link ChangePropertyCommand#equals} and {@link ChangePropertyCommand#hashCode}.
      */
@@ -0,0 +1,51 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link UndoJournal} class.
+ */
+class UndoJournalTest {
+
+    /**
+     * Test that released entries are dropped when the file is compacted, and that the live entries can still be read.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testCompaction() throws IOException {
+        Random random = new Random(42);
+        try (UndoJournal journal = new UndoJournal()) {
+            List<byte[]> values = new ArrayList<>();
+            List<UndoJournal.Entry> entries = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                byte[] value = new byte[256 * 1024];
+                random.nextBytes(value);
+                values.add(value);
+                entries.add(journal.write(value));
+            }
+            long size = journal.getSize();
+            for (int i = 0; i < 6; i++) {
+                journal.release(entries.get(i));
+            }
+            assertThrows(IOException.class, () -> journal.read(entries.get(0)));
+
+            byte[] value = new byte[1024];
+            random.nextBytes(value);
+            UndoJournal.Entry last = journal.write(value);
+            assertTrue(journal.getSize() < size / 2, Long.toString(journal.getSize()));
+            assertArrayEquals(values.get(6), (byte[]) journal.read(entries.get(6)));
+            assertArrayEquals(values.get(7), (byte[]) journal.read(entries.get(7)));
+            assertArrayEquals(value, (byte[]) journal.read(last));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.command.ChangePropertyCommand;
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandAddedEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandQueueCleanedEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandQueuePreciseListener;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandRedoneEvent;
+import org.openstreetmap.josm.data.UndoRedoHandler.CommandUndoneEvent;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for class {@link UndoRedoHandler}.
+ */
+@BasicPreferences
+class UndoRedoHandlerTest {
+    private final UndoRedoHandler handler = UndoRedoHandler.getInstance();
+    private DataSet ds;
+    private List<Node> nodes;
+
+    /**
+     * Creates a data set with many nodes.
+     */
+    @BeforeEach
+    void setUp() {
+        handler.clean();
+        ds = new DataSet();
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Node node = new Node(new LatLon(i / 100.0, i % 100));
+            ds.addPrimitive(node);
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Resets the undo/redo handler and the preferences.
+     */
+    @AfterEach
+    void tearDown() {
+        handler.clean();
+        Config.getPref().put("undo.max_memory_mb", null);
+        Config.getPref().put("undo.coalesce", null);
+    }
+
+    private void addTagCommands(int count) {
+        for (int i = 0; i < count; i++) {
+            handler.add(new ChangePropertyCommand(nodes, "key" + i, "value" + i));
+        }
+    }
+
+    /**
+     * Test that commands are moved to the journal when the memory limit is exceeded, and still can be undone and redone.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSpillToJournal() throws Exception {
+        addTagCommands(3);
+        long size = handler.getRetainedSize();
+        assertTrue(size > 1024 * 1024, Long.toString(size));
+
+        Config.getPref().putInt("undo.max_memory_mb", 1);
+        handler.add(new ChangePropertyCommand(nodes, "key3", "value3"));
+        handler.waitForJournal();
+        assertEquals(4, handler.getUndoCommands().size());
+        assertTrue(handler.getRetainedSize() <= 1024 * 1024, Long.toString(handler.getRetainedSize()));
+
+        handler.undo(4);
+        handler.waitForJournal();
+        assertEquals(4, handler.getRedoCommands().size());
+        for (Node node : nodes) {
+            assertFalse(node.hasKeys(), node::toString);
+        }
+        assertTrue(handler.getRetainedSize() <= 1024 * 1024, Long.toString(handler.getRetainedSize()));
+
+        handler.redo(4);
+        for (Node node : nodes) {
+            assertEquals(4, node.getNumKeys(), node::toString);
+        }
+        handler.undo(2);
+        for (Node node : nodes) {
+            assertEquals("value1", node.get("key1"));
+            assertNull(node.get("key2"));
+        }
+    }
+
+    /**
+     * Test that the oldest commands are removed if moving them to the journal is not enough.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testMemoryLimit() throws Exception {
+        Config.getPref().putInt("undo.max_memory_mb", 0);
+        addTagCommands(3);
+        handler.waitForJournal();
+        assertEquals(1, handler.getUndoCommands().size());
+        assertEquals("value2", nodes.get(0).get("key2"));
+        handler.undo();
+        assertEquals("value1", nodes.get(0).get("key1"));
+        assertNull(nodes.get(0).get("key2"));
+    }
+
+    /**
+     * Test that consecutive changes of the same tags are merged into one command when enabled.
+     */
+    @Test
+    void testMerge() {
+        List<CommandAddedEvent> events = new ArrayList<>();
+        CommandQueuePreciseListener listener = new CommandQueuePreciseListener() {
+            @Override
+            public void commandAdded(CommandAddedEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void cleaned(CommandQueueCleanedEvent e) {
+                // Do nothing
+            }
+
+            @Override
+            public void commandUndone(CommandUndoneEvent e) {
+                // Do nothing
+            }
+
+            @Override
+            public void commandRedone(CommandRedoneEvent e) {
+                // Do nothing
+            }
+        };
+        Config.getPref().putBoolean("undo.coalesce", true);
+        handler.addCommandQueuePreciseListener(listener);
+        try {
+            Node node = nodes.get(0);
+            handler.add(new ChangePropertyCommand(node, "name", "A"));
+            handler.add(new ChangePropertyCommand(node, "name", "Ab"));
+            handler.add(new ChangePropertyCommand(node, "name", "Abc"));
+            assertEquals(1, handler.getUndoCommands().size());
+            assertEquals(3, events.size());
+            assertFalse(events.get(0).isMerged());
+            assertTrue(events.get(2).isMerged());
+            assertEquals("Abc", ((ChangePropertyCommand) handler.getLastCommand()).getTags().get("name"));
+
+            // other tags or other objects are not merged
+            handler.add(new ChangePropertyCommand(node, "ref", "1"));
+            handler.add(new ChangePropertyCommand(nodes.get(1), "ref", "1"));
+            assertEquals(3, handler.getUndoCommands().size());
+
+            handler.undo(3);
+            assertFalse(node.hasKeys());
+            handler.redo(1);
+            assertEquals("Abc", node.get("name"));
+
+            Config.getPref().putBoolean("undo.coalesce", false);
+            handler.add(new ChangePropertyCommand(node, "name", "Abcd"));
+            Command last = handler.getLastCommand();
+            handler.add(new ChangePropertyCommand(node, "name", "Abcde"));
+            assertEquals(3, handler.getUndoCommands().size());
+            handler.undo();
+            assertEquals(last, handler.getLastCommand());
+            assertEquals("Abcd", node.get("name"));
+        } finally {
+            handler.removeCommandQueuePreciseListener(listener);
+        }
+    }
+}
@@ -6,6 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -149,4 +154,67 @@ class HostLimitQueueTest {
         assertTrue(duration < 6*1000 & duration > 4*1000,
                 "Expected duration between 4 and 6 seconds not met. Actual duration: " + (duration /1000));
     }
+
+    /**
+     * Mock class recording the order of execution
+     */
+    static class OrderedTask extends Task {
+        private final String name;
+        private final List<String> order;
+        private final CountDownLatch release;
+
+        OrderedTask(ICacheAccess<String, CacheEntry> cache, String name, List<String> order, CountDownLatch release)
+                throws IOException {
+            super(cache, new URL("http://localhost/" + name), new AtomicInteger());
+            this.name = name;
+            this.order = order;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Logging.trace(e);
+            } finally {
+                order.add(name);
+                executionFinished();
+            }
+        }
+    }
+
+    /**
+     * Check that foreground jobs are run before prefetch jobs and that a promoted prefetch job is run with them
+     * @throws Exception in case of error
+     */
+    @Test
+    void testPrefetch() throws Exception {
+        ThreadPoolExecutor tpe = TMSCachedTileLoader.getNewThreadPoolExecutor("test-%d", 1, 1);
+        HostLimitQueue queue = (HostLimitQueue) tpe.getQueue();
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        // the first job occupies the only thread until it is released
+        tpe.execute(new OrderedTask(cache, "busy", order, release));
+        List<OrderedTask> prefetch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderedTask task = new OrderedTask(cache, "prefetch" + i, order, release);
+            task.setPrefetch(true);
+            prefetch.add(task);
+            tpe.execute(task);
+        }
+        for (int i = 0; i < 2; i++) {
+            tpe.execute(new OrderedTask(cache, "foreground" + i, order, release));
+        }
+        prefetch.get(2).setPrefetch(false);
+        assertEquals(3, queue.getForegroundCount());
+        assertEquals(2, queue.getPrefetchCount());
+        assertTrue(queue.getStats().contains("foreground 3, prefetch 2"), queue.getStats());
+
+        release.countDown();
+        tpe.shutdown();
+        assertTrue(tpe.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("busy", "prefetch2", "foreground0", "foreground1", "prefetch0", "prefetch1"), order);
+    }
 }
@@ -0,0 +1,142 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for class {@link TilePackDiskCache}.
+ */
+@Timeout(20)
+@BasicPreferences
+class TilePackDiskCacheTest {
+    @TempDir
+    File dir;
+
+    private TilePackDiskCache<String, CacheEntry> createCache(int maxSize, int segmentSize) {
+        TilePackDiskCacheAttributes attributes = new TilePackDiskCacheAttributes();
+        attributes.setCacheName("test");
+        attributes.setDiskPath(dir);
+        attributes.setMaxSize(maxSize);
+        attributes.setSegmentSize(segmentSize);
+        return new TilePackDiskCache<>(attributes);
+    }
+
+    private static byte[] content(int seed, int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) seed);
+        content[0] = (byte) (seed >> 8);
+        return content;
+    }
+
+    private static void put(TilePackDiskCache<String, CacheEntry> cache, String key, byte[] content) throws IOException {
+        CacheEntryAttributes attributes = new CacheEntryAttributes();
+        attributes.setEtag(key);
+        cache.processUpdate(new CacheElement<>("test", key, new BufferedImageCacheEntry(content), attributes));
+    }
+
+    private static void assertContent(TilePackDiskCache<String, CacheEntry> cache, String key, byte[] content) throws IOException {
+        ICacheElement<String, CacheEntry> element = cache.processGet(key);
+        assertEquals(key, element.getKey());
+        assertTrue(element.getVal() instanceof BufferedImageCacheEntry);
+        assertArrayEquals(content, element.getVal().getContent());
+        assertEquals(key, ((CacheEntryAttributes) element.getElementAttributes()).getEtag());
+    }
+
+    /**
+     * Test storing, replacing and removing elements, also after reopening the cache.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testUpdateAndRemove() throws IOException {
+        TilePackDiskCache<String, CacheEntry> cache = createCache(10_000, 0);
+        put(cache, "TMS:a", content(1, 1000));
+        put(cache, "TMS:b", content(2, 1000));
+        put(cache, "WMS:c", content(3, 1000));
+        put(cache, "TMS:a", content(4, 2000));
+        cache.processUpdate(new CacheElement<>("test", "plain", new CacheEntry(content(5, 10)), new CacheEntryAttributes()));
+        assertEquals(4, cache.getSize());
+        assertContent(cache, "TMS:a", content(4, 2000));
+        assertContent(cache, "WMS:c", content(3, 1000));
+        assertFalse(cache.processGet("plain").getVal() instanceof BufferedImageCacheEntry);
+        assertNull(cache.processGet("TMS:d"));
+
+        assertTrue(cache.processRemove("TMS:b"));
+        assertFalse(cache.processRemove("TMS:b"));
+        assertEquals(new HashSet<>(Arrays.asList("TMS:a", "WMS:c", "plain")), cache.getKeySet());
+        cache.processDispose();
+
+        cache = createCache(10_000, 0);
+        assertEquals(3, cache.getSize());
+        assertContent(cache, "TMS:a", content(4, 2000));
+        assertNull(cache.processGet("TMS:b"));
+
+        // remove all elements of a region
+        assertTrue(cache.processRemove("TMS:"));
+        assertEquals(new HashSet<>(Arrays.asList("WMS:c", "plain")), cache.getKeySet());
+        cache.processRemoveAll();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    /**
+     * Test that the oldest segments are dropped when the cache grows beyond its maximum size.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testMaxSize() throws IOException {
+        TilePackDiskCache<String, CacheEntry> cache = createCache(64, 16 * 1024);
+        for (int i = 0; i < 100; i++) {
+            put(cache, "TMS:" + i, content(i, 2000));
+        }
+        assertTrue(cache.getDiskSize() <= 64 * 1024, Long.toString(cache.getDiskSize()));
+        assertTrue(cache.getSize() < 40, Integer.toString(cache.getSize()));
+        assertNull(cache.processGet("TMS:0"));
+        assertContent(cache, "TMS:99", content(99, 2000));
+    }
+
+    /**
+     * Test that the oldest segment is compacted in background, when it is mostly garbage.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCompaction() throws Exception {
+        TilePackDiskCache<String, CacheEntry> cache = createCache(10_000, 16 * 1024);
+        for (int i = 0; i < 20; i++) {
+            put(cache, "TMS:" + i, content(i, 1000));
+        }
+        // replace most elements of the first segment
+        for (int i = 2; i < 20; i++) {
+            put(cache, "TMS:" + i, content(i + 100, 1000));
+        }
+        File first = new File(dir, "test.1.pack");
+        while (first.exists()) {
+            Thread.sleep(10);
+        }
+        assertEquals(20, cache.getSize());
+        for (int i = 0; i < 20; i++) {
+            assertContent(cache, "TMS:" + i, content(i < 2 ? i : i + 100, 1000));
+        }
+        cache.processDispose();
+
+        cache = createCache(10_000, 16 * 1024);
+        assertEquals(20, cache.getSize());
+        assertContent(cache, "TMS:0", content(0, 1000));
+        assertContent(cache, "TMS:19", content(119, 1000));
+    }
+}
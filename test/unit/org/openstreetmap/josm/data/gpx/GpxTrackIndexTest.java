@@ -0,0 +1,303 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.gpx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.gpx.GpxTrackIndex.Section;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link GpxTrackIndex}.
+ */
+class GpxTrackIndexTest {
+
+    /**
+     * Setup rule
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    private static WayPoint wayPoint(double east, double north, long time) {
+        WayPoint wp = new WayPoint(ProjectionRegistry.getProjection().eastNorth2latlon(new EastNorth(east, north)));
+        wp.setTimeInMillis(time);
+        return wp;
+    }
+
+    /**
+     * Creates random tracks with segments of various lengths, including segments with only one way point
+     * and repeated way points.
+     */
+    private static List<IGpxTrack> createTracks(Random random, int trackCount) {
+        List<IGpxTrack> tracks = new ArrayList<>();
+        long time = 1_600_000_000_000L;
+        for (int t = 0; t < trackCount; t++) {
+            List<Collection<WayPoint>> segments = new ArrayList<>();
+            for (int s = random.nextInt(3) + 1; s > 0; s--) {
+                List<WayPoint> points = new ArrayList<>();
+                double east = random.nextDouble() * 10_000;
+                double north = random.nextDouble() * 10_000;
+                for (int i = random.nextInt(4) == 0 ? 1 : random.nextInt(300) + 2; i > 0; i--) {
+                    points.add(wayPoint(east, north, time += 1000));
+                    if (random.nextInt(20) != 0) {
+                        east += random.nextGaussian() * 20;
+                        north += random.nextGaussian() * 20;
+                    }
+                }
+                segments.add(points);
+            }
+            tracks.add(new GpxTrack(segments, Collections.emptyMap()));
+        }
+        return tracks;
+    }
+
+    /**
+     * The linear search of {@link GpxData#nearestPointOnTrack} before the index was introduced.
+     */
+    private static WayPoint nearestPointOnTrackLinear(Collection<IGpxTrack> tracks, EastNorth p, double tolerance) {
+        Projection projection = ProjectionRegistry.getProjection();
+        double pnminsq = tolerance * tolerance;
+        EastNorth bestEN = null;
+        double bestTime = Double.NaN;
+        double px = p.east();
+        double py = p.north();
+        double rx = 0.0, ry = 0.0, sx, sy, x, y;
+        for (IGpxTrack track : tracks) {
+            for (IGpxTrackSegment seg : track.getSegments()) {
+                WayPoint r = null;
+                for (WayPoint wpSeg : seg.getWayPoints()) {
+                    EastNorth en = wpSeg.getEastNorth(projection);
+                    if (r == null) {
+                        r = wpSeg;
+                        rx = en.east();
+                        ry = en.north();
+                        x = px - rx;
+                        y = py - ry;
+                        double pRsq = x * x + y * y;
+                        if (pRsq < pnminsq) {
+                            pnminsq = pRsq;
+                            bestEN = en;
+                            bestTime = r.getTime();
+                        }
+                    } else {
+                        sx = en.east();
+                        sy = en.north();
+                        double a = sy - ry;
+                        double b = rx - sx;
+                        double c = -a * rx - b * ry;
+                        double rssq = a * a + b * b;
+                        if (rssq == 0) {
+                            continue;
+                        }
+                        double pnsq = a * px + b * py + c;
+                        pnsq = pnsq * pnsq / rssq;
+                        if (pnsq < pnminsq) {
+                            x = px - rx;
+                            y = py - ry;
+                            double prsq = x * x + y * y;
+                            x = px - sx;
+                            y = py - sy;
+                            double pssq = x * x + y * y;
+                            if (prsq - pnsq <= rssq && pssq - pnsq <= rssq) {
+                                double rnoverRS = Math.sqrt((prsq - pnsq) / rssq);
+                                bestEN = new EastNorth(rx - rnoverRS * b, ry + rnoverRS * a);
+                                bestTime = r.getTime() + rnoverRS * (wpSeg.getTime() - r.getTime());
+                                pnminsq = pnsq;
+                            }
+                        }
+                        r = wpSeg;
+                        rx = sx;
+                        ry = sy;
+                    }
+                }
+                if (r != null) {
+                    EastNorth c = r.getEastNorth(projection);
+                    x = px - c.east();
+                    y = py - c.north();
+                    double prsq = x * x + y * y;
+                    if (prsq < pnminsq) {
+                        pnminsq = prsq;
+                        bestEN = c;
+                        bestTime = r.getTime();
+                    }
+                }
+            }
+        }
+        if (bestEN == null)
+            return null;
+        WayPoint best = new WayPoint(projection.eastNorth2latlon(bestEN));
+        best.setTimeInMillis((long) (bestTime * 1000));
+        return best;
+    }
+
+    private static String toString(WayPoint wp) {
+        return wp == null ? "null" : wp.getEastNorth(ProjectionRegistry.getProjection()) + " " + wp.getTimeInMillis();
+    }
+
+    /**
+     * Test that {@link GpxTrackIndex#nearestPointOnTrack} yields the same results as the linear search.
+     */
+    @Test
+    void testNearestPointOnTrack() {
+        Random random = new Random(42);
+        List<IGpxTrack> tracks = createTracks(random, 20);
+        GpxTrackIndex index = new GpxTrackIndex(tracks, ProjectionRegistry.getProjection());
+        List<EastNorth> positions = new ArrayList<>();
+        int found = 0;
+        for (int i = 0; i < 2000; i++) {
+            EastNorth p = new EastNorth(random.nextDouble() * 12_000 - 1000, random.nextDouble() * 12_000 - 1000);
+            double tolerance = random.nextInt(10) == 0 ? 1e6 : random.nextDouble() * 100;
+            WayPoint expected = nearestPointOnTrackLinear(tracks, p, tolerance);
+            assertEquals(toString(expected), toString(index.nearestPointOnTrack(p, tolerance)), p + " " + tolerance);
+            if (expected != null) {
+                found++;
+            }
+            if (tolerance < 1e6) {
+                positions.add(p);
+            }
+        }
+        assertTrue(found > 200, Integer.toString(found));
+
+        List<String> expected = positions.stream()
+                .map(p -> toString(nearestPointOnTrackLinear(tracks, p, 50)))
+                .collect(Collectors.toList());
+        assertEquals(expected, index.nearestPointsOnTrack(positions, 50).stream()
+                .map(GpxTrackIndexTest::toString)
+                .collect(Collectors.toList()));
+    }
+
+    private static List<String> sectionsLinear(List<IGpxTrack> tracks, EastNorth p, double distance, ProjectionBounds bounds) {
+        Projection projection = ProjectionRegistry.getProjection();
+        List<String> result = new ArrayList<>();
+        for (IGpxTrack track : tracks) {
+            for (IGpxTrackSegment seg : track.getSegments()) {
+                // repeated way points do not start a new section
+                List<WayPoint> points = new ArrayList<>();
+                for (WayPoint wp : seg.getWayPoints()) {
+                    if (points.isEmpty() || !wp.getEastNorth(projection).equals(points.get(points.size() - 1).getEastNorth(projection))) {
+                        points.add(wp);
+                    }
+                }
+                for (int i = 0; i == 0 || i < points.size() - 1; i++) {
+                    WayPoint start = points.get(i);
+                    WayPoint end = points.get(Math.min(i + 1, points.size() - 1));
+                    EastNorth a = start.getEastNorth(projection);
+                    EastNorth b = end.getEastNorth(projection);
+                    boolean matches;
+                    if (bounds != null) {
+                        matches = bounds.intersects(boundsOf(a, b));
+                    } else {
+                        double dx = b.east() - a.east();
+                        double dy = b.north() - a.north();
+                        double lengthSq = dx * dx + dy * dy;
+                        double t = lengthSq == 0 ? 0
+                                : Math.max(0, Math.min(1, ((p.east() - a.east()) * dx + (p.north() - a.north()) * dy) / lengthSq));
+                        matches = new EastNorth(a.east() + t * dx, a.north() + t * dy).distance(p) <= distance;
+                    }
+                    if (matches) {
+                        result.add(start.getTimeInMillis() + "-" + end.getTimeInMillis());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static ProjectionBounds boundsOf(EastNorth a, EastNorth b) {
+        ProjectionBounds bounds = new ProjectionBounds(a);
+        bounds.extend(b);
+        return bounds;
+    }
+
+    private static List<String> toStrings(List<Section> sections) {
+        return sections.stream()
+                .map(s -> s.getStart().getTimeInMillis() + "-" + s.getEnd().getTimeInMillis())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Test of {@link GpxTrackIndex#getSections(EastNorth, double)} and {@link GpxTrackIndex#getSections(ProjectionBounds)}.
+     */
+    @Test
+    void testGetSections() {
+        Random random = new Random(4711);
+        List<IGpxTrack> tracks = createTracks(random, 20);
+        GpxTrackIndex index = new GpxTrackIndex(tracks, ProjectionRegistry.getProjection());
+        int found = 0;
+        for (int i = 0; i < 500; i++) {
+            EastNorth p = new EastNorth(random.nextDouble() * 12_000 - 1000, random.nextDouble() * 12_000 - 1000);
+            double distance = random.nextDouble() * 300;
+            List<String> expected = sectionsLinear(tracks, p, distance, null);
+            assertEquals(expected, toStrings(index.getSections(p, distance)));
+            found += expected.size();
+
+            ProjectionBounds bounds = new ProjectionBounds(p, random.nextDouble() * 300, random.nextDouble() * 300);
+            assertEquals(sectionsLinear(tracks, null, 0, bounds), toStrings(index.getSections(bounds)));
+        }
+        assertTrue(found > 500, Integer.toString(found));
+
+        Section section = index.getSections(new ProjectionBounds(-1e7, -1e7, 1e7, 1e7)).get(0);
+        IGpxTrackSegment segment = tracks.get(0).getSegments().iterator().next();
+        assertSame(segment, section.getSegment());
+        assertSame(segment.getWayPoints().iterator().next(), section.getStart());
+    }
+
+    /**
+     * Test that an empty index does not find anything.
+     */
+    @Test
+    void testEmpty() {
+        GpxTrackIndex index = new GpxTrackIndex(Collections.emptyList(), ProjectionRegistry.getProjection());
+        assertEquals(0, index.getWayPointCount());
+        assertNull(index.nearestPointOnTrack(new EastNorth(0, 0), 1e9));
+        assertTrue(index.getSections(new EastNorth(0, 0), 1e9).isEmpty());
+    }
+
+    /**
+     * Test that {@link GpxData} discards the index when the data changes or the east/north cache is reset.
+     */
+    @Test
+    void testInvalidation() {
+        GpxData data = new GpxData();
+        data.addTrack(new GpxTrack(Arrays.asList(Arrays.asList(wayPoint(0, 0, 1000), wayPoint(10, 0, 2000))),
+                Collections.emptyMap()));
+        GpxTrackIndex index = data.getTrackIndex();
+        assertEquals(2, index.getWayPointCount());
+        assertSame(index, data.getTrackIndex());
+
+        data.beginUpdate();
+        data.addTrack(new GpxTrack(Arrays.asList(Arrays.asList(wayPoint(0, 100, 3000))), Collections.emptyMap()));
+        assertNotSame(index, data.getTrackIndex());
+        assertEquals(3, data.getTrackIndex().getWayPointCount());
+        data.endUpdate();
+
+        index = data.getTrackIndex();
+        data.resetEastNorthCache();
+        assertNotSame(index, data.getTrackIndex());
+
+        index = data.getTrackIndex();
+        data.tracks.clear();
+        assertEquals(0, data.getTrackIndex().getWayPointCount());
+        assertNull(data.nearestPointOnTrack(new EastNorth(0, 0), 10));
+    }
+}
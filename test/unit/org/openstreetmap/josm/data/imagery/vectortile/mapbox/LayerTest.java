@@ -3,7 +3,9 @@ package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -12,6 +14,7 @@ import java.util.List;
 
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.protobuf.ProtobufParser;
+import org.openstreetmap.josm.data.protobuf.ProtobufReader;
 import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -66,9 +69,12 @@ public class LayerTest {
      * @throws IOException If something happened (should never trigger)
      */
     static Layer getLayer(byte[] bytes) throws IOException {
-        List<ProtobufRecord> records = (List<ProtobufRecord>) new ProtobufParser(bytes).allRecords();
-        assertEquals(1, records.size());
-        return new Layer(new ProtobufParser(records.get(0).getBytes()).allRecords());
+        ProtobufReader reader = new ProtobufReader(bytes);
+        assertTrue(reader.next());
+        assertEquals(Layer.LAYER_FIELD, reader.getField());
+        Layer layer = new Layer(reader.readMessage());
+        assertFalse(reader.next());
+        return layer;
     }
 
     @Test
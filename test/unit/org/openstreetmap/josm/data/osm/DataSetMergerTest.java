@@ -12,13 +12,19 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.StringWriter;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.data.projection.Projections;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
@@ -1368,4 +1374,81 @@ class DataSetMergerTest {
         assertEquals(w1b, visitor.getConflicts().iterator().next().getMy());
     }
 
+    /**
+     * Test merging a data set large enough to look up the targets in parallel, onto a data set with part of its primitives.
+     */
+    @Test
+    void testMergeLargeDataSet() {
+        for (int i = 1; i <= 20_000; i++) {
+            Node n = new Node(new LatLon(i / 1000.0, i % 1000 / 1000.0));
+            n.setOsmId(i, 1);
+            their.addPrimitive(n);
+            if (i % 2 == 0) {
+                Node myNode = new Node(n);
+                if (i % 4 == 0) {
+                    myNode.put("name", "my");
+                    myNode.setModified(true);
+                }
+                my.addPrimitive(myNode);
+            }
+        }
+        for (int i = 1; i <= 10_000; i++) {
+            Way w = new Way(i, 1);
+            w.setNodes(Arrays.asList((Node) their.getPrimitiveById(2 * i - 1, OsmPrimitiveType.NODE),
+                    (Node) their.getPrimitiveById(2 * i, OsmPrimitiveType.NODE)));
+            w.put("highway", "residential");
+            their.addPrimitive(w);
+        }
+        List<AbstractDatasetChangedEvent> events = new ArrayList<>();
+        my.addDataSetListener(new DataSetListenerAdapter(events::add));
+
+        DataSetMerger visitor = new DataSetMerger(my, their);
+        visitor.merge();
+
+        assertEquals(30_000, my.allPrimitives().size());
+        // the modified nodes have the same version, so they are kept
+        assertEquals(0, visitor.getConflicts().size());
+        assertEquals("my", my.getPrimitiveById(4, OsmPrimitiveType.NODE).get("name"));
+        for (int i = 1; i <= 10_000; i++) {
+            Way w = (Way) my.getPrimitiveById(i, OsmPrimitiveType.WAY);
+            assertEquals(2, w.getNodesCount());
+            assertSame(my.getPrimitiveById(2 * i, OsmPrimitiveType.NODE), w.lastNode());
+            assertEquals(Collections.singletonList(w), w.lastNode().getReferrers());
+        }
+        assertTrue(visitor.getLockHoldTime() >= 0);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof DataChangedEvent, events.get(0).toString());
+    }
+
+    /**
+     * Test that new primitives are merged onto new primitives with equal semantic attributes.
+     */
+    @Test
+    void testNewPrimitivesWithEqualSemanticAttributes() {
+        Node myNode1 = new Node(new LatLon(1, 1));
+        Node myNode2 = new Node(new LatLon(2, 2));
+        myNode2.put("amenity", "bench");
+        Node myNode3 = new Node(new LatLon(2, 2));
+        myNode3.put("amenity", "atm");
+        my.addPrimitive(myNode1);
+        my.addPrimitive(myNode2);
+        my.addPrimitive(myNode3);
+
+        Node theirNode1 = new Node(new LatLon(1, 1));
+        Node theirNode2 = new Node(new LatLon(2, 2));
+        theirNode2.put("amenity", "bench");
+        Node theirNode3 = new Node(new LatLon(3, 3));
+        theirNode3.put("amenity", "atm");
+        their.addPrimitive(theirNode1);
+        their.addPrimitive(theirNode2);
+        their.addPrimitive(theirNode3);
+
+        DataSetMerger visitor = new DataSetMerger(my, their);
+        visitor.merge();
+
+        assertEquals(0, visitor.getConflicts().size());
+        assertEquals(4, my.getNodes().size());
+        assertEquals(2, my.getNodes().stream().filter(n -> n.hasTag("amenity", "atm")).count());
+        assertEquals(1, my.getNodes().stream().filter(n -> n.hasTag("amenity", "bench")).count());
+    }
 }
@@ -0,0 +1,195 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests for class {@link FilterModel}.
+ */
+class FilterModelTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    private DataSet ds;
+    private final List<AbstractDatasetChangedEvent> events = new ArrayList<>();
+
+    /**
+     * Creates a data set with a grid of ways, a route relation and a multipolygon, and makes it the edit data set.
+     */
+    @BeforeEach
+    void setUp() {
+        ds = new DataSet();
+        List<Way> ways = new ArrayList<>();
+        for (int row = 0; row < 5; row++) {
+            Way way = new Way();
+            for (int col = 0; col < 5; col++) {
+                Node node = new Node(new LatLon(row, col));
+                if (col == row) {
+                    node.put("amenity", "bench");
+                }
+                ds.addPrimitive(node);
+                way.addNode(node);
+            }
+            way.put("highway", row % 2 == 0 ? "residential" : "primary");
+            ds.addPrimitive(way);
+            ways.add(way);
+        }
+        Relation route = new Relation();
+        route.put("type", "route");
+        route.addMember(new RelationMember("", ways.get(0)));
+        route.addMember(new RelationMember("", ways.get(1)));
+        ds.addPrimitive(route);
+
+        Way outer = new Way();
+        for (LatLon ll : Arrays.asList(new LatLon(10, 10), new LatLon(10, 11), new LatLon(11, 11))) {
+            Node node = new Node(ll);
+            ds.addPrimitive(node);
+            outer.addNode(node);
+        }
+        outer.addNode(outer.firstNode());
+        ds.addPrimitive(outer);
+        Relation multipolygon = new Relation();
+        multipolygon.put("type", "multipolygon");
+        multipolygon.put("landuse", "forest");
+        multipolygon.addMember(new RelationMember("outer", outer));
+        ds.addPrimitive(multipolygon);
+
+        MainApplication.getLayerManager().addLayer(new OsmDataLayer(ds, null, null));
+        ds.addDataSetListener(new DataSetListenerAdapter(event -> {
+            if (!(event instanceof DataChangedEvent)) {
+                events.add(event);
+            }
+        }));
+    }
+
+    private static Filter createFilter(String text, boolean hiding) {
+        Filter filter = new Filter();
+        filter.text = text;
+        filter.hiding = hiding;
+        return filter;
+    }
+
+    private Map<OsmPrimitive, String> getFilterStates(FilterModel model) {
+        Map<OsmPrimitive, String> states = new LinkedHashMap<>();
+        for (OsmPrimitive p : ds.allNonDeletedCompletePrimitives()) {
+            states.put(p, p.isDisabledAndHidden() ? "hidden" : p.isDisabled() ? "disabled" : "");
+        }
+        states.put(null, model.getDisabledAndHiddenCount() + "/" + model.getDisabledCount());
+        return states;
+    }
+
+    private void assertIncrementalEqualsFullRun(FilterModel model, Runnable change) {
+        events.clear();
+        change.run();
+        for (AbstractDatasetChangedEvent event : events) {
+            model.executeFilters(event);
+        }
+        Map<OsmPrimitive, String> incremental = getFilterStates(model);
+        model.executeFilters();
+        assertEquals(getFilterStates(model), incremental);
+    }
+
+    /**
+     * Test that running the filters on the primitives affected by changes gives the same result as running them on all primitives.
+     * @param filters the filter expressions, separated by {@code ;}, hiding if they start with {@code !}
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"!highway=residential", "highway=primary;!amenity=bench", "parent amenity=bench",
+            "!child highway=residential", "!type:way -parent amenity=bench", "!landuse=forest", "ways:2", "nth:2"})
+    void testIncrementalChanges(String filters) {
+        FilterModel model = new FilterModel();
+        for (String text : filters.split(";", -1)) {
+            model.addFilter(createFilter(text.replace("!", ""), text.startsWith("!")));
+        }
+        model.executeFilters();
+        assertTrue(model.getDisabledCount() + model.getDisabledAndHiddenCount() > 0, filters);
+
+        List<Way> ways = new ArrayList<>(ds.getWays());
+        Collections.sort(ways);
+        Way way = ways.get(1);
+        Node node = way.getNode(2);
+        assertIncrementalEqualsFullRun(model, () -> way.put("highway", "residential"));
+        assertIncrementalEqualsFullRun(model, () -> node.put("amenity", "bench"));
+        assertIncrementalEqualsFullRun(model, () -> way.getNode(1).remove("amenity"));
+        assertIncrementalEqualsFullRun(model, () -> node.setCoor(new LatLon(2.5, 2.5)));
+        assertIncrementalEqualsFullRun(model, () -> {
+            Way newWay = new Way();
+            newWay.addNode(node);
+            newWay.addNode(ways.get(2).getNode(2));
+            newWay.put("highway", "primary");
+            ds.addPrimitive(newWay);
+        });
+        assertIncrementalEqualsFullRun(model, () -> way.addNode(ways.get(3).getNode(0)));
+        assertIncrementalEqualsFullRun(model, () -> {
+            Relation multipolygon = ds.getRelations().stream().filter(Relation::isMultipolygon).findFirst().get();
+            multipolygon.remove("landuse");
+        });
+        assertIncrementalEqualsFullRun(model, () -> ds.update(() -> {
+            Way w = ways.get(3);
+            w.referrers(Relation.class).forEach(r -> r.removeMembersFor(w));
+            ds.removePrimitive(w);
+        }));
+        assertIncrementalEqualsFullRun(model, () -> ways.get(4).setDeleted(true));
+        assertIncrementalEqualsFullRun(model, () -> ways.get(4).setDeleted(false));
+    }
+
+    /**
+     * Test that the affected primitives are limited by the reference depth of the filters.
+     */
+    @Test
+    void testGetAffectedPrimitives() {
+        Node node = ds.getNodes().stream().filter(n -> n.hasTag("amenity", "bench") && n.getCoor().lat() == 0).findFirst().get();
+        Way way = node.getParentWays().get(0);
+        Relation route = way.referrers(Relation.class).findFirst().get();
+
+        // the nodes of a way depend on the filter state of the way
+        assertEquals(Collections.singleton(node), FilterModel.getAffectedPrimitives(Collections.singleton(node), 0));
+        assertTrue(FilterModel.getAffectedPrimitives(Collections.singleton(node), 1).containsAll(way.getNodes()));
+        assertTrue(!FilterModel.getAffectedPrimitives(Collections.singleton(node), 1).contains(route));
+        assertTrue(FilterModel.getAffectedPrimitives(Collections.singleton(node), 2).contains(route));
+        assertEquals(FilterModel.getAffectedPrimitives(Collections.singleton(node)),
+                FilterModel.getAffectedPrimitives(Collections.singleton(node), -1));
+    }
+
+    /**
+     * Test {@link FilterMatcher#getReferenceDepth()}.
+     * @throws Exception if a filter cannot be parsed
+     */
+    @Test
+    void testGetReferenceDepth() throws Exception {
+        FilterMatcher matcher = new FilterMatcher();
+        assertEquals(0, matcher.getReferenceDepth());
+        matcher.add(createFilter("highway=primary", false));
+        assertEquals(0, matcher.getReferenceDepth());
+        matcher.add(createFilter("child (amenity=bench | parent type=route)", true));
+        assertEquals(2, matcher.getReferenceDepth());
+    }
+}
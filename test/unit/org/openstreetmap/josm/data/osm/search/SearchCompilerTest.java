@@ -850,4 +850,24 @@ class SearchCompilerTest {
         assertTrue(c.match(OsmUtils.createPrimitive("node foo=bar")));
         assertFalse(c.match(OsmUtils.createPrimitive("node name=bar")));
     }
+
+    /**
+     * Test {@link SearchCompiler#getReferenceDepth(Match)}.
+     * @throws SearchParseError if an error has been encountered while compiling
+     */
+    @Test
+    void testGetReferenceDepth() throws SearchParseError {
+        assertEquals(0, SearchCompiler.getReferenceDepth(SearchCompiler.compile("highway=primary -name=* | indownloadedarea")));
+        assertEquals(1, SearchCompiler.getReferenceDepth(SearchCompiler.compile("child highway=primary | role:outer")));
+        assertEquals(1, SearchCompiler.getReferenceDepth(SearchCompiler.compile("nth:2")));
+        assertEquals(3, SearchCompiler.getReferenceDepth(SearchCompiler.compile("parent (child (parent type=route)) | ways:2")));
+        Match unknown = new Match() {
+            @Override
+            public boolean match(OsmPrimitive osm) {
+                return false;
+            }
+        };
+        assertEquals(-1, SearchCompiler.getReferenceDepth(unknown));
+        assertEquals(-1, SearchCompiler.getReferenceDepth(new SearchCompiler.And(SearchCompiler.compile("child foo"), unknown)));
+    }
 }
@@ -0,0 +1,167 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.search.SearchCompiler.Match;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for class {@link SearchPlanner}.
+ */
+@BasicPreferences
+class SearchPlannerTest {
+    private DataSet ds;
+
+    /**
+     * Creates a data set with a grid of nodes, ways along the rows and a relation.
+     */
+    @BeforeEach
+    void setUp() {
+        ds = new DataSet();
+        for (int row = 0; row < 10; row++) {
+            Way way = new Way();
+            for (int col = 0; col < 10; col++) {
+                Node node = new Node(new LatLon(row, col));
+                if (col % 3 == 0) {
+                    node.put("amenity", col == 0 ? "bench" : "atm");
+                }
+                ds.addPrimitive(node);
+                way.addNode(node);
+            }
+            way.put("highway", row % 2 == 0 ? "primary" : "residential");
+            ds.addPrimitive(way);
+        }
+        Relation relation = new Relation();
+        relation.put("type", "route");
+        relation.addMember(new RelationMember("", ds.getWays().iterator().next()));
+        ds.addPrimitive(relation);
+        ds.addDataSource(new DataSource(new Bounds(-0.5, -0.5, 2.5, 2.5), "test"));
+    }
+
+    private Set<OsmPrimitive> search(Match match) {
+        return ds.allPrimitives().stream().filter(match).collect(Collectors.toSet());
+    }
+
+    /**
+     * Test that the candidates contain all matching primitives, and that indexed queries do not return all primitives.
+     * @param query the search expression
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"highway=primary", "highway=*", "amenity=bench", "type:node amenity=*", "amenity=atm | highway=primary",
+            "indownloadedarea", "indownloadedarea amenity=*", "child highway=primary", "parent amenity=bench", "parent type=route",
+            "highway=primary -child amenity=atm", "foo=bar", "-highway=primary | amenity=*"})
+    void testCandidates(String query) throws SearchParseError {
+        Match match = SearchCompiler.compile(query);
+        Set<OsmPrimitive> expected = search(match);
+        Collection<OsmPrimitive> candidates = SearchPlanner.getCandidates(match, ds);
+        if (query.startsWith("-")) {
+            assertNull(candidates);
+            return;
+        }
+        assertNotNull(candidates, query);
+        assertTrue(candidates.size() < ds.allPrimitives().size(), query);
+        assertTrue(candidates.containsAll(expected), query);
+        assertEquals(expected, candidates.stream().filter(match).collect(Collectors.toSet()), query);
+    }
+
+    /**
+     * Test that the key index follows the changes of the data set.
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @Test
+    void testIndexUpdate() throws SearchParseError {
+        // the candidates are all primitives with the key
+        Match match = SearchCompiler.compile("amenity=bench");
+        assertEquals(40, SearchPlanner.getCandidates(match, ds).size());
+
+        Node node = new Node(LatLon.NORTH_POLE);
+        node.put("amenity", "bench");
+        ds.addPrimitive(node);
+        assertTrue(SearchPlanner.getCandidates(match, ds).contains(node));
+
+        node.remove("amenity");
+        node.put("leisure", "park");
+        assertEquals(40, SearchPlanner.getCandidates(match, ds).size());
+        assertEquals(Collections.singletonList(node), SearchPlanner.getCandidates(SearchCompiler.compile("leisure=*"), ds));
+
+        // deleted primitives are still part of the data set
+        node.setDeleted(true);
+        assertEquals(Collections.singletonList(node), SearchPlanner.getCandidates(SearchCompiler.compile("leisure=*"), ds));
+        ds.removePrimitive(node);
+        assertEquals(0, SearchPlanner.getCandidates(SearchCompiler.compile("leisure=*"), ds).size());
+    }
+
+    /**
+     * Test that the key index is built again after it has been dropped.
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @Test
+    void testClearIndexes() throws SearchParseError {
+        Match match = SearchCompiler.compile("amenity=bench");
+        assertEquals(40, SearchPlanner.getCandidates(match, ds).size());
+        SearchPlanner.clearIndexes(ds);
+
+        Node node = new Node(LatLon.NORTH_POLE);
+        node.put("amenity", "bench");
+        ds.addPrimitive(node);
+        assertEquals(41, SearchPlanner.getCandidates(match, ds).size());
+        assertTrue(SearchPlanner.getCandidates(match, ds).contains(node));
+    }
+
+    /**
+     * Test that the key index follows changes that are combined into one event.
+     * @throws SearchParseError if the expression cannot be parsed
+     */
+    @Test
+    void testIndexUpdateCombined() throws SearchParseError {
+        Match match = SearchCompiler.compile("amenity=*");
+        assertEquals(40, SearchPlanner.getCandidates(match, ds).size());
+        for (int count : Arrays.asList(50, 5000)) {
+            Set<Node> nodes = new HashSet<>();
+            ds.beginUpdate();
+            try {
+                for (int i = 0; i < count; i++) {
+                    Node node = new Node(new LatLon(20, 20));
+                    node.put("amenity", "bench");
+                    ds.addPrimitive(node);
+                    nodes.add(node);
+                }
+            } finally {
+                ds.endUpdate();
+            }
+            assertTrue(SearchPlanner.getCandidates(match, ds).containsAll(nodes));
+            ds.beginUpdate();
+            try {
+                nodes.forEach(n -> n.remove("amenity"));
+            } finally {
+                ds.endUpdate();
+            }
+            assertEquals(40, SearchPlanner.getCandidates(match, ds).size());
+        }
+    }
+}
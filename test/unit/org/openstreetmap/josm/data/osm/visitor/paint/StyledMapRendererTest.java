@@ -4,10 +4,26 @@ package org.openstreetmap.josm.data.osm.visitor.paint;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 
@@ -18,6 +34,13 @@ import nl.jqno.equalsverifier.Warning;
  */
 class StyledMapRendererTest {
 
+    /**
+     * Setup rule
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection().mapStyles();
+
     /**
      * Tests the floatToFixed function.
      */
@@ -90,4 +113,76 @@ class StyledMapRendererTest {
             .suppress(Warning.NONFINAL_FIELDS)
             .verify();
     }
+
+    /**
+     * Test that the tiled rendering yields the same image as the sequential rendering.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testTiledRendering() throws Exception {
+        DataSet ds;
+        try (InputStream in = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "multipolygon.osm"))) {
+            ds = OsmReader.parseDataSet(in, null);
+        }
+        NavigatableComponent nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, 1000, 700);
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        BBox bbox = new BBox();
+        ds.getNodes().forEach(bbox::add);
+        nc.zoomTo(new Bounds(bbox.getMinLat(), bbox.getMinLon(), bbox.getMaxLat(), bbox.getMaxLon()));
+
+        StyledMapRenderer.PREFERENCE_TILED_RENDERING.put(false);
+        BufferedImage expected = render(nc, ds);
+        StyledMapRenderer.PREFERENCE_TILED_RENDERING.put(true);
+        StyledMapRenderer.PREFERENCE_RENDER_TILE_SIZE.put(128);
+        BufferedImage actual = render(nc, ds);
+
+        int different = 0;
+        int painted = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int a = expected.getRGB(x, y);
+                int b = actual.getRGB(x, y);
+                if (a != Color.BLACK.getRGB()) {
+                    painted++;
+                }
+                // blending into a tile image and drawing it may round differently than blending directly
+                for (int shift = 0; shift < 32; shift += 8) {
+                    if (Math.abs(((a >> shift) & 0xff) - ((b >> shift) & 0xff)) > 8) {
+                        different++;
+                        break;
+                    }
+                }
+            }
+        }
+        assertTrue(painted > 10_000, "painted " + painted);
+        assertEquals(0, different);
+    }
+
+    private static BufferedImage render(NavigatableComponent nc, DataSet ds) {
+        BufferedImage image = new BufferedImage(nc.getWidth(), nc.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setClip(0, 0, nc.getWidth(), nc.getHeight());
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, nc.getWidth(), nc.getHeight());
+            new StyledMapRenderer(g, nc, false).render(ds, false, nc.getRealBounds());
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
 }
@@ -0,0 +1,228 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.TestUtils;
+
+/**
+ * Test class for {@link ProtobufReader}
+ */
+class ProtobufReaderTest {
+    /**
+     * Test reading var ints and zig-zag encoded var ints
+     * @throws IOException if the bytes cannot be read
+     */
+    @Test
+    void testVarInt() throws IOException {
+        ProtobufReader reader = new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0x08, 0x96, 0x01, // field 1 = 150
+            0x10, 0x03, // field 2 = -2 (zig-zag)
+            0x18, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01, // field 3 = -1 (uint64)
+        }));
+        assertTrue(reader.next());
+        assertEquals(1, reader.getField());
+        assertEquals(WireType.VARINT, reader.getType());
+        assertEquals(150, reader.readVarInt());
+        assertTrue(reader.next());
+        assertEquals(2, reader.getField());
+        assertEquals(-2, reader.readSignedVarInt());
+        assertTrue(reader.next());
+        assertEquals(3, reader.getField());
+        assertEquals(-1, reader.readVarInt());
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test zig-zag decoding of primitives
+     */
+    @Test
+    void testDecodeZigZag() {
+        for (long value : new long[] {0, 1, -1, 2, -2, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, ProtobufReader.decodeZigZag((value << 1) ^ (value >> 63)));
+        }
+        assertEquals(ProtobufParser.decodeZigZag(300).longValue(), ProtobufReader.decodeZigZag(300));
+    }
+
+    /**
+     * Test reading fixed size values
+     * @throws IOException if the bytes cannot be read
+     */
+    @Test
+    void testFixed() throws IOException {
+        ProtobufReader reader = new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0x0d, 0x00, 0x00, 0x80, 0x3f, // field 1 = 1f
+            0x11, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0xf0, 0xbf, // field 2 = -1d
+            0x1d, 0x01, 0x02, 0x03, 0x04, // field 3 = 0x04030201
+        }));
+        assertTrue(reader.next());
+        assertEquals(WireType.THIRTY_TWO_BIT, reader.getType());
+        assertEquals(1f, reader.readFloat());
+        assertTrue(reader.next());
+        assertEquals(WireType.SIXTY_FOUR_BIT, reader.getType());
+        assertEquals(-1d, reader.readDouble());
+        assertTrue(reader.next());
+        assertEquals(0x04030201, reader.readFixed32());
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test reading strings, embedded messages and packed repeated fields
+     * @throws IOException if the bytes cannot be read
+     */
+    @Test
+    void testLengthDelimited() throws IOException {
+        ProtobufReader reader = new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0x0a, 0x02, 0x68, 0x69, // field 1 = "hi"
+            0x12, 0x04, 0x08, 0x01, 0x10, 0x02, // field 2 = {1: 1, 2: 2}
+            0x1a, 0x03, 0x01, 0x96, 0x01, // field 3 = [1, 150] (packed)
+            0x20, 0x05, // field 4 = 5
+        }));
+        assertTrue(reader.next());
+        assertEquals(WireType.LENGTH_DELIMITED, reader.getType());
+        assertEquals("hi", reader.readString());
+
+        assertTrue(reader.next());
+        ProtobufReader message = reader.readMessage();
+        assertTrue(message.next());
+        assertEquals(1, message.readVarInt());
+        assertTrue(message.next());
+        assertEquals(2, message.getField());
+        assertEquals(2, message.readVarInt());
+        assertFalse(message.next());
+
+        assertTrue(reader.next());
+        int oldLimit = reader.pushLimit();
+        List<Long> values = new ArrayList<>();
+        while (reader.hasNext()) {
+            values.add(reader.readVarInt());
+        }
+        reader.popLimit(oldLimit);
+        assertEquals(2, values.size());
+        assertEquals(150, values.get(1));
+
+        assertTrue(reader.next());
+        assertEquals(4, reader.getField());
+        assertEquals(5, reader.readVarInt());
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test reading bytes and packed var ints into arrays
+     * @throws IOException if the bytes cannot be read
+     */
+    @Test
+    void testArrays() throws IOException {
+        ProtobufReader reader = new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0x0a, 0x02, 0x68, 0x69, // field 1 = "hi"
+            0x12, 0x03, 0x01, 0x96, 0x01, // field 2 = [1, 150] (packed)
+            0x18, 0x05, // field 3 = 5
+        }));
+        assertTrue(reader.next());
+        assertArrayEquals(new byte[] {0x68, 0x69}, reader.readBytes());
+        assertTrue(reader.next());
+        assertArrayEquals(new long[] {1, 150}, reader.readPackedVarInts());
+        assertTrue(reader.next());
+        assertEquals(3, reader.getField());
+        assertEquals(5, reader.readVarInt());
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test skipping fields
+     * @throws IOException if the bytes cannot be read
+     */
+    @Test
+    void testSkip() throws IOException {
+        ProtobufReader reader = new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0x08, 0x96, 0x01,
+            0x11, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0xf0, 0xbf,
+            0x1a, 0x02, 0x68, 0x69,
+            0x25, 0x00, 0x00, 0x80, 0x3f,
+            0x28, 0x01,
+        }));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(reader.next());
+            reader.skip();
+        }
+        assertTrue(reader.next());
+        assertEquals(5, reader.getField());
+        assertEquals(1, reader.readVarInt());
+        assertFalse(reader.next());
+    }
+
+    /**
+     * Test that malformed bytes are reported
+     */
+    @Test
+    void testMalformed() {
+        assertThrows(IOException.class, () -> readAll(new ProtobufReader(ProtobufTest.toByteArray(new int[] {0x08, 0x96}))));
+        assertThrows(IOException.class, () -> readAll(new ProtobufReader(ProtobufTest.toByteArray(new int[] {0x0a, 0x05, 0x68}))));
+        assertThrows(IOException.class, () -> readAll(new ProtobufReader(ProtobufTest.toByteArray(new int[] {0x0d, 0x00, 0x00}))));
+        assertThrows(IOException.class, () -> readAll(new ProtobufReader(ProtobufTest.toByteArray(new int[] {0x0b, 0x00}))));
+        assertThrows(IOException.class, () -> new ProtobufReader(ProtobufTest.toByteArray(new int[] {
+            0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01})).next());
+    }
+
+    /**
+     * Test that the reader gives the same records as {@link ProtobufParser}, for a memory-mapped vector tile
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    void testMappedTile() throws IOException {
+        Path tile = Paths.get(TestUtils.getTestDataRoot(), "pbf", "mapillary", "14", "3249", "6258.mvt");
+        try (FileChannel channel = FileChannel.open(tile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            Collection<ProtobufRecord> records = new ProtobufParser(bytes).allRecords();
+            assertEquals(2, records.size());
+
+            ProtobufReader reader = new ProtobufReader(buffer);
+            for (ProtobufRecord record : records) {
+                assertTrue(reader.next());
+                assertEquals(record.getField(), reader.getField());
+                assertEquals(record.getType(), reader.getType());
+                ProtobufReader message = reader.readMessage();
+                for (ProtobufRecord layerRecord : new ProtobufParser(record.getBytes()).allRecords()) {
+                    assertTrue(message.next());
+                    assertEquals(layerRecord.getField(), message.getField());
+                    assertEquals(layerRecord.getType(), message.getType());
+                    if (layerRecord.getType() == WireType.VARINT) {
+                        assertEquals(layerRecord.asUnsignedVarInt().longValue(), message.readVarInt());
+                    } else {
+                        assertEquals(layerRecord.asString(), message.readString());
+                    }
+                }
+                assertFalse(message.next());
+            }
+            assertFalse(reader.next());
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    private static void readAll(ProtobufReader reader) throws IOException {
+        while (reader.next()) {
+            if (reader.getType() == WireType.LENGTH_DELIMITED) {
+                reader.readString();
+            } else {
+                reader.skip();
+            }
+        }
+    }
+}
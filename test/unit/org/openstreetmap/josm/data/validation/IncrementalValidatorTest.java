@@ -0,0 +1,114 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.validation.tests.DuplicateNode;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of the {@link IncrementalValidator} class.
+ */
+class IncrementalValidatorTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    private final List<Runnable> pending = new ArrayList<>();
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    /**
+     * Test that errors follow the edits of the data set.
+     */
+    @Test
+    void testEdits() {
+        DataSet ds = new DataSet();
+        Node a = new Node(new LatLon(10, 10));
+        Node b = new Node(new LatLon(20, 20));
+        ds.addPrimitive(a);
+        ds.addPrimitive(b);
+
+        List<List<TestError>> notifications = new ArrayList<>();
+        IncrementalValidator validator = new IncrementalValidator(ds, Arrays.asList(new DuplicateNode()), pending::add,
+                notifications::add);
+        validator.start();
+        runPending();
+        assertEquals(1, notifications.size());
+        assertTrue(validator.getErrors().isEmpty());
+
+        // several events are handled by one revalidation
+        ds.update(() -> {
+            b.setCoor(new LatLon(10, 10));
+            b.put("foo", "bar");
+        });
+        assertEquals(1, pending.size());
+        runPending();
+        assertEquals(2, notifications.size());
+        assertEquals(1, validator.getErrors().size());
+        assertTrue(validator.getErrors().get(0).getPrimitives().contains(b));
+
+        b.setCoor(new LatLon(20, 20));
+        runPending();
+        assertTrue(validator.getErrors().isEmpty());
+
+        b.setCoor(new LatLon(10, 10));
+        runPending();
+        assertEquals(1, validator.getErrors().size());
+        ds.removePrimitive(b);
+        runPending();
+        assertTrue(validator.getErrors().isEmpty());
+
+        validator.stop();
+        ds.addPrimitive(new Node(new LatLon(10, 10)));
+        assertTrue(pending.isEmpty());
+    }
+
+    /**
+     * Test that the validation of many primitives is split into chunks, and that it can be suspended.
+     */
+    @Test
+    void testChunks() {
+        DataSet ds = new DataSet();
+        for (int i = 0; i < IncrementalValidator.CHUNK_SIZE; i++) {
+            ds.addPrimitive(new Node(new LatLon(i * 0.01, 0)));
+            ds.addPrimitive(new Node(new LatLon(i * 0.01, 0)));
+        }
+
+        List<List<TestError>> notifications = new ArrayList<>();
+        IncrementalValidator validator = new IncrementalValidator(ds, Arrays.asList(new DuplicateNode()), pending::add,
+                notifications::add);
+        validator.start();
+        pending.remove(0).run();
+        assertEquals(1, pending.size());
+        assertTrue(notifications.isEmpty());
+
+        validator.suspend();
+        pending.remove(0).run();
+        assertTrue(pending.isEmpty());
+        validator.resume();
+        runPending();
+        assertEquals(1, notifications.size());
+        assertEquals(IncrementalValidator.CHUNK_SIZE, validator.getErrors().size());
+    }
+}
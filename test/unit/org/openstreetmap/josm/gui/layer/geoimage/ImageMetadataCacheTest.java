@@ -0,0 +1,108 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.geoimage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openstreetmap.josm.data.gpx.GpxImageEntry;
+import org.openstreetmap.josm.data.imagery.street_level.Projections;
+
+/**
+ * Unit tests of {@link ImageMetadataCache} class.
+ */
+class ImageMetadataCacheTest {
+
+    /**
+     * Test that decoding the encoded metadata of an image gives the same metadata as reading the image.
+     * @param fileName the image file
+     * @throws IOException if the metadata cannot be encoded or decoded
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"nodist/data/exif-example_direction.jpg", "nodist/data/exif-example_speed_ele.jpg",
+            "nodist/data/exif-example_orientation=6.jpg"})
+    void testEncodeDecode(String fileName) throws IOException {
+        File file = new File(fileName);
+        GpxImageEntry expected = new GpxImageEntry(file);
+        expected.extractExif();
+        assertNotNull(expected.getExifInstant());
+
+        GpxImageEntry actual = new GpxImageEntry(file);
+        assertTrue(ImageMetadataCache.decode(ImageMetadataCache.encode(expected), actual));
+        assertEquals(expected.getExifInstant(), actual.getExifInstant());
+        assertEquals(expected.getExifGpsInstant(), actual.getExifGpsInstant());
+        assertEquals(expected.getExifCoor(), actual.getExifCoor());
+        assertEquals(expected.getPos(), actual.getPos());
+        assertEquals(expected.getExifImgDir(), actual.getExifImgDir());
+        assertEquals(expected.getSpeed(), actual.getSpeed());
+        assertEquals(expected.getElevation(), actual.getElevation());
+        assertEquals(expected.getExifOrientation(), actual.getExifOrientation());
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getProjectionType(), actual.getProjectionType());
+        assertEquals(expected.getIptcCaption(), actual.getIptcCaption());
+        assertEquals(expected.getIptcHeadline(), actual.getIptcHeadline());
+        assertEquals(expected.getIptcKeywords(), actual.getIptcKeywords());
+        assertEquals(expected.getIptcObjectName(), actual.getIptcObjectName());
+    }
+
+    /**
+     * Test encoding the metadata of an entry without metadata, and with IPTC fields.
+     * @throws IOException if the metadata cannot be encoded or decoded
+     */
+    @Test
+    void testEncodeDecodeFields() throws IOException {
+        GpxImageEntry expected = new GpxImageEntry(new File("foo.jpg"));
+        GpxImageEntry actual = new GpxImageEntry(new File("foo.jpg"));
+        assertTrue(ImageMetadataCache.decode(ImageMetadataCache.encode(expected), actual));
+        assertNull(actual.getExifInstant());
+        assertNull(actual.getPos());
+        assertNull(actual.getIptcKeywords());
+
+        expected.setIptcCaption("caption");
+        expected.setIptcHeadline("héadline");
+        expected.setIptcObjectName("");
+        expected.setIptcKeywords(Arrays.asList("a", "b"));
+        expected.setProjectionType(Projections.EQUIRECTANGULAR);
+        assertTrue(ImageMetadataCache.decode(ImageMetadataCache.encode(expected), actual));
+        assertEquals("caption", actual.getIptcCaption());
+        assertEquals("héadline", actual.getIptcHeadline());
+        assertEquals("", actual.getIptcObjectName());
+        assertEquals(Arrays.asList("a", "b"), actual.getIptcKeywords());
+        assertEquals(Projections.EQUIRECTANGULAR, actual.getProjectionType());
+    }
+
+    /**
+     * Test that metadata encoded by another version is not used.
+     * @throws IOException if the metadata cannot be encoded or decoded
+     */
+    @Test
+    void testOtherVersion() throws IOException {
+        GpxImageEntry entry = new GpxImageEntry(new File("foo.jpg"));
+        byte[] content = ImageMetadataCache.encode(entry);
+        content[0]++;
+        assertFalse(ImageMetadataCache.decode(content, entry));
+    }
+
+    /**
+     * Test that the cache key changes with the modification time of the file.
+     */
+    @Test
+    void testGetCacheKey() {
+        File file = new File("nodist/data/exif-example_direction.jpg");
+        File other = new File("nodist/data/exif-example_speed_ele.jpg");
+        assertEquals(ImageMetadataCache.getCacheKey(file), ImageMetadataCache.getCacheKey(new File(file.getAbsolutePath())));
+        assertNotEquals(ImageMetadataCache.getCacheKey(file), ImageMetadataCache.getCacheKey(other));
+        assertTrue(ImageMetadataCache.getCacheKey(file).endsWith(Long.toString(file.lastModified())));
+    }
+}
@@ -2,19 +2,26 @@
 package org.openstreetmap.josm.gui.layer.gpx;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.gpx.GpxData;
+import org.openstreetmap.josm.data.gpx.WayPoint;
+import org.openstreetmap.josm.data.projection.Ellipsoid;
 import org.openstreetmap.josm.gui.layer.GpxLayer;
 import org.openstreetmap.josm.gui.layer.gpx.GpxDrawHelper.ColorMode;
 import org.openstreetmap.josm.io.GpxReaderTest;
@@ -119,6 +126,83 @@ class GpxDrawHelperTest {
         assertEquals("[#000000, #FF0000, #FF0000, #FF0500, #FF0500, #FF0A00, #FF0A00, #FF1F00, #FF2E00, #FF3300]", colors.toString());
     }
 
+    /**
+     * Test that skipping the way points by their significance yields the Douglas-Peucker simplification.
+     */
+    @Test
+    void testComputeSignificance() {
+        Random random = new Random(42);
+        List<WayPoint> points = new ArrayList<>();
+        double lat = 47;
+        double lon = 8;
+        for (int i = 0; i < 2000; i++) {
+            WayPoint wp = new WayPoint(random.nextInt(500) == 0 ? new LatLon(Double.NaN, Double.NaN) : new LatLon(lat, lon));
+            wp.drawLine = random.nextInt(300) != 0;
+            points.add(wp);
+            lat += random.nextGaussian() * 1e-4;
+            lon += random.nextGaussian() * 1e-4;
+        }
+        points.get(0).drawLine = false;
+        float[] significance = GpxDrawHelper.computeSignificance(points);
+
+        for (double tolerance : new double[] {0.1, 1, 5, 20, 100}) {
+            List<WayPoint> expected = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i <= points.size(); i++) {
+                WayPoint wp = i < points.size() ? points.get(i) : null;
+                if (wp == null || !wp.isLatLonKnown() || !wp.drawLine) {
+                    if (start < i) {
+                        douglasPeucker(points.subList(start, i), tolerance, expected);
+                    }
+                    if (wp != null && !wp.isLatLonKnown()) {
+                        expected.add(wp);
+                        start = i + 1;
+                    } else {
+                        start = i;
+                    }
+                }
+            }
+            List<WayPoint> actual = IntStream.range(0, points.size()).filter(i -> significance[i] > tolerance)
+                    .mapToObj(points::get).collect(Collectors.toList());
+            assertEquals(expected, actual);
+            assertTrue(tolerance < 10 || actual.size() < points.size() / 2, Integer.toString(actual.size()));
+        }
+    }
+
+    private static void douglasPeucker(List<WayPoint> line, double tolerance, List<WayPoint> result) {
+        double cos = Math.cos(Math.toRadians(line.get(0).lat()));
+        double metersPerDegree = Math.toRadians(Ellipsoid.WGS84.a);
+        double[] x = line.stream().mapToDouble(wp -> wp.lon() * cos * metersPerDegree).toArray();
+        double[] y = line.stream().mapToDouble(wp -> wp.lat() * metersPerDegree).toArray();
+        result.add(line.get(0));
+        if (line.size() > 1) {
+            douglasPeucker(line, x, y, 0, line.size() - 1, tolerance, result);
+            result.add(line.get(line.size() - 1));
+        }
+    }
+
+    private static void douglasPeucker(List<WayPoint> line, double[] x, double[] y, int from, int to, double tolerance,
+            List<WayPoint> result) {
+        double dx = x[to] - x[from];
+        double dy = y[to] - y[from];
+        double lengthSq = dx * dx + dy * dy;
+        double maxDistance = -1;
+        int split = -1;
+        for (int i = from + 1; i < to; i++) {
+            double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((x[i] - x[from]) * dx + (y[i] - y[from]) * dy) / lengthSq));
+            double distance = Math.hypot(x[from] + t * dx - x[i], y[from] + t * dy - y[i]);
+            if (distance > maxDistance) {
+                maxDistance = distance;
+                split = i;
+            }
+        }
+        if (maxDistance > tolerance) {
+            douglasPeucker(line, x, y, from, split, tolerance, result);
+            result.add(line.get(split));
+            douglasPeucker(line, x, y, split, to, tolerance, result);
+        }
+    }
+
     /**
      *
      * @param fileName the GPX filename to parse
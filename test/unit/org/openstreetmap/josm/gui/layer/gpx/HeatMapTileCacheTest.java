@@ -0,0 +1,177 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.gpx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.gpx.WayPoint;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link HeatMapTileCache}.
+ */
+class HeatMapTileCacheTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 400;
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private final Semaphore loaded = new Semaphore(0);
+    private final HeatMapTileCache cache = new HeatMapTileCache(loaded::release);
+
+    private static List<WayPoint> createLine(EastNorth center) {
+        List<WayPoint> line = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            EastNorth en = center.add((i - 2500) * 0.5, 300 * Math.sin(i / 100.0));
+            WayPoint wp = new WayPoint(ProjectionRegistry.getProjection().eastNorth2latlon(en));
+            wp.drawLine = i > 0;
+            line.add(wp);
+        }
+        return line;
+    }
+
+    private static HeatMapTileCache.Style createStyle() {
+        return new HeatMapTileCache.Style(AlphaComposite.SrcOver.derive(0.2f),
+                new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND), null, null, 3);
+    }
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setBackground(new Color(0, 0, 0, 255));
+        g.clearRect(0, 0, WIDTH, HEIGHT);
+        g.dispose();
+        return image;
+    }
+
+    private BufferedImage paint(MapViewState state) throws InterruptedException {
+        BufferedImage image = createImage();
+        Graphics2D g = image.createGraphics();
+        while (!cache.paint(g, state, createStyle())) {
+            assertTrue(loaded.tryAcquire(10, TimeUnit.SECONDS));
+        }
+        g.dispose();
+        assertEquals(0, cache.getPendingCount());
+        return image;
+    }
+
+    private static int countLinePixels(BufferedImage image) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xff) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test that the tiles yield the same heat map as drawing the lines in one image, and that panning reuses the tiles.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPaint() throws Exception {
+        MapViewState state = MapViewState.createDefaultState(WIDTH, HEIGHT).usingScale(2);
+        EastNorth center = state.getCenter().getEastNorth();
+        List<WayPoint> line = createLine(center);
+        cache.setLines(Collections.singletonList(line), state.getProjection());
+        BufferedImage tiled = paint(state);
+        int tiles = cache.size();
+        assertTrue(tiles >= 6, Integer.toString(tiles));
+
+        // draw the lines in one image
+        BufferedImage expected = createImage();
+        Graphics2D g = expected.createGraphics();
+        g.setColor(Color.WHITE);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g.setComposite(AlphaComposite.SrcOver.derive(0.2f));
+        g.setStroke(new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        EastNorth topLeft = state.getForView(0, 0).getEastNorth();
+        int[] x = new int[line.size()];
+        int[] y = new int[line.size()];
+        for (int i = 0; i < line.size(); i++) {
+            EastNorth en = line.get(i).getEastNorth(state.getProjection());
+            x[i] = (int) (Math.floor(en.east() / 2) - Math.floor(topLeft.east() / 2));
+            y[i] = (int) (Math.floor(-en.north() / 2) - Math.floor(-topLeft.north() / 2));
+        }
+        g.drawPolyline(x, y, x.length);
+        g.dispose();
+        int linePixels = countLinePixels(expected);
+        assertTrue(linePixels > 5_000, Integer.toString(linePixels));
+        int different = 0;
+        for (int j = 0; j < HEIGHT; j++) {
+            for (int i = 0; i < WIDTH; i++) {
+                if (Math.abs((tiled.getRGB(i, j) & 0xff) - (expected.getRGB(i, j) & 0xff)) > 2) {
+                    different++;
+                }
+            }
+        }
+        // the strokes may be rasterized slightly differently at the borders of the tiles
+        assertTrue(different < linePixels / 100, different + " of " + linePixels);
+
+        // panning by one tile only draws the new tiles, the old ones are reused
+        MapViewState panned = state.usingCenter(center.add(2 * HeatMapTileCache.TILE_SIZE, 0));
+        BufferedImage pannedImage = paint(panned);
+        int newTiles = cache.size() - tiles;
+        assertTrue(newTiles > 0 && newTiles <= HEIGHT / HeatMapTileCache.TILE_SIZE + 2, Integer.toString(newTiles));
+        for (int j = 0; j < HEIGHT; j++) {
+            for (int i = HeatMapTileCache.TILE_SIZE; i < WIDTH; i++) {
+                assertEquals(tiled.getRGB(i, j), pannedImage.getRGB(i - HeatMapTileCache.TILE_SIZE, j));
+            }
+        }
+    }
+
+    /**
+     * Test that the tiles of another scale are resampled until the tiles of the new scale are drawn.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testZoom() throws Exception {
+        MapViewState state = MapViewState.createDefaultState(WIDTH, HEIGHT).usingScale(4);
+        cache.setLines(Collections.singletonList(createLine(state.getCenter().getEastNorth())), state.getProjection());
+        paint(state);
+
+        MapViewState zoomed = state.usingScale(2);
+        BufferedImage image = createImage();
+        Graphics2D g = image.createGraphics();
+        assertFalse(cache.paint(g, zoomed, createStyle()));
+        g.dispose();
+        int resampled = countLinePixels(image);
+        assertTrue(resampled > 2_000, Integer.toString(resampled));
+
+        int linePixels = countLinePixels(paint(zoomed));
+        assertTrue(linePixels > 2_000, Integer.toString(linePixels));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(cache.hasLines(state.getProjection()));
+    }
+}
@@ -0,0 +1,125 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.gui.layer.imagery.DecodedTileCache.LayerTileCache;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for class {@link DecodedTileCache}.
+ */
+@BasicPreferences
+class DecodedTileCacheTest {
+    private static final TileSource SOURCE = new TMSTileSource(new ImageryInfo("test"));
+    /** image and overhead of a 256x256 tile */
+    private static final long TILE_BYTES = 256 * 256 * 4 + 256;
+
+    private static Tile tile(int x) {
+        return new Tile(SOURCE, x, 0, 10, new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    /**
+     * Test that the least recently used tiles of all layers are dropped, when the cache exceeds its size.
+     */
+    @Test
+    void testEviction() {
+        DecodedTileCache.PROP_MAX_SIZE.put(1);
+        DecodedTileCache cache = DecodedTileCache.getInstance();
+        LayerTileCache a = cache.createTileCache(256);
+        LayerTileCache b = cache.createTileCache(256);
+        try {
+            assertEquals(3, a.getCacheSize());
+            Tile a0 = tile(0);
+            a.addTile(a0);
+            a.addTile(tile(1));
+            b.addTile(tile(0));
+            assertEquals(3 * TILE_BYTES, cache.getSize());
+
+            // a0 is used again, so a1 is the least recently used tile
+            assertSame(a0, a.getTile(SOURCE, 0, 0, 10));
+            b.addTile(tile(1));
+            assertNull(a.getTile(SOURCE, 1, 0, 10));
+            assertSame(a0, a.getTile(SOURCE, 0, 0, 10));
+            assertEquals(1, a.getTileCount());
+            assertEquals(2, b.getTileCount());
+            assertEquals(3 * TILE_BYTES, cache.getSize());
+
+            a.clear();
+            assertEquals(0, a.getTileCount());
+            assertEquals(2, b.getTileCount());
+            assertEquals(2 * TILE_BYTES, cache.getSize());
+        } finally {
+            a.clear();
+            b.clear();
+        }
+    }
+
+    /**
+     * Test that the size of a tile is updated, when its image is loaded.
+     */
+    @Test
+    void testTileLoaded() {
+        DecodedTileCache cache = DecodedTileCache.getInstance();
+        LayerTileCache a = cache.createTileCache(256);
+        try {
+            Tile tile = new Tile(SOURCE, 0, 0, 10);
+            a.addTile(tile);
+            assertEquals(256, cache.getSize());
+            tile.setImage(new BufferedImage(256, 256, BufferedImage.TYPE_3BYTE_BGR));
+            a.tileLoaded(tile);
+            assertEquals(256 * 256 * 3 + 256, cache.getSize());
+        } finally {
+            a.clear();
+        }
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Test that the removal listener is notified of the dropped tiles.
+     */
+    @Test
+    void testRemovalListener() {
+        DecodedTileCache.PROP_MAX_SIZE.put(1);
+        DecodedTileCache cache = DecodedTileCache.getInstance();
+        LayerTileCache a = cache.createTileCache(256);
+        List<Tile> removed = new ArrayList<>();
+        a.setRemovalListener(removed::add);
+        try {
+            Tile a0 = tile(0);
+            Tile a1 = tile(1);
+            a.addTile(a0);
+            a.addTile(a1);
+            a.addTile(tile(2));
+            assertTrue(removed.isEmpty());
+
+            // a0 is the least recently used tile
+            a.addTile(tile(3));
+            assertEquals(Collections.singletonList(a0), removed);
+
+            // a tile replaced by another instance is dropped too
+            removed.clear();
+            a.addTile(tile(1));
+            assertEquals(Collections.singletonList(a1), removed);
+
+            removed.clear();
+            a.clear();
+            assertEquals(3, removed.size());
+        } finally {
+            a.clear();
+        }
+    }
+}
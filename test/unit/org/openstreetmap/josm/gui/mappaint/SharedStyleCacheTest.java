@@ -0,0 +1,189 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmUtils;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
+import org.openstreetmap.josm.data.preferences.sources.SourceType;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleSource;
+import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link SharedStyleCache}.
+ */
+class SharedStyleCacheTest {
+
+    private static final double[] SCALES = {0.1, 1, 10, 100, 1000};
+
+    /**
+     * Setup rule
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private static ElemStyles createStyles(String css) {
+        MapCSSStyleSource source = new MapCSSStyleSource(css);
+        source.loadStyleSource();
+        assertTrue(source.getErrors().isEmpty(), source.getErrors()::toString);
+        return new ElemStyles(Collections.singleton(source));
+    }
+
+    private static Way addWay(DataSet ds, String tags) {
+        Way way = (Way) OsmUtils.createPrimitive("way " + tags);
+        ds.addPrimitive(way);
+        return way;
+    }
+
+    /**
+     * Test that the styles are shared between primitives with the same tags.
+     */
+    @Test
+    void testSameTags() {
+        ElemStyles styles = createStyles("way[highway=residential] { width: 3; color: red; text: eval(tag(\"name\")); }");
+        SharedStyleCache cache = styles.getSharedStyleCache();
+        DataSet ds = new DataSet();
+        Way w1 = addWay(ds, "highway=residential name=Foo");
+        Way w2 = addWay(ds, "highway=residential name=Foo");
+        Way w3 = addWay(ds, "highway=residential name=Bar");
+
+        StyleElementList expected = styles.generateStyles(w1, 10, false).a;
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(expected, styles.generateStyles(w2, 10, false).a);
+        assertEquals(1, cache.getHits());
+        styles.generateStyles(w3, 10, false);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.size());
+
+        // the selection state is part of the key
+        ds.setSelected(w2);
+        styles.generateStyles(w2, 10, false);
+        assertEquals(1, cache.getHits());
+        styles.generateStyles(w2, 10, false);
+        assertEquals(2, cache.getHits());
+
+        styles.clearCached();
+        GuiHelper.runInEDTAndWait(() -> { });
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test that styles depending on the parents or on the metadata of a primitive are not shared.
+     */
+    @Test
+    void testContextDependent() {
+        ElemStyles styles = createStyles(
+                "way[highway] { width: 2; }\n" +
+                "relation[type=route] > way[highway] { color: blue; }\n" +
+                "way[railway] { width: eval(osm_id() > 0 ? 3 : 1); }\n" +
+                "way[building]:modified { fill-color: red; }\n");
+        SharedStyleCache cache = styles.getSharedStyleCache();
+        DataSet ds = new DataSet();
+        Way w1 = addWay(ds, "highway=primary");
+        Way w2 = addWay(ds, "highway=primary");
+        Relation r = (Relation) OsmUtils.createPrimitive("relation type=route");
+        ds.addPrimitive(r);
+        r.addMember(new RelationMember("", w1));
+
+        StyleElementList member = styles.generateStyles(w1, 10, false).a;
+        StyleElementList other = styles.generateStyles(w2, 10, false).a;
+        assertNotEquals(member, other);
+        assertEquals(1, cache.getContextDependent());
+        // ways without parents cannot match the child selector
+        assertEquals(other, styles.generateStyles(addWay(ds, "highway=primary"), 10, false).a);
+        assertEquals(1, cache.getHits());
+
+        styles.generateStyles(addWay(ds, "railway=rail"), 10, false);
+        styles.generateStyles(addWay(ds, "railway=rail"), 10, false);
+        styles.generateStyles(addWay(ds, "building=yes"), 10, false);
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getContextDependent());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test that the default style yields the same styles with and without the shared cache.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testDefaultStyle() throws Exception {
+        MapCSSStyleSource source = new MapCSSStyleSource(new SourceEntry(SourceType.MAP_PAINT_STYLE,
+                "resources/styles/standard/elemstyles.mapcss", "standard", "standard style", true));
+        source.loadStyleSource();
+        ElemStyles styles = new ElemStyles(Collections.singleton(source));
+
+        List<OsmPrimitive> primitives = new ArrayList<>();
+        for (String file : new String[] {"multipolygon.osm", "crossingWays.osm", "orthogonalize.osm"}) {
+            try (InputStream in = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), file))) {
+                primitives.addAll(OsmReader.parseDataSet(in, null).allPrimitives());
+            }
+        }
+        SharedStyleCache.PROP_ENABLED.put(false);
+        List<String> expected = generateStyles(styles, primitives);
+        assertEquals(0, styles.getSharedStyleCache().getMisses());
+        SharedStyleCache.PROP_ENABLED.put(true);
+        assertEquals(expected, generateStyles(styles, primitives));
+        assertTrue(styles.getSharedStyleCache().getHits() > 0, styles.getSharedStyleCache()::toString);
+    }
+
+    /**
+     * Test that the least recently used tag sets are removed when the cache is full.
+     */
+    @Test
+    void testLeastRecentlyUsed() {
+        SharedStyleCache.PROP_MAX_ENTRIES.put(2);
+        try {
+            SharedStyleCache cache = new SharedStyleCache();
+            DataSet ds = new DataSet();
+            SharedStyleCache.Key k1 = cache.createKey(addWay(ds, "highway=primary"), false);
+            SharedStyleCache.Key k2 = cache.createKey(addWay(ds, "highway=secondary"), false);
+            SharedStyleCache.Key k3 = cache.createKey(addWay(ds, "highway=tertiary"), false);
+            StyleElementList styles = new StyleElementList();
+            cache.put(k1, styles, Range.ZERO_TO_INFINITY, false);
+            cache.put(k2, styles, Range.ZERO_TO_INFINITY, false);
+            assertNotNull(cache.get(k1, 10, false));
+            cache.put(k3, styles, Range.ZERO_TO_INFINITY, false);
+            assertEquals(2, cache.size());
+            assertNotNull(cache.get(k1, 10, false));
+            assertNull(cache.get(k2, 10, false));
+            assertNotNull(cache.get(k3, 10, false));
+        } finally {
+            SharedStyleCache.PROP_MAX_ENTRIES.remove();
+        }
+    }
+
+    private static List<String> generateStyles(ElemStyles styles, List<OsmPrimitive> primitives) {
+        List<String> result = new ArrayList<>();
+        for (double scale : SCALES) {
+            for (OsmPrimitive osm : primitives) {
+                result.add(osm + " at scale " + scale + ": " + styles.generateStyles(osm, scale, false));
+            }
+        }
+        return result;
+    }
+}
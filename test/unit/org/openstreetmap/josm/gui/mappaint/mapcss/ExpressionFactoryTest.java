@@ -1,15 +1,25 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.osm.OsmUtils;
+import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.ConstantExpression;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import net.trajano.commons.testing.UtilityClassTestUtil;
 
+import java.awt.Color;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Unit tests of {@link ExpressionFactory}.
@@ -45,4 +55,39 @@ class ExpressionFactoryTest {
             }
         }
     }
+
+    /**
+     * Tests that functions with constant arguments are evaluated when the expression is created.
+     */
+    @Test
+    void testConstantFolding() {
+        Environment env = new Environment(OsmUtils.createPrimitive("way name=foo"));
+        Expression upper = ExpressionFactory.createFunctionExpression("upper", Collections.singletonList(new LiteralExpression("foo")));
+        assertTrue(upper instanceof ConstantExpression);
+        assertEquals("FOO", upper.evaluate(env));
+        Expression rgb = ExpressionFactory.createFunctionExpression("rgb",
+                Arrays.asList(new LiteralExpression(1f), new LiteralExpression(0f), new LiteralExpression(0f)));
+        assertTrue(rgb instanceof ConstantExpression);
+        assertEquals(Color.RED, rgb.evaluate(env));
+        Expression nested = ExpressionFactory.createFunctionExpression("lower", Collections.singletonList(upper));
+        assertTrue(nested instanceof ConstantExpression);
+        assertEquals("foo", nested.evaluate(env));
+
+        // depends on the environment
+        Expression tag = ExpressionFactory.createFunctionExpression("tag", Collections.singletonList(new LiteralExpression("name")));
+        assertFalse(tag instanceof ConstantExpression);
+        Expression upperTag = ExpressionFactory.createFunctionExpression("upper", Collections.singletonList(tag));
+        assertFalse(upperTag instanceof ConstantExpression);
+        assertEquals("FOO", upperTag.evaluate(env));
+        // side effects
+        assertFalse(ExpressionFactory.createFunctionExpression("print", Collections.singletonList(new LiteralExpression("foo")))
+                instanceof ConstantExpression);
+        // mutable result
+        assertFalse(ExpressionFactory.createFunctionExpression("split",
+                Arrays.asList(new LiteralExpression(";"), new LiteralExpression("a;b"))) instanceof ConstantExpression);
+        // errors are reported on evaluation
+        assertFalse(ExpressionFactory.createFunctionExpression("to_int", Collections.singletonList(new LiteralExpression("x")))
+                instanceof ConstantExpression);
+        assertFalse(ExpressionFactory.createFunctionExpression("upper", Collections.emptyList()) instanceof ConstantExpression);
+    }
 }
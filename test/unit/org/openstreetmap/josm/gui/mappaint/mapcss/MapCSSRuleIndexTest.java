@@ -0,0 +1,185 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint.mapcss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmUtils;
+import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
+import org.openstreetmap.josm.data.preferences.sources.SourceType;
+import org.openstreetmap.josm.gui.mappaint.Cascade;
+import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.MultiCascade;
+import org.openstreetmap.josm.gui.mappaint.Range;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link MapCSSRuleIndex}.
+ */
+class MapCSSRuleIndexTest {
+
+    private static final double[] SCALES = {0.1, 1, 10, 100, 1000};
+
+    /**
+     * Setup rule
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    /**
+     * Applies the style the way it was done before the selectors were compiled, i.e. by matching each candidate selector
+     * of the rule index with {@link Selector#matches}.
+     * @param index the rule index of the style
+     * @param source the style
+     * @param mc the multi cascade
+     * @param osm the primitive
+     * @param scale the scale
+     */
+    static void applyInterpreted(MapCSSStyleIndex index, MapCSSStyleSource source, MultiCascade mc, IPrimitive osm, double scale) {
+        Environment env = new Environment(osm, mc, null, source);
+        int lastDeclUsed = -1;
+        Iterator<MapCSSRule> candidates = index.getRuleCandidates(osm);
+        while (candidates.hasNext()) {
+            MapCSSRule r = candidates.next();
+            for (Selector s : r.selectors) {
+                env.clearSelectorMatchingInformation();
+                env.layer = s.getSubpart().getId(env);
+                String sub = env.layer;
+                if (!s.matches(env)) {
+                    continue;
+                }
+                if (s.getRange().contains(scale)) {
+                    mc.range = Range.cut(mc.range, s.getRange());
+                } else {
+                    mc.range = mc.range.reduceAround(scale, s.getRange());
+                    continue;
+                }
+                if (r.declaration.idx == lastDeclUsed)
+                    continue;
+                lastDeclUsed = r.declaration.idx;
+                if ("*".equals(sub)) {
+                    for (Entry<String, Cascade> entry : mc.getLayers()) {
+                        env.layer = entry.getKey();
+                        if ("*".equals(env.layer)) {
+                            continue;
+                        }
+                        r.execute(env);
+                    }
+                }
+                env.layer = sub;
+                r.execute(env);
+            }
+        }
+    }
+
+    private static String toString(MultiCascade mc) {
+        TreeMap<String, String> layers = new TreeMap<>();
+        for (Entry<String, Cascade> entry : mc.getLayers()) {
+            layers.put(entry.getKey(), entry.getValue().toString());
+        }
+        return mc.range + " " + layers;
+    }
+
+    private static void assertSameCascades(MapCSSStyleSource source, List<? extends IPrimitive> primitives) {
+        MapCSSStyleIndex index = new MapCSSStyleIndex();
+        index.buildIndex(source.rules.stream());
+        for (IPrimitive osm : primitives) {
+            for (double scale : SCALES) {
+                MultiCascade expected = new MultiCascade();
+                applyInterpreted(index, source, expected, osm, scale);
+                MultiCascade actual = new MultiCascade();
+                source.apply(actual, osm, scale, false);
+                assertEquals(toString(expected), toString(actual), osm + " at scale " + scale);
+            }
+        }
+    }
+
+    /**
+     * Test that compiled selectors yield the same cascades as the interpreted selectors for a style using all kinds of
+     * conditions, selectors and subparts.
+     */
+    @Test
+    void testCompiledMatchesInterpreted() {
+        MapCSSStyleSource source = new MapCSSStyleSource(
+                "*[highway] { z-index: 1; }\n" +
+                "node[amenity=bench], way[amenity=bench] { set .bench; symbol-shape: circle; }\n" +
+                "node.bench[backrest=yes] { text: auto; }\n" +
+                "way[highway=residential], way[highway=service][service!=parking_aisle] { width: 3; color: rgb(0.5, 0.5, 0.5); }\n" +
+                "way[highway=residential][oneway?] { text-color: red; }\n" +
+                "way[highway=residential][oneway?!] { dashes: 1, 2; }\n" +
+                "way[highway=~/^(primary|secondary)$/] { width: eval(plus(2, 3)); }\n" +
+                "way[/^addr:/] { text: eval(\"address\"); }\n" +
+                "way[!name][highway] { text: eval(upper(\"unnamed\")); }\n" +
+                "way[name=*highway] { set .named_like_highway; }\n" +
+                "way[highway][name^=Main] { font-size: 12; }\n" +
+                "way[highway][highway] { major-z-index: 2; }\n" +
+                "way|z12-15[highway] { width: 1; }\n" +
+                "way|z16-[highway]::casing { width: 5; color: black; }\n" +
+                "way[highway]::* { opacity: 0.5; }\n" +
+                "area[building] { fill-color: red; }\n" +
+                "area[landuse][!building] { fill-color: green; }\n" +
+                "way[highway] > node[barrier] { symbol-shape: square; }\n" +
+                "relation[type=route] > way { set .route; }\n" +
+                "way.route[highway] { casing-width: 1; }\n" +
+                "relation[type=multipolygon][landuse] { text: name; }\n" +
+                "node:connection { symbol-size: 5; }\n" +
+                "way:closed[highway] { fill-color: blue; }\n" +
+                "*[eval(has_tag_key(\"ref\"))] { text: ref; }\n");
+        source.loadStyleSource();
+        assertTrue(source.getErrors().isEmpty(), source.getErrors()::toString);
+
+        DataSet ds = new DataSet();
+        List<OsmPrimitive> primitives = new ArrayList<>();
+        for (String primitive : new String[] {
+                "node", "node amenity=bench", "node amenity=bench backrest=yes", "node barrier=gate ref=1",
+                "way", "way highway=residential", "way highway=residential oneway=yes name=Main_Street",
+                "way highway=residential oneway=no", "way highway=service", "way highway=service service=parking_aisle",
+                "way highway=primary area=no", "way highway=secondary addr:street=Foo", "way highway=footway name=footway",
+                "way amenity=bench", "way building=yes", "way building=yes area=no", "way landuse=grass",
+                "relation type=route", "relation type=multipolygon landuse=forest", "relation type=multipolygon building=yes",
+        }) {
+            OsmPrimitive osm = OsmUtils.createPrimitive(primitive);
+            ds.addPrimitive(osm);
+            primitives.add(osm);
+        }
+        assertSameCascades(source, primitives);
+    }
+
+    /**
+     * Test that compiled selectors yield the same cascades as the interpreted selectors for the default style.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCompiledMatchesInterpretedDefaultStyle() throws Exception {
+        MapCSSStyleSource source = new MapCSSStyleSource(new SourceEntry(SourceType.MAP_PAINT_STYLE,
+                "resources/styles/standard/elemstyles.mapcss", "standard", "standard style", true));
+        source.loadStyleSource();
+        assertTrue(source.getErrors().isEmpty(), source.getErrors()::toString);
+
+        for (String file : new String[] {"multipolygon.osm", "crossingWays.osm", "orthogonalize.osm"}) {
+            try (InputStream in = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), file))) {
+                DataSet ds = OsmReader.parseDataSet(in, null);
+                assertSameCascades(source, new ArrayList<>(ds.allPrimitives()));
+            }
+        }
+    }
+}
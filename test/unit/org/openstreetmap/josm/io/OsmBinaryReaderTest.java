@@ -0,0 +1,169 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OsmBinaryReader}, {@link OsmBinaryWriter} and {@link OsmBinaryJournal}.
+ */
+@BasicPreferences
+class OsmBinaryReaderTest {
+
+    private static DataSet createDataSet() {
+        DataSet ds = new DataSet();
+        ds.setUploadPolicy(UploadPolicy.DISCOURAGED);
+        ds.addDataSource(new DataSource(new Bounds(50, 10, 51, 11), "test"));
+        Node n1 = new Node(1, 3);
+        n1.setCoor(new LatLon(50.1234567, 10.7654321));
+        n1.setUser(User.createOsmUser(42, "mapper"));
+        n1.setChangesetId(1000);
+        n1.setRawTimestamp(1500000000);
+        Node n2 = new Node(new LatLon(50.123456789, 10.987654321));
+        n2.put("amenity", "bench");
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, n2));
+        w.put("highway", "footway");
+        Relation r = new Relation(5, 2);
+        ds.addPrimitiveRecursive(w);
+        ds.addPrimitive(r);
+        r.setMembers(Arrays.asList(new RelationMember("outer", w), new RelationMember("", n1)));
+        r.put("type", "multipolygon");
+        r.setModified(true);
+        return ds;
+    }
+
+    private static byte[] write(DataSet ds) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmBinaryWriter writer = new OsmBinaryWriter(out)) {
+            writer.write(ds);
+        }
+        return out.toByteArray();
+    }
+
+    private static DataSet read(byte[] bytes) throws IllegalDataException {
+        return OsmBinaryReader.parseDataSet(new ByteArrayInputStream(bytes), null);
+    }
+
+    /**
+     * Test that a data set is read as written.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        DataSet ds = createDataSet();
+        byte[] bytes = write(ds);
+        assertTrue(OsmBinaryReader.isBinaryOsm(bytes));
+        DataSet result = read(bytes);
+
+        assertEquals(UploadPolicy.DISCOURAGED, result.getUploadPolicy());
+        assertEquals(1, result.getDataSources().size());
+        assertEquals(2, result.getNodes().size());
+        assertEquals(1, result.getWays().size());
+        assertEquals(1, result.getRelations().size());
+
+        Node n1 = (Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertEquals(new LatLon(50.1234567, 10.7654321), n1.getCoor());
+        assertEquals(3, n1.getVersion());
+        assertEquals(1000, n1.getChangesetId());
+        assertEquals(1500000000, n1.getRawTimestamp());
+        assertEquals("mapper", n1.getUser().getName());
+        assertFalse(n1.isModified());
+
+        Way w = result.getWays().iterator().next();
+        assertTrue(w.isNew());
+        assertEquals("footway", w.get("highway"));
+        assertEquals(n1, w.getNode(0));
+        Node n2 = w.getNode(1);
+        assertEquals(50.123456789, n2.lat());
+        assertEquals(10.987654321, n2.lon());
+        assertEquals("bench", n2.get("amenity"));
+
+        Relation r = (Relation) result.getPrimitiveById(5, OsmPrimitiveType.RELATION);
+        assertTrue(r.isModified());
+        assertEquals(2, r.getMembersCount());
+        assertEquals("outer", r.getMember(0).getRole());
+        assertEquals(w, r.getMember(0).getMember());
+        assertEquals(n1, r.getMember(1).getMember());
+    }
+
+    /**
+     * Test that appended changes replace the snapshot, and that an incomplete tail is ignored.
+     * @param dir temporary directory
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testJournal(@TempDir File dir) throws Exception {
+        DataSet ds = createDataSet();
+        File file = new File(dir, "test.osmb");
+        try (OsmBinaryJournal journal = new OsmBinaryJournal(ds)) {
+            assertTrue(journal.isSnapshotNeeded());
+            assertFalse(journal.appendChanges());
+            journal.writeSnapshot(file);
+            long snapshotSize = file.length();
+
+            Way w = ds.getWays().iterator().next();
+            Node added = new Node(new LatLon(50.5, 10.5));
+            ds.addPrimitive(added);
+            w.addNode(added);
+            Node n1 = (Node) ds.getPrimitiveById(1, OsmPrimitiveType.NODE);
+            n1.put("name", "moved");
+            n1.setCoor(new LatLon(50.2, 10.2));
+            Relation r = (Relation) ds.getPrimitiveById(5, OsmPrimitiveType.RELATION);
+            ds.removePrimitive(r);
+            assertTrue(journal.appendChanges());
+            assertEquals(file, journal.getFile());
+            assertTrue(file.length() > snapshotSize);
+        }
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataSet result = OsmBinaryReader.parseDataSet(file.toPath(), null);
+        assertEquals(3, result.getNodes().size());
+        assertEquals(3, result.getWays().iterator().next().getNodesCount());
+        Node n1 = (Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertEquals("moved", n1.get("name"));
+        assertEquals(new LatLon(50.2, 10.2), n1.getCoor());
+        assertNull(result.getPrimitiveById(5, OsmPrimitiveType.RELATION));
+
+        // crash while appending: the last segment is ignored
+        DataSet truncated = read(Arrays.copyOf(bytes, bytes.length - 3));
+        assertEquals(2, truncated.getNodes().size());
+        assertNotNull(truncated.getPrimitiveById(5, OsmPrimitiveType.RELATION));
+    }
+
+    /**
+     * Test that invalid files are rejected.
+     */
+    @Test
+    void testInvalid() {
+        assertFalse(OsmBinaryReader.isBinaryOsm("<?xml version='1.0'".getBytes()));
+        assertThrows(IllegalDataException.class, () -> read("JOSMOSMBc".getBytes()));
+        assertThrows(IllegalDataException.class, () -> read("<?xml version='1.0' encoding='UTF-8'?>".getBytes()));
+    }
+}
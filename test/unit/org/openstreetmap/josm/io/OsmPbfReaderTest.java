@@ -0,0 +1,147 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link OsmPbfReader} and {@link OsmPbfWriter}.
+ */
+@BasicPreferences
+class OsmPbfReaderTest {
+
+    private static byte[] write(DataSet ds) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmPbfWriter writer = new OsmPbfWriter(out)) {
+            writer.write(ds);
+        }
+        return out.toByteArray();
+    }
+
+    private static DataSet read(byte[] bytes) throws IllegalDataException {
+        return OsmPbfReader.parseDataSet(new ByteArrayInputStream(bytes), null);
+    }
+
+    /**
+     * Test that a data set is read as written.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        DataSet ds = new DataSet();
+        ds.addDataSource(new DataSource(new Bounds(50, 10, 51, 11), "test"));
+        Node n1 = new Node(1, 3);
+        n1.setCoor(new LatLon(50.1234567, 10.7654321));
+        n1.setUser(User.createOsmUser(42, "mapper"));
+        n1.setChangesetId(1000);
+        n1.setRawTimestamp(1500000000);
+        Node n2 = new Node(2, 1);
+        n2.setCoor(new LatLon(-33.8567844, 151.2152967));
+        n2.put("amenity", "bench");
+        n2.put("name", "Bänkchen");
+        Way w = new Way(10, 2);
+        w.setNodes(Arrays.asList(n1, n2, n1));
+        w.put("highway", "footway");
+        Relation r = new Relation(5, 2);
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(w);
+        ds.addPrimitive(r);
+        r.setMembers(Arrays.asList(new RelationMember("outer", w), new RelationMember("", n1), new RelationMember("sub", r)));
+        r.put("type", "multipolygon");
+        Node deleted = new Node(3, 1);
+        deleted.setCoor(LatLon.ZERO);
+        ds.addPrimitive(deleted);
+        deleted.setDeleted(true);
+
+        DataSet result = read(write(ds));
+
+        assertEquals(1, result.getDataSources().size());
+        assertEquals(new Bounds(50, 10, 51, 11), result.getDataSources().iterator().next().bounds);
+        assertEquals(2, result.getNodes().size());
+        assertNull(result.getPrimitiveById(3, OsmPrimitiveType.NODE));
+
+        Node rn1 = (Node) result.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertEquals(new LatLon(50.1234567, 10.7654321), rn1.getCoor());
+        assertEquals(3, rn1.getVersion());
+        assertEquals(1000, rn1.getChangesetId());
+        assertEquals(1500000000, rn1.getRawTimestamp());
+        assertEquals("mapper", rn1.getUser().getName());
+        assertEquals(42, rn1.getUser().getId());
+        Node rn2 = (Node) result.getPrimitiveById(2, OsmPrimitiveType.NODE);
+        assertEquals(new LatLon(-33.8567844, 151.2152967), rn2.getCoor());
+        assertEquals("Bänkchen", rn2.get("name"));
+        assertNull(rn2.getUser());
+
+        Way rw = (Way) result.getPrimitiveById(10, OsmPrimitiveType.WAY);
+        assertEquals("footway", rw.get("highway"));
+        assertEquals(Arrays.asList(rn1, rn2, rn1), rw.getNodes());
+
+        Relation rr = (Relation) result.getPrimitiveById(5, OsmPrimitiveType.RELATION);
+        assertEquals(3, rr.getMembersCount());
+        assertEquals("outer", rr.getMember(0).getRole());
+        assertEquals(rw, rr.getMember(0).getMember());
+        assertEquals(rn1, rr.getMember(1).getMember());
+        assertEquals(rr, rr.getMember(2).getMember());
+    }
+
+    /**
+     * Test that data spanning several blocks is read in order.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testManyBlocks() throws Exception {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            Node n = new Node(i, 1);
+            n.setCoor(new LatLon(i * 1e-4, -i * 1e-4));
+            if (i % 3 == 0) {
+                n.put("ref", Integer.toString(i));
+            }
+            ds.addPrimitive(n);
+            nodes.add(n);
+        }
+        Way w = new Way(1, 1);
+        w.setNodes(nodes.subList(0, 10_000));
+        ds.addPrimitive(w);
+
+        DataSet result = read(write(ds));
+        assertEquals(20_000, result.getNodes().size());
+        Node n = (Node) result.getPrimitiveById(19_998, OsmPrimitiveType.NODE);
+        assertEquals("19998", n.get("ref"));
+        assertEquals(new LatLon(1.9998, -1.9998), n.getCoor());
+        assertNull(result.getPrimitiveById(19_999, OsmPrimitiveType.NODE).get("ref"));
+        assertEquals(10_000, result.getWays().iterator().next().getNodesCount());
+    }
+
+    /**
+     * Test that invalid files are rejected.
+     */
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalDataException.class, () -> read("<?xml version='1.0' encoding='UTF-8'?>".getBytes()));
+        assertThrows(IllegalDataException.class, () -> read(new byte[] {0, 0, 0, 2, 10, 0}));
+    }
+}
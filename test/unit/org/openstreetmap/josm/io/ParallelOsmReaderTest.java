@@ -0,0 +1,170 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.io.OsmReader.Options;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link ParallelOsmReader} class.
+ */
+@BasicPreferences
+class ParallelOsmReaderTest {
+    private static final Pattern NEW_ID = Pattern.compile("(id|ref)='(-\\d+)'");
+
+    private static Options[][] options() {
+        return new Options[][]{
+                new Options[]{},
+                new Options[]{Options.CONVERT_UNKNOWN_TO_TAGS, Options.SAVE_ORIGINAL_ID},
+        };
+    }
+
+    /**
+     * Writes the data set, with the ids of new primitives replaced by their order of appearance,
+     * as these ids depend on the primitives created before.
+     */
+    private static String write(DataSet ds) throws IOException {
+        try (StringWriter stringWriter = new StringWriter();
+             OsmWriter writer = OsmWriterFactory.createOsmWriter(new PrintWriter(stringWriter), true, OsmWriter.DEFAULT_API_VERSION)) {
+            writer.write(ds);
+            writer.flush();
+            Map<String, String> ids = new HashMap<>();
+            Matcher m = NEW_ID.matcher(stringWriter.toString());
+            StringBuffer sb = new StringBuffer();
+            while (m.find()) {
+                m.appendReplacement(sb, m.group(1) + "='new" + ids.computeIfAbsent(m.group(2), k -> Integer.toString(ids.size())) + "'");
+            }
+            return m.appendTail(sb).toString();
+        }
+    }
+
+    private static void assertSameResult(byte[] osm, Options... options) throws Exception {
+        DataSet expected = OsmReader.parseDataSet(new ByteArrayInputStream(osm), null, options);
+        DataSet actual = ParallelOsmReader.parseDataSet(new ByteArrayInputStream(osm), null, options);
+        assertEquals(write(expected), write(actual));
+        assertEquals(expected.getDataSources().size(), actual.getDataSources().size());
+        assertEquals(expected.getRemark(), actual.getRemark());
+        assertEquals(expected.getChangeSetTags(), actual.getChangeSetTags());
+    }
+
+    /**
+     * Test that the test files are read as by {@link OsmReader}.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testEquivalentToOsmReader() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get(TestUtils.getTestDataRoot()))) {
+            files = paths.filter(p -> p.toString().endsWith(".osm")).sorted().collect(Collectors.toList());
+        }
+        assertTrue(files.size() > 20);
+        for (Path file : files) {
+            byte[] osm = Files.readAllBytes(file);
+            DataSet ds;
+            try (InputStream in = new ByteArrayInputStream(osm)) {
+                ds = OsmReader.parseDataSet(in, null);
+            } catch (IllegalDataException e) {
+                // invalid files are covered by testInvalidData
+                continue;
+            }
+            assertNotNull(ds, file.toString());
+            for (Options[] options : options()) {
+                assertSameResult(osm, options);
+            }
+        }
+    }
+
+    /**
+     * Test that data spread over many batches is added in document order.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testManyBatches() throws Exception {
+        StringBuilder sb = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6' upload='false'>\n")
+                .append("<bounds minlat='50' minlon='10' maxlat='51' maxlon='11'/>\n");
+        for (int i = 1; i <= 5000; i++) {
+            long id = i % 7 == 0 ? -i : i;
+            sb.append("<node id='").append(id).append(id > 0 ? "' version='2' changeset='3' uid='" + i % 5 + "' user='u" + i % 5 : "")
+              .append("' timestamp='2020-01-0").append(1 + i % 9).append("T00:00:00Z' lat='50.").append(i)
+              .append("' lon='10.").append(i).append(i % 11 == 0 ? "' action='modify" : "").append("'>");
+            if (i % 3 == 0) {
+                sb.append("<tag k='amenity' v='bench'/><tag k='ref' v='").append(i).append("'/>");
+            }
+            sb.append("</node>\n");
+        }
+        for (int i = 1; i <= 1000; i++) {
+            sb.append("<way id='").append(i).append("' version='1'><nd ref='").append(i).append("'/><nd ref='-").append(7 * (1 + i % 700))
+              .append("'/><nd ref='").append(4999 - i).append("'/><tag k='highway' v='residential'/></way>\n");
+        }
+        for (int i = 1; i <= 100; i++) {
+            sb.append("<relation id='").append(i).append("' version='1'><member type='way' ref='").append(i)
+              .append("' role='outer'/><member type='node' ref='").append(i).append("' role=''/><member type='relation' ref='")
+              .append(1 + (i + 1) % 100).append("' role='sub'/><tag k='type' v='multipolygon'/></relation>\n");
+        }
+        sb.append("<relation id='-1' action='delete'><member type='node' ref='1' role=''/></relation>\n");
+        sb.append("</osm>\n");
+        byte[] osm = sb.toString().getBytes(StandardCharsets.UTF_8);
+        for (Options[] options : options()) {
+            assertSameResult(osm, options);
+        }
+        DataSet ds = ParallelOsmReader.parseDataSet(new ByteArrayInputStream(osm), null);
+        assertEquals(5000, ds.getNodes().stream().filter(n -> !n.isIncomplete()).count());
+        assertEquals(1000, ds.getWays().size());
+        assertEquals(101, ds.getRelations().size());
+    }
+
+    /**
+     * Test that invalid data is rejected with the error of {@link OsmReader}.
+     */
+    @Test
+    void testInvalidData() {
+        String[] invalid = {
+            "<osm/>",
+            "<osm version='0.1'/>",
+            "<osm version='0.6'><node id='1' uid='nan'/></osm>",
+            "<osm version='0.6'><node/></osm>",
+            "<osm version='0.6'><node id='1'/></osm>",
+            "<osm version='0.6'><node id='1' version='1' lat='95' lon='0'/></osm>",
+            "<osm version='0.6'><node id='1' version='1'><tag k='foo'/></node></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd/></way></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd ref='0'/></way></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd ref='nan'/></way></osm>",
+            "<osm version='0.6'><relation id='1' version='1'><member/></relation></osm>",
+            "<osm version='0.6'><relation id='1' version='1'><member type='foo' ref='1'/></relation></osm>",
+            "<osm version='0.6'><node id='1' version='1'/><node id='2' version='x'/><node id='3' version='1'>",
+        };
+        for (String osm : invalid) {
+            byte[] bytes = ("<?xml version='1.0' encoding='UTF-8'?>" + osm).getBytes(StandardCharsets.UTF_8);
+            IllegalDataException expected = assertThrows(IllegalDataException.class,
+                    () -> OsmReader.parseDataSet(new ByteArrayInputStream(bytes), null), osm);
+            IllegalDataException actual = assertThrows(IllegalDataException.class,
+                    () -> ParallelOsmReader.parseDataSet(new ByteArrayInputStream(bytes), null), osm);
+            // the location may differ, as errors are detected after the element has been read
+            assertEquals(expected.getMessage().replaceAll(" ?\\(at line.*", ""), actual.getMessage().replaceAll(" ?\\(at line.*", ""), osm);
+        }
+    }
+}
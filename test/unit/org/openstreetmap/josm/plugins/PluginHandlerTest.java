@@ -6,10 +6,13 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -173,4 +176,29 @@ class PluginHandlerTest {
         assertEquals(0, (int) invocationLogEntry[0]);
         assertEquals("Plugin information", invocationLogEntry[2]);
     }
+
+    private static PluginInformation newPluginInformation(String name, boolean lazy, String requires) {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Plugin-Lazy", Boolean.toString(lazy));
+        PluginInformation info = new PluginInformation(new File(name + ".jar"), name, manifest);
+        info.localrequires = requires;
+        return info;
+    }
+
+    /**
+     * Unit test of {@link PluginHandler#getLazyPlugins}: lazy plugins required by non-lazy plugins, also through
+     * other lazy plugins, are not deferred.
+     */
+    @Test
+    void testGetLazyPlugins() {
+        PluginInformation a = newPluginInformation("a", true, "b");
+        PluginInformation b = newPluginInformation("b", true, null);
+        PluginInformation c = newPluginInformation("c", false, "a");
+        PluginInformation d = newPluginInformation("d", true, "e");
+        PluginInformation e = newPluginInformation("e", true, null);
+        PluginInformation f = newPluginInformation("f", false, null);
+        assertEquals(Arrays.asList(d, e), PluginHandler.getLazyPlugins(Arrays.asList(a, b, c, d, e, f)));
+        assertEquals(Arrays.asList(a, b), PluginHandler.getLazyPlugins(Arrays.asList(a, b, f)));
+    }
 }
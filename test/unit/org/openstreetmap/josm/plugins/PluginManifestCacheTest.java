@@ -0,0 +1,93 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PluginManifestCache} class.
+ */
+@BasicPreferences
+class PluginManifestCacheTest {
+    @TempDir
+    Path tempDir;
+
+    private File copyPlugin(String fileName) throws IOException {
+        Path jar = tempDir.resolve("dummy_plugin.jar");
+        Files.copy(Paths.get(TestUtils.getTestDataRoot(), "__files", "plugin", fileName), jar);
+        return jar.toFile();
+    }
+
+    /**
+     * Test that a cached manifest gives the same plugin information as the jar, also after the cache file is read again.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCachedManifest() throws Exception {
+        File jar = copyPlugin("dummy_plugin.v31772.jar");
+        File cacheFile = tempDir.resolve("plugin-manifests.cache").toFile();
+        PluginManifestCache cache = new PluginManifestCache(cacheFile);
+        cache.read();
+        assertNull(cache.get(jar));
+        cache.put(jar, PluginInformation.readManifest(jar, "dummy_plugin"));
+        cache.save();
+        assertTrue(cacheFile.isFile());
+
+        PluginManifestCache reloaded = new PluginManifestCache(cacheFile);
+        reloaded.read();
+        Manifest manifest = reloaded.get(jar);
+        assertNotNull(manifest);
+        PluginInformation expected = new PluginInformation(jar, "dummy_plugin");
+        PluginInformation actual = new PluginInformation(jar, "dummy_plugin", manifest);
+        assertEquals(expected.localversion, actual.localversion);
+        assertEquals(expected.className, actual.className);
+        assertEquals(expected.localmainversion, actual.localmainversion);
+        assertEquals(expected.libraries, actual.libraries);
+        assertEquals(expected.attr, actual.attr);
+    }
+
+    /**
+     * Test that a manifest is not used once the jar has changed.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testChangedJar() throws Exception {
+        File jar = copyPlugin("dummy_plugin.v31701.jar");
+        PluginManifestCache cache = new PluginManifestCache(tempDir.resolve("plugin-manifests.cache").toFile());
+        cache.put(jar, PluginInformation.readManifest(jar, "dummy_plugin"));
+        assertNotNull(cache.get(jar));
+        cache.save();
+        cache.read();
+        assertNotNull(cache.get(jar));
+        assertTrue(jar.setLastModified(jar.lastModified() - 10_000));
+        assertNull(cache.get(jar));
+    }
+
+    /**
+     * Test that a corrupted cache file is ignored.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testCorruptedCacheFile() throws Exception {
+        File jar = copyPlugin("dummy_plugin.v31701.jar");
+        Path cacheFile = tempDir.resolve("plugin-manifests.cache");
+        Files.write(cacheFile, new byte[] {0, 0, 0, 1, 0, 0, 0, 5, 1, 2});
+        PluginManifestCache cache = new PluginManifestCache(cacheFile.toFile());
+        cache.read();
+        assertNull(cache.get(jar));
+    }
+}
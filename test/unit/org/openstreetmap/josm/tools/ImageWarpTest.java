@@ -0,0 +1,91 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.tools.ImageWarp.Interpolation;
+import org.openstreetmap.josm.tools.ImageWarp.PointTransform;
+
+/**
+ * Unit tests of {@link ImageWarp} class.
+ */
+@BasicPreferences
+class ImageWarpTest {
+    private static final Dimension TARGET_DIM = new Dimension(300, 200);
+
+    /** A non-linear transform, which rotates and bends the image */
+    private static final PointTransform TRANSFORM = pt -> new Point2D.Double(
+            0.8 * pt.getX() + 0.2 * pt.getY() + 0.0005 * pt.getX() * pt.getY() - 10,
+            -0.2 * pt.getX() + 0.8 * pt.getY() + 0.001 * pt.getX() * pt.getX() + 20);
+
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Test that {@link ImageWarp.PrecomputedGridTransform} gives the same values as {@link ImageWarp.GridTransform}.
+     */
+    @Test
+    void testPrecomputedGridTransform() {
+        ImageWarp.GridTransform grid = new ImageWarp.GridTransform(TRANSFORM, 7);
+        ImageWarp.PrecomputedGridTransform precomputed = new ImageWarp.PrecomputedGridTransform(TRANSFORM, 7, TARGET_DIM);
+        for (int j = 0; j < TARGET_DIM.height; j++) {
+            for (int i = 0; i < TARGET_DIM.width; i++) {
+                Point2D pt = new Point2D.Double(i, j);
+                assertEquals(grid.transform(pt), precomputed.transform(pt), pt::toString);
+            }
+        }
+        // points outside of the target image use the master transform
+        Point2D outside = new Point2D.Double(-5, TARGET_DIM.height + 10);
+        assertEquals(TRANSFORM.transform(outside), precomputed.transform(outside));
+    }
+
+    /**
+     * Test that warping an image in bands of rows on several threads gives the same image as warping it row by row.
+     * @param interpolation the interpolation method
+     */
+    @ParameterizedTest
+    @EnumSource(Interpolation.class)
+    void testWarpParallel(Interpolation interpolation) {
+        BufferedImage image = createImage();
+        BufferedImage expected = ImageWarp.warp(image, TARGET_DIM, new ImageWarp.GridTransform(TRANSFORM, 7), interpolation);
+        BufferedImage actual = ImageWarp.warp(image, TARGET_DIM,
+                new ImageWarp.PrecomputedGridTransform(TRANSFORM, 7, TARGET_DIM), interpolation, true);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, actual.getType());
+        assertEquals(TARGET_DIM.width, actual.getWidth());
+        assertEquals(TARGET_DIM.height, actual.getHeight());
+        assertArrayEquals(getPixels(expected), getPixels(actual));
+    }
+
+    /**
+     * Test that an identity transform gives the original image, and that pixels outside of it stay transparent.
+     */
+    @Test
+    void testWarpIdentity() {
+        BufferedImage image = createImage();
+        BufferedImage warped = ImageWarp.warp(image, new Dimension(300, 256), pt -> pt, Interpolation.NEAREST_NEIGHBOR, true);
+        assertArrayEquals(getPixels(image), warped.getRGB(0, 0, 256, 256, null, 0, 256));
+        assertEquals(0, warped.getRGB(299, 100));
+    }
+}